@@ -20,6 +20,7 @@ package org.apache.olingo.client.api;
 
 import java.util.concurrent.ExecutorService;
 
+import org.apache.olingo.client.api.edm.MetadataCache;
 import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -266,4 +267,25 @@ public interface Configuration {
    * @param executorService new executor services.
    */
   void setExecutor(ExecutorService executorService);
+
+  /**
+   * Gets the cache of parsed metadata documents.
+   * The default implementation supports no cache and returns null.
+   *
+   * @return metadata cache (if configured via <tt>setMetadataCache</tt>) or null.
+   */
+  default MetadataCache getMetadataCache() {
+    return null;
+  }
+
+  /**
+   * Sets the cache of parsed metadata documents used by metadata requests.
+   * The default implementation ignores the cache.
+   *
+   * @param cache metadata cache; null to disable caching.
+   * @see MetadataCache
+   */
+  default void setMetadataCache(final MetadataCache cache) {
+    // No caching by default.
+  }
 }
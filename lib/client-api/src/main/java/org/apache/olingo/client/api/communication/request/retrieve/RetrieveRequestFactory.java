@@ -22,6 +22,7 @@ import java.net.URI;
 
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetPagingIterator;
 import org.apache.olingo.client.api.domain.ClientProperty;
 import org.apache.olingo.client.api.domain.ClientSingleton;
 
@@ -76,6 +77,35 @@ public interface RetrieveRequestFactory {
    */
   ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> getEntitySetIteratorRequest(URI uri);
 
+  /**
+   * Gets an iterator over the entities of all pages of an entity set, following the next links.
+   * <br/>
+   * The next page is requested on the configured executor while the current page is consumed.
+   *
+   * @param uri URI of the first page.
+   * @return new {@link ClientEntitySetPagingIterator} instance.
+   * @see #getEntitySetPagingIterator(URI, int)
+   */
+  default ClientEntitySetPagingIterator getEntitySetPagingIterator(final URI uri) {
+    return getEntitySetPagingIterator(uri, 1);
+  }
+
+  /**
+   * Gets an iterator over the entities of all pages of an entity set, following the next links.
+   * <br/>
+   * Pages are requested on the configured executor while previous pages are consumed,
+   * up to the given number of pages ahead of the consumer.
+   * The default implementation does not support paging iterators and throws an
+   * {@link UnsupportedOperationException}.
+   *
+   * @param uri URI of the first page.
+   * @param maxPrefetchedPages maximum number of pages retrieved or being retrieved ahead of the consumer.
+   * @return new {@link ClientEntitySetPagingIterator} instance.
+   */
+  default ClientEntitySetPagingIterator getEntitySetPagingIterator(final URI uri, final int maxPrefetchedPages) {
+    throw new UnsupportedOperationException("Paging iterators are not supported by this request factory.");
+  }
+
   /**
    * Gets a uri request returning a single OData entity.
    *
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.domain;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+
+/**
+ * OData entity set iterator following the next links across all pages of an entity set.
+ * <br/>
+ * Pages are requested on the executor of the client configuration: while the entities of one page are consumed,
+ * the following pages are already retrieved, up to the given number of pages ahead of the consumer.
+ * Each retrieved page is held in memory until it is consumed.
+ * <br/>
+ * Errors retrieving a page are thrown when the consumer reaches that page.
+ * <b>Please don't forget to call the <tt>close()</tt> method when the iteration is abandoned before its end.</b>
+ */
+public class ClientEntitySetPagingIterator implements Iterator<ClientEntity> {
+
+  private final ODataClient odataClient;
+
+  private final int maxPrefetchedPages;
+
+  /** Retrieved pages not yet consumed; guarded by <code>this</code> as all the fields below. */
+  private final Deque<Page> pages = new ArrayDeque<Page>();
+
+  /** The next page to be requested, if any. */
+  private URI nextPage;
+
+  private boolean fetching;
+
+  private boolean closed;
+
+  private Integer count;
+
+  private Iterator<ClientEntity> current = Collections.<ClientEntity> emptyIterator();
+
+  /**
+   * Constructor; the first page is requested immediately.
+   *
+   * @param odataClient client instance getting the pages
+   * @param uri URI of the first page
+   * @param maxPrefetchedPages maximum number of pages retrieved or being retrieved ahead of the consumer
+   */
+  public ClientEntitySetPagingIterator(final ODataClient odataClient, final URI uri, final int maxPrefetchedPages) {
+    if (maxPrefetchedPages < 1) {
+      throw new IllegalArgumentException("At least one page must be retrieved ahead.");
+    }
+    this.odataClient = odataClient;
+    this.maxPrefetchedPages = maxPrefetchedPages;
+    synchronized (this) {
+      nextPage = uri;
+      schedule();
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      final Page page = takePage();
+      if (page == null) {
+        return false;
+      }
+      current = page.entities.iterator();
+    }
+    return true;
+  }
+
+  @Override
+  public ClientEntity next() {
+    if (hasNext()) {
+      return current.next();
+    }
+    throw new NoSuchElementException("No entity found");
+  }
+
+  /**
+   * Unsupported operation.
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("Operation not supported");
+  }
+
+  /**
+   * Gets a spliterator over the remaining entities, e.g., to be used in a stream.
+   *
+   * @return sequential spliterator of unknown size
+   */
+  public Spliterator<ClientEntity> spliterator() {
+    return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+  }
+
+  /**
+   * Gets the count of entities as sent by the service with the first page.
+   *
+   * @return count if exists and the first page has already been consumed; null otherwise.
+   */
+  public synchronized Integer getCount() {
+    return count;
+  }
+
+  /**
+   * Closes the iterator; pages already retrieved are discarded and no further pages are requested.
+   */
+  public synchronized void close() {
+    closed = true;
+    nextPage = null;
+    pages.clear();
+    current = Collections.<ClientEntity> emptyIterator();
+  }
+
+  private synchronized Page takePage() {
+    while (pages.isEmpty()) {
+      if (!fetching) {
+        return null;
+      }
+      try {
+        wait();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the next page", e);
+      }
+    }
+    final Page page = pages.remove();
+    if (page.error != null) {
+      close();
+      throw page.error;
+    }
+    if (count == null) {
+      count = page.count;
+    }
+    schedule();
+    return page;
+  }
+
+  /** Requests the next page if there is one and the limit of pages ahead of the consumer allows it. */
+  private void schedule() {
+    if (!fetching && !closed && nextPage != null && pages.size() < maxPrefetchedPages) {
+      final URI uri = nextPage;
+      nextPage = null;
+      fetching = true;
+      try {
+        odataClient.getConfiguration().getExecutor().execute(new Runnable() {
+          @Override
+          public void run() {
+            Page page = null;
+            try {
+              // A page requested before the iterator has been closed is not retrieved any more.
+              page = isClosed() ? null : fetch(uri);
+            } finally {
+              // Also an error not caught by fetch() must not leave the consumer waiting for this page forever.
+              fetched(page == null ? new Page(new IllegalStateException("Retrieving the page " + uri + " failed.")) :
+                  page);
+            }
+          }
+        });
+      } catch (final RejectedExecutionException e) {
+        fetching = false;
+        pages.add(new Page(e));
+      }
+    }
+  }
+
+  private synchronized boolean isClosed() {
+    return closed;
+  }
+
+  private synchronized void fetched(final Page page) {
+    fetching = false;
+    if (!closed) {
+      pages.add(page);
+      nextPage = page.next;
+      schedule();
+    }
+    notifyAll();
+  }
+
+  private Page fetch(final URI uri) {
+    try {
+      final ODataRetrieveResponse<ClientEntitySetIterator<ClientEntitySet, ClientEntity>> response =
+          odataClient.getRetrieveRequestFactory().getEntitySetIteratorRequest(uri).execute();
+      try {
+        final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator = response.getBody();
+        final List<ClientEntity> entities = new ArrayList<ClientEntity>();
+        while (iterator.hasNext()) {
+          entities.add(iterator.next());
+        }
+        final URI next = iterator.getNext();
+        return new Page(entities, iterator.getCount(), next == null || next.isAbsolute() ? next : uri.resolve(next));
+      } finally {
+        response.close();
+      }
+    } catch (final RuntimeException e) {
+      return new Page(e);
+    }
+  }
+
+  private static final class Page {
+
+    private final List<ClientEntity> entities;
+
+    private final Integer count;
+
+    private final URI next;
+
+    private final RuntimeException error;
+
+    private Page(final List<ClientEntity> entities, final Integer count, final URI next) {
+      this.entities = entities;
+      this.count = count;
+      this.next = next;
+      error = null;
+    }
+
+    private Page(final RuntimeException error) {
+      entities = null;
+      count = null;
+      next = null;
+      this.error = error;
+    }
+  }
+}
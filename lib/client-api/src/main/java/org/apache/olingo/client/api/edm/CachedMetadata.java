@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.edm;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.olingo.client.api.edm.xml.XMLMetadata;
+
+/**
+ * A parsed metadata document together with the ETag it has been sent with
+ * and the validators of the documents it references.
+ */
+public final class CachedMetadata {
+
+  private final String eTag;
+
+  private final XMLMetadata metadata;
+
+  private final Map<URI, Validator> references;
+
+  public CachedMetadata(final String eTag, final XMLMetadata metadata) {
+    this(eTag, metadata, Collections.<URI, Validator> emptyMap());
+  }
+
+  public CachedMetadata(final String eTag, final XMLMetadata metadata, final Map<URI, Validator> references) {
+    this.eTag = eTag;
+    this.metadata = metadata;
+    this.references = Collections.unmodifiableMap(references);
+  }
+
+  /**
+   * Gets the ETag of the metadata document.
+   *
+   * @return ETag as sent by the service.
+   */
+  public String getETag() {
+    return eTag;
+  }
+
+  /**
+   * Gets the parsed metadata document, including the schemas taken from referenced documents.
+   *
+   * @return metadata document.
+   */
+  public XMLMetadata getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * Gets the validators of the referenced documents whose schemas are contained in the metadata document.
+   *
+   * @return validators by absolute URI of the referenced document.
+   */
+  public Map<URI, Validator> getReferences() {
+    return references;
+  }
+
+  /**
+   * Validators a referenced document has been sent with; at least one of them is set.
+   */
+  public static final class Validator {
+
+    private final String eTag;
+
+    private final String lastModified;
+
+    public Validator(final String eTag, final String lastModified) {
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the ETag of the referenced document.
+     *
+     * @return ETag or <tt>null</tt> if the service did not send one.
+     */
+    public String getETag() {
+      return eTag;
+    }
+
+    /**
+     * Gets the value of the <tt>Last-Modified</tt> header of the referenced document.
+     *
+     * @return date as sent by the service or <tt>null</tt> if the service did not send one.
+     */
+    public String getLastModified() {
+      return lastModified;
+    }
+  }
+}
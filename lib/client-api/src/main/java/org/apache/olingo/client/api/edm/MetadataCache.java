@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.edm;
+
+import java.net.URI;
+
+/**
+ * Cache of parsed metadata documents, consulted by metadata requests if configured
+ * via <tt>Configuration.setMetadataCache</tt>.
+ * <br/>
+ * A cached document is revalidated with its ETag in an <tt>If-None-Match</tt> header; if the service answers
+ * with status code 304 (Not Modified), the documents referenced with <tt>edmx:Reference</tt> are revalidated
+ * with their ETag or <tt>Last-Modified</tt> date in the same way.
+ * Only if none of them has changed, the cached document is used without reading and parsing it again.
+ * Documents are only cached if the service sends an ETag for them and a validator for each referenced document.
+ */
+public interface MetadataCache {
+
+  /**
+   * Gets a cached metadata document.
+   *
+   * @param uri URI of the metadata document.
+   * @return the cached document or <tt>null</tt> if there is none.
+   */
+  CachedMetadata get(URI uri);
+
+  /**
+   * Stores a metadata document, replacing any document cached for the same URI.
+   *
+   * @param uri URI of the metadata document.
+   * @param metadata the document to be cached.
+   */
+  void put(URI uri, CachedMetadata metadata);
+}
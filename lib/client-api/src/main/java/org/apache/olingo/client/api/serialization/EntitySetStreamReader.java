@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.serialization;
+
+import java.io.Closeable;
+
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+
+/**
+ * Reader de-serializing the entities of an entity set one at a time, while the underlying stream is read.
+ * <br/>
+ * <b>Please don't forget to call the <tt>close()</tt> method when not needed any more.</b>
+ */
+public interface EntitySetStreamReader extends Closeable {
+
+  /**
+   * Reads the next entity.
+   *
+   * @return the next entity, or <code>null</code> if all entities have been read
+   */
+  ResWrap<Entity> next() throws ODataDeserializerException;
+
+  /**
+   * Gets the information about the entity set read so far, e.g., count and next link.
+   * The entities are not contained; they are only available through {@link #next()}.
+   *
+   * @return the entity set without entities
+   */
+  ResWrap<EntityCollection> getEntitySet();
+}
@@ -18,7 +18,10 @@
  */
 package org.apache.olingo.client.api.serialization;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
 
 import org.apache.olingo.client.api.data.ResWrap;
 import org.apache.olingo.commons.api.data.Entity;
@@ -39,6 +42,38 @@ public interface ODataDeserializer {
    */
   ResWrap<EntityCollection> toEntitySet(InputStream input) throws ODataDeserializerException;
 
+  /**
+   * Gets a reader for the entities of the entity set represented by the given InputStream.
+   * The default implementation de-serializes the complete entity set with {@link #toEntitySet(InputStream)}
+   * and hands out its entities one at a time.
+   *
+   * @param input stream to be de-serialized; it is closed when the reader is closed.
+   * @return {@link EntitySetStreamReader} instance.
+   */
+  default EntitySetStreamReader toEntitySetStream(final InputStream input) throws ODataDeserializerException {
+    final ResWrap<EntityCollection> entitySet = toEntitySet(input);
+    final Iterator<Entity> entities = new ArrayList<Entity>(entitySet.getPayload().getEntities()).iterator();
+    entitySet.getPayload().getEntities().clear();
+    return new EntitySetStreamReader() {
+      @Override
+      public ResWrap<Entity> next() {
+        return entities.hasNext() ?
+            new ResWrap<Entity>(entitySet.getContextURL(), entitySet.getMetadataETag(), entities.next()) :
+            null;
+      }
+
+      @Override
+      public ResWrap<EntityCollection> getEntitySet() {
+        return entitySet;
+      }
+
+      @Override
+      public void close() throws IOException {
+        input.close();
+      }
+    };
+  }
+
   /**
    * Gets an entity object from the given InputStream.
    *
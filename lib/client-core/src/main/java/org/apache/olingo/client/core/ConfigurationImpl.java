@@ -19,6 +19,7 @@
 package org.apache.olingo.client.core;
 
 import org.apache.olingo.client.api.Configuration;
+import org.apache.olingo.client.api.edm.MetadataCache;
 import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
 import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
@@ -60,6 +61,8 @@ public class ConfigurationImpl implements Configuration {
 
   private static final String CONTINUE_ON_ERROR = "continueOnError";
 
+  private static final String METADATA_CACHE = "metadataCache";
+
   public static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;  // 4MB
 
   private final Map<String, Object> CONF = new HashMap<>();
@@ -244,4 +247,14 @@ public class ConfigurationImpl implements Configuration {
   public void setExecutor(final ExecutorService executorService) {
     executor = executorService;
   }
+
+  @Override
+  public MetadataCache getMetadataCache() {
+    return (MetadataCache) getProperty(METADATA_CACHE, null);
+  }
+
+  @Override
+  public void setMetadataCache(final MetadataCache cache) {
+    setProperty(METADATA_CACHE, cache);
+  }
 }
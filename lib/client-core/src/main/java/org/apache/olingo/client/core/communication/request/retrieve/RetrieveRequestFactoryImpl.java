@@ -35,6 +35,7 @@ import org.apache.olingo.client.api.communication.request.retrieve.RetrieveReque
 import org.apache.olingo.client.api.communication.request.retrieve.XMLMetadataRequest;
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetPagingIterator;
 import org.apache.olingo.client.api.domain.ClientProperty;
 import org.apache.olingo.client.api.domain.ClientSingleton;
 import org.apache.olingo.client.core.uri.URIUtils;
@@ -101,6 +102,11 @@ public class RetrieveRequestFactoryImpl implements RetrieveRequestFactory {
     return new ODataEntitySetIteratorRequestImpl<>(client, uri);
   }
 
+  @Override
+  public ClientEntitySetPagingIterator getEntitySetPagingIterator(final URI uri, final int maxPrefetchedPages) {
+    return new ClientEntitySetPagingIterator(client, uri, maxPrefetchedPages);
+  }
+
   @Override
   public ODataEntityRequest<ClientSingleton> getSingletonRequest(final URI uri) {
     return new ODataEntityRequestImpl<>(client, uri);
@@ -19,6 +19,9 @@
 package org.apache.olingo.client.core.communication.request.retrieve;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
@@ -27,6 +30,8 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.retrieve.XMLMetadataRequest;
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.edm.CachedMetadata;
+import org.apache.olingo.client.api.edm.MetadataCache;
 import org.apache.olingo.client.api.edm.xml.Include;
 import org.apache.olingo.client.api.edm.xml.IncludeAnnotations;
 import org.apache.olingo.client.api.edm.xml.Reference;
@@ -35,6 +40,7 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
 import org.apache.olingo.commons.api.edm.provider.CsdlAnnotations;
 import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 
 public class XMLMetadataRequestImpl
@@ -47,22 +53,23 @@ public class XMLMetadataRequestImpl
 
   @Override
   public ODataRetrieveResponse<XMLMetadata> execute() {
-    SingleXMLMetadatRequestImpl rootReq = new SingleXMLMetadatRequestImpl(odataClient, uri);
-    if (getPrefer() != null) {
-      rootReq.setPrefer(getPrefer());
-    }
-    if (getIfMatch() != null) {
-      rootReq.setIfMatch(getIfMatch());
-    }
-    if (getIfNoneMatch() != null) {
-      rootReq.setIfNoneMatch(getIfNoneMatch());
-    }
-    if (getHeader() != null) {
-      for (String key : getHeaderNames()) {
-        rootReq.addCustomHeader(key, odataHeaders.getHeader(key));
+    final MetadataCache cache = odataClient.getConfiguration().getMetadataCache();
+    // An explicit If-None-Match header of the caller takes precedence over the cache.
+    final CachedMetadata cached = cache == null || getIfNoneMatch() != null ? null : cache.get(uri);
+
+    SingleXMLMetadatRequestImpl rootReq =
+        createRootRequest(getIfNoneMatch() == null && cached != null ? cached.getETag() : getIfNoneMatch());
+    ODataRetrieveResponse<XMLMetadata> rootRes = rootReq.execute();
+
+    if (cached != null && rootRes.getStatusCode() == HttpStatusCode.NOT_MODIFIED.getStatusCode()) {
+      rootRes.close();
+      if (isUnchanged(cached.getReferences(), rootReq)) {
+        return new XMLMetadataResponseImpl(odataClient, httpClient, rootReq.getHttpResponse(), cached.getMetadata());
       }
+      // A referenced document has changed, so the whole document has to be read again.
+      rootReq = createRootRequest(null);
+      rootRes = rootReq.execute();
     }
-    final ODataRetrieveResponse<XMLMetadata> rootRes = rootReq.execute();
 
     if (rootRes.getStatusCode() != HttpStatusCode.OK.getStatusCode()) {
       return rootRes;
@@ -71,15 +78,18 @@ public class XMLMetadataRequestImpl
         new XMLMetadataResponseImpl(odataClient, httpClient, rootReq.getHttpResponse(), rootRes.getBody());
 
     // process external references
+    final Map<URI, CachedMetadata.Validator> validators = new HashMap<URI, CachedMetadata.Validator>();
+    boolean cacheable = true;
     for (Reference reference : rootRes.getBody().getReferences()) {
-      final SingleXMLMetadatRequestImpl includeReq = new SingleXMLMetadatRequestImpl(
-          odataClient,
-          odataClient.newURIBuilder(uri.resolve(reference.getUri()).toASCIIString()).build());
-      // Copying the headers from first request to next request
-      for(String key : rootReq.getHeaderNames()){
-         includeReq.addCustomHeader(key ,rootReq.getHeader(key));
+      final SingleXMLMetadatRequestImpl includeReq = createReferenceRequest(reference.getUri(), rootReq);
+      final ODataRetrieveResponse<XMLMetadata> includeRes = includeReq.execute();
+      final XMLMetadata includeMetadata = includeRes.getBody();
+      final String lastModified = getFirstHeader(includeRes, HttpHeader.LAST_MODIFIED);
+      if (includeRes.getETag() == null && lastModified == null) {
+        cacheable = false;
+      } else {
+        validators.put(includeReq.getURI(), new CachedMetadata.Validator(includeRes.getETag(), lastModified));
       }
-      final XMLMetadata includeMetadata = includeReq.execute().getBody();
 
       // edmx:Include
       for (Include include : reference.getIncludes()) {
@@ -130,9 +140,70 @@ public class XMLMetadataRequestImpl
       }
     }
 
+    if (cache != null && response.getETag() != null && cacheable) {
+      cache.put(uri, new CachedMetadata(response.getETag(), response.getBody(), validators));
+    }
     return response;
   }
 
+  private SingleXMLMetadatRequestImpl createRootRequest(final String ifNoneMatch) {
+    final SingleXMLMetadatRequestImpl rootReq = new SingleXMLMetadatRequestImpl(odataClient, uri);
+    if (getPrefer() != null) {
+      rootReq.setPrefer(getPrefer());
+    }
+    if (getIfMatch() != null) {
+      rootReq.setIfMatch(getIfMatch());
+    }
+    if (ifNoneMatch != null) {
+      rootReq.setIfNoneMatch(ifNoneMatch);
+    }
+    if (getHeader() != null) {
+      for (String key : getHeaderNames()) {
+        rootReq.addCustomHeader(key, odataHeaders.getHeader(key));
+      }
+    }
+    return rootReq;
+  }
+
+  private SingleXMLMetadatRequestImpl createReferenceRequest(final URI referenceUri,
+      final SingleXMLMetadatRequestImpl rootReq) {
+    final SingleXMLMetadatRequestImpl includeReq = new SingleXMLMetadatRequestImpl(
+        odataClient,
+        odataClient.newURIBuilder(uri.resolve(referenceUri).toASCIIString()).build());
+    // Copying the headers from first request to next request, except its conditions
+    for (String key : rootReq.getHeaderNames()) {
+      if (!HttpHeader.IF_MATCH.equalsIgnoreCase(key) && !HttpHeader.IF_NONE_MATCH.equalsIgnoreCase(key)) {
+        includeReq.addCustomHeader(key, rootReq.getHeader(key));
+      }
+    }
+    return includeReq;
+  }
+
+  /** Revalidates the referenced documents of a cached document; an unexpected answer counts as change. */
+  private boolean isUnchanged(final Map<URI, CachedMetadata.Validator> references,
+      final SingleXMLMetadatRequestImpl rootReq) {
+    for (final Map.Entry<URI, CachedMetadata.Validator> reference : references.entrySet()) {
+      final SingleXMLMetadatRequestImpl includeReq = createReferenceRequest(reference.getKey(), rootReq);
+      if (reference.getValue().getETag() != null) {
+        includeReq.setIfNoneMatch(reference.getValue().getETag());
+      }
+      if (reference.getValue().getLastModified() != null) {
+        includeReq.addCustomHeader(HttpHeader.IF_MODIFIED_SINCE, reference.getValue().getLastModified());
+      }
+      final ODataRetrieveResponse<XMLMetadata> includeRes = includeReq.execute();
+      includeRes.close();
+      if (includeRes.getStatusCode() != HttpStatusCode.NOT_MODIFIED.getStatusCode()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String getFirstHeader(final ODataRetrieveResponse<?> response, final String name) {
+    final Collection<String> values = response.getHeader(name);
+    return values == null || values.isEmpty() ? null : values.iterator().next();
+  }
+
   private class SingleXMLMetadatRequestImpl extends AbstractMetadataRequestImpl<XMLMetadata> {
 
     private HttpResponse httpResponse;
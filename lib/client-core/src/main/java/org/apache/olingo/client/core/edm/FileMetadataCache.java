@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.edm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.olingo.client.api.edm.CachedMetadata;
+import org.apache.olingo.client.api.edm.MetadataCache;
+import org.apache.olingo.client.api.edm.xml.XMLMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metadata cache keeping a binary snapshot of each parsed metadata document in a file of a local directory,
+ * so that it survives the process.
+ * <br/>
+ * Snapshots are written with Java serialization; when reading them back, only classes of the library,
+ * of the Java platform's <tt>java.lang</tt> and <tt>java.util</tt> packages, and <tt>java.net.URI</tt>
+ * (the location of a referenced document) are accepted.
+ * Snapshots which cannot be read, e.g., written by another version of the library, are ignored
+ * and replaced with the next document received.
+ */
+public class FileMetadataCache implements MetadataCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileMetadataCache.class);
+
+  private static final int FORMAT_VERSION = 2;
+
+  private static final String SUFFIX = ".metadata";
+
+  private final File directory;
+
+  /**
+   * Creates a cache in the given directory; the directory is created when the first document is stored.
+   *
+   * @param directory directory holding the snapshot files
+   */
+  public FileMetadataCache(final File directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public CachedMetadata get(final URI uri) {
+    final File file = getFile(uri);
+    if (!file.isFile()) {
+      return null;
+    }
+    try (ObjectInputStream input = new SnapshotInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (input.readInt() != FORMAT_VERSION || !uri.toASCIIString().equals(input.readUTF())) {
+        return null;
+      }
+      final String eTag = input.readUTF();
+      final Map<URI, CachedMetadata.Validator> references = new HashMap<URI, CachedMetadata.Validator>();
+      for (int count = input.readInt(); count > 0; count--) {
+        final URI reference = URI.create(input.readUTF());
+        references.put(reference, new CachedMetadata.Validator(readOptional(input), readOptional(input)));
+      }
+      return new CachedMetadata(eTag, (XMLMetadata) input.readObject(), references);
+    } catch (final IOException | ClassNotFoundException | ClassCastException | IllegalArgumentException e) {
+      LOG.warn("Ignoring unreadable metadata snapshot " + file, e);
+      return null;
+    }
+  }
+
+  @Override
+  public void put(final URI uri, final CachedMetadata metadata) {
+    final File file = getFile(uri);
+    File temporary = null;
+    try {
+      Files.createDirectories(directory.toPath());
+      // The snapshot is written completely before it replaces the previous one,
+      // so that concurrent readers never see a partially written file.
+      temporary = File.createTempFile(file.getName(), ".tmp", directory);
+      try (ObjectOutputStream output =
+          new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(uri.toASCIIString());
+        output.writeUTF(metadata.getETag());
+        output.writeInt(metadata.getReferences().size());
+        for (final Map.Entry<URI, CachedMetadata.Validator> reference : metadata.getReferences().entrySet()) {
+          output.writeUTF(reference.getKey().toASCIIString());
+          writeOptional(output, reference.getValue().getETag());
+          writeOptional(output, reference.getValue().getLastModified());
+        }
+        output.writeObject(metadata.getMetadata());
+      }
+      try {
+        Files.move(temporary.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Could not store metadata snapshot " + file, e);
+      if (temporary != null && !temporary.delete()) {
+        temporary.deleteOnExit();
+      }
+    }
+  }
+
+  private static String readOptional(final ObjectInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  private static void writeOptional(final ObjectOutputStream output, final String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  private File getFile(final URI uri) {
+    return new File(directory, DigestUtils.sha256Hex(uri.toASCIIString()) + SUFFIX);
+  }
+
+  /** Object input stream refusing classes which cannot be part of a metadata document. */
+  private static final class SnapshotInputStream extends ObjectInputStream {
+
+    private SnapshotInputStream(final InputStream input) throws IOException {
+      super(input);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass description) throws IOException, ClassNotFoundException {
+      final String name = description.getName();
+      // For arrays the component type is checked; arrays of primitive types are always accepted.
+      final String component = name.startsWith("[") ? name.replaceFirst("^\\[+L?", "").replace(";", "") : name;
+      if (component.length() > 1
+          && !component.startsWith("org.apache.olingo.")
+          && !component.startsWith("java.lang.")
+          && !component.startsWith("java.util.")
+          && !component.equals(URI.class.getName())) {
+        throw new InvalidClassException(name, "Class not allowed in metadata snapshots");
+      }
+      return super.resolveClass(description);
+    }
+  }
+}
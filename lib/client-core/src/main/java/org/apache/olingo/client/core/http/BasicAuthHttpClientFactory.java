@@ -22,6 +22,7 @@ import java.net.URI;
 
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.olingo.commons.api.http.HttpMethod;
 
@@ -34,14 +35,30 @@ public class BasicAuthHttpClientFactory extends DefaultHttpClientFactory {
 
   private final String password;
 
+  private final DefaultHttpClientFactory wrapped;
+
   public BasicAuthHttpClientFactory(final String username, final String password) {
+    this(username, password, null);
+  }
+
+  /**
+   * Creates a factory adding the credentials to the clients of another factory,
+   * e.g., of a {@link PoolingHttpClientFactory}.
+   * @param username user name
+   * @param password password
+   * @param wrapped factory creating the clients (if <code>null</code>, the default implementation is used)
+   */
+  public BasicAuthHttpClientFactory(final String username, final String password,
+          final DefaultHttpClientFactory wrapped) {
+
     this.username = username;
     this.password = password;
+    this.wrapped = wrapped;
   }
 
   @Override
   public DefaultHttpClient create(final HttpMethod method, final URI uri) {
-    final DefaultHttpClient httpclient = super.create(method, uri);
+    final DefaultHttpClient httpclient = wrapped == null ? super.create(method, uri) : wrapped.create(method, uri);
 
     httpclient.getCredentialsProvider().setCredentials(
             new AuthScope(uri.getHost(), uri.getPort()),
@@ -49,4 +66,13 @@ public class BasicAuthHttpClientFactory extends DefaultHttpClientFactory {
 
     return httpclient;
   }
+
+  @Override
+  public void close(final HttpClient httpClient) {
+    if (wrapped == null) {
+      super.close(httpClient);
+    } else {
+      wrapped.close(httpClient);
+    }
+  }
 }
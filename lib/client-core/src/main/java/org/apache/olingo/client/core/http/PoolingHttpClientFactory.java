@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.olingo.commons.api.http.HttpMethod;
+
+/**
+ * Implementation returning HttpClients which share one pooling connection manager,
+ * so that connections are kept alive and reused between requests.
+ * <br/>
+ * Closing a client evicts expired and idle connections; a connection whose response content
+ * has not been read completely is aborted instead of being given back to the pool.
+ * The pool itself is shut down only by {@link #shutdown()}.
+ * The factory can be wrapped by {@link ProxyWrappingHttpClientFactory}, by {@link BasicAuthHttpClientFactory},
+ * and by implementations of {@link AbstractOAuth2HttpClientFactory}.
+ */
+public class PoolingHttpClientFactory extends DefaultHttpClientFactory {
+
+  public static final int DEFAULT_MAX_TOTAL = 200;
+
+  public static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+  public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+  public static final long DEFAULT_KEEP_ALIVE = 60000;
+
+  private final PoolingClientConnectionManager connectionManager;
+
+  private final long idleTimeout;
+
+  private final ConnectionKeepAliveStrategy keepAliveStrategy;
+
+  public PoolingHttpClientFactory() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_IDLE_TIMEOUT, DEFAULT_KEEP_ALIVE);
+  }
+
+  /**
+   * Creates a factory with its own connection pool.
+   * @param maxTotal maximum number of connections in total
+   * @param maxPerRoute maximum number of connections per route
+   * @param idleTimeout time in milliseconds after which idle connections are closed
+   * @param keepAlive maximum time in milliseconds a connection is kept alive
+   * if the server does not send a shorter keep-alive timeout
+   */
+  public PoolingHttpClientFactory(final int maxTotal, final int maxPerRoute,
+          final long idleTimeout, final long keepAlive) {
+
+    if (maxTotal < 1 || maxPerRoute < 1 || idleTimeout < 0 || keepAlive < 0) {
+      throw new IllegalArgumentException("Invalid pool configuration.");
+    }
+    connectionManager = new PoolingClientConnectionManager();
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    this.idleTimeout = idleTimeout;
+    keepAliveStrategy = new DefaultConnectionKeepAliveStrategy() {
+
+      @Override
+      public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        final long duration = super.getKeepAliveDuration(response, context);
+        return duration < 0 || duration > keepAlive ? keepAlive : duration;
+      }
+    };
+  }
+
+  public ClientConnectionManager getConnectionManager() {
+    return connectionManager;
+  }
+
+  @Override
+  public DefaultHttpClient create(final HttpMethod method, final URI uri) {
+    final PooledHttpClient client = new PooledHttpClient(connectionManager);
+    client.getParams().setParameter(CoreProtocolPNames.USER_AGENT, USER_AGENT);
+    client.setKeepAliveStrategy(keepAliveStrategy);
+    return client;
+  }
+
+  @Override
+  public void close(final HttpClient httpClient) {
+    if (httpClient instanceof PooledHttpClient) {
+      ((PooledHttpClient) httpClient).releaseConnection();
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    } else {
+      super.close(httpClient);
+    }
+  }
+
+  /**
+   * Shuts down the connection pool; the factory cannot be used afterwards.
+   */
+  public void shutdown() {
+    connectionManager.shutdown();
+  }
+
+  /**
+   * Client remembering the connection of its last response, in order to abort it
+   * if the response content has not been read completely.
+   * Reading the remaining content just to reuse the connection could take arbitrarily long.
+   */
+  private static class PooledHttpClient extends DefaultHttpClient {
+
+    private ConnectionReleaseTrigger lastConnection;
+
+    PooledHttpClient(final ClientConnectionManager connectionManager) {
+      super(connectionManager);
+      addResponseInterceptor(new HttpResponseInterceptor() {
+
+        @Override
+        public void process(final HttpResponse response, final HttpContext context)
+                throws HttpException, IOException {
+          final Object connection = context.getAttribute(ExecutionContext.HTTP_CONNECTION);
+          lastConnection = connection instanceof ConnectionReleaseTrigger ?
+              (ConnectionReleaseTrigger) connection : null;
+        }
+      });
+    }
+
+    /** Aborts the last connection; this does nothing if it has already been released after reading the content. */
+    void releaseConnection() {
+      if (lastConnection != null) {
+        try {
+          lastConnection.abortConnection();
+        } catch (final IOException e) {
+          // The connection is discarded anyway.
+        }
+        lastConnection = null;
+      }
+    }
+  }
+}
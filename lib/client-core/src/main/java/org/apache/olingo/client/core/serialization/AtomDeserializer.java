@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.client.core.serialization;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.sql.Timestamp;
@@ -37,6 +38,7 @@ import javax.xml.stream.events.XMLEvent;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetStreamReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializer;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.commons.api.Constants;
@@ -771,14 +773,30 @@ public class AtomDeserializer implements ODataDeserializer {
     if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
       return null;
     }
+    final EntityCollection entitySet = newEntitySet(start);
+    for (Entity entity = nextEntity(reader, start, entitySet); entity != null;
+        entity = nextEntity(reader, start, entitySet)) {
+      entitySet.getEntities().add(entity);
+    }
+    return entitySet;
+  }
+
+  private EntityCollection newEntitySet(final StartElement start) {
     final EntityCollection entitySet = new EntityCollection();
     final Attribute xmlBase = start.getAttributeByName(Constants.QNAME_ATTR_XML_BASE);
     if (xmlBase != null) {
       entitySet.setBaseURI(URI.create(xmlBase.getValue()));
     }
+    return entitySet;
+  }
 
-    boolean foundEndFeed = false;
-    while (reader.hasNext() && !foundEndFeed) {
+  /**
+   * Reads the feed up to the end of the next entry, setting the feed information found on the way.
+   * @return the entry, or <code>null</code> if the end of the feed has been reached
+   */
+  private Entity nextEntity(final XMLEventReader reader, final StartElement start, final EntityCollection entitySet)
+      throws XMLStreamException, EdmPrimitiveTypeException {
+    while (reader.hasNext()) {
       final XMLEvent event = reader.nextEvent();
       if (event.isStartElement()) {
         if (countQName.equals(event.asStartElement().getName())) {
@@ -808,20 +826,19 @@ public class AtomDeserializer implements ODataDeserializer {
             }
           }
         } else if (Constants.QNAME_ATOM_ELEM_ENTRY.equals(event.asStartElement().getName())) {
-          entitySet.getEntities().add(entity(reader, event.asStartElement()));
+          return entity(reader, event.asStartElement());
         } else if (entryRefQName.equals(event.asStartElement().getName())) {
-          entitySet.getEntities().add(entityRef(event.asStartElement()));
+          return entityRef(event.asStartElement());
         } else if (annotationQName.equals(event.asStartElement().getName())) {
           entitySet.getAnnotations().add(annotation(reader, event.asStartElement()));
         }
       }
 
       if (event.isEndElement() && start.getName().equals(event.asEndElement().getName())) {
-        foundEndFeed = true;
+        return null;
       }
     }
-
-    return entitySet;
+    return null;
   }
 
   @Override
@@ -835,6 +852,20 @@ public class AtomDeserializer implements ODataDeserializer {
     }
   }
 
+  @Override
+  public EntitySetStreamReader toEntitySetStream(final InputStream input) throws ODataDeserializerException {
+    try {
+      final XMLEventReader reader = getReader(input);
+      final StartElement start = skipBeforeFirstStartElement(reader);
+      if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
+        throw new ODataDeserializerException("No feed found!");
+      }
+      return new AtomEntitySetStreamReader(input, reader, start);
+    } catch (final XMLStreamException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
   private ODataError error(final XMLEventReader reader, final StartElement start) throws XMLStreamException {
     final ODataError error = new ODataError();
     error.setDetails(new ArrayList<ODataErrorDetail>(0));
@@ -929,4 +960,57 @@ public class AtomDeserializer implements ODataDeserializer {
             metadataETag == null ? null : metadataETag.getValue(),
                 object);
   }
+
+  /** Reader for the entries of a feed; entries inherit the base URI of the feed. */
+  private class AtomEntitySetStreamReader implements EntitySetStreamReader {
+
+    private final InputStream input;
+    private final XMLEventReader reader;
+    private final StartElement start;
+    private final EntityCollection entitySet;
+    private boolean finished;
+
+    AtomEntitySetStreamReader(final InputStream input, final XMLEventReader reader, final StartElement start) {
+      this.input = input;
+      this.reader = reader;
+      this.start = start;
+      entitySet = newEntitySet(start);
+    }
+
+    @Override
+    public ResWrap<Entity> next() throws ODataDeserializerException {
+      if (finished) {
+        return null;
+      }
+      try {
+        final Entity entity = nextEntity(reader, start, entitySet);
+        if (entity == null) {
+          finished = true;
+          return null;
+        }
+        if (entity.getBaseURI() == null) {
+          entity.setBaseURI(entitySet.getBaseURI());
+        }
+        return new ResWrap<>((URI) null, null, entity);
+      } catch (XMLStreamException | EdmPrimitiveTypeException e) {
+        throw new ODataDeserializerException(e);
+      }
+    }
+
+    @Override
+    public ResWrap<EntityCollection> getEntitySet() {
+      return getContainer(start, entitySet);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        reader.close();
+      } catch (final XMLStreamException e) {
+        throw new IOException(e);
+      } finally {
+        input.close();
+      }
+    }
+  }
 }
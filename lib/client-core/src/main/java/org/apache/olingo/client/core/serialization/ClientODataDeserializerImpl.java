@@ -35,6 +35,7 @@ import org.apache.olingo.client.api.data.ServiceDocument;
 import org.apache.olingo.client.api.edm.xml.Edmx;
 import org.apache.olingo.client.api.edm.xml.XMLMetadata;
 import org.apache.olingo.client.api.serialization.ClientODataDeserializer;
+import org.apache.olingo.client.api.serialization.EntitySetStreamReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializer;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.client.core.data.JSONServiceDocumentDeserializer;
@@ -69,6 +70,8 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 
 public class ClientODataDeserializerImpl implements ClientODataDeserializer {
 
+  private static final XmlMapper XML_MAPPER = createXmlMapper();
+
   private final ODataDeserializer deserializer;
   private final ContentType contentType;
   private static final String SCHEMA = "Schema";
@@ -90,6 +93,11 @@ public class ClientODataDeserializerImpl implements ClientODataDeserializer {
     return deserializer.toEntitySet(input);
   }
 
+  @Override
+  public EntitySetStreamReader toEntitySetStream(final InputStream input) throws ODataDeserializerException {
+    return deserializer.toEntitySetStream(input);
+  }
+
   @Override
   public ResWrap<Entity> toEntity(final InputStream input) throws ODataDeserializerException {
     return deserializer.toEntity(input);
@@ -105,7 +113,14 @@ public class ClientODataDeserializerImpl implements ClientODataDeserializer {
     return deserializer.toError(input);
   }
 
+  /**
+   * Gets the mapper for metadata documents; it is configured once and shared, as building it is expensive.
+   */
   protected XmlMapper getXmlMapper() {
+    return XML_MAPPER;
+  }
+
+  private static XmlMapper createXmlMapper() {
     final XmlMapper xmlMapper = new XmlMapper(
         new XmlFactory(new InputFactoryImpl(), new OutputFactoryImpl()), new JacksonXmlModule());
 
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetStreamReader;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Operation;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads the entities of a JSON entity set one at a time, with a single parser over the stream.
+ * <br/>
+ * The fields of the entity set before the <code>value</code> array are available as soon as the first entity
+ * has been read; the fields after it, e.g., the next link, as soon as the last entity has been read.
+ */
+public class JsonEntitySetStreamReader implements EntitySetStreamReader {
+
+  private final JsonParser parser;
+  private final JsonEntityDeserializer entityDeserializer;
+  private final EntityCollection entitySet = new EntityCollection();
+  private URI contextURL;
+  private String metadataETag;
+  private boolean inValue;
+  private boolean finished;
+
+  public JsonEntitySetStreamReader(final InputStream input, final boolean serverMode)
+      throws ODataDeserializerException {
+    entityDeserializer = new JsonEntityDeserializer(serverMode);
+    try {
+      parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected OData EntitySet");
+      }
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  @Override
+  public ResWrap<Entity> next() throws ODataDeserializerException {
+    try {
+      if (!inValue) {
+        readFields();
+      }
+      if (inValue) {
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+          return entityDeserializer.doDeserialize(parser);
+        }
+        inValue = false;
+        readFields();
+      }
+      return null;
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  /** Reads the fields of the entity set up to the start of the <code>value</code> array or up to its end. */
+  private void readFields() throws IOException {
+    while (!finished) {
+      if (parser.nextToken() != JsonToken.FIELD_NAME) {
+        finished = true;
+        return;
+      }
+      final String name = parser.getCurrentName();
+      if (parser.nextToken() == JsonToken.START_ARRAY && Constants.VALUE.equals(name)) {
+        inValue = true;
+        return;
+      }
+      field(name, parser.getCodec().<JsonNode> readTree(parser));
+    }
+  }
+
+  private void field(final String name, final JsonNode node) throws IOException {
+    if (node.isNull()) {
+      return;
+    }
+    if (Constants.JSON_CONTEXT.equals(name) || Constants.JSON_METADATA.equals(name)) {
+      contextURL = URI.create(node.textValue());
+      entitySet.setBaseURI(URI.create(StringUtils.substringBefore(contextURL.toASCIIString(), Constants.METADATA)));
+    } else if (Constants.JSON_METADATA_ETAG.equals(name)) {
+      metadataETag = node.textValue();
+    } else if (Constants.JSON_COUNT.equals(name)) {
+      entitySet.setCount(node.asInt());
+    } else if (Constants.JSON_NEXT_LINK.equals(name)) {
+      entitySet.setNext(URI.create(node.textValue()));
+    } else if (Constants.JSON_DELTA_LINK.equals(name)) {
+      entitySet.setDeltaLink(URI.create(node.textValue()));
+    } else if (name.charAt(0) == '@') {
+      final Annotation annotation = new Annotation();
+      annotation.setTerm(name.substring(1));
+      try {
+        entityDeserializer.value(annotation, node, parser.getCodec());
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new IOException(e);
+      }
+      entitySet.getAnnotations().add(annotation);
+    } else if (name.charAt(0) == '#') {
+      final Operation operation = new Operation();
+      operation.setMetadataAnchor(name);
+      operation.setTitle(node.get(Constants.ATTR_TITLE).asText());
+      operation.setTarget(URI.create(node.get(Constants.ATTR_TARGET).asText()));
+      entitySet.getOperations().add(operation);
+    }
+  }
+
+  @Override
+  public ResWrap<EntityCollection> getEntitySet() {
+    return new ResWrap<>(contextURL, metadataETag, entitySet);
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.XMLMetadataRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.edm.CachedMetadata;
+import org.apache.olingo.client.api.edm.xml.XMLMetadata;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.client.core.edm.FileMetadataCache;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class MetadataCacheTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/odata";
+
+  private static final String NAMESPACE = "Microsoft.Test.OData.Services.ODataWCFService";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<String> ifNoneMatch = new ArrayList<String>();
+
+  private byte[] document;
+
+  private byte[] referencedDocument;
+
+  private String referenceETag = "W/\"1\"";
+
+  private ODataClient client;
+
+  @Before
+  public void setUp() throws IOException {
+    document = IOUtils.toByteArray(getClass().getResourceAsStream("staticservice-metadata.xml"));
+    referencedDocument = IOUtils.toByteArray(getClass().getResourceAsStream("VOC_Core.xml"));
+    final HttpClient httpClient = mock(HttpClient.class);
+    when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(new Answer<HttpResponse>() {
+      @Override
+      public HttpResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final HttpUriRequest request = (HttpUriRequest) invocation.getArguments()[0];
+        final String condition = request.getFirstHeader(HttpHeader.IF_NONE_MATCH) == null ? null :
+            request.getFirstHeader(HttpHeader.IF_NONE_MATCH).getValue();
+        ifNoneMatch.add(condition);
+        final boolean reference = request.getURI().getPath().contains("vocabularies");
+        final String eTag = reference ? referenceETag : "W/\"1\"";
+        final boolean notModified = eTag.equals(condition);
+        final HttpResponse response = new DefaultHttpResponseFactory().newHttpResponse(
+            new BasicStatusLine(HttpVersion.HTTP_1_1, notModified ? 304 : 200, null), null);
+        response.addHeader(HttpHeader.ETAG, eTag);
+        if (!notModified) {
+          response.addHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_XML.toContentTypeString());
+          response.setEntity(new ByteArrayEntity(reference ? referencedDocument : document));
+        }
+        return response;
+      }
+    });
+    client = ODataClientFactory.getClient();
+    client.getConfiguration().setHttpClientFactory(new HttpClientFactory() {
+      @Override
+      public HttpClient create(final HttpMethod method, final URI uri) {
+        return httpClient;
+      }
+
+      @Override
+      public void close(final HttpClient httpClient) {
+        // Nothing to close
+      }
+    });
+  }
+
+  @Test
+  public void snapshot() throws Exception {
+    final URI uri = URI.create(SERVICE_ROOT + "/$metadata");
+    final FileMetadataCache cache = new FileMetadataCache(new File(folder.getRoot(), "cache"));
+    assertNull(cache.get(uri));
+
+    final XMLMetadata metadata = client.getDeserializer(ContentType.APPLICATION_XML)
+        .toMetadata(IOUtils.toInputStream(new String(document, "UTF-8"), "UTF-8"));
+    cache.put(uri, new CachedMetadata("W/\"1\"", metadata));
+
+    final CachedMetadata cached = new FileMetadataCache(new File(folder.getRoot(), "cache")).get(uri);
+    assertNotNull(cached);
+    assertEquals("W/\"1\"", cached.getETag());
+    assertEquals(metadata.getSchemaNamespaces(), cached.getMetadata().getSchemaNamespaces());
+    final Edm edm = client.getReader().readMetadata(cached.getMetadata().getSchemaByNsOrAlias());
+    assertEquals(client.getReader().readMetadata(metadata.getSchemaByNsOrAlias()).getSchema(NAMESPACE)
+        .getEntityTypes().size(),
+        edm.getSchema(NAMESPACE).getEntityTypes().size());
+    assertEquals("Person",
+        edm.getEntityType(new FullQualifiedName(NAMESPACE, "Customer")).getBaseType().getName());
+    assertNull(cache.get(URI.create(SERVICE_ROOT + "2/$metadata")));
+  }
+
+  @Test
+  public void snapshotWithReferences() throws Exception {
+    final URI uri = URI.create(SERVICE_ROOT + "/$metadata");
+    final XMLMetadata metadata = client.getDeserializer(ContentType.APPLICATION_XML)
+        .toMetadata(getClass().getResourceAsStream("fromdoc1-metadata.xml"));
+    assertEquals(2, metadata.getReferences().size());
+    new FileMetadataCache(folder.getRoot()).put(uri, new CachedMetadata("W/\"1\"", metadata));
+
+    final CachedMetadata cached = new FileMetadataCache(folder.getRoot()).get(uri);
+    assertNotNull(cached);
+    assertEquals(2, cached.getMetadata().getReferences().size());
+    assertEquals(metadata.getReferences().get(0).getUri(), cached.getMetadata().getReferences().get(0).getUri());
+    assertEquals("Org.OData.Core.V1",
+        cached.getMetadata().getReferences().get(0).getIncludes().get(0).getNamespace());
+  }
+
+  @Test
+  public void unreadableSnapshot() throws Exception {
+    final URI uri = URI.create(SERVICE_ROOT + "/$metadata");
+    final FileMetadataCache cache = new FileMetadataCache(folder.getRoot());
+    cache.put(uri, new CachedMetadata("W/\"1\"", client.getDeserializer(ContentType.APPLICATION_XML)
+        .toMetadata(IOUtils.toInputStream(new String(document, "UTF-8"), "UTF-8"))));
+    final File[] files = folder.getRoot().listFiles();
+    assertEquals(1, files.length);
+    FileUtils.writeByteArrayToFile(files[0], new byte[] { 1, 2, 3 });
+    assertNull(cache.get(uri));
+  }
+
+  @Test
+  public void revalidation() throws Exception {
+    client.getConfiguration().setMetadataCache(new FileMetadataCache(folder.getRoot()));
+
+    ODataRetrieveResponse<Edm> response = client.getRetrieveRequestFactory().getMetadataRequest(SERVICE_ROOT)
+        .execute();
+    assertEquals(200, response.getStatusCode());
+    assertNotNull(response.getBody().getEntityContainer());
+    assertNull(ifNoneMatch.get(0));
+
+    response = client.getRetrieveRequestFactory().getMetadataRequest(SERVICE_ROOT).execute();
+    assertEquals(304, response.getStatusCode());
+    assertEquals("W/\"1\"", response.getETag());
+    assertEquals("W/\"1\"", ifNoneMatch.get(1));
+    assertNotNull(response.getBody().getEntityType(new FullQualifiedName(NAMESPACE, "Customer")));
+
+    // An explicit condition of the caller is sent as is.
+    final XMLMetadataRequest request = client.getRetrieveRequestFactory().getXMLMetadataRequest(SERVICE_ROOT);
+    request.setIfNoneMatch("W/\"2\"");
+    final ODataRetrieveResponse<XMLMetadata> xmlResponse = request.execute();
+    assertEquals(200, xmlResponse.getStatusCode());
+    assertEquals("W/\"2\"", ifNoneMatch.get(2));
+    assertEquals(NAMESPACE, xmlResponse.getBody().getSchema(0).getNamespace());
+  }
+
+  @Test
+  public void revalidationOfReferences() throws Exception {
+    document = IOUtils.toByteArray(getClass().getResourceAsStream("fromdoc1-metadata.xml"));
+    final FileMetadataCache cache = new FileMetadataCache(folder.getRoot());
+    client.getConfiguration().setMetadataCache(cache);
+
+    ODataRetrieveResponse<XMLMetadata> response =
+        client.getRetrieveRequestFactory().getXMLMetadataRequest(SERVICE_ROOT).execute();
+    assertEquals(200, response.getStatusCode());
+    assertNotNull(response.getBody().getSchema("Org.OData.Core.V1"));
+    assertEquals(3, ifNoneMatch.size());
+    assertNull(ifNoneMatch.get(1));
+    assertNull(ifNoneMatch.get(2));
+    final CachedMetadata cached = cache.get(URI.create(SERVICE_ROOT + "/$metadata"));
+    assertEquals(2, cached.getReferences().size());
+    assertEquals("W/\"1\"", cached.getReferences().values().iterator().next().getETag());
+
+    // Nothing has changed: only conditional requests are sent.
+    response = client.getRetrieveRequestFactory().getXMLMetadataRequest(SERVICE_ROOT).execute();
+    assertEquals(304, response.getStatusCode());
+    assertEquals(6, ifNoneMatch.size());
+    assertEquals("W/\"1\"", ifNoneMatch.get(4));
+    assertEquals("W/\"1\"", ifNoneMatch.get(5));
+    assertNotNull(response.getBody().getSchema("Org.OData.Core.V1"));
+
+    // A referenced document has changed: the document is read again although the root document has not changed.
+    referenceETag = "W/\"2\"";
+    response = client.getRetrieveRequestFactory().getXMLMetadataRequest(SERVICE_ROOT).execute();
+    assertEquals(200, response.getStatusCode());
+    assertNotNull(response.getBody().getSchema("Org.OData.Core.V1"));
+    assertNull(ifNoneMatch.get(ifNoneMatch.size() - 1));
+    assertEquals("W/\"2\"", cache.get(URI.create(SERVICE_ROOT + "/$metadata")).getReferences().values()
+        .iterator().next().getETag());
+  }
+}
@@ -203,4 +203,68 @@ public class ClientEntitySetIteratorTest {
         Assert.assertEquals("http://localhost:8082/odata-server-tecsvc/"
             + "odata.svc/ESServerSidePaging?%24skiptoken=1%2A10", entitySetIterator.getNext().toString());
     }
+
+    @Test
+    public void testEntitySetIteratorCountAndNextLinkBeforeEntities() throws IOException, URISyntaxException {
+        String str = "{\"@odata.context\":\"http://host/service/$metadata#Cubes\","
+            + "\"@odata.count\":2,"
+            + "\"@odata.nextLink\":\"Cubes?$skiptoken=2\","
+            + "\"value\":[{\"PropertyInt16\": 1},{\"PropertyInt16\": 2}],"
+            + "\"@Custom.Annotation\":\"after\"}";
+
+        InputStream stream = new ByteArrayInputStream(str.getBytes());
+        ODataClient oDataClient = ODataClientFactory.getClient();
+        ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+            new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(
+            oDataClient, stream, ContentType.parse(ContentType.JSON.toString()));
+
+        Assert.assertNull(entitySetIterator.getCount());
+        Assert.assertTrue(entitySetIterator.hasNext());
+        Assert.assertEquals(Integer.valueOf(2), entitySetIterator.getCount());
+        Assert.assertEquals("http://host/service/Cubes?$skiptoken=2", entitySetIterator.getNext().toString());
+        Assert.assertEquals("1", entitySetIterator.next().getProperty("PropertyInt16").getPrimitiveValue()
+            .toString());
+        Assert.assertEquals("2", entitySetIterator.next().getProperty("PropertyInt16").getPrimitiveValue()
+            .toString());
+        Assert.assertFalse(entitySetIterator.hasNext());
+        Assert.assertEquals(Integer.valueOf(2), entitySetIterator.getCount());
+        Assert.assertEquals("http://host/service/Cubes?$skiptoken=2", entitySetIterator.getNext().toString());
+    }
+
+    @Test
+    public void testEntitySetIteratorEmpty() throws IOException, URISyntaxException {
+        InputStream stream = new ByteArrayInputStream("{\"value\":[]}".getBytes());
+        ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+            new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(
+            ODataClientFactory.getClient(), stream, ContentType.parse(ContentType.JSON.toString()));
+
+        Assert.assertFalse(entitySetIterator.hasNext());
+        Assert.assertNull(entitySetIterator.getNext());
+    }
+
+    @Test
+    public void testEntitySetIteratorAtom() throws Exception {
+        ODataClient oDataClient = ODataClientFactory.getClient();
+        ClientEntitySetIterator<ClientEntitySet, ClientEntity> entitySetIterator =
+            new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(oDataClient,
+            getClass().getResourceAsStream("/org/apache/olingo/client/core/Customers.xml"),
+            ContentType.APPLICATION_ATOM_XML);
+        final ClientEntitySet entitySet = oDataClient.getReader().readEntitySet(
+            getClass().getResourceAsStream("/org/apache/olingo/client/core/Customers.xml"),
+            ContentType.APPLICATION_ATOM_XML);
+
+        ArrayList<ClientEntity> entities = new ArrayList<ClientEntity>();
+        while (entitySetIterator.hasNext()) {
+            entities.add(entitySetIterator.next());
+        }
+
+        Assert.assertEquals(entitySet.getEntities().size(), entities.size());
+        Assert.assertEquals(entitySet.getCount(), entitySetIterator.getCount());
+        for (int i = 0; i < entities.size(); i++) {
+            Assert.assertEquals(entitySet.getEntities().get(i).getId(), entities.get(i).getId());
+            Assert.assertEquals(entitySet.getEntities().get(i).getEditLink(), entities.get(i).getEditLink());
+            Assert.assertEquals(entitySet.getEntities().get(i).getProperties().size(),
+                entities.get(i).getProperties().size());
+        }
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.ODataServerErrorException;
+import org.apache.olingo.client.api.domain.ClientEntitySetPagingIterator;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ClientEntitySetPagingIteratorTest {
+
+  private static final String SERVICE = "http://localhost/odata/";
+
+  private final List<String> requested = Collections.synchronizedList(new ArrayList<String>());
+
+  private ODataClient client;
+
+  @Before
+  public void setUp() throws IOException {
+    final HttpClient httpClient = mock(HttpClient.class);
+    when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(new Answer<HttpResponse>() {
+      @Override
+      public HttpResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final String uri = ((HttpUriRequest) invocation.getArguments()[0]).getURI().toString();
+        requested.add(uri);
+        if (uri.endsWith("skip=5")) {
+          throw new LinkageError("broken");
+        }
+        return uri.endsWith("skip=4") ? response(500, "{\"error\":{\"code\":null,\"message\":\"failed\"}}") :
+            uri.endsWith("skip=3") ? page(3, "ES?skip=4") :
+            uri.endsWith("skip=2") ? page(2, null) :
+            uri.endsWith("skip=1") ? page(1, SERVICE + "ES?skip=2") :
+            page(0, "ES?skip=1");
+      }
+    });
+    client = ODataClientFactory.getClient();
+    client.getConfiguration().setHttpClientFactory(new HttpClientFactory() {
+      @Override
+      public HttpClient create(final HttpMethod method, final URI uri) {
+        return httpClient;
+      }
+
+      @Override
+      public void close(final HttpClient httpClient) {
+        // Nothing to close
+      }
+    });
+  }
+
+  @Test
+  public void allPages() throws Exception {
+    final ClientEntitySetPagingIterator iterator =
+        client.getRetrieveRequestFactory().getEntitySetPagingIterator(URI.create(SERVICE + "ES"), 2);
+    final List<Object> keys = new ArrayList<Object>();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getProperty("ID").getPrimitiveValue().toValue());
+    }
+    assertEquals(3, keys.size());
+    assertEquals(0, keys.get(0));
+    assertEquals(2, keys.get(2));
+    assertEquals(Integer.valueOf(7), iterator.getCount());
+    assertEquals(3, requested.size());
+    assertEquals(SERVICE + "ES?skip=1", requested.get(1));
+  }
+
+  @Test
+  public void boundedPrefetch() throws Exception {
+    final ManualExecutor executor = new ManualExecutor();
+    client.getConfiguration().setExecutor(executor);
+    final ClientEntitySetPagingIterator iterator =
+        client.getRetrieveRequestFactory().getEntitySetPagingIterator(URI.create(SERVICE + "ES?skip=3"));
+    assertEquals(1, executor.tasks.size());
+    executor.tasks.remove().run();
+    // The first page is waiting to be consumed, so the second one is not requested yet.
+    assertTrue(executor.tasks.isEmpty());
+    assertNull(iterator.getCount());
+
+    assertTrue(iterator.hasNext());
+    assertEquals(Integer.valueOf(7), iterator.getCount());
+    assertEquals(1, executor.tasks.size());
+    assertEquals(3, iterator.next().getProperty("ID").getPrimitiveValue().toValue());
+    executor.tasks.remove().run();
+    assertEquals(2, requested.size());
+    try {
+      iterator.hasNext();
+      fail("Expected an exception.");
+    } catch (final ODataServerErrorException e) {
+      assertTrue(executor.tasks.isEmpty());
+    }
+    assertFalse(iterator.hasNext());
+    assertTrue(executor.tasks.isEmpty());
+  }
+
+  @Test(timeout = 10000)
+  public void failingPageIsRethrown() throws Exception {
+    final ClientEntitySetPagingIterator iterator =
+        client.getRetrieveRequestFactory().getEntitySetPagingIterator(URI.create(SERVICE + "ES?skip=5"));
+    try {
+      iterator.hasNext();
+      fail("Expected an error.");
+    } catch (final IllegalStateException e) {
+      assertTrue(e.getMessage().contains("ES?skip=5"));
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void close() throws Exception {
+    final ManualExecutor executor = new ManualExecutor();
+    client.getConfiguration().setExecutor(executor);
+    final ClientEntitySetPagingIterator iterator =
+        client.getRetrieveRequestFactory().getEntitySetPagingIterator(URI.create(SERVICE + "ES"), 3);
+    executor.tasks.remove().run();
+    assertEquals(1, executor.tasks.size());
+    iterator.close();
+    executor.tasks.remove().run();
+    assertTrue(executor.tasks.isEmpty());
+    assertFalse(iterator.hasNext());
+    assertEquals(1, requested.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noPrefetch() {
+    client.getRetrieveRequestFactory().getEntitySetPagingIterator(URI.create(SERVICE + "ES"), 0);
+  }
+
+  private static HttpResponse page(final int id, final String next) {
+    return response(200, "{\"@odata.context\":\"" + SERVICE + "$metadata#ES\",\"@odata.count\":7"
+        + ",\"value\":[{\"ID\":" + id + "}]"
+        + (next == null ? "" : ",\"@odata.nextLink\":\"" + next + "\"") + "}");
+  }
+
+  private static HttpResponse response(final int status, final String body) {
+    final HttpResponse response = new DefaultHttpResponseFactory().newHttpResponse(
+        new BasicStatusLine(HttpVersion.HTTP_1_1, status, null), null);
+    response.addHeader(HttpHeader.CONTENT_TYPE, ContentType.JSON.toContentTypeString());
+    response.setEntity(new StringEntity(body, "UTF-8"));
+    return response;
+  }
+
+  /** Executor running its tasks only when told to. */
+  private static final class ManualExecutor extends AbstractExecutorService {
+
+    private final Queue<Runnable> tasks = new LinkedList<Runnable>();
+
+    @Override
+    public void execute(final Runnable command) {
+      tasks.add(command);
+    }
+
+    @Override
+    public void shutdown() {
+      tasks.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      final List<Runnable> pending = new ArrayList<Runnable>(tasks);
+      tasks.clear();
+      return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+      return true;
+    }
+  }
+}
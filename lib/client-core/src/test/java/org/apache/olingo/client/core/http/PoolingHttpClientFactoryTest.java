@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class PoolingHttpClientFactoryTest {
+
+  private HttpServer server;
+  private URI uri;
+  private PoolingHttpClientFactory factory;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        final byte[] content = "content".getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, content.length);
+        final OutputStream body = exchange.getResponseBody();
+        body.write(content);
+        body.close();
+      }
+    });
+    server.start();
+    uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/service");
+    factory = new PoolingHttpClientFactory();
+  }
+
+  @After
+  public void tearDown() {
+    factory.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  public void connectionIsReused() throws Exception {
+    final PoolingClientConnectionManager connectionManager =
+        (PoolingClientConnectionManager) factory.getConnectionManager();
+    for (int i = 0; i < 3; i++) {
+      final DefaultHttpClient client = factory.create(HttpMethod.GET, uri);
+      assertSame(connectionManager, client.getConnectionManager());
+      final HttpResponse response = client.execute(new HttpGet(uri));
+      assertEquals(200, response.getStatusLine().getStatusCode());
+      EntityUtils.consume(response.getEntity());
+      factory.close(client);
+      assertEquals(0, connectionManager.getTotalStats().getLeased());
+      assertEquals(1, connectionManager.getTotalStats().getAvailable());
+    }
+  }
+
+  @Test
+  public void unreadContentAbortsConnection() throws Exception {
+    final PoolingClientConnectionManager connectionManager =
+        (PoolingClientConnectionManager) factory.getConnectionManager();
+    final DefaultHttpClient client = factory.create(HttpMethod.GET, uri);
+    assertEquals(200, client.execute(new HttpGet(uri)).getStatusLine().getStatusCode());
+    assertEquals(1, connectionManager.getTotalStats().getLeased());
+    // The content is not read; closing the client must discard the connection instead of reading the rest.
+    factory.close(client);
+    assertEquals(0, connectionManager.getTotalStats().getLeased());
+    assertEquals(0, connectionManager.getTotalStats().getAvailable());
+  }
+
+  @Test
+  public void decorated() throws Exception {
+    final BasicAuthHttpClientFactory basicAuth = new BasicAuthHttpClientFactory("user", "password", factory);
+    final DefaultHttpClient client = basicAuth.create(HttpMethod.GET, uri);
+    assertSame(factory.getConnectionManager(), client.getConnectionManager());
+    assertNotNull(client.getCredentialsProvider().getCredentials(new AuthScope(uri.getHost(), uri.getPort())));
+    client.execute(new HttpGet(uri));
+    basicAuth.close(client);
+
+    final ProxyWrappingHttpClientFactory proxy = new ProxyWrappingHttpClientFactory(uri, factory);
+    assertSame(factory.getConnectionManager(), proxy.create(HttpMethod.GET, uri).getConnectionManager());
+  }
+}
@@ -18,14 +18,19 @@
  */
 package org.apache.olingo.commons.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 /**
  * Super type of all CsdlEdmItems
+ * <br/>
+ * CsdlEdmItems are serializable, e.g., to keep parsed metadata documents in a persistent cache.
  */
-public abstract class CsdlAbstractEdmItem {
+public abstract class CsdlAbstractEdmItem implements Serializable {
+
+  private static final long serialVersionUID = -8495223391736395016L;
 
   /**
    * Gets one by name.
@@ -18,13 +18,17 @@
  */
 package org.apache.olingo.commons.api.edm.provider;
 
+import java.io.Serializable;
+
 import org.apache.olingo.commons.api.edm.EdmMapping;
 
 /**
  * Content of this class does not appear within the CSDL metadata document. This class is used to perform server
  * internal mapping for edm primitive types to java types.
  */
-public class CsdlMapping implements EdmMapping {
+public class CsdlMapping implements EdmMapping, Serializable {
+
+  private static final long serialVersionUID = 2453962713504917393L;
 
   private String internalName;
   private Class<?> mappedJavaClass;
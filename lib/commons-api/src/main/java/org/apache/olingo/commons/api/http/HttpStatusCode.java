@@ -59,6 +59,7 @@ public enum HttpStatusCode {
   UNSUPPORTED_MEDIA_TYPE(415, "Unsupported Media Type"),  
   RANGE_NOT_SATISFIABLE(416, "Range Not Satisfiable"),
   EXPECTATION_FAILED(417, "Expectation Failed"),
+  FAILED_DEPENDENCY(424, "Failed Dependency"),  // from RFC 4918
   PRECONDITION_REQUIRED(428, "Precondition Required"),  // from RFC 6585
 
   INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmAction;
@@ -43,63 +44,149 @@ public abstract class AbstractEdm implements Edm {
 
   protected Map<String, EdmSchema> schemas;
   protected List<EdmSchema> schemaList;
-  private boolean isEntityDerivedFromES;
-  private boolean isComplexDerivedFromES;
   private boolean isPreviousES;
 
-  private final Map<FullQualifiedName, EdmEntityContainer> entityContainers =
+  private Map<FullQualifiedName, EdmEntityContainer> entityContainers =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityContainer>());
 
-  private final Map<FullQualifiedName, EdmEnumType> enumTypes =
+  private Map<FullQualifiedName, EdmEnumType> enumTypes =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEnumType>());
 
-  private final Map<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
+  private Map<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmTypeDefinition>());
 
-  private final Map<FullQualifiedName, EdmEntityType> entityTypes =
+  private Map<FullQualifiedName, EdmEntityType> entityTypes =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
 
-  private final Map<FullQualifiedName, EdmComplexType> complexTypes =
+  private Map<FullQualifiedName, EdmComplexType> complexTypes =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
 
-  private final Map<FullQualifiedName, EdmAction> unboundActions =
+  private Map<FullQualifiedName, EdmAction> unboundActions =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmAction>());
 
-  private final Map<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
+  private Map<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, List<EdmFunction>>());
 
-  private final Map<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
+  private Map<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
       Collections.synchronizedMap(new HashMap<FunctionMapKey, EdmFunction>());
 
-  private final Map<ActionMapKey, EdmAction> boundActions =
+  private Map<ActionMapKey, EdmAction> boundActions =
       Collections.synchronizedMap(new HashMap<ActionMapKey, EdmAction>());
 
-  private final Map<FunctionMapKey, EdmFunction> boundFunctions =
+  private Map<FunctionMapKey, EdmFunction> boundFunctions =
       Collections.synchronizedMap(new HashMap<FunctionMapKey, EdmFunction>());
 
-  private final Map<FullQualifiedName, EdmTerm> terms =
+  private Map<FullQualifiedName, EdmTerm> terms =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmTerm>());
 
-  private final Map<TargetQualifierMapKey, EdmAnnotations> annotationGroups =
+  private Map<TargetQualifierMapKey, EdmAnnotations> annotationGroups =
       Collections.synchronizedMap(new HashMap<TargetQualifierMapKey, EdmAnnotations>());
 
   private Map<String, String> aliasToNamespaceInfo = null;
   
-  private final Map<FullQualifiedName, EdmEntityType> entityTypesWithAnnotations =
+  private Map<FullQualifiedName, EdmEntityType> entityTypesWithAnnotations =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
   
-  private final Map<FullQualifiedName, EdmEntityType> entityTypesDerivedFromES =
+  private Map<FullQualifiedName, EdmEntityType> entityTypesDerivedFromES =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
   
-  private final Map<FullQualifiedName, EdmComplexType> complexTypesWithAnnotations =
+  private Map<FullQualifiedName, EdmComplexType> complexTypesWithAnnotations =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
   
-  private final Map<FullQualifiedName, EdmComplexType> complexTypesDerivedFromES =
+  private Map<FullQualifiedName, EdmComplexType> complexTypesDerivedFromES =
       Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
 
   private Map<String, List<CsdlAnnotation>> annotationMap = 
       new HashMap<String, List<CsdlAnnotation>>();
-  
+
+  private boolean frozen = false;
+
+  /**
+   * Materializes all schemas and the content of the entity container and replaces the
+   * synchronized lookup maps by immutable snapshots, so that lookups afterwards are plain
+   * reads without any locking. Elements not found in the snapshot are still created
+   * on demand but are no longer cached.
+   * <p>This method must be called before the instance is shared between threads,
+   * e.g., while the service metadata are created.
+   * Lookups including the annotations of entity sets and singletons
+   * (used for the metadata document) keep caching, in concurrent maps.</p>
+   */
+  public void freeze() {
+    if (frozen) {
+      return;
+    }
+    // The default container is created from the container info of the provider
+    // before the schemas replace it in the cache, as it happens with lazy loading.
+    final EdmEntityContainer defaultContainer = getEntityContainer();
+    for (final EdmSchema schema : getSchemas()) {
+      freeze(schema.getEntityContainer());
+      for (final EdmEntityType entityType : schema.getEntityTypes()) {
+        entityType.getKeyPropertyRefs();
+        entityType.getPropertyNames();
+        entityType.getNavigationPropertyNames();
+      }
+      for (final EdmComplexType complexType : schema.getComplexTypes()) {
+        complexType.getPropertyNames();
+        complexType.getNavigationPropertyNames();
+      }
+    }
+    if (defaultContainer != null) {
+      freeze(defaultContainer);
+      entityContainers.put(null, defaultContainer);
+      entityContainers.put(defaultContainer.getFullQualifiedName(), defaultContainer);
+    }
+
+    schemas = snapshot(schemas);
+    aliasToNamespaceInfo = snapshot(aliasToNamespaceInfo);
+    entityContainers = snapshot(entityContainers);
+    enumTypes = snapshot(enumTypes);
+    typeDefinitions = snapshot(typeDefinitions);
+    entityTypes = snapshot(entityTypes);
+    complexTypes = snapshot(complexTypes);
+    unboundActions = snapshot(unboundActions);
+    final Map<FullQualifiedName, List<EdmFunction>> functionsByName =
+        new HashMap<FullQualifiedName, List<EdmFunction>>();
+    for (final Map.Entry<FullQualifiedName, List<EdmFunction>> entry : unboundFunctionsByName.entrySet()) {
+      functionsByName.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+    }
+    unboundFunctionsByName = Collections.unmodifiableMap(functionsByName);
+    unboundFunctionsByKey = snapshot(unboundFunctionsByKey);
+    boundActions = snapshot(boundActions);
+    boundFunctions = snapshot(boundFunctions);
+    terms = snapshot(terms);
+    annotationGroups = snapshot(annotationGroups);
+    entityTypesWithAnnotations = new ConcurrentHashMap<FullQualifiedName, EdmEntityType>(entityTypesWithAnnotations);
+    entityTypesDerivedFromES = new ConcurrentHashMap<FullQualifiedName, EdmEntityType>(entityTypesDerivedFromES);
+    complexTypesWithAnnotations =
+        new ConcurrentHashMap<FullQualifiedName, EdmComplexType>(complexTypesWithAnnotations);
+    complexTypesDerivedFromES = new ConcurrentHashMap<FullQualifiedName, EdmComplexType>(complexTypesDerivedFromES);
+    frozen = true;
+  }
+
+  /**
+   * Returns whether this instance has been frozen.
+   * @see #freeze()
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private static void freeze(final EdmEntityContainer container) {
+    if (container instanceof EdmEntityContainerImpl) {
+      ((EdmEntityContainerImpl) container).freeze();
+    }
+  }
+
+  private static <K, V> Map<K, V> snapshot(final Map<K, V> map) {
+    return Collections.unmodifiableMap(new HashMap<K, V>(map));
+  }
+
+  private <K, V> void cache(final Map<K, V> map, final K key, final V value) {
+    if (!frozen) {
+      map.put(key, value);
+    }
+  }
+
   @Override
   public List<EdmSchema> getSchemas() {
     if (schemaList == null) {
@@ -146,9 +233,9 @@ public abstract class AbstractEdm implements Edm {
     if (container == null) {
       container = createEntityContainer(fqn);
       if (container != null) {
-        entityContainers.put(fqn, container);
+        cache(entityContainers, fqn, container);
         if (fqn == null) {
-          entityContainers.put(new FullQualifiedName(container.getNamespace(), container.getName()), container);
+          cache(entityContainers, new FullQualifiedName(container.getNamespace(), container.getName()), container);
         }
       }
     }
@@ -162,7 +249,7 @@ public abstract class AbstractEdm implements Edm {
     if (enumType == null) {
       enumType = createEnumType(fqn);
       if (enumType != null) {
-        enumTypes.put(fqn, enumType);
+        cache(enumTypes, fqn, enumType);
       }
     }
     return enumType;
@@ -175,7 +262,7 @@ public abstract class AbstractEdm implements Edm {
     if (typeDefinition == null) {
       typeDefinition = createTypeDefinition(fqn);
       if (typeDefinition != null) {
-        typeDefinitions.put(fqn, typeDefinition);
+        cache(typeDefinitions, fqn, typeDefinition);
       }
     }
     return typeDefinition;
@@ -188,7 +275,7 @@ public abstract class AbstractEdm implements Edm {
     if (entityType == null) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-        entityTypes.put(fqn, entityType);
+        cache(entityTypes, fqn, entityType);
       }
     }
     return entityType;
@@ -210,37 +297,33 @@ public abstract class AbstractEdm implements Edm {
   
   protected EdmEntityType getEntityTypeWithAnnotations(final FullQualifiedName namespaceOrAliasFQN, 
       boolean isEntityDerivedFromES) {
-    this.isEntityDerivedFromES = isEntityDerivedFromES;
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    if (!isPreviousES() && getEntityContainer() != null) {
+    if (!frozen && !isPreviousES() && getEntityContainer() != null) {
        getEntityContainer().getEntitySetsWithAnnotations();
     }
     EdmEntityType entityType = entityTypesDerivedFromES.get(fqn);
     if (entityType == null) {
-      entityType = createEntityType(fqn);
+      entityType = createEntityType(fqn, isEntityDerivedFromES);
       if (entityType != null) {
           entityTypesDerivedFromES.put(fqn, entityType);
       }
     }
-    this.isEntityDerivedFromES = false;
     return entityType;
   }
   
   protected EdmComplexType getComplexTypeWithAnnotations(final FullQualifiedName namespaceOrAliasFQN, 
       boolean isComplexDerivedFromES) {
-    this.isComplexDerivedFromES = isComplexDerivedFromES;
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    if (!isPreviousES() && getEntityContainer() != null) {
+    if (!frozen && !isPreviousES() && getEntityContainer() != null) {
        getEntityContainer().getEntitySetsWithAnnotations();
     }
     EdmComplexType complexType = complexTypesDerivedFromES.get(fqn);
     if (complexType == null) {
-      complexType = createComplexType(fqn);
+      complexType = createComplexType(fqn, isComplexDerivedFromES);
       if (complexType != null) {
           complexTypesDerivedFromES.put(fqn, complexType);
       }
     }
-    this.isComplexDerivedFromES = false;
     return complexType;
   }
   
@@ -251,7 +334,7 @@ public abstract class AbstractEdm implements Edm {
     if (complexType == null) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-        complexTypes.put(fqn, complexType);
+        cache(complexTypes, fqn, complexType);
       }
     }
     return complexType;
@@ -278,7 +361,7 @@ public abstract class AbstractEdm implements Edm {
     if (action == null) {
       action = createUnboundAction(fqn);
       if (action != null) {
-        unboundActions.put(actionName, action);
+        cache(unboundActions, actionName, action);
       }
     }
 
@@ -296,7 +379,7 @@ public abstract class AbstractEdm implements Edm {
     if (action == null) {
       action = createBoundAction(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
       if (action != null) {
-        boundActions.put(key, action);
+        cache(boundActions, key, action);
       }
     }
 
@@ -311,7 +394,7 @@ public abstract class AbstractEdm implements Edm {
     if (functions == null) {
       functions = createUnboundFunctions(functionFqn);
       if (functions != null) {
-        unboundFunctionsByName.put(functionFqn, functions);
+        cache(unboundFunctionsByName, functionFqn, functions);
 
         for (EdmFunction unbound : functions) {
           final FunctionMapKey key = new FunctionMapKey(
@@ -319,7 +402,7 @@ public abstract class AbstractEdm implements Edm {
               unbound.getBindingParameterTypeFqn(),
               unbound.isBindingParameterTypeCollection(),
               unbound.getParameterNames());
-          unboundFunctionsByKey.put(key, unbound);
+          cache(unboundFunctionsByKey, key, unbound);
         }
       }
     }
@@ -336,7 +419,7 @@ public abstract class AbstractEdm implements Edm {
     if (function == null) {
       function = createUnboundFunction(functionFqn, parameterNames);
       if (function != null) {
-        unboundFunctionsByKey.put(key, function);
+        cache(unboundFunctionsByKey, key, function);
       }
     }
 
@@ -357,7 +440,7 @@ public abstract class AbstractEdm implements Edm {
       function = createBoundFunction(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection,
           parameterNames);
       if (function != null) {
-        boundFunctions.put(key, function);
+        cache(boundFunctions, key, function);
       }
     }
 
@@ -371,7 +454,7 @@ public abstract class AbstractEdm implements Edm {
     if (term == null) {
       term = createTerm(fqn);
       if (term != null) {
-        terms.put(fqn, term);
+        cache(terms, fqn, term);
       }
     }
     return term;
@@ -385,7 +468,7 @@ public abstract class AbstractEdm implements Edm {
     if (_annotations == null) {
       _annotations = createAnnotationGroup(fqn, qualifier);
       if (_annotations != null) {
-        annotationGroups.put(key, _annotations);
+        cache(annotationGroups, key, _annotations);
       }
     }
     return _annotations;
@@ -413,37 +496,55 @@ public abstract class AbstractEdm implements Edm {
   protected abstract Map<String, String> createAliasToNamespaceInfo();
 
   public void cacheAliasNamespaceInfo(final String alias, final String namespace) {
-    aliasToNamespaceInfo.put(alias, namespace);
+    cache(aliasToNamespaceInfo, alias, namespace);
   }
 
   protected abstract EdmEntityContainer createEntityContainer(FullQualifiedName containerName);
 
   public void cacheEntityContainer(final FullQualifiedName containerFQN, final EdmEntityContainer container) {
-    entityContainers.put(containerFQN, container);
+    cache(entityContainers, containerFQN, container);
   }
 
   protected abstract EdmEnumType createEnumType(FullQualifiedName enumName);
 
   public void cacheEnumType(final FullQualifiedName enumName, final EdmEnumType enumType) {
-    enumTypes.put(enumName, enumType);
+    cache(enumTypes, enumName, enumType);
   }
 
   protected abstract EdmTypeDefinition createTypeDefinition(FullQualifiedName typeDefinitionName);
 
   public void cacheTypeDefinition(final FullQualifiedName typeDefName, final EdmTypeDefinition typeDef) {
-    typeDefinitions.put(typeDefName, typeDef);
+    cache(typeDefinitions, typeDefName, typeDef);
   }
 
   protected abstract EdmEntityType createEntityType(FullQualifiedName entityTypeName);
 
+  /**
+   * Creates an entity type; if it is derived from an entity set, the annotations targeting it
+   * through the entity container are not added.
+   */
+  protected EdmEntityType createEntityType(final FullQualifiedName entityTypeName,
+      final boolean isEntityDerivedFromES) {
+    return createEntityType(entityTypeName);
+  }
+
   public void cacheEntityType(final FullQualifiedName entityTypeName, final EdmEntityType entityType) {
-    entityTypes.put(entityTypeName, entityType);
+    cache(entityTypes, entityTypeName, entityType);
   }
 
   protected abstract EdmComplexType createComplexType(FullQualifiedName complexTypeName);
 
+  /**
+   * Creates a complex type; if it is derived from an entity set, the annotations targeting it
+   * through the entity container are not added.
+   */
+  protected EdmComplexType createComplexType(final FullQualifiedName complexTypeName,
+      final boolean isComplexDerivedFromES) {
+    return createComplexType(complexTypeName);
+  }
+
   public void cacheComplexType(final FullQualifiedName compelxTypeName, final EdmComplexType complexType) {
-    complexTypes.put(compelxTypeName, complexType);
+    cache(complexTypes, compelxTypeName, complexType);
   }
 
   protected abstract EdmAction createUnboundAction(FullQualifiedName actionName);
@@ -466,14 +567,14 @@ public abstract class AbstractEdm implements Edm {
         function.getParameterNames());
 
     if (function.isBound()) {
-      boundFunctions.put(key, function);
-    } else {
+      cache(boundFunctions, key, function);
+    } else if (!frozen) {
       if (!unboundFunctionsByName.containsKey(functionName)) {
         unboundFunctionsByName.put(functionName, new ArrayList<EdmFunction>());
       }
       unboundFunctionsByName.get(functionName).add(function);
 
-      unboundFunctionsByKey.put(key, function);
+      cache(unboundFunctionsByKey, key, function);
     }
   }
 
@@ -481,16 +582,16 @@ public abstract class AbstractEdm implements Edm {
     if (action.isBound()) {
       final ActionMapKey key = new ActionMapKey(actionName,
           action.getBindingParameterTypeFqn(), action.isBindingParameterTypeCollection());
-      boundActions.put(key, action);
+      cache(boundActions, key, action);
     } else {
-      unboundActions.put(actionName, action);
+      cache(unboundActions, actionName, action);
     }
   }
 
   protected abstract EdmTerm createTerm(FullQualifiedName termName);
 
   public void cacheTerm(final FullQualifiedName termName, final EdmTerm term) {
-    terms.put(termName, term);
+    cache(terms, termName, term);
   }
 
   protected abstract EdmAnnotations createAnnotationGroup(FullQualifiedName targetName, String qualifier);
@@ -498,7 +599,7 @@ public abstract class AbstractEdm implements Edm {
   public void cacheAnnotationGroup(final FullQualifiedName targetName,
       final EdmAnnotations annotationsGroup) {
     TargetQualifierMapKey key = new TargetQualifierMapKey(targetName, annotationsGroup.getQualifier());
-    annotationGroups.put(key, annotationsGroup);
+    cache(annotationGroups, key, annotationsGroup);
   }
   
   @Override
@@ -536,16 +637,10 @@ public abstract class AbstractEdm implements Edm {
     return functions;
   }
   
-  protected boolean isEntityDerivedFromES() {
-    return isEntityDerivedFromES;
-  }
-  
-  protected boolean isComplexDerivedFromES() {
-    return isComplexDerivedFromES;
-  }
-  
   protected void setIsPreviousES(boolean isPreviousES) {
-    this.isPreviousES = isPreviousES;
+    if (!frozen) {
+      this.isPreviousES = isPreviousES;
+    }
   }
   
   protected boolean isPreviousES() {
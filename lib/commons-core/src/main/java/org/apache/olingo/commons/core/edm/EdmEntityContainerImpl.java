@@ -57,23 +57,24 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
   private final FullQualifiedName parentContainerName;
 
   private List<EdmSingleton> singletons;
-  private final Map<String, EdmSingleton> singletonCache = Collections.synchronizedMap(
+  private Map<String, EdmSingleton> singletonCache = Collections.synchronizedMap(
       new LinkedHashMap<String, EdmSingleton>());
   private List<EdmEntitySet> entitySets;
-  private final Map<String, EdmEntitySet> entitySetCache = Collections.synchronizedMap(
+  private Map<String, EdmEntitySet> entitySetCache = Collections.synchronizedMap(
       new LinkedHashMap<String, EdmEntitySet>());
   private List<EdmActionImport> actionImports;
-  private final Map<String, EdmActionImport> actionImportCache = Collections.synchronizedMap(
+  private Map<String, EdmActionImport> actionImportCache = Collections.synchronizedMap(
       new LinkedHashMap<String, EdmActionImport>());
   private List<EdmFunctionImport> functionImports;
-  private final Map<String, EdmFunctionImport> functionImportCache = Collections.synchronizedMap(
+  private Map<String, EdmFunctionImport> functionImportCache = Collections.synchronizedMap(
       new LinkedHashMap<String, EdmFunctionImport>());
 	  private boolean isAnnotationsIncluded = false;
-  private final Map<String, EdmEntitySet> entitySetWithAnnotationsCache = Collections.synchronizedMap(
+  private Map<String, EdmEntitySet> entitySetWithAnnotationsCache = Collections.synchronizedMap(
       new LinkedHashMap<String, EdmEntitySet>());
-  private final Map<String, EdmSingleton> singletonWithAnnotationsCache = Collections.synchronizedMap(
+  private Map<String, EdmSingleton> singletonWithAnnotationsCache = Collections.synchronizedMap(
       new LinkedHashMap<String, EdmSingleton>());
   private boolean isSingletonAnnotationsIncluded = false;
+  private boolean frozen = false;
   private final String SLASH = "/";
   private final String DOT = ".";
 
@@ -114,9 +115,9 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
         singleton = createSingleton(singletonName);
         if (singleton != null) {
           if (isSingletonAnnotationsIncluded) {
-            singletonWithAnnotationsCache.put(singletonName, singleton);
+            cache(singletonWithAnnotationsCache, singletonName, singleton);
           } else {
-            singletonCache.put(singletonName, singleton);
+            cache(singletonCache, singletonName, singleton);
           }
         }
       }
@@ -133,9 +134,9 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
         entitySet = createEntitySet(entitySetName);
         if (entitySet != null) {
           if (isAnnotationsIncluded) {
-            entitySetWithAnnotationsCache.put(entitySetName, entitySet);
+            cache(entitySetWithAnnotationsCache, entitySetName, entitySet);
           } else {
-            entitySetCache.put(entitySetName, entitySet);
+            cache(entitySetCache, entitySetName, entitySet);
           }
         }
       }
@@ -150,7 +151,7 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
     if (actionImport == null) {
       actionImport = createActionImport(actionImportName);
       if (actionImport != null) {
-        actionImportCache.put(actionImportName, actionImport);
+        cache(actionImportCache, actionImportName, actionImport);
       }
     }
     return actionImport;
@@ -162,7 +163,7 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
     if (functionImport == null) {
       functionImport = createFunctionImport(functionImportName);
       if (functionImport != null) {
-        functionImportCache.put(functionImportName, functionImport);
+        cache(functionImportCache, functionImportName, functionImport);
       }
     }
     return functionImport;
@@ -178,7 +179,9 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public List<EdmEntitySet> getEntitySetsWithAnnotations() {
-    loadAllEntitySets();
+    if (!frozen || entitySets == null) {
+      loadAllEntitySets();
+    }
     return Collections.unmodifiableList(entitySets);
   }
   
@@ -841,9 +844,9 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 		addEntitySetAnnotations(entitySet, entityContainerName);
         final EdmEntitySetImpl impl = new EdmEntitySetImpl(edm, this, entitySet);
         if (isAnnotationsIncluded) {
-          entitySetWithAnnotationsCache.put(impl.getName(), impl);
+          cache(entitySetWithAnnotationsCache, impl.getName(), impl);
         } else {
-          entitySetCache.put(impl.getName(), impl);
+          cache(entitySetCache, impl.getName(), impl);
         }
         entitySetsLocal.add(impl);
       }
@@ -861,7 +864,7 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
       for (CsdlFunctionImport functionImport : providerFunctionImports) {
         addOperationImportAnnotations(functionImport, entityContainerName);
         EdmFunctionImportImpl impl = new EdmFunctionImportImpl(edm, this, functionImport);
-        functionImportCache.put(impl.getName(), impl);
+        cache(functionImportCache, impl.getName(), impl);
         functionImportsLocal.add(impl);
       }
       functionImports = functionImportsLocal;
@@ -877,7 +880,7 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
       for (CsdlSingleton singleton : providerSingletons) {
         addSingletonAnnotations(singleton, entityContainerName);
         final EdmSingletonImpl impl = new EdmSingletonImpl(edm, this, singleton);
-        singletonCache.put(singleton.getName(), impl);
+        cache(singletonCache, singleton.getName(), impl);
         singletonsLocal.add(impl);
       }
       singletons = singletonsLocal;
@@ -893,7 +896,7 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
       for (CsdlActionImport actionImport : providerActionImports) {
         addOperationImportAnnotations(actionImport, entityContainerName);
 		final EdmActionImportImpl impl = new EdmActionImportImpl(edm, this, actionImport);
-        actionImportCache.put(actionImport.getName(), impl);
+        cache(actionImportCache, actionImport.getName(), impl);
         actionImportsLocal.add(impl);
       }
       actionImports = actionImportsLocal;
@@ -901,6 +904,38 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   }
 
+  /**
+   * Loads all entity sets, singletons, and operation imports and replaces the
+   * lookup caches by immutable snapshots.
+   * @see AbstractEdm#freeze()
+   */
+  void freeze() {
+    if (frozen) {
+      return;
+    }
+    loadAllEntitySets();
+    loadAllSingletons();
+    loadAllActionImports();
+    loadAllFunctionImports();
+    singletonCache = snapshot(singletonCache);
+    entitySetCache = snapshot(entitySetCache);
+    actionImportCache = snapshot(actionImportCache);
+    functionImportCache = snapshot(functionImportCache);
+    entitySetWithAnnotationsCache = snapshot(entitySetWithAnnotationsCache);
+    singletonWithAnnotationsCache = snapshot(singletonWithAnnotationsCache);
+    frozen = true;
+  }
+
+  private static <V> Map<String, V> snapshot(final Map<String, V> map) {
+    return Collections.unmodifiableMap(new LinkedHashMap<String, V>(map));
+  }
+
+  private <V> void cache(final Map<String, V> map, final String name, final V value) {
+    if (!frozen) {
+      map.put(name, value);
+    }
+  }
+
   private void loadContainer() {
     if (container == null) {
       try {
@@ -194,6 +194,12 @@ public class EdmProviderImpl extends AbstractEdm {
 
   @Override
   public EdmEntityType createEntityType(final FullQualifiedName entityTypeName) {
+    return createEntityType(entityTypeName, false);
+  }
+
+  @Override
+  protected EdmEntityType createEntityType(final FullQualifiedName entityTypeName,
+      final boolean isEntityDerivedFromES) {
     try {
       CsdlEntityType entityType = provider.getEntityType(entityTypeName);
       if (entityType != null) {
@@ -203,7 +209,7 @@ public class EdmProviderImpl extends AbstractEdm {
         addAnnotationsOnStructuralType(entityType, annotations);
         addAnnotationsOnStructuralType(entityType, annotationsOnAlias);
         
-		  if (!isEntityDerivedFromES()) {
+		  if (!isEntityDerivedFromES) {
           addStructuralTypeAnnotations(entityType, entityTypeName, this.provider.getEntityContainer());
         }
         return new EdmEntityTypeImpl(this, entityTypeName, entityType);
@@ -586,6 +592,12 @@ public class EdmProviderImpl extends AbstractEdm {
   
   @Override
   public EdmComplexType createComplexType(final FullQualifiedName complexTypeName) {
+    return createComplexType(complexTypeName, false);
+  }
+
+  @Override
+  protected EdmComplexType createComplexType(final FullQualifiedName complexTypeName,
+      final boolean isComplexDerivedFromES) {
     try {
       final CsdlComplexType complexType = provider.getComplexType(complexTypeName);
       if (complexType != null) {
@@ -599,7 +611,7 @@ public class EdmProviderImpl extends AbstractEdm {
           addAnnotationsOnStructuralType(complexType, annotationsOnAlias);
         }
         
-		  if (!isComplexDerivedFromES()) {
+		  if (!isComplexDerivedFromES) {
           addStructuralTypeAnnotations(complexType, complexTypeName, provider.getEntityContainer());
         }
         return new EdmComplexTypeImpl(this, complexTypeName, complexType);
@@ -21,13 +21,19 @@ package org.apache.olingo.server.core.edm.provider;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.olingo.commons.api.ex.ODataException;
@@ -44,10 +50,14 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAliasInfo;
 import org.apache.olingo.commons.api.edm.provider.CsdlAnnotations;
 import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
 import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
 import org.apache.olingo.commons.api.edm.provider.CsdlEnumType;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
 import org.apache.olingo.commons.api.edm.provider.CsdlPropertyRef;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
 import org.apache.olingo.commons.api.edm.provider.CsdlTypeDefinition;
 import org.apache.olingo.commons.core.edm.EdmProviderImpl;
 import org.junit.Before;
@@ -248,4 +258,39 @@ public class EdmProviderImplTest {
 
     assertNull(edm.getAnnotationGroup(WRONG_FQN, null));
   }
+
+  @Test
+  public void frozen() throws Exception {
+    CsdlEdmProvider localProvider = mock(CsdlEdmProvider.class);
+    CsdlEntityType entityType = new CsdlEntityType().setName(FQN.getName())
+        .setKey(Collections.singletonList(new CsdlPropertyRef().setName("Id")))
+        .setProperties(Collections.singletonList(
+            new CsdlProperty().setName("Id").setType(new FullQualifiedName("Edm", "Int32"))));
+    CsdlEntityContainer container = new CsdlEntityContainer().setName("container")
+        .setEntitySets(Collections.singletonList(new CsdlEntitySet().setName("entitySet").setType(FQN)));
+    CsdlSchema schema = new CsdlSchema().setNamespace(FQN.getNamespace())
+        .setEntityTypes(Collections.singletonList(entityType))
+        .setEntityContainer(container);
+    when(localProvider.getSchemas()).thenReturn(Arrays.asList(schema));
+    when(localProvider.getEntityContainer()).thenReturn(container);
+    when(localProvider.getEntityType(FQN)).thenReturn(entityType);
+
+    EdmProviderImpl localEdm = new EdmProviderImpl(localProvider);
+    localEdm.freeze();
+    assertTrue(localEdm.isFrozen());
+
+    final EdmEntityType edmEntityType = localEdm.getEntityType(FQN);
+    assertNotNull(edmEntityType);
+    assertSame(edmEntityType, localEdm.getEntityType(FQN));
+    assertEquals(Collections.singletonList("Id"), edmEntityType.getKeyPredicateNames());
+    assertNotNull(localEdm.getEntityContainer());
+    assertSame(localEdm.getEntityContainer(), localEdm.getEntityContainer(
+        new FullQualifiedName(FQN.getNamespace(), "container")));
+    assertSame(edmEntityType, localEdm.getEntityContainer().getEntitySet("entitySet").getEntityType());
+
+    // Unknown elements are not cached after freezing.
+    assertNull(localEdm.getEntityType(WRONG_FQN));
+    assertNull(localEdm.getEntityType(WRONG_FQN));
+    verify(localProvider, times(2)).getEntityType(WRONG_FQN);
+  }
 }
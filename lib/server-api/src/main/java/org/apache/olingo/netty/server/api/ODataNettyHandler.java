@@ -18,10 +18,13 @@
  */
 package org.apache.olingo.netty.server.api;
 
+import java.io.InputStream;
 import java.util.Map;
 
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.processor.Processor;
 
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 
@@ -36,6 +39,41 @@ public interface ODataNettyHandler {
    * @param response - HTTP OData response
    */
   void processNettyRequest(HttpRequest request, HttpResponse response, Map<String, String> requestParameters);
+
+  /**
+   * <p>Processes a NettyRequest as an OData request and writes the response to the channel
+   * while it is produced.</p>
+   * <p>The response content is sent as sequence of <code>HttpContent</code> chunks, with chunked
+   * transfer encoding if the response has no content length, so that streamed responses are never
+   * held in memory completely.</p>
+   * <p>Back-pressure only applies if this method is called outside the event loop of the channel:
+   * then it waits while the channel is not writable, so that slow clients slow down the production
+   * of the response instead of filling the outbound buffer. On the event loop it cannot wait,
+   * so the outbound buffer takes the complete response.</p>
+   * <p>The default implementation does not support writing to the channel and throws an
+   * {@link UnsupportedOperationException}.</p>
+   * @param request - the head of the HTTP OData request; its content, if any, is ignored
+   * @param body - the body of the request, e.g., a stream fed with the request chunks as they arrive
+   * @param context - the context of the channel handler the response is written to
+   * @param requestParameters - the parameters <code>contextPath</code> and <code>split</code>
+   */
+  default void processNettyRequest(final HttpRequest request, final InputStream body,
+      final ChannelHandlerContext context, final Map<String, String> requestParameters) {
+    throw new UnsupportedOperationException("Writing to the channel is not supported by this handler.");
+  }
+
+  /**
+   * Sets the options for compressing responses and decompressing requests.
+   * @param options the content encoding options; <code>null</code>, the default, disables response compression
+   * and leaves compressed request bodies untouched
+   * @throws UnsupportedOperationException if the handler does not support content encoding;
+   * the default implementation only accepts <code>null</code>
+   */
+  default void setContentEncoding(final ContentEncodingOptions options) {
+    if (options != null) {
+      throw new UnsupportedOperationException("Content encoding is not supported by this handler.");
+    }
+  }
   
   /**
    * <p>Registers additional custom processor implementations for handling OData requests.</p>
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.util.zip.Deflater;
+
+/**
+ * Options for the content encoding, i.e., the compression, of requests and responses.
+ * <p>Response content is compressed with <code>gzip</code> or <code>deflate</code> while it is written
+ * if the client accepts one of these encodings in its Accept-Encoding header and the content
+ * is at least as long as the minimum size.</p>
+ * <p>Request bodies compressed with one of these encodings, as declared in their Content-Encoding header,
+ * are decompressed before they are processed; this also applies to the requests within a batch request.
+ * Reading more decompressed bytes than the maximum decoded size fails, which protects against
+ * small requests that inflate to huge bodies.</p>
+ */
+public final class ContentEncodingOptions {
+
+  /** The default minimum size in bytes of response content to be compressed. */
+  public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+  /** The default maximum size in bytes of a decompressed request body. */
+  public static final long DEFAULT_MAXIMUM_DECODED_SIZE = 100L * 1024 * 1024;
+
+  private int minimumSize = DEFAULT_MINIMUM_SIZE;
+  private int level = Deflater.DEFAULT_COMPRESSION;
+  private long maximumDecodedSize = DEFAULT_MAXIMUM_DECODED_SIZE;
+
+  /** Gets the minimum size in bytes of response content to be compressed. */
+  public int getMinimumSize() {
+    return minimumSize;
+  }
+
+  /** Gets the compression level, from 0 to 9 as defined by {@link Deflater}, or -1 for the default level. */
+  public int getLevel() {
+    return level;
+  }
+
+  /** Gets the maximum size in bytes of a decompressed request body. */
+  public long getMaximumDecodedSize() {
+    return maximumDecodedSize;
+  }
+
+  private ContentEncodingOptions() {}
+
+  /** Initializes the options builder. */
+  public static Builder with() {
+    return new Builder();
+  }
+
+  /** Builder of content encoding options. */
+  public static final class Builder {
+
+    private ContentEncodingOptions options;
+
+    private Builder() {
+      options = new ContentEncodingOptions();
+    }
+
+    /**
+     * Sets the minimum size in bytes of response content to be compressed;
+     * smaller content is not worth the additional effort.
+     */
+    public Builder minimumSize(final int minimumSize) {
+      if (minimumSize < 0) {
+        throw new IllegalArgumentException("The minimum size must not be negative.");
+      }
+      options.minimumSize = minimumSize;
+      return this;
+    }
+
+    /** Sets the compression level, from 0 (no compression) to 9 (best compression), or -1 for the default. */
+    public Builder level(final int level) {
+      if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+        throw new IllegalArgumentException("The compression level must be between -1 and 9.");
+      }
+      options.level = level;
+      return this;
+    }
+
+    /** Sets the maximum size in bytes of a decompressed request body. */
+    public Builder maximumDecodedSize(final long maximumDecodedSize) {
+      if (maximumDecodedSize <= 0) {
+        throw new IllegalArgumentException("The maximum decoded size must be positive.");
+      }
+      options.maximumDecodedSize = maximumDecodedSize;
+      return this;
+    }
+
+    /** Builds the content encoding options. */
+    public ContentEncodingOptions build() {
+      return options;
+    }
+  }
+}
@@ -136,6 +136,25 @@ public abstract class OData {
   public abstract ServiceMetadata createServiceMetadata(CsdlEdmProvider edmProvider, List<EdmxReference> references,
       ServiceMetadataETagSupport serviceMetadataETagSupport);
 
+  /**
+   * Creates a metadata object for this service.
+   * If <code>frozenEdm</code> is set, all schemas of the provider are loaded eagerly into
+   * an immutable Entity Data Model, so that lookups while handling requests do not need any locks.
+   * In this case the provider is not asked again for elements it has already delivered.
+   * The default implementation ignores <code>frozenEdm</code>.
+   *
+   * @param edmProvider a custom or default implementation for creating metadata
+   * @param references list of edmx references
+   * @param serviceMetadataETagSupport
+   * @param frozenEdm whether the Entity Data Model is to be loaded completely and made immutable
+   * @return a service metadata implementation
+   */
+  public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
+      final List<EdmxReference> references, final ServiceMetadataETagSupport serviceMetadataETagSupport,
+      final boolean frozenEdm) {
+    return createServiceMetadata(edmProvider, references, serviceMetadataETagSupport);
+  }
+
   /**
    * Creates a new URI helper object for performing URI-related tasks.
    * It can be used in Processor implementations.
@@ -180,6 +199,22 @@ public abstract class OData {
    */
   public abstract ODataDeserializer createDeserializer(ContentType contentType,
       ServiceMetadata metadata, final List<String> versions) throws DeserializerException;
+
+  /**
+   * Creates a new deserializer object for reading content in the specified format.
+   * For JSON, entities and entity collections are read token by token from the stream
+   * instead of building a tree of the complete payload in memory first;
+   * the results are the same as the ones of {@link #createDeserializer(ContentType, ServiceMetadata, List)}.
+   * The default implementation returns that non-streaming deserializer.
+   *
+   * @param contentType any content type supported by Olingo (XML, JSON ...)
+   * @param metadata ServiceMetada of the service
+   * @param versions service versions
+   */
+  public ODataDeserializer createStreamingDeserializer(final ContentType contentType,
+      final ServiceMetadata metadata, final List<String> versions) throws DeserializerException {
+    return createDeserializer(contentType, metadata, versions);
+  }
   
   /**
    * Creates a primitive-type instance.
@@ -23,6 +23,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 
 /**
@@ -46,6 +47,19 @@ public interface ODataHttpHandler extends ODataHandler {
    */
   void setSplit(int split);
 
+  /**
+   * Sets the options for compressing responses and decompressing requests.
+   * @param options the content encoding options; <code>null</code>, the default, disables response compression
+   * and leaves compressed request bodies untouched
+   * @throws UnsupportedOperationException if the handler does not support content encoding;
+   * the default implementation only accepts <code>null</code>
+   */
+  default void setContentEncoding(final ContentEncodingOptions options) {
+    if (options != null) {
+      throw new UnsupportedOperationException("Content encoding is not supported by this handler.");
+    }
+  }
+
 
   /**
    * Registers the debug support handler.
@@ -53,6 +67,17 @@ public interface ODataHttpHandler extends ODataHandler {
    */
   void register(DebugSupport debugSupport);
 
+  /**
+   * Registers the metrics support, which is informed about the timings of every request.
+   * The default implementation supports no metrics and only accepts <code>null</code>.
+   * @param metricsSupport metrics support to register
+   */
+  default void register(final MetricsSupport metricsSupport) {
+    if (metricsSupport != null) {
+      throw new UnsupportedOperationException("Metrics are not supported by this handler.");
+    }
+  }
+
   /**
    * Registers a service implementation for modifying the standard list of supported
    * content types.
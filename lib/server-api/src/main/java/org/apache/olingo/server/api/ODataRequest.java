@@ -90,6 +90,14 @@ public class ODataRequest {
     headers.addHeader(name, values);
   }
 
+  /**
+   * Removes a header from the request.
+   * @param name case-insensitive header name
+   */
+  public void removeHeader(final String name) {
+    headers.removeHeader(name);
+  }
+
   /**
    * Gets header values for a given name.
    * @param name the header name as a case-insensitive key
@@ -94,6 +94,14 @@ public class ODataResponse {
     return headers.getHeaderToValues();
   }
 
+  /**
+   * Removes a header from the response.
+   * @param name case-insensitive header name
+   */
+  public void removeHeader(final String name) {
+    headers.removeHeader(name);
+  }
+
   /**
    * Gets header value for a given name.
    * @param name the header name as a case-insensitive key
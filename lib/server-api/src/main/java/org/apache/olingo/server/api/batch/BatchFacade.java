@@ -17,11 +17,16 @@
  * under the License.
  */package org.apache.olingo.server.api.batch;
 
+ import java.util.ArrayList;
+ import java.util.List;
+
+ import org.apache.olingo.commons.api.http.HttpStatusCode;
  import org.apache.olingo.server.api.ODataApplicationException;
  import org.apache.olingo.server.api.ODataLibraryException;
  import org.apache.olingo.server.api.ODataRequest;
  import org.apache.olingo.server.api.ODataResponse;
  import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+ import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
  import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 
  /**
@@ -60,6 +65,66 @@
    public ODataResponsePart handleBatchRequest(BatchRequestPart request)
        throws ODataApplicationException, ODataLibraryException;
 
+   /**
+    * Handles all BatchRequestParts of a batch request.
+    * Depending on the configuration of the handler, independent parts may be executed concurrently;
+    * the default implementation handles the parts one after the other.
+    * Unless <code>continueOnError</code> is set, the processing stops after the first failed part.
+    * @param requests Requests to process
+    * @param continueOnError whether the processing continues after a failed part
+    * @return the corresponding {@link ODataResponsePart}s in the order of the requests
+    * @throws ODataApplicationException
+    * @throws ODataLibraryException
+    */
+   public default List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests,
+       final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+     final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
+     for (final BatchRequestPart request : requests) {
+       final ODataResponsePart responsePart = handleBatchRequest(request);
+       responseParts.add(responsePart);
+       if (!continueOnError) {
+         for (final ODataResponse response : responsePart.getResponses()) {
+           if (response.getStatusCode() >= HttpStatusCode.BAD_REQUEST.getStatusCode()) {
+             return responseParts;
+           }
+         }
+       }
+     }
+     return responseParts;
+   }
+
+   /**
+    * Handles the BatchRequestParts of a batch request while they are read.
+    * In contrast to {@link #handleBatchRequests(List, boolean)}, the parts are not kept after they have been
+    * handled, so only the parts currently processed are in memory.
+    * Depending on the configuration of the handler, independent parts may be executed concurrently;
+    * the default implementation handles the parts one after the other.
+    * Unless <code>continueOnError</code> is set, the processing stops after the first failed part,
+    * and the remaining parts are not read.
+    * @param reader reader returning the requests to process
+    * @param continueOnError whether the processing continues after a failed part
+    * @return the corresponding {@link ODataResponsePart}s in the order of the requests
+    * @throws ODataApplicationException
+    * @throws ODataLibraryException
+    */
+   public default List<ODataResponsePart> handleBatchRequests(final BatchRequestReader reader,
+       final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+     final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
+     BatchRequestPart request;
+     while ((request = reader.next()) != null) {
+       final ODataResponsePart responsePart = handleBatchRequest(request);
+       responseParts.add(responsePart);
+       if (!continueOnError) {
+         for (final ODataResponse response : responsePart.getResponses()) {
+           if (response.getStatusCode() >= HttpStatusCode.BAD_REQUEST.getStatusCode()) {
+             return responseParts;
+           }
+         }
+       }
+     }
+     return responseParts;
+   }
+
    /**
     * Extracts the boundary of a multipart/mixed header.
     * See RFC 2046#5.1
@@ -19,6 +19,7 @@
 package org.apache.olingo.server.api.deserializer;
 
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.Parameter;
@@ -27,6 +28,7 @@ import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 
 public interface FixedFormatDeserializer {
 
@@ -60,4 +62,25 @@ public interface FixedFormatDeserializer {
    */
   public List<BatchRequestPart> parseBatchRequest(InputStream content, String boundary, BatchOptions options)
       throws BatchDeserializerException;
+
+  /**
+   * Reads batch data from an InputStream part by part.
+   * In contrast to {@link #parseBatchRequest(InputStream, String, BatchOptions)}, the data is not read
+   * and validated completely in advance, so errors in later parts are reported only when these parts are read.
+   * The default implementation returns the parts of {@link #parseBatchRequest(InputStream, String, BatchOptions)}.
+   * @param content the data as multipart input stream
+   * @param boundary the boundary between the parts
+   * @param options options for the deserializer
+   * @return a reader returning the batch-request parts
+   */
+  public default BatchRequestReader readBatchRequest(final InputStream content, final String boundary,
+      final BatchOptions options) throws BatchDeserializerException {
+    final Iterator<BatchRequestPart> parts = parseBatchRequest(content, boundary, options).iterator();
+    return new BatchRequestReader() {
+      @Override
+      public BatchRequestPart next() {
+        return parts.hasNext() ? parts.next() : null;
+      }
+    };
+  }
 }
@@ -19,7 +19,11 @@
 package org.apache.olingo.server.api.deserializer;
 
 import java.io.InputStream;
+import java.util.Iterator;
 
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.edm.EdmAction;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmProperty;
@@ -51,6 +55,40 @@ public interface ODataDeserializer {
    */
   DeserializerResult entityCollection(InputStream stream, EdmEntityType edmEntityType) throws DeserializerException;
 
+  /**
+   * Deserializes an entity collection stream lazily into an {@link EntityIterator}.
+   * The entities are read from the stream one by one while iterating,
+   * so the stream must not be closed before the iteration has finished.
+   * Problems found while iterating are thrown as
+   * {@link org.apache.olingo.commons.api.ex.ODataRuntimeException ODataRuntimeException}
+   * with the {@link DeserializerException} as cause.
+   * <p>The default implementation reads the complete collection with
+   * {@link #entityCollection(InputStream, EdmEntityType)} and iterates over the result.</p>
+   * @param stream
+   * @param edmEntityType
+   * @return an {@link EntityIterator} over the entities of the collection
+   * @throws DeserializerException if the start of the collection cannot be read
+   */
+  default EntityIterator entityIterator(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    final EntityCollection collection = entityCollection(stream, edmEntityType).getEntityCollection();
+    final Iterator<Entity> entities = collection.iterator();
+    final EntityIterator iterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return entities.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return entities.next();
+      }
+    };
+    iterator.setCount(collection.getCount());
+    iterator.setNext(collection.getNext());
+    return iterator;
+  }
+
   /**
    * Deserializes an action-parameters stream into a map of key/value pairs.
    * Validates: parameter types, no double parameters, correct json types.
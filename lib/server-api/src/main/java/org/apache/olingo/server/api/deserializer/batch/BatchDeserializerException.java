@@ -63,7 +63,17 @@ public class BatchDeserializerException extends DeserializerException {
     /** parameter: line */
     FORBIDDEN_HEADER,
     /** parameter: line */
-    INVALID_BASE_URI;
+    INVALID_BASE_URI,
+    /** parameter: line */
+    INVALID_JSON,
+    /** parameters: line, property name */
+    MISSING_JSON_PROPERTY,
+    /** parameters: line, atomicity group */
+    INVALID_ATOMICITY_GROUP,
+    /** parameters: line, referenced id */
+    INVALID_DEPENDENCY,
+    /** parameters: line, id */
+    DUPLICATE_REQUEST_ID;
 
     @Override
     public String getKey() {
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer.batch;
+
+/**
+ * Reads the parts of a batch request one after the other.
+ * <p>The request body is read only as far as necessary to return the next part,
+ * so a batch processor which handles each part before reading the next one
+ * never holds more than one part of the batch request in memory; the bodies of the requests
+ * are streams over the content of their part.
+ * {@link org.apache.olingo.server.api.batch.BatchFacade#handleBatchRequests(BatchRequestReader, boolean)}
+ * handles the parts in this way.</p>
+ * @see org.apache.olingo.server.api.deserializer.FixedFormatDeserializer#readBatchRequest(java.io.InputStream,
+ * String, BatchOptions)
+ */
+public interface BatchRequestReader {
+
+  /**
+   * Reads the next part of the batch request.
+   * The underlying input stream is closed after the last part has been read or an error occurred.
+   * @return the next part or <code>null</code> if all parts have been read
+   */
+  BatchRequestPart next() throws BatchDeserializerException;
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.olingo.server.api.uri.UriInfoKind;
+
+/**
+ * <p>Metrics support keeping latency histograms per kind of resource, entity set, and response content type.</p>
+ * <p>For each combination, the total duration and the duration of each phase are recorded in a
+ * {@link LatencyHistogram}, and the number of bytes written is summed up. Once a combination has been seen,
+ * recording its requests does not allocate memory.</p>
+ * <p>One instance should be registered with the handlers of all requests of a service.</p>
+ */
+public class DefaultMetricsSupport implements MetricsSupport {
+
+  private static final RequestPhase[] PHASES = RequestPhase.values();
+  private static final UriInfoKind[] KINDS = UriInfoKind.values();
+  private static final String NONE = "";
+
+  /** Entity-set name, then kind ordinal (with an extra slot for unknown kinds), then content type */
+  private final ConcurrentMap<String, AtomicSeriesArray> series = new ConcurrentHashMap<String, AtomicSeriesArray>();
+
+  @Override
+  public void requestCompleted(final RequestMetrics metrics) {
+    try {
+      getOrCreate(metrics.getUriInfoKind(), metrics.getEntitySetName(), metrics.getContentType()).record(metrics);
+    } catch (final RuntimeException e) {
+      // Metrics must never influence the request.
+    }
+  }
+
+  /**
+   * Gets all series recorded so far.
+   * @return a snapshot of the list of series; the histograms of the series are live
+   */
+  public List<Series> getSeries() {
+    final List<Series> result = new ArrayList<Series>();
+    for (final AtomicSeriesArray byKind : series.values()) {
+      for (int i = 0; i < byKind.length(); i++) {
+        final ConcurrentMap<String, Series> byContentType = byKind.get(i);
+        if (byContentType != null) {
+          result.addAll(byContentType.values());
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the series for a combination of tags.
+   * @return the series or <code>null</code> if no request with these tags has been recorded
+   */
+  public Series getSeries(final UriInfoKind uriInfoKind, final String entitySetName, final String contentType) {
+    final AtomicSeriesArray byKind = series.get(entitySetName == null ? NONE : entitySetName);
+    final ConcurrentMap<String, Series> byContentType = byKind == null ? null : byKind.get(slot(uriInfoKind));
+    return byContentType == null ? null : byContentType.get(contentType == null ? NONE : contentType);
+  }
+
+  private Series getOrCreate(final UriInfoKind uriInfoKind, final String entitySetName, final String contentType) {
+    final String setKey = entitySetName == null ? NONE : entitySetName;
+    AtomicSeriesArray byKind = series.get(setKey);
+    if (byKind == null) {
+      byKind = new AtomicSeriesArray(KINDS.length + 1);
+      final AtomicSeriesArray existing = series.putIfAbsent(setKey, byKind);
+      byKind = existing == null ? byKind : existing;
+    }
+    final int slot = slot(uriInfoKind);
+    ConcurrentMap<String, Series> byContentType = byKind.get(slot);
+    if (byContentType == null) {
+      byKind.compareAndSet(slot, null, new ConcurrentHashMap<String, Series>());
+      byContentType = byKind.get(slot);
+    }
+    final String typeKey = contentType == null ? NONE : contentType;
+    Series result = byContentType.get(typeKey);
+    if (result == null) {
+      result = new Series(uriInfoKind, entitySetName, contentType);
+      final Series existing = byContentType.putIfAbsent(typeKey, result);
+      result = existing == null ? result : existing;
+    }
+    return result;
+  }
+
+  private static int slot(final UriInfoKind uriInfoKind) {
+    return uriInfoKind == null ? KINDS.length : uriInfoKind.ordinal();
+  }
+
+  /** Array of maps per kind; a named class avoids unchecked generic array creation. */
+  private static final class AtomicSeriesArray extends AtomicReferenceArray<ConcurrentMap<String, Series>> {
+    private static final long serialVersionUID = 1L;
+
+    AtomicSeriesArray(final int length) {
+      super(length);
+    }
+  }
+
+  /**
+   * The recorded metrics of all requests with the same kind of resource, entity set, and response content type.
+   */
+  public static final class Series {
+
+    private final UriInfoKind uriInfoKind;
+    private final String entitySetName;
+    private final String contentType;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    Series(final UriInfoKind uriInfoKind, final String entitySetName, final String contentType) {
+      this.uriInfoKind = uriInfoKind;
+      this.entitySetName = entitySetName;
+      this.contentType = contentType;
+      for (int i = 0; i < phases.length; i++) {
+        phases[i] = new LatencyHistogram();
+      }
+    }
+
+    void record(final RequestMetrics metrics) {
+      total.record(metrics.getTotalDuration());
+      for (final RequestPhase phase : PHASES) {
+        final long duration = metrics.getDuration(phase);
+        if (duration > 0) {
+          phases[phase.ordinal()].record(duration);
+        }
+      }
+      bytesWritten.addAndGet(metrics.getBytesWritten());
+      if (metrics.getStatusCode() >= 400) {
+        errors.incrementAndGet();
+      }
+    }
+
+    /** Gets the kind of resource, or <code>null</code> for requests with unparsable URI. */
+    public UriInfoKind getUriInfoKind() {
+      return uriInfoKind;
+    }
+
+    public String getEntitySetName() {
+      return entitySetName;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    /** Gets the histogram of the total durations. */
+    public LatencyHistogram getTotal() {
+      return total;
+    }
+
+    /** Gets the histogram of the durations of a phase; requests not passing the phase are not counted. */
+    public LatencyHistogram getPhase(final RequestPhase phase) {
+      return phases[phase.ordinal()];
+    }
+
+    public long getBytesWritten() {
+      return bytesWritten.get();
+    }
+
+    /** Gets the number of requests answered with a status code of 400 or above. */
+    public long getErrors() {
+      return errors.get();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Thread-safe histogram of non-negative values, e.g., durations in nanoseconds.</p>
+ * <p>Values are counted in buckets; each power of two is divided into eight buckets, so that
+ * percentiles are reported with a relative error of at most 12.5%. Recording a value does not
+ * allocate memory and does not block.</p>
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value.
+   * @param value the value; negative values are recorded as zero
+   */
+  public void record(final long value) {
+    final long v = Math.max(value, 0);
+    counts.incrementAndGet(index(v));
+    count.incrementAndGet();
+    sum.addAndGet(v);
+    long current = max.get();
+    while (v > current && !max.compareAndSet(current, v)) {
+      current = max.get();
+    }
+  }
+
+  /** Gets the number of recorded values. */
+  public long getCount() {
+    return count.get();
+  }
+
+  /** Gets the sum of all recorded values. */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /** Gets the largest recorded value. */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Gets the value below or at which the given percentage of the recorded values lies.
+   * @param percentile the percentage, between 0 and 100
+   * @return the upper bound of the bucket containing the percentile, or zero if nothing has been recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    final long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+    long cumulated = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulated += counts.get(i);
+      if (cumulated >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  private static int index(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int shift = magnitude - SUB_BUCKET_BITS;
+    return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  private static long upperBound(final int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    final long lower = (long) (SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+    return lower + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * Register this interface to collect metrics of all requests processed by your service.
+ * <br/>
+ * In contrast to the debug support, the metrics are collected for every request, so implementations
+ * must be thread-safe and fast, and should not block.
+ * @see DefaultMetricsSupport
+ */
+public interface MetricsSupport {
+
+  /**
+   * Is called once per request after the response has been written.
+   * This method MUST NEVER throw an exception.
+   * @param metrics the metrics of the request; the object may be reused for later requests,
+   * so it must not be kept beyond this call
+   */
+  void requestCompleted(RequestMetrics metrics);
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+
+/**
+ * <p>Metrics of a single request.</p>
+ * <p>All durations are in nanoseconds; phases not passed by the request have a duration of zero.</p>
+ */
+public class RequestMetrics {
+
+  private static final RequestPhase[] PHASES = RequestPhase.values();
+
+  private final long[] durations = new long[PHASES.length];
+  private HttpMethod method;
+  private UriInfoKind uriInfoKind;
+  private String entitySetName;
+  private String contentType;
+  private int statusCode;
+  private long totalDuration;
+  private long bytesWritten;
+
+  /** Resets all values so that the object can be used for the next request. */
+  public void reset() {
+    for (int i = 0; i < durations.length; i++) {
+      durations[i] = 0;
+    }
+    method = null;
+    uriInfoKind = null;
+    entitySetName = null;
+    contentType = null;
+    statusCode = 0;
+    totalDuration = 0;
+    bytesWritten = 0;
+  }
+
+  /**
+   * Adds to the duration of a phase.
+   * @param phase the phase
+   * @param duration the duration in nanoseconds
+   */
+  public void addDuration(final RequestPhase phase, final long duration) {
+    durations[phase.ordinal()] += duration;
+  }
+
+  /**
+   * Gets the duration of a phase.
+   * @param phase the phase
+   * @return the duration in nanoseconds
+   */
+  public long getDuration(final RequestPhase phase) {
+    return durations[phase.ordinal()];
+  }
+
+  /**
+   * Gets the duration of the request from its arrival in the handler until the response has been written.
+   * @return the duration in nanoseconds
+   */
+  public long getTotalDuration() {
+    return totalDuration;
+  }
+
+  public void setTotalDuration(final long totalDuration) {
+    this.totalDuration = totalDuration;
+  }
+
+  /**
+   * Gets the HTTP method of the request, after evaluation of method-override headers.
+   * @return the method or <code>null</code> if the request has been rejected before
+   */
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  public void setMethod(final HttpMethod method) {
+    this.method = method;
+  }
+
+  /**
+   * Gets the kind of the resource addressed by the request URI.
+   * @return the kind or <code>null</code> if the URI could not be parsed
+   */
+  public UriInfoKind getUriInfoKind() {
+    return uriInfoKind;
+  }
+
+  public void setUriInfoKind(final UriInfoKind uriInfoKind) {
+    this.uriInfoKind = uriInfoKind;
+  }
+
+  /**
+   * Gets the name of the entity set or singleton the resource path starts with.
+   * @return the name or <code>null</code> if the resource path does not start with an entity set or singleton
+   */
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+
+  public void setEntitySetName(final String entitySetName) {
+    this.entitySetName = entitySetName;
+  }
+
+  /**
+   * Gets the content type of the response as given in its header.
+   * @return the content type or <code>null</code> if the response has no content type
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  public void setContentType(final String contentType) {
+    this.contentType = contentType;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public void setStatusCode(final int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * Gets the number of bytes of response content written to the client.
+   * @return the number of bytes
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  public void setBytesWritten(final long bytesWritten) {
+    this.bytesWritten = bytesWritten;
+  }
+}
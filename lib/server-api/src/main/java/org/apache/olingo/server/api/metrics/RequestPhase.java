@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * Phases of the processing of a request that are measured separately.
+ */
+public enum RequestPhase {
+  /** Parsing of the request URI, unless the result is taken from a cache */
+  URI_PARSING,
+  /** Validation of the request URI against the method, unless the result is taken from a cache */
+  URI_VALIDATION,
+  /**
+   * Dispatching to and running the processor, without the deserialization and serialization
+   * the processor does with the serializers and deserializers of the handler
+   */
+  PROCESSING,
+  /** Handling an error and serializing the error response */
+  ERROR_PROCESSING,
+  /** Writing the response content to the client, including the serialization of streamed content */
+  WRITING,
+  /** Deserialization of the request body by the processor */
+  DESERIALIZATION,
+  /** Serialization of the response content by the processor, unless the content is streamed */
+  SERIALIZATION
+}
@@ -18,11 +18,18 @@
  */
 package org.apache.olingo.server.api.serializer;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.EntityMediaObject;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 
@@ -66,6 +73,49 @@ public interface FixedFormatSerializer {
    */
   InputStream batchResponse(List<ODataResponsePart> batchResponses, String boundary) throws BatchSerializerException;
 
+  /**
+   * Serializes a batch response directly into the output, without buffering it.
+   * The response parts are taken from <code>batchResponses</code> only when the content is written,
+   * so they can be created lazily; parts with a non-empty body have no Content-Length header.
+   * <p>The default implementation serializes all parts with {@link #batchResponse(List, String)}
+   * and streams the buffered result.</p>
+   * @param batchResponses the response parts
+   * @param boundary the boundary between the parts
+   * @return the streamed response
+   */
+  default SerializerStreamResult batchResponseStreamed(final Iterable<ODataResponsePart> batchResponses,
+      final String boundary) throws BatchSerializerException {
+    final List<ODataResponsePart> parts = new ArrayList<ODataResponsePart>();
+    for (final ODataResponsePart part : batchResponses) {
+      parts.add(part);
+    }
+    final InputStream content = batchResponse(parts, boundary);
+    return new SerializerStreamResult() {
+      @Override
+      public ODataContent getODataContent() {
+        return new ODataContent() {
+          @Override
+          public void write(final WritableByteChannel channel) {
+            write(Channels.newOutputStream(channel));
+          }
+
+          @Override
+          public void write(final OutputStream stream) {
+            final byte[] buffer = new byte[8192];
+            try {
+              int count;
+              while ((count = content.read(buffer)) != -1) {
+                stream.write(buffer, 0, count);
+              }
+            } catch (final IOException e) {
+              throw new ODataRuntimeException("Error on writing the batch response.", e);
+            }
+          }
+        };
+      }
+    };
+  }
+
   /**
    * Serializes a ODataResponse into an async response.
    * @param odataResponse the response parts
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.junit.Test;
+
+public class DefaultMetricsSupportTest {
+
+  @Test
+  public void histogram() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getValueAtPercentile(99));
+    for (int value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000L);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500000L, histogram.getSum());
+    assertEquals(1000000L, histogram.getMax());
+    assertWithin(500000L, histogram.getValueAtPercentile(50));
+    assertWithin(990000L, histogram.getValueAtPercentile(99));
+    assertEquals(1000000L, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void series() {
+    final DefaultMetricsSupport support = new DefaultMetricsSupport();
+    final RequestMetrics metrics = new RequestMetrics();
+    for (int i = 0; i < 3; i++) {
+      metrics.reset();
+      metrics.setUriInfoKind(UriInfoKind.resource);
+      metrics.setEntitySetName("ESAllPrim");
+      metrics.setContentType("application/json");
+      metrics.addDuration(RequestPhase.URI_PARSING, 10);
+      metrics.addDuration(RequestPhase.PROCESSING, 100);
+      metrics.setTotalDuration(200);
+      metrics.setBytesWritten(42);
+      metrics.setStatusCode(i == 0 ? 404 : 200);
+      support.requestCompleted(metrics);
+    }
+    metrics.reset();
+    metrics.setStatusCode(400);
+    support.requestCompleted(metrics);
+
+    assertEquals(2, support.getSeries().size());
+    final DefaultMetricsSupport.Series series =
+        support.getSeries(UriInfoKind.resource, "ESAllPrim", "application/json");
+    assertEquals(3, series.getTotal().getCount());
+    assertEquals(3, series.getPhase(RequestPhase.URI_PARSING).getCount());
+    assertEquals(300, series.getPhase(RequestPhase.PROCESSING).getSum());
+    assertEquals(0, series.getPhase(RequestPhase.WRITING).getCount());
+    assertEquals(126, series.getBytesWritten());
+    assertEquals(1, series.getErrors());
+    assertEquals(1, support.getSeries(null, null, null).getErrors());
+    assertNull(support.getSeries(UriInfoKind.metadata, "ESAllPrim", "application/json"));
+  }
+
+  private static void assertWithin(final long expected, final long actual) {
+    assertTrue("expected about " + expected + " but was " + actual,
+        Math.abs(actual - expected) <= expected / 8);
+  }
+}
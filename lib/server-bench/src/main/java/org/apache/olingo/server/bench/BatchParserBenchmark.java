@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of multipart batch requests; every second part is a change set creating an entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchParserBenchmark {
+
+  private static final String CRLF = "\r\n";
+  private static final String BOUNDARY = "batch_bench";
+  private static final String CHANGESET_BOUNDARY = "changeset_bench";
+
+  @Param({ "10", "100" })
+  private int parts;
+
+  private FixedFormatDeserializer deserializer;
+  private BatchOptions options;
+  private byte[] body;
+
+  @Setup
+  public void setup() throws Exception {
+    deserializer = TechnicalService.getOData().createFixedFormatDeserializer();
+    options = BatchOptions.with().rawBaseUri(TechnicalService.BASE_URI).rawServiceResolutionUri("").build();
+    final String entity = new String(TechnicalService.serializeAllPrimEntity(
+        TechnicalService.createAllPrimCollection(1).getEntities().get(0), ContentType.JSON_NO_METADATA),
+        StandardCharsets.UTF_8);
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < parts; i++) {
+      builder.append("--").append(BOUNDARY).append(CRLF);
+      if (i % 2 == 0) {
+        builder.append("Content-Type: application/http").append(CRLF)
+            .append("Content-Transfer-Encoding: binary").append(CRLF)
+            .append(CRLF)
+            .append("GET ESAllPrim(").append(i).append(")?$select=PropertyString HTTP/1.1").append(CRLF)
+            .append("Accept: application/json").append(CRLF)
+            .append(CRLF)
+            .append(CRLF);
+      } else {
+        builder.append("Content-Type: multipart/mixed; boundary=").append(CHANGESET_BOUNDARY).append(CRLF)
+            .append(CRLF)
+            .append("--").append(CHANGESET_BOUNDARY).append(CRLF)
+            .append("Content-Type: application/http").append(CRLF)
+            .append("Content-Transfer-Encoding: binary").append(CRLF)
+            .append("Content-Id: ").append(i).append(CRLF)
+            .append(CRLF)
+            .append("POST ESAllPrim HTTP/1.1").append(CRLF)
+            .append("Content-Type: application/json").append(CRLF)
+            .append(CRLF)
+            .append(entity).append(CRLF)
+            .append("--").append(CHANGESET_BOUNDARY).append("--").append(CRLF);
+      }
+    }
+    builder.append("--").append(BOUNDARY).append("--").append(CRLF);
+    body = builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public List<BatchRequestPart> parse() throws Exception {
+    return deserializer.parseBatchRequest(new ByteArrayInputStream(body), BOUNDARY, options);
+  }
+}
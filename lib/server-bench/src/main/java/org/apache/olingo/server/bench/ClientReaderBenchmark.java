@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Client-side reading of a large entity collection as serialized by the server: only deserialized,
+ * also bound to the client domain objects, and iterated entity by entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientReaderBenchmark {
+
+  @Param({ "JSON", "JSON_FULL_METADATA" })
+  private String format;
+
+  @Param("10000")
+  private int size;
+
+  private ODataClient client;
+  private ContentType contentType;
+  private byte[] collection;
+
+  @Setup
+  public void setup() throws Exception {
+    client = ODataClientFactory.getClient();
+    contentType = TechnicalService.getFormat(format);
+    collection = TechnicalService.serializeAllPrimCollection(TechnicalService.createAllPrimCollection(size),
+        contentType);
+  }
+
+  @Benchmark
+  public ResWrap<EntityCollection> deserialize() throws Exception {
+    return client.getDeserializer(contentType).toEntitySet(new ByteArrayInputStream(collection));
+  }
+
+  @Benchmark
+  public ClientEntitySet read() throws Exception {
+    return client.getReader().readEntitySet(new ByteArrayInputStream(collection), contentType);
+  }
+
+  @Benchmark
+  public int iterate() {
+    final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator =
+        new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(client, new ByteArrayInputStream(collection),
+            contentType);
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    return count;
+  }
+}
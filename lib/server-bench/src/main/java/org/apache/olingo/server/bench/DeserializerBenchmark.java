@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Server-side deserialization of request bodies with a single entity and with a large entity collection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializerBenchmark {
+
+  @Param({ "JSON", "APPLICATION_XML" })
+  private String format;
+
+  @Param("10000")
+  private int size;
+
+  private ODataDeserializer deserializer;
+  private EdmEntityType entityType;
+  private byte[] entity;
+  private byte[] collection;
+
+  @Setup
+  public void setup() throws Exception {
+    final ContentType contentType = TechnicalService.getFormat(format);
+    deserializer = TechnicalService.getOData().createDeserializer(contentType, TechnicalService.getMetadata());
+    entityType = TechnicalService.getEntitySet("ESAllPrim").getEntityType();
+    final EntityCollection entities = TechnicalService.createAllPrimCollection(size);
+    collection = TechnicalService.serializeAllPrimCollection(entities, contentType);
+    entities.getEntities().subList(1, size).clear();
+    entity = TechnicalService.serializeAllPrimEntity(entities.getEntities().get(0), contentType);
+  }
+
+  @Benchmark
+  public Object entity() throws Exception {
+    return deserializer.entity(new ByteArrayInputStream(entity), entityType).getEntity();
+  }
+
+  @Benchmark
+  public Object entityCollection() throws Exception {
+    return deserializer.entityCollection(new ByteArrayInputStream(collection), entityType).getEntityCollection();
+  }
+}
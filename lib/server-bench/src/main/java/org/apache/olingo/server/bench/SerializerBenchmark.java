@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a single entity and of a large entity collection in the JSON metadata levels and in XML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+  @Param({ "JSON_NO_METADATA", "JSON", "JSON_FULL_METADATA", "APPLICATION_XML" })
+  private String format;
+
+  @Param("10000")
+  private int size;
+
+  private ODataSerializer serializer;
+  private EdmEntitySet entitySet;
+  private EntityCollection collection;
+  private Entity entity;
+  private EntityCollectionSerializerOptions collectionOptions;
+  private EntitySerializerOptions entityOptions;
+
+  @Setup
+  public void setup() throws Exception {
+    serializer = TechnicalService.getOData().createSerializer(TechnicalService.getFormat(format));
+    entitySet = TechnicalService.getEntitySet("ESAllPrim");
+    collection = TechnicalService.createAllPrimCollection(size);
+    entity = collection.getEntities().get(0);
+    collectionOptions = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .id(TechnicalService.BASE_URI + "/ESAllPrim")
+        .build();
+    entityOptions = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).suffix(Suffix.ENTITY).build())
+        .build();
+  }
+
+  @Benchmark
+  public long entity() throws Exception {
+    return TechnicalService.drain(serializer.entity(TechnicalService.getMetadata(), entitySet.getEntityType(),
+        entity, entityOptions).getContent());
+  }
+
+  @Benchmark
+  public long entityCollection() throws Exception {
+    return TechnicalService.drain(serializer.entityCollection(TechnicalService.getMetadata(),
+        entitySet.getEntityType(), collection, collectionOptions).getContent());
+  }
+}
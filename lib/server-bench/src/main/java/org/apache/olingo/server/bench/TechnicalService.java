@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.data.DataProvider.DataProviderException;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+
+/**
+ * Shared access to the EDM and the data of the technical service.
+ */
+final class TechnicalService {
+
+  static final String BASE_URI = "http://localhost/odata.svc";
+
+  private static final OData ODATA = OData.newInstance();
+  private static final ServiceMetadata METADATA = ODATA.createServiceMetadata(new EdmTechProvider(),
+      Collections.<EdmxReference> emptyList());
+
+  private TechnicalService() {
+    // Utility class
+  }
+
+  static OData getOData() {
+    return ODATA;
+  }
+
+  static ServiceMetadata getMetadata() {
+    return METADATA;
+  }
+
+  static EdmEntitySet getEntitySet(final String name) {
+    return METADATA.getEdm().getEntityContainer().getEntitySet(name);
+  }
+
+  /** Gets the content type for the name of one of the format constants of {@link ContentType}. */
+  static ContentType getFormat(final String name) {
+    return "JSON_NO_METADATA".equals(name) ? ContentType.JSON_NO_METADATA :
+        "JSON".equals(name) ? ContentType.JSON :
+            "JSON_FULL_METADATA".equals(name) ? ContentType.JSON_FULL_METADATA :
+                "APPLICATION_XML".equals(name) ? ContentType.APPLICATION_XML :
+                    ContentType.create(name);
+  }
+
+  /**
+   * Creates a collection of copies of the first entity of the entity set ESAllPrim,
+   * with consecutive values of the key property.
+   */
+  static EntityCollection createAllPrimCollection(final int size) throws DataProviderException {
+    final EdmEntitySet entitySet = getEntitySet("ESAllPrim");
+    final Entity template = new DataProvider(ODATA, METADATA.getEdm()).readAll(entitySet).getEntities().get(0);
+    final EntityCollection collection = new EntityCollection();
+    final List<Entity> entities = collection.getEntities();
+    for (int i = 0; i < size; i++) {
+      final Entity entity = new Entity();
+      entity.setType(template.getType());
+      for (final Property property : template.getProperties()) {
+        entity.addProperty(new Property(property.getType(), property.getName(), property.getValueType(),
+            "PropertyInt16".equals(property.getName()) ? (Object) (short) (i % Short.MAX_VALUE) :
+                property.getValue()));
+      }
+      entities.add(entity);
+    }
+    return collection;
+  }
+
+  /** Serializes the collection as content of the entity set ESAllPrim. */
+  static byte[] serializeAllPrimCollection(final EntityCollection collection, final ContentType format)
+      throws SerializerException {
+    final EdmEntitySet entitySet = getEntitySet("ESAllPrim");
+    return toByteArray(ODATA.createSerializer(format).entityCollection(METADATA, entitySet.getEntityType(),
+        collection, EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().serviceRoot(URI.create(BASE_URI + '/')).entitySet(entitySet).build())
+            .id(BASE_URI + "/ESAllPrim")
+            .build()).getContent());
+  }
+
+  /** Serializes the entity as entity of the entity set ESAllPrim. */
+  static byte[] serializeAllPrimEntity(final Entity entity, final ContentType format) throws SerializerException {
+    final EdmEntitySet entitySet = getEntitySet("ESAllPrim");
+    return toByteArray(ODATA.createSerializer(format).entity(METADATA, entitySet.getEntityType(), entity,
+        EntitySerializerOptions.with()
+            .contextURL(ContextURL.with().serviceRoot(URI.create(BASE_URI + '/')).entitySet(entitySet)
+                .suffix(Suffix.ENTITY).build())
+            .build()).getContent());
+  }
+
+  private static byte[] toByteArray(final InputStream content) throws SerializerException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    try {
+      for (int read = content.read(buffer); read >= 0; read = content.read(buffer)) {
+        output.write(buffer, 0, read);
+      }
+    } catch (final IOException e) {
+      throw new SerializerException("Reading serialized content failed.", e,
+          SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+    return output.toByteArray();
+  }
+
+  /** Reads the content completely and returns the number of bytes read. */
+  static long drain(final InputStream content) throws SerializerException {
+    final byte[] buffer = new byte[8192];
+    long count = 0;
+    try {
+      for (int read = content.read(buffer); read >= 0; read = content.read(buffer)) {
+        count += read;
+      }
+      content.close();
+    } catch (final IOException e) {
+      throw new SerializerException("Reading serialized content failed.", e,
+          SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+    return count;
+  }
+}
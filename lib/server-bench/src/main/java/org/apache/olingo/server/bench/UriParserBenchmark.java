@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of representative request URIs, including resource paths, key predicates, filter and order-by
+ * expressions, and nested expand options.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriParserBenchmark {
+
+  @Param({
+      "ESAllPrim",
+      "ESAllPrim(32767)/PropertyString",
+      "ESTwoKeyNav(PropertyInt16=1,PropertyString='1')/NavPropertyETKeyNavOne/PropertyCompNav/PropertyInt16",
+      "ESAllPrim?$filter=PropertyInt16 gt 5 and startswith(PropertyString,'First') or PropertyDouble le 3.5"
+          + "&$orderby=PropertyDouble desc,PropertyString&$top=10&$skip=5&$count=true",
+      "ESKeyNav?$expand=NavPropertyETTwoKeyNavMany($filter=PropertyInt16 eq 1;$select=PropertyString;"
+          + "$orderby=PropertyString),NavPropertyETKeyNavOne&$select=PropertyInt16,PropertyString"
+  })
+  private String uri;
+
+  private String path;
+  private String query;
+
+  @Setup
+  public void setup() {
+    final int index = uri.indexOf('?');
+    path = index < 0 ? uri : uri.substring(0, index);
+    query = index < 0 ? null : uri.substring(index + 1);
+  }
+
+  @Benchmark
+  public UriInfo parse() throws Exception {
+    return new Parser(TechnicalService.getMetadata().getEdm(), TechnicalService.getOData())
+        .parseUri(path, query, null, TechnicalService.BASE_URI);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+/**
+ * JMH benchmarks for URI parsing, serialization, deserialization, batch parsing, and client-side reading,
+ * based on the EDM and the data of the technical service.
+ * <br/>
+ * The module is not part of the reactor build; it is built on its own after the library has been installed:
+ * <pre>
+ * mvn install -DskipTests
+ * mvn -f server-bench/pom.xml package
+ * java -jar server-bench/target/benchmarks.jar
+ * </pre>
+ * Warm-up, measurement, and fork settings are fixed in the benchmark classes, and all input data is created
+ * in memory, so that results of runs on the same machine are comparable without network access.
+ */
+package org.apache.olingo.server.bench;
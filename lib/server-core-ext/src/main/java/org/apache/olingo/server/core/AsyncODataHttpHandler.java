@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ContentEncodingOptions;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.debug.DebugSupport;
+import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
+import org.apache.olingo.server.api.processor.Processor;
+import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
+
+/**
+ * HTTP handler dispatching the processing of OData requests to an executor ("async dispatch").
+ * <br/>
+ * The request is put into asynchronous mode and its processing is dispatched to the given executor,
+ * so that the container thread is released immediately. The number of requests processed concurrently
+ * is then bounded by the executor and not by the thread pool of the container.
+ * If the executor rejects a request, the request is answered with status code 503 (Service Unavailable).
+ * <br/>
+ * This handler is <em>not</em> non-blocking: the request body is read and the response is written
+ * with blocking I/O on the executor thread, so a slow client still occupies an executor thread.
+ * Non-blocking I/O would need Servlet 3.1, whereas this module is built against Servlet 3.0.
+ * <br/>
+ * The wrapped handler is called on the executor threads. If the same instance is used for several requests,
+ * it is shared across these threads and must be thread-safe. Handlers created with
+ * {@link org.apache.olingo.server.api.OData#createHandler(org.apache.olingo.server.api.ServiceMetadata)
+ * OData.createHandler} keep state of the request being processed and are not thread-safe;
+ * create a new handler and a new asynchronous handler for each request, as servlets usually do.
+ * <br/>
+ * If the container does not support asynchronous processing for the request, e.g., because a filter
+ * has not been declared as async-supported, the request is processed synchronously.
+ */
+public class AsyncODataHttpHandler implements ODataHttpHandler {
+
+  private final ODataHttpHandler handler;
+  private final Executor executor;
+  private long timeout = 0;
+
+  /**
+   * Creates an asynchronous handler.
+   * @param handler  the handler doing the actual processing; see the class documentation on thread safety
+   * @param executor the executor running the processing
+   */
+  public AsyncODataHttpHandler(final ODataHttpHandler handler, final Executor executor) {
+    this.handler = handler;
+    this.executor = executor;
+  }
+
+  /**
+   * Sets the time after which an asynchronous request times out.
+   * The request is then answered with status code 503 (Service Unavailable), unless the response
+   * has already been committed, and completed. Processing that has not started yet does not start any more;
+   * running processing is interrupted and cannot touch the response any more.
+   * The timeout must be long enough to write large responses to slow clients.
+   * @param timeout the timeout in milliseconds; zero or less means no timeout, which is the default
+   */
+  public void setTimeout(final long timeout) {
+    this.timeout = Math.max(timeout, 0);
+  }
+
+  @Override
+  public void process(final HttpServletRequest request, final HttpServletResponse response) {
+    if (!request.isAsyncSupported()) {
+      handler.process(request, response);
+      return;
+    }
+
+    final AsyncContext asyncContext = request.startAsync(request, response);
+    asyncContext.setTimeout(timeout);
+    final Dispatch dispatch = new Dispatch(asyncContext, request, response);
+    asyncContext.addListener(dispatch);
+    try {
+      executor.execute(dispatch.task);
+    } catch (final RejectedExecutionException e) {
+      dispatch.stop(true);
+    }
+  }
+
+  /**
+   * State of one dispatched request.
+   * The state is guarded by the instance's lock, which the worker also holds while it touches the response,
+   * so that a timeout never interferes with a write in progress.
+   */
+  private final class Dispatch implements AsyncListener {
+    private final AsyncContext asyncContext;
+    private final HttpServletResponse response;
+    private final FutureTask<Void> task;
+    private boolean started = false;
+    private boolean stopped = false;
+    private boolean completed = false;
+
+    private Dispatch(final AsyncContext asyncContext, final HttpServletRequest request,
+        final HttpServletResponse response) {
+      this.asyncContext = asyncContext;
+      this.response = response;
+      final HttpServletResponse guardedResponse = new GuardedResponse(this, response);
+      task = new FutureTask<Void>(new Runnable() {
+        @Override
+        public void run() {
+          if (start()) {
+            try {
+              handler.process(request, guardedResponse);
+            } finally {
+              complete();
+            }
+          }
+        }
+      }, null);
+    }
+
+    private synchronized boolean start() {
+      if (stopped) {
+        return false;
+      }
+      started = true;
+      return true;
+    }
+
+    private synchronized boolean isStopped() {
+      return stopped;
+    }
+
+    /**
+     * Stops the request exactly once: processing that has not started yet does not start any more,
+     * running processing is interrupted and cannot touch the response any more,
+     * and the request is completed, if requested with status code 503.
+     */
+    private void stop(final boolean unavailable) {
+      final boolean running;
+      synchronized (this) {
+        if (stopped) {
+          return;
+        }
+        stopped = true;
+        running = started;
+        if (unavailable && !completed && !response.isCommitted()) {
+          response.reset();
+          response.setStatus(HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode());
+        }
+      }
+      task.cancel(running);
+      complete();
+    }
+
+    /** Completes the request exactly once, also if the container has completed it already. */
+    private void complete() {
+      synchronized (this) {
+        if (completed) {
+          return;
+        }
+        completed = true;
+      }
+      asyncContext.complete();
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) throws IOException {
+      stop(true);
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) throws IOException {
+      stop(false);
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) throws IOException {
+      // Not re-dispatched
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) throws IOException {
+      synchronized (this) {
+        completed = true;
+      }
+    }
+  }
+
+  /**
+   * Response used by the worker; once the request has been stopped, changes of status and headers
+   * are ignored, and writing fails with an {@link IOException}.
+   */
+  private static class GuardedResponse extends HttpServletResponseWrapper {
+    private final Dispatch dispatch;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    GuardedResponse(final Dispatch dispatch, final HttpServletResponse response) {
+      super(response);
+      this.dispatch = dispatch;
+    }
+
+    private void checkNotStopped() throws IOException {
+      if (dispatch.isStopped()) {
+        throw new IOException("The request has timed out or failed.");
+      }
+    }
+
+    @Override
+    public void setStatus(final int sc) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setStatus(sc);
+        }
+      }
+    }
+
+    @Override
+    public void setHeader(final String name, final String value) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setHeader(name, value);
+        }
+      }
+    }
+
+    @Override
+    public void addHeader(final String name, final String value) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.addHeader(name, value);
+        }
+      }
+    }
+
+    @Override
+    public void setIntHeader(final String name, final int value) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setIntHeader(name, value);
+        }
+      }
+    }
+
+    @Override
+    public void setDateHeader(final String name, final long date) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setDateHeader(name, date);
+        }
+      }
+    }
+
+    @Override
+    public void setContentType(final String type) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setContentType(type);
+        }
+      }
+    }
+
+    @Override
+    public void setContentLength(final int len) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setContentLength(len);
+        }
+      }
+    }
+
+    @Override
+    public void setCharacterEncoding(final String charset) {
+      synchronized (dispatch) {
+        if (!dispatch.stopped) {
+          super.setCharacterEncoding(charset);
+        }
+      }
+    }
+
+    @Override
+    public void sendError(final int sc) throws IOException {
+      synchronized (dispatch) {
+        checkNotStopped();
+        super.sendError(sc);
+      }
+    }
+
+    @Override
+    public void sendError(final int sc, final String msg) throws IOException {
+      synchronized (dispatch) {
+        checkNotStopped();
+        super.sendError(sc, msg);
+      }
+    }
+
+    @Override
+    public void sendRedirect(final String location) throws IOException {
+      synchronized (dispatch) {
+        checkNotStopped();
+        super.sendRedirect(location);
+      }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      synchronized (dispatch) {
+        checkNotStopped();
+        super.flushBuffer();
+      }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      synchronized (dispatch) {
+        checkNotStopped();
+        if (outputStream == null) {
+          final ServletOutputStream output = super.getOutputStream();
+          outputStream = new ServletOutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+              synchronized (dispatch) {
+                checkNotStopped();
+                output.write(b);
+              }
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+              synchronized (dispatch) {
+                checkNotStopped();
+                output.write(b, off, len);
+              }
+            }
+
+            @Override
+            public void flush() throws IOException {
+              synchronized (dispatch) {
+                checkNotStopped();
+                output.flush();
+              }
+            }
+
+            @Override
+            public void close() throws IOException {
+              synchronized (dispatch) {
+                checkNotStopped();
+                output.close();
+              }
+            }
+          };
+        }
+        return outputStream;
+      }
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      synchronized (dispatch) {
+        if (writer == null) {
+          writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+      }
+    }
+  }
+
+  @Override
+  public ODataResponse process(final ODataRequest request) {
+    return handler.process(request);
+  }
+
+  @Override
+  public void setSplit(final int split) {
+    handler.setSplit(split);
+  }
+
+  @Override
+  public void setContentEncoding(final ContentEncodingOptions options) {
+    handler.setContentEncoding(options);
+  }
+
+  @Override
+  public void register(final Processor processor) {
+    handler.register(processor);
+  }
+
+  @Override
+  public void register(final OlingoExtension extension) {
+    handler.register(extension);
+  }
+
+  @Override
+  public void register(final DebugSupport debugSupport) {
+    handler.register(debugSupport);
+  }
+
+  @Override
+  public void register(final MetricsSupport metricsSupport) {
+    handler.register(metricsSupport);
+  }
+
+  @Override
+  public void register(final CustomContentTypeSupport customContentTypeSupport) {
+    handler.register(customContentTypeSupport);
+  }
+
+  @Override
+  public void register(final CustomETagSupport customETagSupport) {
+    handler.register(customETagSupport);
+  }
+}
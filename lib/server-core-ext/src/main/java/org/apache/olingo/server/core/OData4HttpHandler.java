@@ -26,6 +26,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
@@ -42,6 +43,7 @@ public class OData4HttpHandler extends ODataHttpHandlerImpl {
   private final OData odata;
   private int split = 0;
   private CustomContentTypeSupport customContentTypeSupport;
+  private ContentEncoder contentEncoder;
 
 
   public OData4HttpHandler(OData odata, ServiceMetadata serviceMetadata) {
@@ -64,6 +66,7 @@ public class OData4HttpHandler extends ODataHttpHandlerImpl {
 
       ServiceDispatcher dispatcher = new ServiceDispatcher(this.odata, this.serviceMetadata,
           handler, this.customContentTypeSupport);
+      dispatcher.setContentEncoder(this.contentEncoder);
       dispatcher.execute(request, response);
       
     } catch (Exception e) {
@@ -72,7 +75,15 @@ public class OData4HttpHandler extends ODataHttpHandlerImpl {
           this.handler, ContentType.JSON);
       handler.handleException(e, request, response);
     }    
-    convertToHttp(httpResponse, response);
+    final String encoding = this.contentEncoder == null || request == null ? null :
+        this.contentEncoder.prepare(request.getHeaders(HttpHeader.ACCEPT_ENCODING), response);
+    convertToHttp(httpResponse, response, this.contentEncoder, encoding);
+  }
+
+  @Override
+  public void setContentEncoding(final ContentEncodingOptions options) {
+    super.setContentEncoding(options);
+    this.contentEncoder = options == null ? null : new ContentEncoder(options);
   }
 
 
@@ -69,6 +69,7 @@ public class ServiceDispatcher extends RequestURLHierarchyVisitor {
   protected ServiceMetadata metadata;
   protected ServiceHandler handler;
   protected CustomContentTypeSupport customContentSupport;
+  protected ContentEncoder contentEncoder;
   private String idOption;
   protected ServiceRequest request;
 
@@ -80,10 +81,21 @@ public class ServiceDispatcher extends RequestURLHierarchyVisitor {
     this.customContentSupport = customContentSupport;
   }
 
+  /**
+   * Sets the content encoder, which decompresses compressed request bodies
+   * before they are processed, also within batch requests.
+   */
+  public void setContentEncoder(ContentEncoder contentEncoder) {
+    this.contentEncoder = contentEncoder;
+  }
+
   public void execute(ODataRequest odRequest, ODataResponse odResponse) {
     FormatOption formatOption = null;
     ODataException oDataException = null;
     try {
+      if (this.contentEncoder != null) {
+        this.contentEncoder.decode(odRequest);
+      }
       String path = odRequest.getRawODataPath();      
       String query = odRequest.getRawQueryPath();      
       if(path.indexOf("$entity") != -1) {
@@ -163,6 +175,7 @@ public class ServiceDispatcher extends RequestURLHierarchyVisitor {
     this.request.setODataRequest(odRequest);
     this.request.setUriInfo(uriInfo);
     this.request.setCustomContentTypeSupport(this.customContentSupport);
+    this.request.setContentEncoder(this.contentEncoder);
     this.request.execute(this.handler, odResponse);
   }
 
@@ -57,6 +57,7 @@ public abstract class ServiceRequest {
   protected UriInfo uriInfo;
   protected ServiceMetadata serviceMetadata;
   protected CustomContentTypeSupport customContentType;
+  protected ContentEncoder contentEncoder;
   protected ODataRequest request;
 
   public ServiceRequest(OData odata, ServiceMetadata serviceMetadata) {
@@ -120,6 +121,14 @@ public abstract class ServiceRequest {
     this.customContentType = support;
   }
 
+  public ContentEncoder getContentEncoder() {
+    return this.contentEncoder;
+  }
+
+  public void setContentEncoder(ContentEncoder contentEncoder) {
+    this.contentEncoder = contentEncoder;
+  }
+
   public ODataRequest getODataRequest() {
     return this.request;
   }
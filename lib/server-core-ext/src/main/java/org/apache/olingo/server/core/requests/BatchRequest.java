@@ -18,7 +18,6 @@
  */
 package org.apache.olingo.server.core.requests;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -37,6 +36,7 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.core.ContentNegotiatorException;
 import org.apache.olingo.server.core.ServiceDispatcher;
@@ -68,13 +68,15 @@ public class BatchRequest extends ServiceRequest {
     final BatchOptions options = BatchOptions.with().rawBaseUri(request.getRawBaseUri())
         .rawServiceResolutionUri(this.request.getRawServiceResolutionUri()).build();
 
-    final List<BatchRequestPart> parts = this.odata.createFixedFormatDeserializer()
-        .parseBatchRequest(request.getBody(), boundary, options);
+    // The parts are read one after the other, so only the part currently processed is in memory.
+    final BatchRequestReader reader = this.odata.createFixedFormatDeserializer()
+        .readBatchRequest(request.getBody(), boundary, options);
 
     ODataResponsePart partResponse = null;
     final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
 
-    for (BatchRequestPart part : parts) {
+    BatchRequestPart part;
+    while ((part = reader.next()) != null) {
       if (part.isChangeSet()) {
         String txnId = null;
         try {
@@ -112,12 +114,10 @@ public class BatchRequest extends ServiceRequest {
 
     // send response
     final String responseBoundary = "batch_" + UUID.randomUUID().toString();
-    ;
-    final InputStream responseContent = odata.createFixedFormatSerializer().batchResponse(
-        responseParts, responseBoundary);
     response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED + ";boundary="
         + responseBoundary);
-    response.setContent(responseContent);
+    response.setODataContent(odata.createFixedFormatSerializer().batchResponseStreamed(
+        responseParts, responseBoundary).getODataContent());
     response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
   }
 
@@ -153,6 +153,7 @@ public class BatchRequest extends ServiceRequest {
   ODataResponse executeSingleRequest(ODataRequest singleRequest, ServiceHandler handler) {
     ServiceDispatcher dispatcher = new ServiceDispatcher(this.odata, this.serviceMetadata, handler,
         this.customContentType);
+    dispatcher.setContentEncoder(this.contentEncoder);
     ODataResponse res = new ODataResponse();
     dispatcher.execute(singleRequest, res);
     return res;
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class AsyncODataHttpHandlerTest {
+
+  private final List<Runnable> tasks = new ArrayList<Runnable>();
+  private final Executor executor = new Executor() {
+    @Override
+    public void execute(final Runnable command) {
+      tasks.add(command);
+    }
+  };
+  private final ODataHttpHandler handler = mock(ODataHttpHandler.class);
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private final HttpServletResponse response = mock(HttpServletResponse.class);
+  private final AsyncContext asyncContext = mock(AsyncContext.class);
+
+  @Before
+  public void before() {
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync(request, response)).thenReturn(asyncContext);
+  }
+
+  @Test
+  public void processOnExecutor() {
+    final AsyncODataHttpHandler asyncHandler = new AsyncODataHttpHandler(handler, executor);
+    asyncHandler.setTimeout(60000);
+    asyncHandler.process(request, response);
+    verify(asyncContext).setTimeout(60000);
+    verify(handler, never()).process(eq(request), any(HttpServletResponse.class));
+    verify(asyncContext, never()).complete();
+
+    assertEquals(1, tasks.size());
+    tasks.get(0).run();
+    verify(handler).process(eq(request), any(HttpServletResponse.class));
+    verify(asyncContext).complete();
+  }
+
+  @Test
+  public void completeAfterException() {
+    doThrow(new IllegalStateException()).when(handler).process(eq(request), any(HttpServletResponse.class));
+    new AsyncODataHttpHandler(handler, executor).process(request, response);
+    tasks.get(0).run();
+    verify(asyncContext).complete();
+  }
+
+  @Test
+  public void timeoutBeforeProcessing() throws Exception {
+    new AsyncODataHttpHandler(handler, executor).process(request, response);
+    verify(asyncContext).setTimeout(0);
+    final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(listener.capture());
+
+    listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+    verify(response).setStatus(503);
+    verify(asyncContext).complete();
+    tasks.get(0).run();
+    verify(handler, never()).process(eq(request), any(HttpServletResponse.class));
+    verify(asyncContext, times(1)).complete();
+  }
+
+  @Test
+  public void timeoutWhileProcessing() throws Exception {
+    final ServletOutputStream output = mock(ServletOutputStream.class);
+    when(response.getOutputStream()).thenReturn(output);
+    new AsyncODataHttpHandler(handler, executor).process(request, response);
+    final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(listener.capture());
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        final HttpServletResponse guardedResponse = (HttpServletResponse) invocation.getArguments()[1];
+        guardedResponse.setStatus(200);
+        final ServletOutputStream guardedOutput = guardedResponse.getOutputStream();
+        guardedOutput.write(new byte[] { 1, 2 }, 0, 2);
+
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+        // The request is answered and completed at once, and the running processing is interrupted.
+        assertTrue(Thread.interrupted());
+        verify(response).reset();
+        verify(response).setStatus(503);
+        verify(asyncContext).complete();
+
+        // The processing cannot touch the response any more.
+        guardedResponse.setStatus(500);
+        guardedResponse.setHeader("Content-Type", "text/plain");
+        try {
+          guardedOutput.write(new byte[] { 3 }, 0, 1);
+          fail("Expected an IOException");
+        } catch (final IOException e) {
+          // expected
+        }
+        return null;
+      }
+    }).when(handler).process(eq(request), any(HttpServletResponse.class));
+
+    tasks.get(0).run();
+    verify(response).setStatus(200);
+    verify(response, never()).setStatus(500);
+    verify(response, never()).setHeader("Content-Type", "text/plain");
+    verify(output, times(1)).write(any(byte[].class), eq(0), any(Integer.class));
+    verify(asyncContext, times(1)).complete();
+  }
+
+  @Test
+  public void timeoutAfterCommit() throws Exception {
+    when(response.isCommitted()).thenReturn(true);
+    new AsyncODataHttpHandler(handler, executor).process(request, response);
+    final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(listener.capture());
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+        Thread.interrupted();
+        return null;
+      }
+    }).when(handler).process(eq(request), any(HttpServletResponse.class));
+
+    tasks.get(0).run();
+    verify(response, never()).reset();
+    verify(response, never()).setStatus(503);
+    verify(asyncContext, times(1)).complete();
+  }
+
+  @Test
+  public void rejected() {
+    new AsyncODataHttpHandler(handler, new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    }).process(request, response);
+    verify(response).setStatus(503);
+    verify(asyncContext).complete();
+    verify(handler, never()).process(eq(request), any(HttpServletResponse.class));
+  }
+
+  @Test
+  public void synchronousWithoutAsyncSupport() {
+    when(request.isAsyncSupported()).thenReturn(false);
+    new AsyncODataHttpHandler(handler, executor).process(request, response);
+    verify(handler).process(request, response);
+    verify(request, never()).startAsync(request, response);
+    assertEquals(0, tasks.size());
+  }
+}
@@ -20,12 +20,18 @@ package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -42,10 +48,14 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.commons.core.Encoder;
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.core.requests.ActionRequest;
 import org.apache.olingo.server.core.requests.DataRequest;
@@ -90,12 +100,16 @@ public class ServiceDispatcherTest {
     }
   }
   
-  public void beforeTest(ServiceHandler serviceHandler) throws Exception {
+  private ServiceMetadata loadMetadata() throws Exception {
     MetadataParser parser = new MetadataParser();
     parser.parseAnnotations(true);
     parser.useLocalCoreVocabularies(true);
     parser.implicitlyLoadCoreVocabularies(true);
-    ServiceMetadata metadata = parser.buildServiceMetadata(new FileReader("src/test/resources/trippin.xml"));
+    return parser.buildServiceMetadata(new FileReader("src/test/resources/trippin.xml"));
+  }
+
+  public void beforeTest(ServiceHandler serviceHandler) throws Exception {
+    ServiceMetadata metadata = loadMetadata();
 
     File baseDir = new File(System.getProperty("java.io.tmpdir"));
     tomcat.setBaseDir(baseDir.getAbsolutePath());
@@ -446,6 +460,37 @@ public class ServiceDispatcherTest {
         });
   }
   
+  @Test
+  public void testCompressedBody() throws Exception {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream stream = new GZIPOutputStream(compressed)) {
+      stream.write("{\"@odata.id\": \"/Photos(11)\"}".getBytes(StandardCharsets.UTF_8));
+    }
+    final ODataRequest odRequest = new ODataRequest();
+    odRequest.setMethod(HttpMethod.PUT);
+    odRequest.setRawBaseUri("http://localhost/trippin");
+    odRequest.setRawODataPath("/People('russelwhyte')/Friends('someone')/Photo/$ref");
+    odRequest.setRawRequestUri("http://localhost/trippin/People('russelwhyte')/Friends('someone')/Photo/$ref");
+    odRequest.setHeader(HttpHeader.CONTENT_TYPE, "application/json;odata.metadata=minimal");
+    odRequest.setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+    odRequest.setBody(new ByteArrayInputStream(compressed.toByteArray()));
+
+    final ServiceHandler handler = Mockito.mock(ServiceHandler.class);
+    final ServiceDispatcher dispatcher = new ServiceDispatcher(OData4Impl.newInstance(), loadMetadata(),
+        handler, null);
+    final ContentEncoder encoder = new ContentEncoder(ContentEncodingOptions.with().build());
+    dispatcher.setContentEncoder(encoder);
+    dispatcher.execute(odRequest, new ODataResponse());
+
+    ArgumentCaptor<DataRequest> arg1 = ArgumentCaptor.forClass(DataRequest.class);
+    ArgumentCaptor<URI> arg3 = ArgumentCaptor.forClass(URI.class);
+    Mockito.verify(handler).updateReference(arg1.capture(), Mockito.anyString(), arg3.capture(),
+        Mockito.any(NoContentResponse.class));
+    assertTrue(arg3.getValue().toString().endsWith("Photos(11)"));
+    // Batch requests hand the encoder on to the dispatchers of their parts.
+    assertSame(encoder, arg1.getValue().getContentEncoder());
+  }
+
   @Test
   public void test$id() throws Exception {
     final ServiceHandler handler = Mockito.mock(ServiceHandler.class);
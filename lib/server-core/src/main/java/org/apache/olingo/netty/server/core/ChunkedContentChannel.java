@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Channel writing the response content as <code>HttpContent</code> chunks of a fixed size,
+ * allocated from the allocator of the Netty channel.
+ * <br/>
+ * Each full chunk is flushed immediately. Outside the event loop, writing waits for the last
+ * chunk to be sent while the Netty channel is not writable.
+ */
+final class ChunkedContentChannel implements WritableByteChannel {
+
+  private final ChannelHandlerContext context;
+  private final int chunkSize;
+  private ByteBuf chunk;
+  private ChannelFuture lastWrite;
+  private boolean open = true;
+
+  ChunkedContentChannel(final ChannelHandlerContext context, final int chunkSize) {
+    this.context = context;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public int write(final ByteBuffer source) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    final int length = source.remaining();
+    while (source.hasRemaining()) {
+      if (chunk == null) {
+        chunk = context.alloc().directBuffer(chunkSize, chunkSize);
+      }
+      final int count = Math.min(source.remaining(), chunk.writableBytes());
+      final int limit = source.limit();
+      source.limit(source.position() + count);
+      chunk.writeBytes(source);
+      source.limit(limit);
+      if (!chunk.isWritable()) {
+        flushChunk();
+      }
+    }
+    return length;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  /** Sends the remaining content and ends the response. */
+  @Override
+  public void close() throws IOException {
+    if (open) {
+      open = false;
+      flushChunk();
+      lastWrite = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT, context.channel().newPromise());
+    }
+  }
+
+  /** Discards content not sent yet without ending the response. */
+  void discard() {
+    open = false;
+    if (chunk != null) {
+      chunk.release();
+      chunk = null;
+    }
+  }
+
+  /** Gets the future of the last write, or <code>null</code> if nothing has been written. */
+  ChannelFuture getLastWrite() {
+    return lastWrite;
+  }
+
+  private void flushChunk() throws IOException {
+    if (chunk != null) {
+      if (chunk.isReadable()) {
+        lastWrite = context.writeAndFlush(new DefaultHttpContent(chunk), context.channel().newPromise());
+      } else {
+        chunk.release();
+      }
+      chunk = null;
+    }
+    if (lastWrite != null) {
+      if (!context.channel().isWritable() && !context.channel().eventLoop().inEventLoop()) {
+        lastWrite.awaitUninterruptibly();
+      }
+      if (lastWrite.isDone() && !lastWrite.isSuccess()) {
+        throw new IOException("Error on writing response content", lastWrite.cause());
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Request body fed with the <code>HttpContent</code> chunks of a request as they arrive,
+ * so that the request can be processed without aggregating it into a <code>FullHttpRequest</code>.
+ * <br/>
+ * The chunks are offered by the event loop of the channel and read by the thread processing the request.
+ * While more than the given number of bytes is buffered, reading from the channel is suspended.
+ * <br/>
+ * A typical channel handler creates the stream when it receives the <code>HttpRequest</code>, hands it
+ * to {@link org.apache.olingo.netty.server.api.ODataNettyHandler#processNettyRequest(
+ * io.netty.handler.codec.http.HttpRequest, InputStream, io.netty.channel.ChannelHandlerContext, java.util.Map)}
+ * running on a separate executor, and calls {@link #offer(HttpContent)} for each following chunk.
+ */
+public class ChunkedRequestInputStream extends InputStream {
+
+  public static final int DEFAULT_MAX_BUFFERED_BYTES = 65536;
+
+  private static final ByteBuf END = Unpooled.buffer(0);
+
+  private final Channel channel;
+  private final int maxBufferedBytes;
+  private final LinkedBlockingQueue<ByteBuf> chunks = new LinkedBlockingQueue<ByteBuf>();
+  private int bufferedBytes = 0;
+  private boolean suspended = false;
+  private boolean closed = false;
+  private Throwable failure;
+  private ByteBuf current;
+  private boolean ended = false;
+
+  public ChunkedRequestInputStream(final Channel channel) {
+    this(channel, DEFAULT_MAX_BUFFERED_BYTES);
+  }
+
+  /**
+   * @param channel          the channel the request is received on
+   * @param maxBufferedBytes the number of buffered bytes at which reading from the channel is suspended
+   */
+  public ChunkedRequestInputStream(final Channel channel, final int maxBufferedBytes) {
+    this.channel = channel;
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
+
+  /**
+   * Adds a chunk of the request body; a <code>LastHttpContent</code> ends the body.
+   * The content is retained as long as it is needed, so the caller may release it after this call.
+   */
+  public synchronized void offer(final HttpContent content) {
+    if (closed) {
+      return;
+    }
+    final ByteBuf data = content.content();
+    if (data.isReadable()) {
+      bufferedBytes += data.readableBytes();
+      chunks.add(data.retain());
+      if (bufferedBytes >= maxBufferedBytes && !suspended) {
+        suspended = true;
+        channel.config().setAutoRead(false);
+      }
+    }
+    if (content instanceof LastHttpContent) {
+      chunks.add(END);
+    }
+  }
+
+  /** Ends the body prematurely, e.g., because the channel has been closed; reading then fails. */
+  public synchronized void fail(final Throwable cause) {
+    if (!closed && failure == null) {
+      failure = cause;
+      chunks.add(END);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    final byte[] single = new byte[1];
+    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextChunk()) {
+      return -1;
+    }
+    final int count = Math.min(len, current.readableBytes());
+    current.readBytes(b, off, count);
+    consumed(count);
+    return count;
+  }
+
+  @Override
+  public synchronized int available() throws IOException {
+    return current == null ? 0 : current.readableBytes();
+  }
+
+  /** Makes a readable chunk current, waiting for it if necessary; returns false at the end of the body. */
+  private boolean nextChunk() throws IOException {
+    while (current == null || !current.isReadable()) {
+      if (ended) {
+        return false;
+      }
+      releaseCurrent();
+      ByteBuf next;
+      try {
+        next = chunks.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for the request body.", e);
+      }
+      synchronized (this) {
+        if (closed) {
+          throw new IOException("The request body has been closed.");
+        } else if (next == END) {
+          ended = true;
+          if (failure != null) {
+            throw new IOException("The request body is incomplete.", failure);
+          }
+        } else {
+          current = next;
+        }
+      }
+    }
+    return true;
+  }
+
+  private synchronized void consumed(final int count) {
+    bufferedBytes -= count;
+    if (suspended && bufferedBytes < maxBufferedBytes / 2) {
+      resume();
+    }
+  }
+
+  private void resume() {
+    suspended = false;
+    channel.config().setAutoRead(true);
+  }
+
+  private synchronized void releaseCurrent() {
+    if (current != null) {
+      current.release();
+      current = null;
+    }
+  }
+
+  /** Releases all buffered chunks; chunks offered afterwards are ignored. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      releaseCurrent();
+      ByteBuf chunk = chunks.poll();
+      while (chunk != null) {
+        if (chunk != END) {
+          chunk.release();
+        }
+        chunk = chunks.poll();
+      }
+      bufferedBytes = 0;
+      if (suspended) {
+        resume();
+      }
+      // Wakes up a reader waiting in another thread.
+      chunks.add(END);
+    }
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.netty.server.api.ODataNettyHandler;
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -43,19 +44,24 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.processor.Processor;
+import org.apache.olingo.server.core.ContentEncoder;
 import org.apache.olingo.server.core.ODataExceptionHelper;
 import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 
 public class ODataNettyHandlerImpl implements ODataNettyHandler {
 
@@ -94,6 +100,16 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
    * @param odResponse
    */
   static void convertToHttp(final HttpResponse response, final ODataResponse odResponse) {
+    convertToHttp(response, odResponse, null, null);
+  }
+
+  /**
+   * Converts the OData response to the Netty response, encoding the content with the given encoding.
+   * @param encoder the content encoder, or <code>null</code>
+   * @param encoding the encoding chosen by the content encoder, or <code>null</code>
+   */
+  static void convertToHttp(final HttpResponse response, final ODataResponse odResponse,
+      final ContentEncoder encoder, final String encoding) {
 	    response.setStatus(HttpResponseStatus.valueOf(odResponse.getStatusCode()));
 
 	    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
@@ -102,13 +118,32 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
 	      }
 	    }
 
-	    if (odResponse.getContent() != null) {
+	    if (encoding != null) {
+	      encodeContent(odResponse, response, encoder, encoding);
+	    } else if (odResponse.getContent() != null) {
 	      copyContent(odResponse.getContent(), response);
 	    } else if (odResponse.getODataContent() != null) {
 	      writeContent(odResponse, response);
 	    }
 	  }
   
+  private static void encodeContent(final ODataResponse odataResponse, final HttpResponse response,
+      final ContentEncoder encoder, final String encoding) {
+    try {
+      encoder.write(odataResponse, encoding, new ByteBufOutputStream(((HttpContent) response).content()),
+          new ContentEncoder.Listener() {
+            @Override
+            public void encoding(final String actualEncoding) {
+              if (actualEncoding != null) {
+                response.headers().set(HttpHeader.CONTENT_ENCODING, actualEncoding);
+              }
+            }
+          });
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on writing response content", e);
+    }
+  }
+
   /**
    * Write the odata content to netty response content
    * @param odataResponse
@@ -144,6 +179,20 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
       }
   }
 
+  private static void copyContent(final ReadableByteChannel input, final WritableByteChannel output)
+      throws IOException {
+    try {
+      ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+      while (input.read(inBuffer) > 0) {
+        inBuffer.flip();
+        output.write(inBuffer);
+        inBuffer.clear();
+      }
+    } finally {
+      closeStream(input);
+    }
+  }
+
   private static void closeStream(final Channel closeable) {
     if (closeable != null) {
       try {
@@ -158,18 +207,17 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
    * Extract the information part of Netty Request and fill OData Request
    * @param odRequest
    * @param httpRequest
+   * @param body
    * @param split
    * @param contextPath
    * @return
    * @throws ODataLibraryException
    */
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpRequest httpRequest,
-	      final int split, final String contextPath) throws ODataLibraryException {
+	      final InputStream body, final int split, final String contextPath) throws ODataLibraryException {
 	    final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
 	    try {
-	    	ByteBuf byteBuf = ((HttpContent)httpRequest).content();
-	    	ByteBufInputStream inputStream = new ByteBufInputStream(byteBuf);
-	      odRequest.setBody(inputStream);
+	      odRequest.setBody(body);
 	      
 	      odRequest.setProtocol(httpRequest.protocolVersion().text());
 	      odRequest.setMethod(extractMethod(httpRequest));
@@ -295,20 +343,94 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
 	  }
   }
   
-@SuppressWarnings("unused")
 @Override
 public void processNettyRequest(HttpRequest request, HttpResponse response, 
 		Map<String, String> requestParameters) {
-	  ODataRequest odRequest = new ODataRequest();
+    final ODataResponse odResponse = processNettyRequest(request,
+        new ByteBufInputStream(((HttpContent) request).content()), requestParameters);
+    final ContentEncoder encoder = handler.getContentEncoder();
+    convertToHttp(response, odResponse, encoder, encoder == null ? null :
+        encoder.prepare(request.headers().getAll(HttpHeader.ACCEPT_ENCODING), odResponse));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The content is written through a <code>ChunkedContentChannel</code>; its back-pressure only works
+   * if this method is not called on the event loop of the channel.</p>
+   */
+  @Override
+  public void processNettyRequest(final HttpRequest request, final InputStream body,
+      final ChannelHandlerContext context, final Map<String, String> requestParameters) {
+    final ODataResponse odResponse = processNettyRequest(request, body, requestParameters);
+    final ContentEncoder encoder = handler.getContentEncoder();
+    final String encoding = encoder == null ? null :
+        encoder.prepare(request.headers().getAll(HttpHeader.ACCEPT_ENCODING), odResponse);
+    final HttpResponse response =
+        new DefaultHttpResponse(request.protocolVersion(), HttpResponseStatus.valueOf(odResponse.getStatusCode()));
+    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      response.headers().add(entry.getKey(), entry.getValue());
+    }
+    final boolean hasContent = odResponse.getContent() != null || odResponse.getODataContent() != null;
+    // Without chunked transfer encoding, HTTP/1.0 clients can only see the end of the content
+    // when the connection is closed.
+    boolean keepAlive = HttpUtil.isKeepAlive(request);
+    if (!hasContent) {
+      HttpUtil.setContentLength(response, 0);
+    } else if (!HttpUtil.isContentLengthSet(response)) {
+      if (request.protocolVersion().equals(HttpVersion.HTTP_1_0)) {
+        keepAlive = false;
+      } else {
+        HttpUtil.setTransferEncodingChunked(response, true);
+      }
+    }
+    HttpUtil.setKeepAlive(response, keepAlive);
+    if (encoding == null) {
+      context.write(response, context.channel().newPromise());
+    }
+
+    final ChunkedContentChannel output = new ChunkedContentChannel(context, COPY_BUFFER_SIZE);
+    try {
+      if (encoding != null) {
+        // The head is sent as soon as it is known whether the content is actually encoded.
+        encoder.write(odResponse, encoding, Channels.newOutputStream(output), new ContentEncoder.Listener() {
+          @Override
+          public void encoding(final String actualEncoding) {
+            if (actualEncoding != null) {
+              response.headers().set(HttpHeader.CONTENT_ENCODING, actualEncoding);
+            }
+            context.write(response, context.channel().newPromise());
+          }
+        });
+      } else if (odResponse.getContent() != null) {
+        copyContent(Channels.newChannel(odResponse.getContent()), output);
+      } else if (odResponse.getODataContent() != null) {
+        odResponse.getODataContent().write(output);
+      }
+      output.close();
+    } catch (final IOException | RuntimeException e) {
+      // The status has already been sent, so the client can only be told by closing the connection.
+      output.discard();
+      context.close();
+      return;
+    }
+    if (!keepAlive) {
+      output.getLastWrite().addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private ODataResponse processNettyRequest(final HttpRequest request, final InputStream body,
+      final Map<String, String> requestParameters) {
+    ODataRequest odRequest = new ODataRequest();
     Exception exception = null;
     ODataResponse odResponse;
-    
-    final int processMethodHandle = 
-    		debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
+
+    final int processMethodHandle =
+        debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, 
-          requestParameters.get(SPLIT) != null? Integer.parseInt(requestParameters.get(SPLIT)) : split, 
-              requestParameters.get(CONTEXT_PATH));
+      fillODataRequest(odRequest, request, body,
+          requestParameters.get(SPLIT) != null ? Integer.parseInt(requestParameters.get(SPLIT)) : split,
+          requestParameters.get(CONTEXT_PATH));
 
       odResponse = process(odRequest);
       // ALL future methods after process must not throw exceptions!
@@ -317,14 +439,18 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
       odResponse = handleException(odRequest, e);
     }
     debugger.stopRuntimeMeasurement(processMethodHandle);
-
-    convertToHttp(response, odResponse);
+    return odResponse;
   }
 
   public ODataResponse process(ODataRequest request) {
     return handler.process(request);
   }
 
+  @Override
+  public void setContentEncoding(final ContentEncodingOptions options) {
+    handler.setContentEncoding(options);
+  }
+
   @Override
   public void register(Processor processor) {
     handler.register(processor);
@@ -114,6 +114,12 @@ public class ODataNettyImpl extends ODataNetty {
     return odata.createServiceMetadata(edmProvider, references, serviceMetadataETagSupport);
   }
 
+  @Override
+  public ServiceMetadata createServiceMetadata(CsdlEdmProvider edmProvider, List<EdmxReference> references,
+      ServiceMetadataETagSupport serviceMetadataETagSupport, boolean frozenEdm) {
+    return odata.createServiceMetadata(edmProvider, references, serviceMetadataETagSupport, frozenEdm);
+  }
+
   @Override
   public UriHelper createUriHelper() {
     return odata.createUriHelper();
@@ -178,5 +184,11 @@ public class ODataNettyImpl extends ODataNetty {
       throws DeserializerException {
     return odata.createDeserializer(contentType, metadata, versions);
   }
+
+  @Override
+  public ODataDeserializer createStreamingDeserializer(ContentType contentType, ServiceMetadata metadata,
+      List<String> versions) throws DeserializerException {
+    return odata.createStreamingDeserializer(contentType, metadata, versions);
+  }
   
 }
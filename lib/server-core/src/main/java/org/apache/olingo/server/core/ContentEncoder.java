@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ContentEncodingOptions;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.core.serializer.DocumentSnapshots;
+
+/**
+ * Compresses response content and decompresses request bodies according to content encoding options.
+ * <br/>
+ * Response content is compressed while it is written; it is buffered only up to the minimum size,
+ * so that the decision whether to compress can be made before anything is sent.
+ */
+public final class ContentEncoder {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+
+  private static final String X_GZIP = "x-gzip";
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Listener informed about the encoding of the response content before anything is written. */
+  public interface Listener {
+
+    /**
+     * Called once before the first byte of content is written to the output.
+     * @param encoding the content encoding, or <code>null</code> if the content is not encoded
+     */
+    void encoding(String encoding) throws IOException;
+  }
+
+  private final ContentEncodingOptions options;
+
+  public ContentEncoder(final ContentEncodingOptions options) {
+    this.options = options;
+  }
+
+  /**
+   * Replaces a request body compressed with <code>gzip</code> or <code>deflate</code> by its decompressed content
+   * and removes the headers no longer valid for it. Bodies with other encodings are left untouched.
+   * @param request the request
+   * @throws DeserializerException if the compressed body cannot be read
+   */
+  public void decode(final ODataRequest request) throws DeserializerException {
+    final String encoding = request.getHeader(HttpHeader.CONTENT_ENCODING);
+    if (encoding == null || request.getBody() == null) {
+      return;
+    }
+    final String name = encoding.trim().toLowerCase(Locale.ROOT);
+    final boolean gzip = GZIP.equals(name) || X_GZIP.equals(name);
+    if (!gzip && !DEFLATE.equals(name)) {
+      return;
+    }
+    try {
+      // An empty body stays empty, regardless of the declared encoding.
+      final PushbackInputStream body = new PushbackInputStream(request.getBody());
+      final int first = body.read();
+      if (first != -1) {
+        body.unread(first);
+      }
+      request.setBody(first == -1 ? body : new LimitedInputStream(
+          gzip ? new GZIPInputStream(body, BUFFER_SIZE) : new InflaterInputStream(body),
+          options.getMaximumDecodedSize()));
+    } catch (final IOException e) {
+      throw new DeserializerException("An I/O exception occurred.", e,
+          DeserializerException.MessageKeys.IO_EXCEPTION);
+    }
+    request.removeHeader(HttpHeader.CONTENT_ENCODING);
+    request.removeHeader(HttpHeader.CONTENT_LENGTH);
+  }
+
+  /**
+   * Chooses the encoding of response content from the values of the Accept-Encoding header of the request;
+   * <code>gzip</code> is preferred over <code>deflate</code> if both are equally acceptable.
+   * @param acceptEncoding the header values, or <code>null</code>
+   * @return {@link #GZIP}, {@link #DEFLATE}, or <code>null</code> if none of them is acceptable
+   */
+  public static String negotiate(final List<String> acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    float gzip = -1;
+    float deflate = -1;
+    float any = -1;
+    for (final String value : acceptEncoding) {
+      for (final String element : value.split(",")) {
+        final String[] parts = element.split(";");
+        final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+        if (GZIP.equals(coding) || X_GZIP.equals(coding)) {
+          gzip = getQuality(parts);
+        } else if (DEFLATE.equals(coding)) {
+          deflate = getQuality(parts);
+        } else if ("*".equals(coding)) {
+          any = getQuality(parts);
+        }
+      }
+    }
+    gzip = gzip < 0 ? any : gzip;
+    deflate = deflate < 0 ? any : deflate;
+    return gzip > 0 && gzip >= deflate ? GZIP : deflate > 0 ? DEFLATE : null;
+  }
+
+  private static float getQuality(final String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      final String parameter = parts[i].trim();
+      if (parameter.length() > 2 && Character.toLowerCase(parameter.charAt(0)) == 'q' && parameter.charAt(1) == '=') {
+        try {
+          return Float.parseFloat(parameter.substring(2).trim());
+        } catch (final NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Prepares a response for the encoding of its content: chooses the encoding and adjusts the headers.
+   * The Vary header is added if the content could be encoded, and the Content-Length header is removed
+   * if the content is going to be encoded, because the length of the encoded content is not known in advance.
+   * Responses without content, with content already encoded, or with a known content length
+   * below the minimum size are not encoded.
+   * @param acceptEncoding the values of the Accept-Encoding header of the request, or <code>null</code>
+   * @param response the response
+   * @return the encoding, or <code>null</code> if the response content is not going to be encoded
+   */
+  public String prepare(final List<String> acceptEncoding, final ODataResponse response) {
+    if (response.getContent() == null && response.getODataContent() == null
+        || response.getStatusCode() == HttpStatusCode.NO_CONTENT.getStatusCode()
+        || response.getStatusCode() == HttpStatusCode.NOT_MODIFIED.getStatusCode()
+        || response.getHeader(HttpHeader.CONTENT_ENCODING) != null) {
+      return null;
+    }
+    final String contentLength = response.getHeader(HttpHeader.CONTENT_LENGTH);
+    if (contentLength != null) {
+      try {
+        if (Long.parseLong(contentLength.trim()) < options.getMinimumSize()) {
+          return null;
+        }
+      } catch (final NumberFormatException e) {
+        return null;
+      }
+    }
+    response.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+    final String encoding = negotiate(acceptEncoding);
+    if (encoding != null && contentLength != null) {
+      response.removeHeader(HttpHeader.CONTENT_LENGTH);
+    }
+    return encoding;
+  }
+
+  /**
+   * Writes the content of a response to an output stream and closes the output stream.
+   * The content is encoded if it is at least as long as the minimum size; precompressed
+   * metadata and service documents are written without compressing them again.
+   * @param response the response with content
+   * @param encoding the encoding from {@link #prepare(List, ODataResponse)}, or <code>null</code>
+   * to write the content as it is
+   * @param output the output stream
+   * @param listener informed about the actual encoding before anything is written to the output stream
+   */
+  public void write(final ODataResponse response, final String encoding, final OutputStream output,
+      final Listener listener) throws IOException {
+    final InputStream content = response.getContent();
+    if (GZIP.equals(encoding) && content instanceof DocumentSnapshots.SnapshotInputStream) {
+      final DocumentSnapshots.Snapshot snapshot = ((DocumentSnapshots.SnapshotInputStream) content).getSnapshot();
+      if (snapshot.getLength() >= options.getMinimumSize()) {
+        listener.encoding(GZIP);
+        try {
+          output.write(snapshot.getGzipContent());
+        } finally {
+          content.close();
+          output.close();
+        }
+        return;
+      }
+    }
+    if (encoding == null) {
+      listener.encoding(null);
+    }
+    final OutputStream stream = encoding == null ? output : new EncodingOutputStream(encoding, output, listener);
+    try {
+      if (content == null) {
+        response.getODataContent().write(Channels.newChannel(stream));
+      } else {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = content.read(buffer)) != -1) {
+          stream.write(buffer, 0, count);
+        }
+      }
+    } finally {
+      if (content != null) {
+        content.close();
+      }
+      stream.close();
+    }
+  }
+
+  /**
+   * Output stream buffering content up to the minimum size; if the content reaches the minimum size,
+   * it is compressed from then on, otherwise it is written as it is when the stream is closed.
+   */
+  private final class EncodingOutputStream extends OutputStream {
+
+    private final String encoding;
+    private final OutputStream output;
+    private final Listener listener;
+    private byte[] buffer;
+    private int count;
+    private OutputStream target;
+    private boolean closed;
+
+    EncodingOutputStream(final String encoding, final OutputStream output, final Listener listener) {
+      this.encoding = encoding;
+      this.output = output;
+      this.listener = listener;
+      buffer = new byte[Math.min(options.getMinimumSize(), BUFFER_SIZE)];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (target == null) {
+        if (count + len < options.getMinimumSize()) {
+          if (count + len > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(Math.max(count + len, 2 * buffer.length),
+                options.getMinimumSize()));
+          }
+          System.arraycopy(b, off, buffer, count, len);
+          count += len;
+          return;
+        }
+        decide(true);
+      }
+      target.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // Content not yet decided upon stays buffered.
+      if (target != null) {
+        target.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        if (target == null) {
+          decide(count > 0 && count >= options.getMinimumSize());
+        }
+        target.close();
+      }
+    }
+
+    private void decide(final boolean encode) throws IOException {
+      listener.encoding(encode ? encoding : null);
+      target = encode ? GZIP.equals(encoding) ?
+          new LevelGZIPOutputStream(output, options.getLevel()) :
+          new LevelDeflaterOutputStream(output, options.getLevel()) :
+          output;
+      target.write(buffer, 0, count);
+      count = 0;
+    }
+  }
+
+  /** Decompressed request body that fails as soon as more than the maximum decoded size is read. */
+  private static final class LimitedInputStream extends FilterInputStream {
+
+    private final long maximumSize;
+    private long count;
+
+    LimitedInputStream(final InputStream input, final long maximumSize) {
+      super(input);
+      this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = super.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read > 0) {
+        count(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = super.skip(n);
+      count(skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void count(final long read) throws IOException {
+      count += read;
+      if (count > maximumSize) {
+        throw new IOException("The decompressed request body exceeds the maximum size of "
+            + maximumSize + " bytes.");
+      }
+    }
+  }
+
+  private static final class LevelGZIPOutputStream extends GZIPOutputStream {
+
+    LevelGZIPOutputStream(final OutputStream output, final int level) throws IOException {
+      super(output, BUFFER_SIZE);
+      def.setLevel(level);
+    }
+  }
+
+  /** Deflating stream with its own deflater, which is released when the stream is closed. */
+  private static final class LevelDeflaterOutputStream extends DeflaterOutputStream {
+
+    LevelDeflaterOutputStream(final OutputStream output, final int level) {
+      super(output, new Deflater(level), BUFFER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        def.end();
+      }
+    }
+  }
+}
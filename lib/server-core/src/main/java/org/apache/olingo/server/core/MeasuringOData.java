@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmAction;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.debug.DebugResponseHelper;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.etag.ETagHelper;
+import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.prefer.Preferences;
+import org.apache.olingo.server.api.serializer.ComplexSerializerOptions;
+import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
+import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.PrimitiveSerializerOptions;
+import org.apache.olingo.server.api.serializer.ReferenceCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ReferenceSerializerOptions;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.serializer.SerializerStreamResult;
+import org.apache.olingo.server.api.uri.UriHelper;
+
+/**
+ * OData instance handed to processors while a request is measured.
+ * It delegates everything to the real instance but wraps the created serializers and deserializers
+ * so that the time spent in them is reported to the handler as separate phases.
+ */
+class MeasuringOData extends OData {
+
+  private final OData odata;
+  private final ODataHandlerImpl handler;
+
+  MeasuringOData(final OData odata, final ODataHandlerImpl handler) {
+    this.odata = odata;
+    this.handler = handler;
+  }
+
+  /** Returns the wrapped serializer if the given serializer measures another one. */
+  static ODataSerializer unwrap(final ODataSerializer serializer) {
+    return serializer instanceof MeasuringSerializer ? ((MeasuringSerializer) serializer).serializer : serializer;
+  }
+
+  @Override
+  public ODataSerializer createSerializer(final ContentType contentType) throws SerializerException {
+    return new MeasuringSerializer(odata.createSerializer(contentType));
+  }
+
+  @Override
+  public ODataSerializer createSerializer(final ContentType contentType, final List<String> versions)
+      throws SerializerException {
+    return new MeasuringSerializer(odata.createSerializer(contentType, versions));
+  }
+
+  @Override
+  public FixedFormatSerializer createFixedFormatSerializer() {
+    return odata.createFixedFormatSerializer();
+  }
+
+  @Override
+  public FixedFormatDeserializer createFixedFormatDeserializer() {
+    return odata.createFixedFormatDeserializer();
+  }
+
+  @Override
+  public ODataHttpHandler createHandler(final ServiceMetadata serviceMetadata) {
+    return odata.createHandler(serviceMetadata);
+  }
+
+  @Override
+  public ODataHandler createRawHandler(final ServiceMetadata serviceMetadata) {
+    return odata.createRawHandler(serviceMetadata);
+  }
+
+  @Override
+  public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
+      final List<EdmxReference> references) {
+    return odata.createServiceMetadata(edmProvider, references);
+  }
+
+  @Override
+  public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
+      final List<EdmxReference> references, final ServiceMetadataETagSupport serviceMetadataETagSupport) {
+    return odata.createServiceMetadata(edmProvider, references, serviceMetadataETagSupport);
+  }
+
+  @Override
+  public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
+      final List<EdmxReference> references, final ServiceMetadataETagSupport serviceMetadataETagSupport,
+      final boolean frozenEdm) {
+    return odata.createServiceMetadata(edmProvider, references, serviceMetadataETagSupport, frozenEdm);
+  }
+
+  @Override
+  public UriHelper createUriHelper() {
+    return odata.createUriHelper();
+  }
+
+  @Override
+  public ODataDeserializer createDeserializer(final ContentType contentType) throws DeserializerException {
+    return new MeasuringDeserializer(odata.createDeserializer(contentType));
+  }
+
+  @Override
+  public ODataDeserializer createDeserializer(final ContentType contentType, final ServiceMetadata metadata)
+      throws DeserializerException {
+    return new MeasuringDeserializer(odata.createDeserializer(contentType, metadata));
+  }
+
+  @Override
+  public ODataDeserializer createDeserializer(final ContentType contentType, final List<String> versions)
+      throws DeserializerException {
+    return new MeasuringDeserializer(odata.createDeserializer(contentType, versions));
+  }
+
+  @Override
+  public ODataDeserializer createDeserializer(final ContentType contentType, final ServiceMetadata metadata,
+      final List<String> versions) throws DeserializerException {
+    return new MeasuringDeserializer(odata.createDeserializer(contentType, metadata, versions));
+  }
+
+  @Override
+  public ODataDeserializer createStreamingDeserializer(final ContentType contentType,
+      final ServiceMetadata metadata, final List<String> versions) throws DeserializerException {
+    return new MeasuringDeserializer(odata.createStreamingDeserializer(contentType, metadata, versions));
+  }
+
+  @Override
+  public EdmPrimitiveType createPrimitiveTypeInstance(final EdmPrimitiveTypeKind kind) {
+    return odata.createPrimitiveTypeInstance(kind);
+  }
+
+  @Override
+  public ETagHelper createETagHelper() {
+    return odata.createETagHelper();
+  }
+
+  @Override
+  public Preferences createPreferences(final Collection<String> preferHeaders) {
+    return odata.createPreferences(preferHeaders);
+  }
+
+  @Override
+  public DebugResponseHelper createDebugResponseHelper(final String debugFormat) {
+    return odata.createDebugResponseHelper(debugFormat);
+  }
+
+  @Override
+  public EdmAssistedSerializer createEdmAssistedSerializer(final ContentType contentType)
+      throws SerializerException {
+    return odata.createEdmAssistedSerializer(contentType);
+  }
+
+  @Override
+  public EdmAssistedSerializer createEdmAssistedSerializer(final ContentType contentType,
+      final List<String> versions) throws SerializerException {
+    return odata.createEdmAssistedSerializer(contentType, versions);
+  }
+
+  @Override
+  public EdmDeltaSerializer createEdmDeltaSerializer(final ContentType contentType, final List<String> versions)
+      throws SerializerException {
+    return odata.createEdmDeltaSerializer(contentType, versions);
+  }
+
+  private class MeasuringSerializer implements ODataSerializer {
+
+    private final ODataSerializer serializer;
+
+    MeasuringSerializer(final ODataSerializer serializer) {
+      this.serializer = serializer;
+    }
+
+    @Override
+    public SerializerResult serviceDocument(final ServiceMetadata serviceMetadata, final String serviceRoot)
+        throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.serviceDocument(serviceMetadata, serviceRoot);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult metadataDocument(final ServiceMetadata serviceMetadata) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.metadataDocument(serviceMetadata);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult error(final ODataServerError error) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.error(error);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult entityCollection(final ServiceMetadata metadata, final EdmEntityType entityType,
+        final AbstractEntityCollection entitySet, final EntityCollectionSerializerOptions options)
+        throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.entityCollection(metadata, entityType, entitySet, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerStreamResult entityCollectionStreamed(final ServiceMetadata metadata,
+        final EdmEntityType entityType, final EntityIterator entities,
+        final EntityCollectionSerializerOptions options) throws SerializerException {
+      // The content is serialized while it is written and thus measured as part of the writing.
+      return serializer.entityCollectionStreamed(metadata, entityType, entities, options);
+    }
+
+    @Override
+    public SerializerResult entity(final ServiceMetadata metadata, final EdmEntityType entityType,
+        final Entity entity, final EntitySerializerOptions options) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.entity(metadata, entityType, entity, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult primitive(final ServiceMetadata metadata, final EdmPrimitiveType type,
+        final Property property, final PrimitiveSerializerOptions options) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.primitive(metadata, type, property, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult complex(final ServiceMetadata metadata, final EdmComplexType type,
+        final Property property, final ComplexSerializerOptions options) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.complex(metadata, type, property, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult primitiveCollection(final ServiceMetadata metadata, final EdmPrimitiveType type,
+        final Property property, final PrimitiveSerializerOptions options) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.primitiveCollection(metadata, type, property, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult complexCollection(final ServiceMetadata metadata, final EdmComplexType type,
+        final Property property, final ComplexSerializerOptions options) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.complexCollection(metadata, type, property, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult reference(final ServiceMetadata metadata, final EdmEntitySet edmEntitySet,
+        final Entity entity, final ReferenceSerializerOptions options) throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.reference(metadata, edmEntitySet, entity, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public SerializerResult referenceCollection(final ServiceMetadata metadata, final EdmEntitySet edmEntitySet,
+        final AbstractEntityCollection entityCollection, final ReferenceCollectionSerializerOptions options)
+        throws SerializerException {
+      final long started = handler.startPhase();
+      try {
+        return serializer.referenceCollection(metadata, edmEntitySet, entityCollection, options);
+      } finally {
+        handler.stopPhase(RequestPhase.SERIALIZATION, started);
+      }
+    }
+  }
+
+  private class MeasuringDeserializer implements ODataDeserializer {
+
+    private final ODataDeserializer deserializer;
+
+    MeasuringDeserializer(final ODataDeserializer deserializer) {
+      this.deserializer = deserializer;
+    }
+
+    @Override
+    public DeserializerResult entity(final InputStream stream, final EdmEntityType edmEntityType)
+        throws DeserializerException {
+      final long started = handler.startPhase();
+      try {
+        return deserializer.entity(stream, edmEntityType);
+      } finally {
+        handler.stopPhase(RequestPhase.DESERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public DeserializerResult entityCollection(final InputStream stream, final EdmEntityType edmEntityType)
+        throws DeserializerException {
+      final long started = handler.startPhase();
+      try {
+        return deserializer.entityCollection(stream, edmEntityType);
+      } finally {
+        handler.stopPhase(RequestPhase.DESERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public EntityIterator entityIterator(final InputStream stream, final EdmEntityType edmEntityType)
+        throws DeserializerException {
+      // Entities read lazily by the processor are measured as part of the processing.
+      final long started = handler.startPhase();
+      try {
+        return deserializer.entityIterator(stream, edmEntityType);
+      } finally {
+        handler.stopPhase(RequestPhase.DESERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public DeserializerResult actionParameters(final InputStream stream, final EdmAction edmAction)
+        throws DeserializerException {
+      final long started = handler.startPhase();
+      try {
+        return deserializer.actionParameters(stream, edmAction);
+      } finally {
+        handler.stopPhase(RequestPhase.DESERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public DeserializerResult property(final InputStream stream, final EdmProperty edmProperty)
+        throws DeserializerException {
+      final long started = handler.startPhase();
+      try {
+        return deserializer.property(stream, edmProperty);
+      } finally {
+        handler.stopPhase(RequestPhase.DESERIALIZATION, started);
+      }
+    }
+
+    @Override
+    public DeserializerResult entityReferences(final InputStream stream) throws DeserializerException {
+      final long started = handler.startPhase();
+      try {
+        return deserializer.entityReferences(stream);
+      } finally {
+        handler.stopPhase(RequestPhase.DESERIALIZATION, started);
+      }
+    }
+  }
+}
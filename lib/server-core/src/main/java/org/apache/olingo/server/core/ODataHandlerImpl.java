@@ -21,11 +21,13 @@ package org.apache.olingo.server.core;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
@@ -38,6 +40,9 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.DefaultProcessor;
 import org.apache.olingo.server.api.processor.ErrorProcessor;
 import org.apache.olingo.server.api.processor.Processor;
@@ -45,10 +50,16 @@ import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.api.serializer.RepresentationType;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceSingleton;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.core.batchhandler.ParallelBatchProcessing;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.serializer.json.JsonSerializerSupport;
 import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
 import org.apache.olingo.server.core.uri.parser.UriParserSyntaxException;
@@ -65,9 +76,18 @@ public class ODataHandlerImpl implements ODataHandler {
 
   private CustomContentTypeSupport customContentTypeSupport;
   private CustomETagSupport customETagSupport;
+  private UriInfoCache uriInfoCache;
+  private ParallelBatchProcessing parallelBatchProcessing;
+  private MetricsSupport metricsSupport;
+  private ContentEncoder contentEncoder;
 
   private UriInfo uriInfo;
   private Exception lastThrownException;
+  private final RequestMetrics metrics = new RequestMetrics();
+  private boolean measuring;
+  private boolean dispatching;
+  private MeasuringOData measuringOData;
+  private int depth;
 
   public ODataHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata, final ServerCoreDebugger debugger) {
     this.odata = odata;
@@ -79,9 +99,15 @@ public class ODataHandlerImpl implements ODataHandler {
   }
 
   public ODataResponse process(final ODataRequest request) {
+    final long started = metricsSupport == null ? 0 : System.nanoTime();
+    final boolean ownMeasurement = startMeasurement() != null;
+    depth++;
     ODataResponse response = new ODataResponse();
     final int responseHandle = debugger.startRuntimeMeasurement("ODataHandler", "process");
     try {
+      if (contentEncoder != null) {
+        contentEncoder.decode(request);
+      }
       processInternal(request, response);
     } catch (final UriValidationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
@@ -119,11 +145,92 @@ public class ODataHandlerImpl implements ODataHandler {
     } catch (Exception e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
       handleException(request, response, serverError, e);
+    } finally {
+      depth--;
     }
     debugger.stopRuntimeMeasurement(responseHandle);
+    if (isMeasured()) {
+      metrics.setMethod(request.getMethod());
+      if (ownMeasurement) {
+        completeMeasurement(response, 0, System.nanoTime() - started);
+      }
+    }
     return response;
   }
 
+  /**
+   * Starts measuring a request for the registered metrics support.
+   * @return the metrics to be filled, or <code>null</code> if there is no metrics support
+   * or a request is already measured
+   */
+  public RequestMetrics startMeasurement() {
+    if (metricsSupport == null || measuring) {
+      return null;
+    }
+    metrics.reset();
+    measuring = true;
+    return metrics;
+  }
+
+  /**
+   * Completes the measurement of the current request and hands the metrics to the metrics support.
+   * @param response the response
+   * @param bytesWritten the number of bytes of response content written to the client
+   * @param totalDuration the duration of the request in nanoseconds
+   */
+  public void completeMeasurement(final ODataResponse response, final long bytesWritten, final long totalDuration) {
+    if (measuring) {
+      measuring = false;
+      metrics.setStatusCode(response.getStatusCode());
+      metrics.setContentType(response.getHeader(HttpHeader.CONTENT_TYPE));
+      metrics.setBytesWritten(bytesWritten);
+      metrics.setTotalDuration(totalDuration);
+      try {
+        metricsSupport.requestCompleted(metrics);
+      } catch (final RuntimeException e) {
+        // Failing metrics must not fail the request.
+      }
+    }
+  }
+
+  /** Tells whether the phases of the outermost request in progress are measured. */
+  private boolean isMeasured() {
+    return measuring && depth <= 1;
+  }
+
+  long startPhase() {
+    return isMeasured() ? System.nanoTime() : 0;
+  }
+
+  void stopPhase(final RequestPhase phase, final long started) {
+    if (isMeasured()) {
+      metrics.addDuration(phase, System.nanoTime() - started);
+    }
+  }
+
+  private long getConvertingDuration() {
+    return metrics.getDuration(RequestPhase.DESERIALIZATION) + metrics.getDuration(RequestPhase.SERIALIZATION);
+  }
+
+  private OData getMeasuringOData() {
+    if (measuringOData == null) {
+      measuringOData = new MeasuringOData(odata, this);
+    }
+    return measuringOData;
+  }
+
+  private void setMeasuredResource(final UriInfo uriInfo) {
+    if (isMeasured()) {
+      metrics.setUriInfoKind(uriInfo.getKind());
+      final List<UriResource> parts = uriInfo.getUriResourceParts();
+      final UriResource first = parts == null || parts.isEmpty() ? null : parts.get(0);
+      metrics.setEntitySetName(first instanceof UriResourceEntitySet ?
+          ((UriResourceEntitySet) first).getEntitySet().getName() :
+          first instanceof UriResourceSingleton ? ((UriResourceSingleton) first).getSingleton().getName() :
+              null);
+    }
+  }
+
   private void processInternal(final ODataRequest request, final ODataResponse response)
       throws ODataApplicationException, ODataLibraryException {
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "processInternal");
@@ -137,32 +244,65 @@ public class ODataHandlerImpl implements ODataHandler {
       throw e;
     }
 
-    final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
-    try {
-      uriInfo = new Parser(serviceMetadata.getEdm(), odata)
-          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
-    } catch (final ODataLibraryException e) {
+    final Edm edm = serviceMetadata.getEdm();
+    UriInfoCache.Entry cacheEntry = uriInfoCache == null ? null :
+        uriInfoCache.get(edm, request.getRawODataPath(), request.getRawQueryPath(), request.getRawBaseUri());
+    if (cacheEntry == null) {
+      final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
+      final long parseStarted = startPhase();
+      try {
+        uriInfo = new Parser(edm, odata)
+            .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
+      } catch (final ODataLibraryException e) {
+        stopPhase(RequestPhase.URI_PARSING, parseStarted);
+        debugger.stopRuntimeMeasurement(measurementUriParser);
+        debugger.stopRuntimeMeasurement(measurementHandle);
+        throw e;
+      }
+      stopPhase(RequestPhase.URI_PARSING, parseStarted);
       debugger.stopRuntimeMeasurement(measurementUriParser);
-      debugger.stopRuntimeMeasurement(measurementHandle);
-      throw e;
+      if (uriInfoCache != null) {
+        cacheEntry = uriInfoCache.put(edm, request.getRawODataPath(), request.getRawQueryPath(),
+            request.getRawBaseUri(), uriInfo);
+        uriInfo = cacheEntry.getUriInfo();
+      }
+    } else {
+      uriInfo = cacheEntry.getUriInfo();
     }
-    debugger.stopRuntimeMeasurement(measurementUriParser);
+    setMeasuredResource(uriInfo);
 
-    final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
     final HttpMethod method = request.getMethod();
-    try {
-      new UriValidator().validate(uriInfo, method);
-    } catch (final UriValidationException e) {
+    if (cacheEntry == null || !cacheEntry.isValidated(method)) {
+      final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
+      final long validationStarted = startPhase();
+      try {
+        new UriValidator().validate(uriInfo, method);
+      } catch (final UriValidationException e) {
+        stopPhase(RequestPhase.URI_VALIDATION, validationStarted);
+        debugger.stopRuntimeMeasurement(measurementUriValidator);
+        debugger.stopRuntimeMeasurement(measurementHandle);
+        throw e;
+      }
+      stopPhase(RequestPhase.URI_VALIDATION, validationStarted);
       debugger.stopRuntimeMeasurement(measurementUriValidator);
-      debugger.stopRuntimeMeasurement(measurementHandle);
-      throw e;
+      if (cacheEntry != null) {
+        cacheEntry.setValidated(method);
+      }
     }
-    debugger.stopRuntimeMeasurement(measurementUriValidator);
 
     final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
+    final long processingStarted = startPhase();
+    final long convertingBefore = getConvertingDuration();
+    dispatching = true;
     try {
       new ODataDispatcher(uriInfo, this).dispatch(request, response);
     } finally {
+      dispatching = false;
+      if (isMeasured()) {
+        // The time spent in the serializers and deserializers is measured as phases of its own.
+        metrics.addDuration(RequestPhase.PROCESSING,
+            System.nanoTime() - processingStarted - (getConvertingDuration() - convertingBefore));
+      }
       debugger.stopRuntimeMeasurement(measurementDispatcher);
       debugger.stopRuntimeMeasurement(measurementHandle);
     }
@@ -171,6 +311,7 @@ public class ODataHandlerImpl implements ODataHandler {
   public void handleException(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError, final Exception exception) {
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "handleException");
+    final long started = startPhase();
     lastThrownException = exception;
     ErrorProcessor exceptionProcessor;
     try {
@@ -193,6 +334,7 @@ public class ODataHandlerImpl implements ODataHandler {
     exceptionProcessor.processError(request, response, serverError, requestedContentType);
     debugger.stopRuntimeMeasurement(measurementError);
     debugger.stopRuntimeMeasurement(measurementHandle);
+    stopPhase(RequestPhase.ERROR_PROCESSING, started);
   }
 
   /**
@@ -243,7 +385,7 @@ public class ODataHandlerImpl implements ODataHandler {
   <T extends Processor> T selectProcessor(final Class<T> cls) throws ODataHandlerException {
     for (final Processor processor : processors) {
       if (cls.isAssignableFrom(processor.getClass())) {
-        processor.init(odata, serviceMetadata);
+        processor.init(dispatching && isMeasured() ? getMeasuringOData() : odata, serviceMetadata);
         return cls.cast(processor);
       }
     }
@@ -261,6 +403,10 @@ public class ODataHandlerImpl implements ODataHandler {
       this.customContentTypeSupport = (CustomContentTypeSupport) extension;
     } else if(extension instanceof CustomETagSupport) {
       this.customETagSupport = (CustomETagSupport) extension;
+    } else if(extension instanceof UriInfoCache) {
+      this.uriInfoCache = (UriInfoCache) extension;
+    } else if(extension instanceof ParallelBatchProcessing) {
+      this.parallelBatchProcessing = (ParallelBatchProcessing) extension;
     } else {
       throw new ODataRuntimeException("Got not supported exception with class name " +
           extension.getClass().getSimpleName());
@@ -275,6 +421,63 @@ public class ODataHandlerImpl implements ODataHandler {
     return customETagSupport;
   }
 
+  public UriInfoCache getUriInfoCache() {
+    return uriInfoCache;
+  }
+
+  public ParallelBatchProcessing getParallelBatchProcessing() {
+    return parallelBatchProcessing;
+  }
+
+  public boolean isDebugMode() {
+    return debugger.isDebugMode();
+  }
+
+  /** Gets the JSON support configured on the OData instance, used for the fixed JSON formats like JSON batch. */
+  public JsonSerializerSupport getJsonSerializerSupport() {
+    return odata instanceof ODataImpl ?
+        ((ODataImpl) odata).getJsonSerializerSupport() :
+        JsonSerializerSupport.getDefault();
+  }
+
+  public ContentEncoder getContentEncoder() {
+    return contentEncoder;
+  }
+
+  /**
+   * Sets the content encoding options; compressed request bodies, also within batch requests,
+   * are decompressed before they are processed.
+   * @param options the options, or <code>null</code> to leave request bodies untouched
+   */
+  public void setContentEncoding(final ContentEncodingOptions options) {
+    contentEncoder = options == null ? null : new ContentEncoder(options);
+  }
+
+  public void setMetricsSupport(final MetricsSupport metricsSupport) {
+    this.metricsSupport = metricsSupport;
+  }
+
+  /**
+   * Creates a handler with the same processors and extensions but with its own request state,
+   * so that it can process requests concurrently to this handler.
+   * @return a new handler
+   */
+  public ODataHandlerImpl copy() {
+    final ODataHandlerImpl handler = new ODataHandlerImpl(odata, serviceMetadata, debugger);
+    handler.processors.clear();
+    handler.processors.addAll(processors);
+    handler.customContentTypeSupport = customContentTypeSupport;
+    handler.customETagSupport = customETagSupport;
+    handler.uriInfoCache = uriInfoCache;
+    handler.parallelBatchProcessing = parallelBatchProcessing;
+    handler.contentEncoder = contentEncoder;
+    handler.metricsSupport = metricsSupport;
+    // Requests of the copy are nested in the request in progress, like the parts of a batch request.
+    handler.measuring = measuring;
+    handler.depth = depth;
+    return handler;
+  }
+
   public Exception getLastThrownException() {
     return lastThrownException;
   }
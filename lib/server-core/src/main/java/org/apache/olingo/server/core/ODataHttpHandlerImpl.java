@@ -38,6 +38,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHttpHandler;
@@ -50,6 +51,9 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
@@ -76,6 +80,8 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   @Override
   public void process(final HttpServletRequest request, final HttpServletResponse response) {
+    final long started = System.nanoTime();
+    final RequestMetrics metrics = handler.startMeasurement();
     ODataRequest odRequest = new ODataRequest();
     Exception exception = null;
     ODataResponse odResponse;
@@ -104,7 +110,28 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
               serverEnvironmentVariables);
     }
 
-    convertToHttp(response, odResponse);
+    final ContentEncoder encoder = handler.getContentEncoder();
+    final String encoding = encoder == null ? null : encoder.prepare(getAcceptEncoding(request), odResponse);
+    if (metrics == null) {
+      convertToHttp(response, odResponse, encoder, encoding);
+    } else {
+      final long writingStarted = System.nanoTime();
+      long bytesWritten = 0;
+      try {
+        bytesWritten = convertToHttp(response, odResponse, encoder, encoding);
+      } finally {
+        final long now = System.nanoTime();
+        metrics.addDuration(RequestPhase.WRITING, now - writingStarted);
+        handler.completeMeasurement(odResponse, bytesWritten, now - started);
+      }
+    }
+  }
+
+  private static List<String> getAcceptEncoding(final HttpServletRequest request) {
+    @SuppressWarnings("unchecked")
+    // getHeaders() says it returns an Enumeration of String.
+    final Enumeration<String> values = request.getHeaders(HttpHeader.ACCEPT_ENCODING);
+    return values == null ? null : Collections.list(values);
   }
 
   private Map<String, String> createEnvironmentVariablesMap(final HttpServletRequest request) {
@@ -135,6 +162,11 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     this.split = split;
   }
 
+  @Override
+  public void setContentEncoding(final ContentEncodingOptions options) {
+    handler.setContentEncoding(options);
+  }
+
   private ODataResponse handleException(final ODataRequest odRequest, final Exception e) {
     ODataResponse resp = new ODataResponse();
     ODataServerError serverError;
@@ -149,7 +181,22 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     return resp;
   }
 
-  static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
+  /**
+   * Converts the OData response into the servlet response.
+   * @return the number of bytes of response content written
+   */
+  static long convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
+    return convertToHttp(response, odResponse, null, null);
+  }
+
+  /**
+   * Converts the OData response into the servlet response, encoding the content with the given encoding.
+   * @param encoder the content encoder, or <code>null</code>
+   * @param encoding the encoding chosen by the content encoder, or <code>null</code>
+   * @return the number of bytes of (encoded) response content written
+   */
+  static long convertToHttp(final HttpServletResponse response, final ODataResponse odResponse,
+      final ContentEncoder encoder, final String encoding) {
     response.setStatus(odResponse.getStatusCode());
 
     for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
@@ -158,34 +205,59 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
       }
     }
 
-    if (odResponse.getContent() != null) {
-      copyContent(odResponse.getContent(), response);
+    if (encoding != null) {
+      return encodeContent(odResponse, response, encoder, encoding);
+    } else if (odResponse.getContent() != null) {
+      return copyContent(odResponse.getContent(), response);
     } else if (odResponse.getODataContent() != null) {
-      writeContent(odResponse, response);
+      return writeContent(odResponse, response);
     }
+    return 0;
   }
   
-  static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
+  private static long encodeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse,
+      final ContentEncoder encoder, final String encoding) {
+    try {
+      final CountingChannel output = new CountingChannel(Channels.newChannel(servletResponse.getOutputStream()));
+      encoder.write(odataResponse, encoding, Channels.newOutputStream(output), new ContentEncoder.Listener() {
+        @Override
+        public void encoding(final String actualEncoding) {
+          if (actualEncoding != null) {
+            servletResponse.setHeader(HttpHeader.CONTENT_ENCODING, actualEncoding);
+          }
+        }
+      });
+      return output.getCount();
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on writing response content", e);
+    }
+  }
+
+  static long writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
     try {
       ODataContent res = odataResponse.getODataContent();
-      res.write(Channels.newChannel(servletResponse.getOutputStream()));
+      final CountingChannel output = new CountingChannel(Channels.newChannel(servletResponse.getOutputStream()));
+      res.write(output);
+      return output.getCount();
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     }
   }
 
-  static void copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
-    copyContent(Channels.newChannel(inputStream), servletResponse);
+  static long copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
+    return copyContent(Channels.newChannel(inputStream), servletResponse);
   }
 
-  static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
+  static long copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
     try (WritableByteChannel output = Channels.newChannel(servletResponse.getOutputStream());) {
       ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+      long count = 0;
       while (input.read(inBuffer) > 0) {
         inBuffer.flip();
-        output.write(inBuffer);
+        count += output.write(inBuffer);
         inBuffer.clear();
       }
+      return count;
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     } finally {
@@ -344,4 +416,41 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   public void register(final DebugSupport debugSupport) {
     debugger.setDebugSupportProcessor(debugSupport);
   }
+
+  @Override
+  public void register(final MetricsSupport metricsSupport) {
+    handler.setMetricsSupport(metricsSupport);
+  }
+
+  /** Channel counting the bytes written to the underlying channel. */
+  private static class CountingChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private long count;
+
+    CountingChannel(final WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(final ByteBuffer source) throws IOException {
+      final int written = channel.write(source);
+      count += written;
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+    long getCount() {
+      return count;
+    }
+  }
 }
@@ -51,6 +51,7 @@ import org.apache.olingo.server.core.debug.DebugResponseHelperImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.deserializer.FixedFormatDeserializerImpl;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
+import org.apache.olingo.server.core.deserializer.json.ODataJsonStreamDeserializer;
 import org.apache.olingo.server.core.deserializer.xml.ODataXmlDeserializer;
 import org.apache.olingo.server.core.etag.ETagHelperImpl;
 import org.apache.olingo.server.core.prefer.PreferencesImpl;
@@ -59,11 +60,30 @@ import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializerWithNavigations;
+import org.apache.olingo.server.core.serializer.json.JsonSerializerSupport;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
 public class ODataImpl extends OData {
 
+  private JsonSerializerSupport jsonSerializerSupport = JsonSerializerSupport.getDefault();
+
+  /**
+   * Sets the JSON factory and output buffer pool used by all JSON serializers created by this instance.
+   * Per default a process-wide shared instance is used.
+   * @param jsonSerializerSupport the support instance; must not be null
+   */
+  public void setJsonSerializerSupport(final JsonSerializerSupport jsonSerializerSupport) {
+    if (jsonSerializerSupport == null) {
+      throw new IllegalArgumentException("JSON serializer support must not be null.");
+    }
+    this.jsonSerializerSupport = jsonSerializerSupport;
+  }
+
+  public JsonSerializerSupport getJsonSerializerSupport() {
+    return jsonSerializerSupport;
+  }
+
   @Override
   public ODataSerializer createSerializer(final ContentType contentType) throws SerializerException {
     ODataSerializer serializer = null;
@@ -74,7 +94,7 @@ public class ODataImpl extends OData {
           || ContentType.VALUE_ODATA_METADATA_MINIMAL.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_FULL.equalsIgnoreCase(metadata)) {
-        serializer = new ODataJsonSerializer(contentType, new Constantsv00());
+        serializer = new ODataJsonSerializer(contentType, new Constantsv00(), jsonSerializerSupport);
       }
     } else if (contentType != null && (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML))) {
@@ -105,7 +125,7 @@ public class ODataImpl extends OData {
           || ContentType.VALUE_ODATA_METADATA_MINIMAL.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_FULL.equalsIgnoreCase(metadata)) {
-        serializer = new ODataJsonSerializer(contentType, constants);
+        serializer = new ODataJsonSerializer(contentType, constants, jsonSerializerSupport);
       }
     } else if (contentType != null && (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML))) {
@@ -130,7 +150,7 @@ public class ODataImpl extends OData {
   @Override
   public EdmAssistedSerializer createEdmAssistedSerializer(final ContentType contentType) throws SerializerException {
     if (contentType != null && contentType.isCompatible(ContentType.APPLICATION_JSON)) {
-      return new EdmAssistedJsonSerializer(contentType);
+      return new EdmAssistedJsonSerializer(contentType, new Constantsv00(), jsonSerializerSupport);
     }
     throw new SerializerException("Unsupported format: " + 
     ((contentType != null) ? contentType.toContentTypeString() : null),
@@ -146,7 +166,7 @@ public class ODataImpl extends OData {
 	      constants = new Constantsv01() ;
 	    }
     if (contentType != null && contentType.isCompatible(ContentType.APPLICATION_JSON)) {
-      return new EdmAssistedJsonSerializer(contentType, constants);
+      return new EdmAssistedJsonSerializer(contentType, constants, jsonSerializerSupport);
     }
     throw new SerializerException("Unsupported format: " + 
     ((contentType != null) ? contentType.toContentTypeString() : null),
@@ -160,10 +180,10 @@ public class ODataImpl extends OData {
       throws SerializerException {
     if (contentType != null && contentType.isCompatible(ContentType.APPLICATION_JSON)) {
       if(versions!=null && !versions.isEmpty()){
-       return getMaxVersion(versions)>4 ?  new JsonDeltaSerializerWithNavigations(contentType):
-         new JsonDeltaSerializer(contentType);
+       return getMaxVersion(versions)>4 ?  new JsonDeltaSerializerWithNavigations(contentType, jsonSerializerSupport):
+         new JsonDeltaSerializer(contentType, jsonSerializerSupport);
       }
-      return new JsonDeltaSerializerWithNavigations(contentType);
+      return new JsonDeltaSerializerWithNavigations(contentType, jsonSerializerSupport);
     }
     throw new SerializerException("Unsupported format: " + 
     ((contentType != null) ? contentType.toContentTypeString() : null),
@@ -202,7 +222,14 @@ public class ODataImpl extends OData {
   @Override
   public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
       final List<EdmxReference> references, final ServiceMetadataETagSupport serviceMetadataETagSupport) {
-    return new ServiceMetadataImpl(edmProvider, references, serviceMetadataETagSupport);
+    return createServiceMetadata(edmProvider, references, serviceMetadataETagSupport, false);
+  }
+
+  @Override
+  public ServiceMetadata createServiceMetadata(final CsdlEdmProvider edmProvider,
+      final List<EdmxReference> references, final ServiceMetadataETagSupport serviceMetadataETagSupport,
+      final boolean frozenEdm) {
+    return new ServiceMetadataImpl(edmProvider, references, serviceMetadataETagSupport, frozenEdm);
   }
 
   @Override
@@ -307,4 +334,18 @@ public class ODataImpl extends OData {
           ((contentType != null) ? contentType.toContentTypeString() : null));
     }
   }
+
+  @Override
+  public ODataDeserializer createStreamingDeserializer(final ContentType contentType, final ServiceMetadata metadata,
+      final List<String> versions) throws DeserializerException {
+    if (contentType != null && contentType.isCompatible(ContentType.JSON)) {
+      IConstants constants = new Constantsv00();
+      if (versions != null && !versions.isEmpty() && getMaxVersion(versions) > 4) {
+        constants = new Constantsv01();
+      }
+      return new ODataJsonStreamDeserializer(contentType, metadata, constants);
+    } else {
+      return createDeserializer(contentType, metadata, versions);
+    }
+  }
 }
@@ -224,7 +224,7 @@ public class ODataWritableContent implements ODataContent {
         ServiceMetadata metadata, EntityCollectionSerializerOptions options) {
       this.entities = entities;
       this.entityType = entityType;
-      this.serializer = serializer;
+      this.serializer = MeasuringOData.unwrap(serializer);
       this.metadata = metadata;
       this.options = options;
     }
@@ -21,6 +21,8 @@ package org.apache.olingo.server.core;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
@@ -29,6 +31,7 @@ import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.core.edm.EdmProviderImpl;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.core.serializer.DocumentSnapshots;
 
 /**
  */
@@ -37,10 +40,20 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   private final Edm edm;
   private final List<EdmxReference> references;
   private final ServiceMetadataETagSupport serviceMetadataETagSupport;
+  private final AtomicReference<DocumentSnapshots> documentSnapshots = new AtomicReference<>();
 
   public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
       final ServiceMetadataETagSupport serviceMetadataETagSupport) {
-    edm = new EdmProviderImpl(edmProvider);
+    this(edmProvider, references, serviceMetadataETagSupport, false);
+  }
+
+  public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
+      final ServiceMetadataETagSupport serviceMetadataETagSupport, final boolean frozenEdm) {
+    final EdmProviderImpl edmImpl = new EdmProviderImpl(edmProvider);
+    if (frozenEdm) {
+      edmImpl.freeze();
+    }
+    edm = edmImpl;
     this.references = new ArrayList<>();
     this.references.addAll(references);
     this.serviceMetadataETagSupport = serviceMetadataETagSupport;
@@ -65,4 +78,19 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   public ServiceMetadataETagSupport getServiceMetadataETagSupport() {
     return serviceMetadataETagSupport;
   }
+
+  /**
+   * Gets the snapshots of the serialized metadata document and service document,
+   * valid for the current ETags of the ETag support.
+   */
+  public DocumentSnapshots getDocumentSnapshots() {
+    final String version = serviceMetadataETagSupport == null ? null :
+        serviceMetadataETagSupport.getMetadataETag() + ' ' + serviceMetadataETagSupport.getServiceDocumentETag();
+    DocumentSnapshots snapshots = documentSnapshots.get();
+    if (snapshots == null || !Objects.equals(version, snapshots.getVersion())) {
+      final DocumentSnapshots created = new DocumentSnapshots(version);
+      snapshots = documentSnapshots.compareAndSet(snapshots, created) ? created : documentSnapshots.get();
+    }
+    return snapshots;
+  }
 }
@@ -18,6 +18,8 @@
  */
 package org.apache.olingo.server.core.batchhandler;
 
+import java.util.List;
+
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -26,12 +28,18 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.batch.BatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.processor.BatchProcessor;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.batchhandler.referenceRewriting.BatchReferenceRewriter;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
 
 public class BatchFacadeImpl implements BatchFacade {
   private final BatchPartHandler partHandler;
+  private final ODataHandlerImpl oDataHandler;
+  private final BatchProcessor batchProcessor;
+  private final ParallelBatchProcessing parallelProcessing;
 
   /**
    * Creates a new BatchFacade.
@@ -42,6 +50,32 @@ public class BatchFacadeImpl implements BatchFacade {
   public BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
                          final boolean isStrict) {
     partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this);
+    this.oDataHandler = null;
+    this.batchProcessor = batchProcessor;
+    parallelProcessing = null;
+  }
+
+  /**
+   * Creates a new BatchFacade which executes independent batch parts concurrently.
+   * @param oDataHandler       handler; each concurrently executed part is processed by a copy of it
+   * @param batchProcessor     batch processor
+   * @param isStrict           mode switch (currently not used)
+   * @param parallelProcessing configuration of the concurrent execution
+   */
+  public BatchFacadeImpl(final ODataHandlerImpl oDataHandler, final BatchProcessor batchProcessor,
+                         final boolean isStrict, final ParallelBatchProcessing parallelProcessing) {
+    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this);
+    this.oDataHandler = oDataHandler;
+    this.batchProcessor = batchProcessor;
+    this.parallelProcessing = parallelProcessing;
+  }
+
+  private BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
+                          final BatchReferenceRewriter rewriter) {
+    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this, rewriter);
+    this.oDataHandler = null;
+    this.batchProcessor = batchProcessor;
+    parallelProcessing = null;
   }
 
   @Override
@@ -56,6 +90,29 @@ public class BatchFacadeImpl implements BatchFacade {
     return partHandler.handleBatchRequest(request);
   }
 
+  @Override
+  public List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests,
+      final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+    final BatchPartExecutor executor = new BatchPartExecutor(requests, continueOnError, partHandler.getRewriter());
+    return parallelProcessing == null ?
+        executor.executeSequentially(this) :
+        executor.executeConcurrently(parallelProcessing, this);
+  }
+
+  @Override
+  public List<ODataResponsePart> handleBatchRequests(final BatchRequestReader reader,
+      final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+    final BatchPartExecutor executor = new BatchPartExecutor(reader, continueOnError, partHandler.getRewriter());
+    return parallelProcessing == null ?
+        executor.executeSequentially(this) :
+        executor.executeConcurrently(parallelProcessing, this);
+  }
+
+  /** Creates a facade for one concurrently executed part, sharing the Content-ID mapping with this facade. */
+  BatchFacadeImpl createWorker() {
+    return new BatchFacadeImpl(oDataHandler.copy(), batchProcessor, partHandler.getRewriter());
+  }
+
   @Override
   public String extractBoundaryFromContentType(final String contentType) throws BatchDeserializerException {
     return BatchParserCommon.getBoundary(contentType, 0);
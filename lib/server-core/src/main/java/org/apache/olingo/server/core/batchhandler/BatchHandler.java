@@ -23,6 +23,7 @@ import java.util.List;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
@@ -30,10 +31,17 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.batch.BatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
+import org.apache.olingo.server.core.deserializer.batch.JsonBatchParser;
+import org.apache.olingo.server.core.prefer.PreferencesImpl;
+import org.apache.olingo.server.core.serializer.JsonBatchResponseSerializer;
 
 public class BatchHandler {
   private final BatchProcessor batchProcessor;
@@ -49,11 +57,51 @@ public class BatchHandler {
 
   public void process(final ODataRequest request, final ODataResponse response, final boolean isStrict)
       throws ODataApplicationException, ODataLibraryException {
-    validateRequest(request);
+    validateHttpMethod(request);
     validatePreferHeader(request);
 
-    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict);
-    batchProcessor.processBatch(operation, request, response);
+    final ParallelBatchProcessing parallelProcessing = oDataHandler.getParallelBatchProcessing();
+    final BatchFacade operation = parallelProcessing == null || oDataHandler.isDebugMode() ?
+        new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict) :
+        new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict, parallelProcessing);
+    if (isJson(request)) {
+      processJson(operation, request, response);
+    } else {
+      validateContentType(request);
+      batchProcessor.processBatch(operation, request, response);
+    }
+  }
+
+  /**
+   * Processes a batch request in JSON format.
+   * The handler parses and answers the request itself; the batch processor only sees the parts:
+   * atomicity groups are processed as change sets by {@link BatchProcessor#processChangeSet(BatchFacade, List)}.
+   * Parts depending on a failed request or atomicity group are not executed but fail with status 424.
+   * Unless the client prefers to continue on errors, the processing stops at the first failed part.
+   */
+  private void processJson(final BatchFacade facade, final ODataRequest request, final ODataResponse response)
+      throws ODataApplicationException, ODataLibraryException {
+    final List<BatchRequestPart> parts = new JsonBatchParser(oDataHandler.getJsonSerializerSupport())
+        .parseBatchRequest(request.getBody(), BatchOptions.with()
+            .rawBaseUri(request.getRawBaseUri())
+            .rawServiceResolutionUri(request.getRawServiceResolutionUri()).build());
+    final boolean continueOnError = new PreferencesImpl(request.getHeaders(HttpHeader.PREFER)).hasContinueOnError();
+
+    final List<ODataResponsePart> responseParts = facade.handleBatchRequests(parts, continueOnError);
+
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    response.setODataContent(new JsonBatchResponseSerializer(oDataHandler.getJsonSerializerSupport())
+        .serialize(parts, responseParts));
+    if (continueOnError) {
+      response.setHeader(HttpHeader.PREFERENCE_APPLIED,
+          PreferencesApplied.with().continueOnError().build().toValueString());
+    }
+  }
+
+  private boolean isJson(final ODataRequest request) {
+    final ContentType contentType = ContentType.parse(request.getHeader(HttpHeader.CONTENT_TYPE));
+    return contentType != null && contentType.isCompatible(ContentType.APPLICATION_JSON);
   }
   
   /** Checks if Prefer header is set with return=minimal or 
@@ -73,11 +121,6 @@ public class BatchHandler {
     }
   }
 
-  private void validateRequest(final ODataRequest request) throws BatchDeserializerException {
-    validateHttpMethod(request);
-    validateContentType(request);
-  }
-
   private void validateContentType(final ODataRequest request) throws BatchDeserializerException {
     // This method does validation.
     BatchParserCommon.parseContentType(request.getHeader(HttpHeader.CONTENT_TYPE), ContentType.MULTIPART_MIXED, 0);
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batchhandler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.core.batchhandler.referenceRewriting.BatchReferenceRewriter;
+import org.apache.olingo.server.core.deserializer.batch.JsonBatchRequestPart;
+
+/**
+ * Executes the parts of one batch request, sequentially or concurrently, and returns
+ * their responses in the order of the requests.
+ * <p>A part has to wait for its predecessors: in multipart batch requests, change sets separate
+ * the query parts before and after them; in JSON batch requests, the predecessors are given by
+ * <code>dependsOn</code> and, if the processing stops at the first error, all parts except reads wait
+ * for all preceding parts. In both formats, a part waits for the parts whose Content-IDs it references.
+ * Parts depending on a failed request or atomicity group are not executed but fail with
+ * status 424 (Failed Dependency).</p>
+ * <p>Only reads (parts consisting of GET requests) can be executed before the failure of a preceding part
+ * is known; their responses are discarded then. This is possible because reads do not change data.</p>
+ * <p>Parts given by a {@link BatchRequestReader} are read only when they are needed, i.e., when all parts
+ * read before have been started, and they are released as soon as they are done.</p>
+ */
+final class BatchPartExecutor {
+
+  private final BatchRequestReader reader;
+  private final boolean continueOnError;
+  private final BatchReferenceRewriter rewriter;
+  private final List<BatchRequestPart> parts = new ArrayList<>();
+  private final List<Set<Integer>> dependencies = new ArrayList<>();
+  private final List<Set<Integer>> predecessors = new ArrayList<>();
+  private final BitSet waitingForAll = new BitSet();
+  private final List<ODataResponsePart> responses = new ArrayList<>();
+  private final BitSet failed = new BitSet();
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private int lastChangeSet = -1;
+  private int firstFailure = Integer.MAX_VALUE;
+  private boolean isReaderFinished;
+
+  BatchPartExecutor(final List<BatchRequestPart> parts, final boolean continueOnError,
+      final BatchReferenceRewriter rewriter) {
+    this((BatchRequestReader) null, continueOnError, rewriter);
+    for (final BatchRequestPart part : parts) {
+      addPart(part);
+    }
+  }
+
+  BatchPartExecutor(final BatchRequestReader reader, final boolean continueOnError,
+      final BatchReferenceRewriter rewriter) {
+    this.reader = reader;
+    this.continueOnError = continueOnError;
+    this.rewriter = rewriter;
+    isReaderFinished = reader == null;
+  }
+
+  private void addPart(final BatchRequestPart part) {
+    final int index = parts.size();
+    final Set<Integer> partDependencies = new HashSet<>();
+    final Set<Integer> partPredecessors = new HashSet<>();
+    if (part instanceof JsonBatchRequestPart) {
+      for (final String dependency : ((JsonBatchRequestPart) part).getDependsOn()) {
+        final Integer dependencyIndex = indexes.get(dependency);
+        if (dependencyIndex != null) {
+          partDependencies.add(dependencyIndex);
+        }
+      }
+      if (!continueOnError && (part.isChangeSet() || !isRead(part))) {
+        waitingForAll.set(index);
+      }
+    } else if (part.isChangeSet()) {
+      waitingForAll.set(index);
+    } else if (lastChangeSet >= 0) {
+      partPredecessors.add(lastChangeSet);
+    }
+    partPredecessors.addAll(partDependencies);
+    for (final ODataRequest request : part.getRequests()) {
+      final String reference = rewriter.getReferenceInURI(request);
+      final Integer referenceIndex = reference == null ? null : indexes.get(reference);
+      if (referenceIndex != null) {
+        partPredecessors.add(referenceIndex);
+      }
+    }
+    parts.add(part);
+    dependencies.add(partDependencies);
+    predecessors.add(partPredecessors);
+    responses.add(null);
+
+    for (final ODataRequest request : part.getRequests()) {
+      final String contentId = request.getHeader(HttpHeader.CONTENT_ID);
+      if (contentId != null) {
+        indexes.put(contentId, index);
+      }
+    }
+    if (part instanceof JsonBatchRequestPart && ((JsonBatchRequestPart) part).getAtomicityGroup() != null) {
+      indexes.put(((JsonBatchRequestPart) part).getAtomicityGroup(), index);
+    }
+    if (part.isChangeSet()) {
+      lastChangeSet = index;
+    }
+  }
+
+  /**
+   * Reads the next part from the reader, if there is one.
+   * @return whether a part has been read
+   */
+  private boolean readPart() throws BatchDeserializerException {
+    if (isReaderFinished) {
+      return false;
+    }
+    final BatchRequestPart part = reader.next();
+    if (part == null) {
+      isReaderFinished = true;
+      return false;
+    }
+    addPart(part);
+    return true;
+  }
+
+  List<ODataResponsePart> executeSequentially(final BatchFacade facade)
+      throws ODataApplicationException, ODataLibraryException {
+    for (int index = 0; !isStopped(index) && (index < parts.size() || readPart()); index++) {
+      responses.set(index, isDependencyFailed(index) ?
+          createFailedDependencyResponse(parts.get(index)) :
+          facade.handleBatchRequest(parts.get(index)));
+      setDone(index);
+    }
+    return getResponses();
+  }
+
+  /**
+   * Executes the parts with the given executor, with at most <code>maxParallelism</code> parts at the same time.
+   * Each part is handled by its own facade created from the given one.
+   */
+  List<ODataResponsePart> executeConcurrently(final ParallelBatchProcessing configuration,
+      final BatchFacadeImpl facade) throws ODataApplicationException, ODataLibraryException {
+    final CompletionService<PartTask> completionService =
+        new ExecutorCompletionService<>(configuration.getExecutor());
+    final List<Future<PartTask>> futures = new ArrayList<>();
+    final BitSet started = new BitSet();
+    final BitSet done = new BitSet();
+    int running = 0;
+    try {
+      while (true) {
+        // The next part is read only when all parts read so far have been started.
+        for (int index = started.nextClearBit(0);
+            running < configuration.getMaxParallelism()
+                && (index < parts.size()
+                || started.cardinality() == parts.size() && !isStopped(index) && readPart());
+            index = started.nextClearBit(index + 1)) {
+          if (isReady(index, done)) {
+            started.set(index);
+            if (isStopped(index)) {
+              parts.set(index, null);
+              done.set(index);
+            } else if (isDependencyFailed(index)) {
+              responses.set(index, createFailedDependencyResponse(parts.get(index)));
+              setDone(index);
+              done.set(index);
+            } else {
+              futures.add(completionService.submit(new PartTask(index, parts.get(index), facade.createWorker())));
+              running++;
+            }
+          }
+        }
+        // Predecessors always precede their parts, so nothing is left to start if nothing is running.
+        if (running == 0) {
+          break;
+        }
+        final PartTask task = completionService.take().get();
+        running--;
+        responses.set(task.index, task.response);
+        setDone(task.index);
+        done.set(task.index);
+      }
+    } catch (final InterruptedException e) {
+      cancel(futures);
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException("Interrupted while processing the batch request.", e);
+    } catch (final ExecutionException e) {
+      cancel(futures);
+      final Throwable cause = e.getCause();
+      if (cause instanceof ODataApplicationException) {
+        throw (ODataApplicationException) cause;
+      } else if (cause instanceof ODataLibraryException) {
+        throw (ODataLibraryException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new ODataRuntimeException((Exception) cause);
+      }
+    } catch (final BatchDeserializerException e) {
+      cancel(futures);
+      throw e;
+    }
+    return getResponses();
+  }
+
+  private boolean isRead(final BatchRequestPart part) {
+    for (final ODataRequest request : part.getRequests()) {
+      if (request.getMethod() != HttpMethod.GET) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isReady(final int index, final BitSet done) {
+    if (waitingForAll.get(index) && done.nextClearBit(0) < index) {
+      return false;
+    }
+    for (final int predecessor : predecessors.get(index)) {
+      if (!done.get(predecessor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isStopped(final int index) {
+    return !continueOnError && firstFailure < index;
+  }
+
+  private boolean isDependencyFailed(final int index) {
+    for (final int dependency : dependencies.get(index)) {
+      if (failed.get(dependency)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Records the result of a part and releases the part, which is not needed anymore. */
+  private void setDone(final int index) {
+    parts.set(index, null);
+    if (isFailed(responses.get(index))) {
+      failed.set(index);
+      firstFailure = Math.min(firstFailure, index);
+    }
+  }
+
+  private List<ODataResponsePart> getResponses() {
+    final int end = continueOnError || firstFailure >= responses.size() ? responses.size() : firstFailure + 1;
+    return new ArrayList<>(responses.subList(0, end));
+  }
+
+  private void cancel(final List<Future<PartTask>> futures) {
+    for (final Future<PartTask> future : futures) {
+      future.cancel(true);
+    }
+  }
+
+  private ODataResponsePart createFailedDependencyResponse(final BatchRequestPart part) {
+    final List<ODataResponse> failedResponses = new ArrayList<>();
+    for (final ODataRequest request : part.getRequests()) {
+      final ODataResponse failedResponse = new ODataResponse();
+      failedResponse.setStatusCode(HttpStatusCode.FAILED_DEPENDENCY.getStatusCode());
+      failedResponse.setHeader(HttpHeader.CONTENT_ID, request.getHeader(HttpHeader.CONTENT_ID));
+      failedResponses.add(failedResponse);
+    }
+    return new ODataResponsePart(failedResponses, part.isChangeSet());
+  }
+
+  /**
+   * Tells whether a part failed, judged by its first response as in the sequential processing:
+   * a failed change set is answered with a single response.
+   */
+  private boolean isFailed(final ODataResponsePart responsePart) {
+    final int statusCode = responsePart.getResponses().get(0).getStatusCode();
+    return statusCode >= HttpStatusCode.BAD_REQUEST.getStatusCode() && statusCode <= 600;
+  }
+
+  private static final class PartTask implements Callable<PartTask> {
+    private final int index;
+    private final BatchRequestPart part;
+    private final BatchFacade facade;
+    private ODataResponsePart response;
+
+    private PartTask(final int index, final BatchRequestPart part, final BatchFacade facade) {
+      this.index = index;
+      this.part = part;
+      this.facade = facade;
+    }
+
+    @Override
+    public PartTask call() throws ODataApplicationException, ODataLibraryException {
+      response = facade.handleBatchRequest(part);
+      return this;
+    }
+  }
+}
@@ -39,10 +39,22 @@ public class BatchPartHandler {
 
   public BatchPartHandler(final ODataHandler oDataHandler, final BatchProcessor processor,
                           final BatchFacade batchFacade) {
+    this(oDataHandler, processor, batchFacade, new BatchReferenceRewriter());
+  }
+
+  /**
+   * Creates a part handler sharing the Content-ID mapping with other part handlers of the same batch request.
+   */
+  public BatchPartHandler(final ODataHandler oDataHandler, final BatchProcessor processor,
+                          final BatchFacade batchFacade, final BatchReferenceRewriter rewriter) {
     this.oDataHandler = oDataHandler;
     batchProcessor = processor;
     this.batchFacade = batchFacade;
-    rewriter = new BatchReferenceRewriter();
+    this.rewriter = rewriter;
+  }
+
+  public BatchReferenceRewriter getRewriter() {
+    return rewriter;
   }
 
   public ODataResponse handleODataRequest(final ODataRequest request) throws BatchDeserializerException {
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batchhandler;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * Enables the concurrent execution of independent parts of batch requests.
+ * <p>Query parts which are not separated by a change set are executed concurrently.
+ * In JSON batch requests, requests and atomicity groups are independent unless they are connected
+ * by <code>dependsOn</code> or by Content-ID references; if the client does not prefer
+ * to continue on errors, an atomicity group is executed only after all preceding parts.
+ * The responses are returned in the order of the requests in any case.</p>
+ * <p>The processors are called from the threads of the executor, so they must be thread-safe
+ * and must not rely on state bound to the thread of the batch request.
+ * In debug mode, all parts are executed sequentially.</p>
+ * <p>The concurrent execution is enabled by registering it at the handler as {@link OlingoExtension};
+ * the executor is not shut down by the library.</p>
+ */
+public class ParallelBatchProcessing implements OlingoExtension {
+
+  public static final int DEFAULT_MAX_PARALLELISM = 4;
+
+  private final ExecutorService executor;
+  private final int maxParallelism;
+
+  public ParallelBatchProcessing(final ExecutorService executor) {
+    this(executor, DEFAULT_MAX_PARALLELISM);
+  }
+
+  /**
+   * Creates the configuration for concurrent batch processing.
+   * @param executor the executor running the batch parts
+   * @param maxParallelism maximum number of parts of one batch request executed at the same time
+   */
+  public ParallelBatchProcessing(final ExecutorService executor, final int maxParallelism) {
+    if (executor == null) {
+      throw new IllegalArgumentException("An executor is required.");
+    }
+    if (maxParallelism < 1) {
+      throw new IllegalArgumentException("The maximum parallelism must be positive.");
+    }
+    this.executor = executor;
+    this.maxParallelism = maxParallelism;
+  }
+
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  public int getMaxParallelism() {
+    return maxParallelism;
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.data;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.core.uri.queryoption.evaluation.ValueKind;
+
+/**
+ * A hash index on the key properties of a list of entities held in memory,
+ * for reading entities by key in constant time.
+ * <br/>
+ * Composite keys and key properties within complex properties are supported.
+ * Key values are compared in their normalized form, so that, e.g., an <code>Edm.Int16</code> key held as
+ * {@link Short} matches the parsed key predicate, and a <code>Edm.Date</code> held as {@link java.util.Calendar}
+ * matches regardless of the time-zone of the calendar. If several entities have the same key,
+ * the first one in the list is found.
+ * <br/>
+ * The index is built on the first read and rebuilt when the size of the list has changed or the entity
+ * found is no longer at its indexed position with its indexed key, so removing, moving, and re-keying entities
+ * is detected. Adding entities without changing the size of the list, e.g., by replacing an entity,
+ * must be announced with {@link #invalidate()}.
+ * Reading is thread-safe as long as the list is not modified concurrently.
+ * The list should provide fast random access.
+ */
+public final class EntityKeyIndex {
+
+  private final List<Entity> entities;
+  private final EdmKeyPropertyRef[] keyRefs;
+  private final String[][] paths;
+  private final ValueKind[] kinds;
+
+  /** Positions of the entities in the list by their normalized keys. */
+  private volatile Map<Object, Integer> index;
+  private volatile int indexedSize;
+
+  /**
+   * Creates the index for a list of entities.
+   * @param entityType the type of the entities, defining the key properties
+   * @param entities   the entities; the list is referenced, not copied
+   */
+  public EntityKeyIndex(final EdmEntityType entityType, final List<Entity> entities) {
+    this.entities = entities;
+    final List<EdmKeyPropertyRef> refs = entityType.getKeyPropertyRefs();
+    keyRefs = refs.toArray(new EdmKeyPropertyRef[refs.size()]);
+    paths = new String[keyRefs.length][];
+    kinds = new ValueKind[keyRefs.length];
+    for (int i = 0; i < keyRefs.length; i++) {
+      paths[i] = keyRefs[i].getName().split("/");
+      kinds[i] = ValueKind.of(keyRefs[i].getProperty().getType());
+    }
+  }
+
+  /** Tells whether this index has been created for the given list instance. */
+  public boolean isIndexOf(final List<Entity> entities) {
+    return this.entities == entities;
+  }
+
+  /**
+   * Reads the entity with the given key.
+   * @param keyPredicates the key predicates from the URI
+   * @return the entity or <code>null</code> if no entity with this key exists
+   * @throws ODataApplicationException with status code 400 for invalid key values
+   * and with status code 501 for key values given as expressions other than literals
+   */
+  public Entity read(final List<UriParameter> keyPredicates) throws ODataApplicationException {
+    final Object key = parseKey(keyPredicates);
+    if (key == null) {
+      return null;
+    }
+    Map<Object, Integer> current = index;
+    if (current == null || indexedSize != entities.size()) {
+      current = rebuild();
+    }
+    Entity entity = get(current, key);
+    if (entity == null && current.containsKey(key)) {
+      // The entity has been moved or its key has been changed after indexing.
+      entity = get(rebuild(), key);
+    }
+    return entity;
+  }
+
+  /** Gets the entity at the indexed position if it still has the given key. */
+  private Entity get(final Map<Object, Integer> positions, final Object key) {
+    final Integer position = positions.get(key);
+    if (position == null || position >= entities.size()) {
+      return null;
+    }
+    final Entity entity = entities.get(position);
+    return key.equals(getKey(entity)) ? entity : null;
+  }
+
+  /** Discards the index, so that it is rebuilt on the next read. */
+  public void invalidate() {
+    index = null;
+  }
+
+  /**
+   * Finds the entity with the given key in a list of entities without building an index,
+   * e.g., for lists used only once; the key predicates are parsed only once.
+   * @see #read(List)
+   */
+  public static Entity find(final EdmEntityType entityType, final List<Entity> entities,
+      final List<UriParameter> keyPredicates) throws ODataApplicationException {
+    final EntityKeyIndex keyIndex = new EntityKeyIndex(entityType, entities);
+    final Object key = keyIndex.parseKey(keyPredicates);
+    if (key != null) {
+      for (final Entity entity : entities) {
+        if (key.equals(keyIndex.getKey(entity))) {
+          return entity;
+        }
+      }
+    }
+    return null;
+  }
+
+  private synchronized Map<Object, Integer> rebuild() {
+    final Map<Object, Integer> map = new HashMap<Object, Integer>((int) (entities.size() / 0.75f) + 1);
+    int position = 0;
+    for (final Entity entity : entities) {
+      final Object key = getKey(entity);
+      if (key != null && !map.containsKey(key)) {
+        map.put(key, position);
+      }
+      position++;
+    }
+    indexedSize = entities.size();
+    index = map;
+    return map;
+  }
+
+  /** Gets the normalized key of an entity, or <code>null</code> if a key property has no value. */
+  private Object getKey(final Entity entity) {
+    if (keyRefs.length == 1) {
+      return canonical(kinds[0], getValue(entity, paths[0]));
+    }
+    final Object[] values = new Object[keyRefs.length];
+    for (int i = 0; i < keyRefs.length; i++) {
+      values[i] = canonical(kinds[i], getValue(entity, paths[i]));
+      if (values[i] == null) {
+        return null;
+      }
+    }
+    return Arrays.asList(values);
+  }
+
+  private static Object getValue(final Entity entity, final String[] path) {
+    List<Property> properties = entity.getProperties();
+    Object value = null;
+    for (final String name : path) {
+      if (properties == null) {
+        return null;
+      }
+      value = null;
+      for (final Property property : properties) {
+        if (name.equals(property.getName())) {
+          value = property.getValue();
+          break;
+        }
+      }
+      properties = value instanceof ComplexValue ? ((ComplexValue) value).getValue() : null;
+    }
+    return value;
+  }
+
+  /**
+   * Parses the key predicates into a normalized key.
+   * @return the key or <code>null</code> if the predicates do not address all key properties
+   */
+  private Object parseKey(final List<UriParameter> keyPredicates) throws ODataApplicationException {
+    if (keyPredicates.size() != keyRefs.length) {
+      return null;
+    }
+    final Object[] values = new Object[keyRefs.length];
+    for (final UriParameter keyPredicate : keyPredicates) {
+      int i = 0;
+      while (i < keyRefs.length && !keyPredicate.getName().equals(keyRefs[i].getName())
+          && !keyPredicate.getName().equals(keyRefs[i].getAlias())) {
+        i++;
+      }
+      if (i == keyRefs.length) {
+        return null;
+      }
+      if (keyPredicate.getExpression() != null && !(keyPredicate.getExpression() instanceof Literal)) {
+        throw new ODataApplicationException("Expression in key value is not supported yet!",
+            HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+      }
+      final String text = keyPredicate.getAlias() == null ? keyPredicate.getText() :
+          ((Literal) keyPredicate.getExpression()).getText();
+      final EdmProperty property = keyRefs[i].getProperty();
+      final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+      try {
+        values[i] = canonical(kinds[i], type.valueOfString(type.fromUriLiteral(text),
+            property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
+            property.isUnicode(), type.getDefaultType()));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Wrong key!", HttpStatusCode.BAD_REQUEST.getStatusCode(),
+            Locale.ROOT, e);
+      }
+    }
+    return values.length == 1 ? values[0] : Arrays.asList(values);
+  }
+
+  /** Brings a key value into a form with value-based equality and hash code. */
+  private static Object canonical(final ValueKind kind, final Object value) {
+    final Object normalized = kind.normalize(value);
+    if (normalized instanceof BigDecimal) {
+      final BigDecimal decimal = (BigDecimal) normalized;
+      return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+    } else if (kind == ValueKind.INTEGRAL && normalized instanceof Number) {
+      return ((Number) normalized).longValue();
+    }
+    return normalized;
+  }
+}
@@ -28,16 +28,16 @@ import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerExceptio
 public class BatchBodyPart implements BatchPart {
   private final String boundary;
   private final boolean isStrict;
-  private final List<Line> remainingMessage = new LinkedList<>();
+  private final BatchPartContent remainingMessage;
 
   private Header headers;
   private boolean isChangeSet;
   private List<BatchQueryOperation> requests;
 
-  public BatchBodyPart(final List<Line> message, final String boundary, final boolean isStrict) {
+  public BatchBodyPart(final BatchPartContent message, final String boundary, final boolean isStrict) {
     this.boundary = boundary;
     this.isStrict = isStrict;
-    remainingMessage.addAll(message);
+    remainingMessage = message;
   }
 
   public BatchBodyPart parse() throws BatchDeserializerException {
@@ -67,24 +67,25 @@ public class BatchBodyPart implements BatchPart {
     return changeSet;
   }
 
-  private List<BatchQueryOperation> consumeRequest(final List<Line> remainingMessage)
+  private List<BatchQueryOperation> consumeRequest(final BatchPartContent remainingMessage)
       throws BatchDeserializerException {
     return isChangeSet ? consumeChangeSet(remainingMessage) : consumeQueryOperation(remainingMessage);
   }
 
-  private List<BatchQueryOperation> consumeChangeSet(final List<Line> remainingMessage)
+  private List<BatchQueryOperation> consumeChangeSet(final BatchPartContent remainingMessage)
       throws BatchDeserializerException {
-    final List<List<Line>> changeRequests = splitChangeSet(remainingMessage);
+    final List<BatchPartContent> changeRequests = splitChangeSet(remainingMessage);
     final List<BatchQueryOperation> requestList = new LinkedList<>();
 
-    for (List<Line> changeRequest : changeRequests) {
+    for (BatchPartContent changeRequest : changeRequests) {
       requestList.add(new BatchChangeSetPart(changeRequest, isStrict).parse());
     }
 
     return requestList;
   }
 
-  private List<List<Line>> splitChangeSet(final List<Line> remainingMessage) throws BatchDeserializerException {
+  private List<BatchPartContent> splitChangeSet(final BatchPartContent remainingMessage)
+      throws BatchDeserializerException {
 
     final HeaderField contentTypeField = headers.getHeaderField(HttpHeader.CONTENT_TYPE);
     final String changeSetBoundary = BatchParserCommon.getBoundary(contentTypeField.getValue(),
@@ -103,7 +104,7 @@ public class BatchBodyPart implements BatchPart {
     }
   }
 
-  private List<BatchQueryOperation> consumeQueryOperation(final List<Line> remainingMessage)
+  private List<BatchQueryOperation> consumeQueryOperation(final BatchPartContent remainingMessage)
       throws BatchDeserializerException {
     final List<BatchQueryOperation> requestList = new LinkedList<>();
     requestList.add(new BatchQueryOperation(remainingMessage, isStrict).parse());
@@ -18,14 +18,12 @@
  */
 package org.apache.olingo.server.core.deserializer.batch;
 
-import java.util.List;
-
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 
 public class BatchChangeSetPart extends BatchQueryOperation {
   private BatchQueryOperation request;
 
-  public BatchChangeSetPart(final List<Line> message, final boolean isStrict) throws BatchDeserializerException {
+  public BatchChangeSetPart(final BatchPartContent message, final boolean isStrict) throws BatchDeserializerException {
     super(message, isStrict);
   }
 
@@ -44,7 +42,7 @@ public class BatchChangeSetPart extends BatchQueryOperation {
   }
 
   @Override
-  public List<Line> getBody() {
+  public BatchPartContent getBody() {
     return request.getBody();
   }
 
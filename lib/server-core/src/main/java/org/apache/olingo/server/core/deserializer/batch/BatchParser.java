@@ -20,57 +20,68 @@ package org.apache.olingo.server.core.deserializer.batch;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 
 public class BatchParser {
 
-  private BatchOptions options;
-
   public List<BatchRequestPart> parseBatchRequest(final InputStream content, final String boundary,
       final BatchOptions options)
       throws BatchDeserializerException {
-    this.options = options;
+    final BatchRequestReader reader = readBatchRequest(content, boundary, options);
+    final List<BatchRequestPart> resultList = new ArrayList<>();
+    BatchRequestPart part;
+    while ((part = reader.next()) != null) {
+      resultList.add(part);
+    }
+    return resultList;
+  }
 
-    BatchRequestTransformator transformator = new BatchRequestTransformator(options.getRawBaseUri(),
+  /**
+   * Returns a reader which reads and parses the parts of the batch request one after the other.
+   * Only the content of the part currently read is kept in memory by the reader;
+   * the bodies of the requests of a part are streams over the content of this part.
+   */
+  public BatchRequestReader readBatchRequest(final InputStream content, final String boundary,
+      final BatchOptions options) {
+    final BatchRequestTransformator transformator = new BatchRequestTransformator(options.getRawBaseUri(),
         options.getRawServiceResolutionUri());
-    return parse(content, boundary, transformator);
+    final BatchPartReader reader = new BatchPartReader(content, boundary);
+    return new BatchRequestReader() {
+      @Override
+      public BatchRequestPart next() throws BatchDeserializerException {
+        boolean isFinished = true;
+        try {
+          final BatchPartContent bodyPartContent = reader.next();
+          if (bodyPartContent == null) {
+            return null;
+          }
+          final BatchBodyPart bodyPart = new BatchBodyPart(bodyPartContent, boundary, options.isStrict()).parse();
+          final BatchRequestPart requestPart = transformator.transform(bodyPart).get(0);
+          isFinished = false;
+          return requestPart;
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        } finally {
+          if (isFinished) {
+            close(reader);
+          }
+        }
+      }
+    };
   }
 
-  private List<BatchRequestPart> parse(final InputStream in, final String boundary,
-      final BatchRequestTransformator transformator)
-      throws BatchDeserializerException {
+  private void close(final BatchPartReader reader) {
     try {
-      return parseBatch(in, boundary, transformator);
-    } catch (IOException e) {
+      reader.close();
+    } catch (final IOException e) {
       throw new ODataRuntimeException(e);
     }
   }
-
-  private List<BatchRequestPart> parseBatch(final InputStream in, final String boundary,
-      final BatchRequestTransformator transformator) throws IOException, BatchDeserializerException {
-    final List<BatchRequestPart> resultList = new LinkedList<>();
-    final List<List<Line>> bodyPartStrings = splitBodyParts(in, boundary);
-
-    for (List<Line> bodyPartString : bodyPartStrings) {
-      BatchBodyPart bodyPart = new BatchBodyPart(bodyPartString, boundary, options.isStrict()).parse();
-      resultList.addAll(transformator.transform(bodyPart));
-    }
-
-    return resultList;
-  }
-
-  private List<List<Line>> splitBodyParts(final InputStream in, final String boundary) throws IOException,
-      BatchDeserializerException {
-    final BatchLineReader reader = new BatchLineReader(in);
-    final List<Line> message = reader.toLineList();
-    reader.close();
-
-    return BatchParserCommon.splitMessageByBoundary(message, boundary);
-  }
 }
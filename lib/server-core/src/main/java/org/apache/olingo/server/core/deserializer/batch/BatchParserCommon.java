@@ -18,15 +18,13 @@
  */
 package org.apache.olingo.server.core.deserializer.batch;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.util.Iterator;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 
@@ -111,55 +109,6 @@ public class BatchParserCommon {
     }
   }
 
-  public static List<List<Line>> splitMessageByBoundary(final List<Line> message, final String boundary)
-      throws BatchDeserializerException {
-    final List<List<Line>> messageParts = new LinkedList<>();
-    List<Line> currentPart = new LinkedList<>();
-    boolean isEndReached = false;
-
-    final String quotedBoundary = Pattern.quote(boundary);
-    final Pattern boundaryDelimiterPattern = Pattern.compile("--" + quotedBoundary + "--\\s*");
-    final Pattern boundaryPattern = Pattern.compile("--" + quotedBoundary + "\\s*");
-
-    for (Line currentLine : message) {
-      if (boundaryDelimiterPattern.matcher(currentLine.toString()).matches()) {
-        removeEndingCRLFFromList(currentPart);
-        messageParts.add(currentPart);
-        isEndReached = true;
-      } else if (boundaryPattern.matcher(currentLine.toString()).matches()) {
-        removeEndingCRLFFromList(currentPart);
-        messageParts.add(currentPart);
-        currentPart = new LinkedList<>();
-      } else {
-        currentPart.add(currentLine);
-      }
-
-      if (isEndReached) {
-        break;
-      }
-    }
-
-    // Remove preamble
-    if (!messageParts.isEmpty()) {
-      messageParts.remove(0);
-    }
-
-    if (!isEndReached) {
-      final int lineNumber = (!message.isEmpty()) ? message.get(0).getLineNumber() : 0;
-      throw new BatchDeserializerException("Missing close boundary delimiter",
-          BatchDeserializerException.MessageKeys.MISSING_CLOSE_DELIMITER, Integer.toString(lineNumber));
-    }
-
-    return messageParts;
-  }
-
-  private static void removeEndingCRLFFromList(final List<Line> list) {
-    if (!list.isEmpty()) {
-      Line lastLine = list.remove(list.size() - 1);
-      list.add(removeEndingCRLF(lastLine));
-    }
-  }
-
   public static Line removeEndingCRLF(final Line line) {
     Matcher matcher = PATTERN_LAST_CRLF.matcher(line.toString());
     if (matcher.matches()) {
@@ -169,72 +118,60 @@ public class BatchParserCommon {
     }
   }
 
-  public static Header consumeHeaders(final List<Line> remainingMessage) {
-    final int headerLineNumber = !remainingMessage.isEmpty() ? remainingMessage.get(0).getLineNumber() : 0;
-    final Header headers = new Header(headerLineNumber);
-    final Iterator<Line> iter = remainingMessage.iterator();
+  public static Header consumeHeaders(final BatchPartContent remainingMessage) {
+    final Header headers = new Header(remainingMessage.getLineNumber());
     Line currentLine;
-    boolean isHeader = true;
 
-    while (iter.hasNext() && isHeader) {
-      currentLine = iter.next();
+    while ((currentLine = remainingMessage.peekLine()) != null) {
       final Matcher headerMatcher = PATTERN_HEADER_LINE.matcher(currentLine.toString());
-
       if (headerMatcher.matches() && headerMatcher.groupCount() == 2) {
-        iter.remove();
+        remainingMessage.readLine();
 
         String headerName = headerMatcher.group(1).trim();
         String headerValue = headerMatcher.group(2).trim();
 
         headers.addHeader(headerName, Header.splitValuesByComma(headerValue), currentLine.getLineNumber());
       } else {
-        isHeader = false;
+        break;
       }
     }
 
     return headers;
   }
 
-  public static void consumeBlankLine(final List<Line> remainingMessage, final boolean isStrict)
+  public static void consumeBlankLine(final BatchPartContent remainingMessage, final boolean isStrict)
       throws BatchDeserializerException {
-    if (!remainingMessage.isEmpty() && remainingMessage.get(0).toString().matches("\\s*\r?\n\\s*")) {
-      remainingMessage.remove(0);
+    final Line line = remainingMessage.peekLine();
+    if (line != null && line.toString().matches("\\s*\r?\n\\s*")) {
+      remainingMessage.readLine();
     } else {
       if (isStrict) {
-        final int lineNumber = (!remainingMessage.isEmpty()) ? remainingMessage.get(0).getLineNumber() : 0;
+        final int lineNumber = line == null ? 0 : line.getLineNumber();
         throw new BatchDeserializerException("Missing blank line",
             BatchDeserializerException.MessageKeys.MISSING_BLANK_LINE, "[None]", Integer.toString(lineNumber));
       }
     }
   }
 
-  public static InputStream convertLineListToInputStream(final List<Line> messageList, final Charset charset) {
-    final String message = lineListToString(messageList);
-
-    return new ByteArrayInputStream(message.getBytes(charset));
-  }
-
-  private static String lineListToString(final List<Line> messageList) {
-    final StringBuilder builder = new StringBuilder();
-
-    for (Line currentLine : messageList) {
-      builder.append(currentLine.toString());
+  /**
+   * Splits the remaining content of a part by the given boundary, e.g., to get the parts of a change set.
+   * The parts are views on the content; nothing is copied.
+   * @param message the content
+   * @param boundary the boundary
+   * @return the parts
+   */
+  public static List<BatchPartContent> splitMessageByBoundary(final BatchPartContent message,
+      final String boundary) throws BatchDeserializerException {
+    final List<BatchPartContent> messageParts = new LinkedList<>();
+    final BatchPartReader reader = message.getPartReader(boundary);
+    try {
+      BatchPartContent part;
+      while ((part = reader.next()) != null) {
+        messageParts.add(part);
+      }
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
     }
-
-    return builder.toString();
-  }
-
-  public static String trimLineListToLength(final List<Line> list, final int length) {
-    final String message = lineListToString(list);
-    final int lastIndex = Math.min(length, message.length());
-
-    return (lastIndex > 0) ? message.substring(0, lastIndex) : "";
-  }
-
-  public static InputStream convertLineListToInputStream(final List<Line> list, final Charset charset,
-      final int length) {
-    final String message = trimLineListToLength(list, length);
-
-    return new ByteArrayInputStream(message.getBytes(charset));
+    return messageParts;
   }
 }
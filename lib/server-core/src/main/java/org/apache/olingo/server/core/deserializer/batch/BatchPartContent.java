@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * The raw content of one part of a multipart message.
+ * <p>Lines are decoded one by one when they are read, so the headers of the part can be parsed
+ * while the remaining content, i.e., the body, is handed out as a stream over the bytes
+ * without any decoding and copying.</p>
+ */
+public class BatchPartContent {
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+
+  private final byte[] buffer;
+  private final int limit;
+  private int position;
+  private int lineNumber;
+
+  /**
+   * Creates the content of a part.
+   * @param buffer the buffer holding the content; it is not copied
+   * @param offset the offset of the content in the buffer
+   * @param length the length of the content
+   * @param lineNumber the line number of the first line of the content in the message
+   */
+  public BatchPartContent(final byte[] buffer, final int offset, final int length, final int lineNumber) {
+    this.buffer = buffer;
+    position = offset;
+    limit = offset + length;
+    this.lineNumber = lineNumber;
+  }
+
+  /**
+   * Returns the next line including its line terminator without consuming it.
+   * @return the line or <code>null</code> if there is no more content
+   */
+  public Line peekLine() {
+    return position < limit ?
+        new Line(new String(buffer, position, getLineEnd() - position, DEFAULT_CHARSET), lineNumber) :
+        null;
+  }
+
+  /**
+   * Consumes the next line.
+   * @return the line including its line terminator or <code>null</code> if there is no more content
+   */
+  public Line readLine() {
+    final Line line = peekLine();
+    if (line != null) {
+      position = getLineEnd();
+      lineNumber++;
+    }
+    return line;
+  }
+
+  /** Returns whether there is content left. */
+  public boolean hasRemaining() {
+    return position < limit;
+  }
+
+  /** Returns the number of remaining bytes. */
+  public int getRemainingLength() {
+    return limit - position;
+  }
+
+  /** Returns the line number of the next line. */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Returns whether the remaining content consists of at most one line containing only whitespace.
+   */
+  public boolean isBlank() {
+    final Line line = peekLine();
+    return line == null || line.toString().trim().isEmpty() && getLineEnd() == limit;
+  }
+
+  /** Returns a stream over the remaining content; the content itself is not consumed. */
+  public InputStream getRemainingContent() {
+    return getRemainingContent(limit - position);
+  }
+
+  /**
+   * Returns a stream over the remaining content; the content itself is not consumed.
+   * @param maxLength the maximum number of bytes
+   */
+  public InputStream getRemainingContent(final int maxLength) {
+    return new ByteArrayInputStream(buffer, position, Math.max(0, Math.min(maxLength, limit - position)));
+  }
+
+  /**
+   * Returns a reader which splits the remaining content by the given boundary.
+   * The parts share the buffer of this content; the content itself is not consumed.
+   * @param boundary the boundary between the parts
+   */
+  public BatchPartReader getPartReader(final String boundary) {
+    return new BatchPartReader(buffer, position, limit - position, boundary, lineNumber);
+  }
+
+  private int getLineEnd() {
+    int index = position;
+    while (index < limit) {
+      final byte current = buffer[index++];
+      if (current == LF) {
+        break;
+      } else if (current == CR) {
+        if (index < limit && buffer[index] == LF) {
+          index++;
+        }
+        break;
+      }
+    }
+    return index;
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+
+/**
+ * Splits a multipart message into its parts while reading it from a stream.
+ * <p>The boundary delimiter lines are recognized on the level of bytes, the preamble and the epilogue
+ * are skipped, and only the part currently read is kept in memory. Each part is returned as
+ * {@link BatchPartContent} without the line break preceding the next delimiter line.
+ * A message which is already in memory is split without copying.</p>
+ */
+public class BatchPartReader {
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final int EOF = -1;
+  private static final int BUFFER_SIZE = 8192;
+  private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+
+  private final InputStream in;
+  private final byte[] delimiter;
+  private final int firstLineNumber;
+  private final byte[] readBuffer;
+  private int readOffset = 0;
+  private int readLimit = 0;
+
+  private byte[] part;
+  private int partStart = 0;
+  private int partEnd = 0;
+  private final int partLimit;
+  private int lineNumber;
+  private boolean isPreamble = true;
+  private boolean isEndReached = false;
+
+  /**
+   * Creates a reader for a message.
+   * @param in the message
+   * @param boundary the boundary between the parts
+   */
+  public BatchPartReader(final InputStream in, final String boundary) {
+    this(in, boundary, 1);
+  }
+
+  /**
+   * Creates a reader for a message which is embedded into another message.
+   * @param in the message
+   * @param boundary the boundary between the parts
+   * @param firstLineNumber the line number of the first line of the message
+   */
+  public BatchPartReader(final InputStream in, final String boundary, final int firstLineNumber) {
+    this.in = in;
+    delimiter = ("--" + boundary).getBytes(DEFAULT_CHARSET);
+    this.firstLineNumber = firstLineNumber;
+    lineNumber = firstLineNumber;
+    readBuffer = new byte[BUFFER_SIZE];
+    part = new byte[BUFFER_SIZE];
+    partLimit = 0;
+  }
+
+  /**
+   * Creates a reader for a message which is already in memory, e.g., a change set inside a batch part.
+   * The parts are returned as views on the given buffer; nothing is copied.
+   * @param buffer the buffer holding the message
+   * @param offset the offset of the message in the buffer
+   * @param length the length of the message
+   * @param boundary the boundary between the parts
+   * @param firstLineNumber the line number of the first line of the message
+   */
+  BatchPartReader(final byte[] buffer, final int offset, final int length, final String boundary,
+      final int firstLineNumber) {
+    in = null;
+    delimiter = ("--" + boundary).getBytes(DEFAULT_CHARSET);
+    this.firstLineNumber = firstLineNumber;
+    lineNumber = firstLineNumber;
+    readBuffer = null;
+    part = buffer;
+    partStart = offset;
+    partEnd = offset;
+    partLimit = offset + length;
+  }
+
+  /**
+   * Reads the next part.
+   * @return the content of the part or <code>null</code> if the close delimiter has been read
+   * @throws BatchDeserializerException if the message ends without close delimiter
+   */
+  public BatchPartContent next() throws IOException, BatchDeserializerException {
+    int partLineNumber = lineNumber;
+    while (!isEndReached) {
+      final int lineStart = partEnd;
+      if (!readLine()) {
+        throw new BatchDeserializerException("Missing close boundary delimiter",
+            BatchDeserializerException.MessageKeys.MISSING_CLOSE_DELIMITER,
+            Integer.toString(lineNumber == firstLineNumber ? 0 : firstLineNumber));
+      }
+      final int delimiterType = getDelimiterType(lineStart);
+      if (delimiterType == 0) {
+        if (isPreamble) {
+          skipPart();
+        }
+        continue;
+      }
+
+      isEndReached = delimiterType == 2;
+      if (isPreamble) {
+        isPreamble = false;
+        skipPart();
+        partLineNumber = lineNumber;
+      } else {
+        int contentEnd = lineStart;
+        if (contentEnd - partStart >= 2 && part[contentEnd - 2] == CR && part[contentEnd - 1] == LF) {
+          contentEnd -= 2;
+        }
+        final BatchPartContent content = new BatchPartContent(part, partStart, contentEnd - partStart,
+            partLineNumber);
+        startPart();
+        return content;
+      }
+    }
+    return null;
+  }
+
+  public void close() throws IOException {
+    if (in != null) {
+      in.close();
+    }
+  }
+
+  /** Discards the content read so far, e.g., the preamble. */
+  private void skipPart() {
+    if (in == null) {
+      partStart = partEnd;
+    } else {
+      partEnd = 0;
+    }
+  }
+
+  /** Starts a new part; a part read from the stream gets its own buffer because the previous one is handed out. */
+  private void startPart() {
+    if (in == null) {
+      partStart = partEnd;
+    } else {
+      part = new byte[BUFFER_SIZE];
+      partEnd = 0;
+    }
+  }
+
+  /**
+   * Checks whether the line starting at the given position of the part buffer is a delimiter line.
+   * @return 0 for content, 1 for a delimiter, and 2 for the close delimiter
+   */
+  private int getDelimiterType(final int lineStart) {
+    if (partEnd - lineStart < delimiter.length) {
+      return 0;
+    }
+    for (int i = 0; i < delimiter.length; i++) {
+      if (part[lineStart + i] != delimiter[i]) {
+        return 0;
+      }
+    }
+    int index = lineStart + delimiter.length;
+    int type = 1;
+    if (index + 1 < partEnd && part[index] == '-' && part[index + 1] == '-') {
+      index += 2;
+      type = 2;
+    }
+    for (; index < partEnd; index++) {
+      if (!isWhitespace(part[index])) {
+        return 0;
+      }
+    }
+    return type;
+  }
+
+  private static boolean isWhitespace(final byte b) {
+    return b == ' ' || b == '\t' || b == LF || b == 0x0B || b == '\f' || b == CR;
+  }
+
+  /**
+   * Appends the next line including its line terminator to the part buffer.
+   * @return <code>false</code> if the end of the stream has been reached before
+   */
+  private boolean readLine() throws IOException {
+    if (in == null) {
+      return skipLine();
+    }
+    boolean isEmpty = true;
+    while (true) {
+      if (readOffset >= readLimit && fillBuffer() == EOF) {
+        break;
+      }
+      final byte current = readBuffer[readOffset++];
+      append(current);
+      isEmpty = false;
+      if (current == LF) {
+        break;
+      } else if (current == CR) {
+        if (readOffset >= readLimit) {
+          fillBuffer();
+        }
+        if (readLimit != EOF && readBuffer[readOffset] == LF) {
+          append(LF);
+          readOffset++;
+        }
+        break;
+      }
+    }
+    if (!isEmpty) {
+      lineNumber++;
+    }
+    return !isEmpty;
+  }
+
+  /**
+   * Moves the end of the part behind the next line of the message in memory.
+   * @return <code>false</code> if the end of the message has been reached before
+   */
+  private boolean skipLine() {
+    if (partEnd >= partLimit) {
+      return false;
+    }
+    while (partEnd < partLimit) {
+      final byte current = part[partEnd++];
+      if (current == LF) {
+        break;
+      } else if (current == CR) {
+        if (partEnd < partLimit && part[partEnd] == LF) {
+          partEnd++;
+        }
+        break;
+      }
+    }
+    lineNumber++;
+    return true;
+  }
+
+  private void append(final byte b) {
+    if (partEnd == part.length) {
+      part = Arrays.copyOf(part, part.length * 2);
+    }
+    part[partEnd++] = b;
+  }
+
+  private int fillBuffer() throws IOException {
+    readLimit = in.read(readBuffer, 0, readBuffer.length);
+    readOffset = 0;
+    return readLimit;
+  }
+}
@@ -20,7 +20,6 @@ package org.apache.olingo.server.core.deserializer.batch;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -105,8 +104,7 @@ public class BatchRequestTransformator {
     BatchTransformatorCommon.validateHost(operation.getHeaders(), baseUri);
 
     validateBody(statusLine, operation);
-    Charset charset = getCharset(operation);
-    InputStream bodyStream = getBodyStream(operation, statusLine, charset);
+    InputStream bodyStream = getBodyStream(operation, statusLine);
 
     validateForbiddenHeader(operation);
 
@@ -126,21 +124,6 @@ public class BatchRequestTransformator {
     return request;
   }
 
-  private Charset getCharset(final BatchQueryOperation operation) {
-    final ContentType contentType = ContentType.parse(operation.getHeaders().getHeader(HttpHeader.CONTENT_TYPE));
-    if (contentType != null) {
-      final String charsetValue = contentType.getParameter(ContentType.PARAMETER_CHARSET);
-      if (charsetValue == null) {
-        if (contentType.isCompatible(ContentType.APPLICATION_JSON) || contentType.getSubtype().contains("xml")) {
-          return Charset.forName("UTF-8");
-        }
-      } else {
-        return Charset.forName(charsetValue);
-      }
-    }
-    return Charset.forName("ISO-8859-1");
-  }
-
   private void validateForbiddenHeader(final BatchQueryOperation operation) throws BatchDeserializerException {
     final Header header = operation.getHeaders();
 
@@ -152,17 +135,19 @@ public class BatchRequestTransformator {
     }
   }
 
-  private InputStream getBodyStream(final BatchQueryOperation operation, final HttpRequestStatusLine statusLine,
-      final Charset charset) throws BatchDeserializerException {
+  private InputStream getBodyStream(final BatchQueryOperation operation, final HttpRequestStatusLine statusLine)
+      throws BatchDeserializerException {
     if (statusLine.getMethod().equals(HttpMethod.GET)) {
       return new ByteArrayInputStream(new byte[0]);
     } else {
+      // The body is passed on as it has been received, without decoding and re-encoding;
+      // the content length is the number of bytes.
       int contentLength = BatchTransformatorCommon.getContentLength(operation.getHeaders());
 
       if (contentLength == -1) {
-        return BatchParserCommon.convertLineListToInputStream(operation.getBody(), charset);
+        return operation.getBody().getRemainingContent();
       } else {
-        return BatchParserCommon.convertLineListToInputStream(operation.getBody(), charset, contentLength);
+        return operation.getBody().getRemainingContent(contentLength);
       }
     }
   }
@@ -176,8 +161,7 @@ public class BatchRequestTransformator {
   }
 
   private boolean isInvalidGetRequestBody(final BatchQueryOperation operation) {
-    return operation.getBody().size() > 1
-        || operation.getBody().size() == 1 && !operation.getBody().get(0).toString().trim().isEmpty();
+    return !operation.getBody().isBlank();
   }
 
   private void validateHeaders(final Header headers, final boolean isChangeSet) throws BatchDeserializerException {
@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.core.serializer.json.JsonSerializerSupport;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Parser for batch requests in JSON format as defined in OData JSON Format Version 4.01.
+ * <p>The request is read with a streaming parser; JSON bodies are copied token by token
+ * into the body of the corresponding {@link ODataRequest}.
+ * Adjacent requests with the same atomicity group are combined into one change-set part;
+ * the id of each request is passed on as its Content-ID header.</p>
+ */
+public class JsonBatchParser {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String REQUESTS = "requests";
+  private static final String ID = "id";
+  private static final String METHOD = "method";
+  private static final String URL = "url";
+  private static final String ATOMICITY_GROUP = "atomicityGroup";
+  private static final String DEPENDS_ON = "dependsOn";
+  private static final String HEADERS = "headers";
+  private static final String BODY = "body";
+  private static final String HTTP_VERSION = " HTTP/1.1";
+
+  private final JsonFactory jsonFactory;
+  private final Set<String> ids = new HashSet<>();
+  private final Set<String> groups = new HashSet<>();
+  private final List<BatchRequestPart> parts = new ArrayList<>();
+  private String currentGroup;
+  private List<ODataRequest> currentRequests;
+  private Set<String> currentDependsOn;
+  private Set<String> currentIds;
+
+  public JsonBatchParser() {
+    this(JsonSerializerSupport.getDefault());
+  }
+
+  public JsonBatchParser(final JsonSerializerSupport jsonSupport) {
+    jsonFactory = jsonSupport.getJsonFactory();
+  }
+
+  public List<BatchRequestPart> parseBatchRequest(final InputStream content, final BatchOptions options)
+      throws BatchDeserializerException {
+    JsonParser parser = null;
+    try {
+      parser = jsonFactory.createParser(content);
+      expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+      boolean hasRequests = false;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        final JsonToken token = parser.nextToken();
+        if (REQUESTS.equals(name)) {
+          expect(parser, token, JsonToken.START_ARRAY);
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            addRequest(parser, options);
+          }
+          expect(parser, parser.getCurrentToken(), JsonToken.END_ARRAY);
+          hasRequests = true;
+        } else {
+          parser.skipChildren();
+        }
+      }
+      expect(parser, parser.getCurrentToken(), JsonToken.END_OBJECT);
+      if (!hasRequests) {
+        throw new BatchDeserializerException("Missing requests", MessageKeys.MISSING_JSON_PROPERTY,
+            getLine(parser), REQUESTS);
+      }
+      finishPart();
+      return parts;
+    } catch (final JsonProcessingException e) {
+      throw new BatchDeserializerException("Invalid JSON", e, MessageKeys.INVALID_JSON,
+          e.getLocation() == null ? "0" : Integer.toString(e.getLocation().getLineNr()));
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    } finally {
+      if (parser != null) {
+        try {
+          parser.close();
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        }
+      }
+    }
+  }
+
+  private void addRequest(final JsonParser parser, final BatchOptions options)
+      throws IOException, BatchDeserializerException {
+    final String line = getLine(parser);
+    String id = null;
+    String method = null;
+    String url = null;
+    String atomicityGroup = null;
+    final Set<String> dependsOn = new LinkedHashSet<>();
+    final Map<String, String> headers = new LinkedHashMap<>();
+    byte[] jsonBody = null;
+    String textBody = null;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      final JsonToken token = parser.nextToken();
+      if (ID.equals(name)) {
+        id = getString(parser, token);
+      } else if (METHOD.equals(name)) {
+        method = getString(parser, token);
+      } else if (URL.equals(name)) {
+        url = getString(parser, token);
+      } else if (ATOMICITY_GROUP.equals(name)) {
+        atomicityGroup = getString(parser, token);
+      } else if (DEPENDS_ON.equals(name)) {
+        expect(parser, token, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          dependsOn.add(getString(parser, parser.getCurrentToken()));
+        }
+      } else if (HEADERS.equals(name)) {
+        expect(parser, token, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          final String headerName = parser.getCurrentName();
+          headers.put(headerName, getString(parser, parser.nextToken()));
+        }
+      } else if (BODY.equals(name)) {
+        if (token == JsonToken.VALUE_STRING) {
+          textBody = parser.getText();
+        } else {
+          jsonBody = copy(parser);
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    checkMandatory(id, ID, line);
+    checkMandatory(method, METHOD, line);
+    checkMandatory(url, URL, line);
+    if (!ids.add(id)) {
+      throw new BatchDeserializerException("Duplicate id", MessageKeys.DUPLICATE_REQUEST_ID, line, id);
+    }
+
+    if (atomicityGroup == null || !atomicityGroup.equals(currentGroup)) {
+      finishPart();
+      if (atomicityGroup != null && (!groups.add(atomicityGroup) || ids.contains(atomicityGroup))) {
+        throw new BatchDeserializerException("Atomicity group not adjacent", MessageKeys.INVALID_ATOMICITY_GROUP,
+            line, atomicityGroup);
+      }
+      currentGroup = atomicityGroup;
+    }
+    for (final String dependency : dependsOn) {
+      if (dependency.equals(id) || !ids.contains(dependency) && !groups.contains(dependency)
+          || dependency.equals(currentGroup)) {
+        throw new BatchDeserializerException("Invalid dependency", MessageKeys.INVALID_DEPENDENCY,
+            line, dependency);
+      }
+      if (!currentIds.contains(dependency)) {
+        currentDependsOn.add(dependency);
+      }
+    }
+    currentIds.add(id);
+
+    final HttpRequestStatusLine statusLine = new HttpRequestStatusLine(
+        new Line(method.toUpperCase(Locale.ROOT) + " " + url + HTTP_VERSION, Integer.parseInt(line)),
+        options.getRawBaseUri(), options.getRawServiceResolutionUri());
+    statusLine.validateHttpMethod(atomicityGroup != null);
+    currentRequests.add(createRequest(statusLine, id, headers, jsonBody, textBody));
+  }
+
+  private ODataRequest createRequest(final HttpRequestStatusLine statusLine, final String id,
+      final Map<String, String> headers, final byte[] jsonBody, final String textBody) {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(statusLine.getMethod());
+    request.setRawBaseUri(statusLine.getRawBaseUri());
+    request.setRawODataPath(statusLine.getRawODataPath());
+    request.setRawQueryPath(statusLine.getRawQueryPath());
+    request.setRawRequestUri(statusLine.getRawRequestUri());
+    request.setRawServiceResolutionUri(statusLine.getRawServiceResolutionUri());
+
+    String contentType = null;
+    for (final Map.Entry<String, String> header : headers.entrySet()) {
+      if (HttpHeader.CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+        contentType = header.getValue();
+      }
+      request.addHeader(header.getKey(), Header.splitValuesByComma(header.getValue()));
+    }
+    request.setHeader(HttpHeader.CONTENT_ID, id);
+
+    byte[] body = getBody(contentType, jsonBody, textBody);
+    if (body.length > 0 && contentType == null) {
+      request.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    }
+    if (statusLine.getMethod() == HttpMethod.GET) {
+      body = new byte[0];
+    }
+    request.setBody(new ByteArrayInputStream(body));
+    return request;
+  }
+
+  /**
+   * Gets the request body as bytes: JSON values are used as they are, strings are
+   * the text of textual media types and base64url-encoded binary data otherwise.
+   */
+  private byte[] getBody(final String contentType, final byte[] jsonBody, final String textBody) {
+    if (jsonBody != null) {
+      return jsonBody;
+    } else if (textBody == null) {
+      return new byte[0];
+    }
+    final ContentType type = contentType == null ? null : ContentType.parse(contentType);
+    if (type == null || type.isCompatible(ContentType.APPLICATION_JSON)) {
+      return quote(textBody);
+    } else if (isText(type)) {
+      final String charset = type.getParameter(ContentType.PARAMETER_CHARSET);
+      return textBody.getBytes(charset == null ? UTF_8 : Charset.forName(charset));
+    } else {
+      return Base64.decodeBase64(textBody);
+    }
+  }
+
+  /** Returns whether a media type is represented as text in a JSON batch request or response. */
+  public static boolean isText(final ContentType type) {
+    return "text".equalsIgnoreCase(type.getType())
+        || type.getSubtype().toLowerCase(Locale.ROOT).contains("xml");
+  }
+
+  private void finishPart() {
+    if (currentRequests != null && !currentRequests.isEmpty()) {
+      parts.add(new JsonBatchRequestPart(currentGroup, currentRequests, currentDependsOn));
+    }
+    currentRequests = new ArrayList<>();
+    currentDependsOn = new LinkedHashSet<>();
+    currentIds = new HashSet<>();
+  }
+
+  private byte[] copy(final JsonParser parser) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final JsonGenerator generator = jsonFactory.createGenerator(output);
+    generator.copyCurrentStructure(parser);
+    generator.close();
+    return output.toByteArray();
+  }
+
+  private byte[] quote(final String value) {
+    try {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final JsonGenerator generator = jsonFactory.createGenerator(output);
+      generator.writeString(value);
+      generator.close();
+      return output.toByteArray();
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  private String getString(final JsonParser parser, final JsonToken token) throws BatchDeserializerException {
+    expect(parser, token, JsonToken.VALUE_STRING);
+    try {
+      return parser.getText();
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  private void checkMandatory(final String value, final String name, final String line)
+      throws BatchDeserializerException {
+    if (value == null) {
+      throw new BatchDeserializerException("Missing " + name, MessageKeys.MISSING_JSON_PROPERTY, line, name);
+    }
+  }
+
+  private void expect(final JsonParser parser, final JsonToken actual, final JsonToken expected)
+      throws BatchDeserializerException {
+    if (actual != expected) {
+      throw new BatchDeserializerException("Expected " + expected + " but found " + actual,
+          MessageKeys.INVALID_JSON, getLine(parser));
+    }
+  }
+
+  private String getLine(final JsonParser parser) {
+    return Integer.toString(parser.getCurrentLocation().getLineNr());
+  }
+}
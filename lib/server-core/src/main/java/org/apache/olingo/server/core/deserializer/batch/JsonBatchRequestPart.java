@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+
+/**
+ * Part of a batch request in JSON format: either a single request or the requests of an atomicity group,
+ * together with the ids of the requests and atomicity groups it depends on.
+ */
+public class JsonBatchRequestPart extends BatchRequestPart {
+  private final String atomicityGroup;
+  private final Set<String> dependsOn;
+
+  public JsonBatchRequestPart(final String atomicityGroup, final List<ODataRequest> requests,
+      final Set<String> dependsOn) {
+    super(atomicityGroup != null, requests);
+    this.atomicityGroup = atomicityGroup;
+    this.dependsOn = Collections.unmodifiableSet(dependsOn);
+  }
+
+  /** Gets the id of the atomicity group or <code>null</code> if the part is a single request. */
+  public String getAtomicityGroup() {
+    return atomicityGroup;
+  }
+
+  /** Gets the ids of the requests and atomicity groups outside of this part this part depends on. */
+  public Set<String> getDependsOn() {
+    return dependsOn;
+  }
+}
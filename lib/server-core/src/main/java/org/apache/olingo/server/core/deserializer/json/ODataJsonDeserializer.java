@@ -45,6 +45,7 @@ import org.apache.olingo.commons.api.data.DeletedEntity.Reason;
 import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Parameter;
 import org.apache.olingo.commons.api.data.Property;
@@ -89,6 +90,7 @@ import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -115,6 +117,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   private static final String ODATA_CONTROL_INFORMATION_PREFIX = "@odata.";
   private static final String REASON = "reason";
 
+  private final ContentType contentType;
   private final boolean isIEEE754Compatible;
   private ServiceMetadata serviceMetadata;
   private IConstants constants;
@@ -124,18 +127,21 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   public ODataJsonDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata) {
+    this.contentType = contentType;
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     this.serviceMetadata = serviceMetadata;
     this.constants = new Constantsv00();
   }
 
   public ODataJsonDeserializer(ContentType contentType, ServiceMetadata serviceMetadata, IConstants constants) {
+    this.contentType = contentType;
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     this.serviceMetadata = serviceMetadata;
     this.constants = constants;
   }
 
   public ODataJsonDeserializer(ContentType contentType, IConstants constants) {
+    this.contentType = contentType;
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     this.constants = constants;
   }
@@ -152,6 +158,17 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>The entities are read token by token with {@link ODataJsonStreamDeserializer}.</p>
+   */
+  @Override
+  public EntityIterator entityIterator(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    return new ODataJsonStreamDeserializer(contentType, serviceMetadata, constants)
+        .entityIterator(stream, edmEntityType);
+  }
+
   private EntityCollection consumeEntityCollectionNode(final EdmEntityType edmEntityType, final ObjectNode tree,
       final ExpandTreeBuilder expandBuilder) throws DeserializerException {
     EntityCollection entitySet = new EntityCollection();
@@ -246,44 +263,9 @@ public class ODataJsonDeserializer implements ODataDeserializer {
         JsonNode jsonNode = node.get(delta);
         EdmNavigationProperty edmNavigationProperty = edmEntityType.getNavigationProperty(navigationPropertyName);
         if (jsonNode != null && jsonNode.isArray() && edmNavigationProperty.isCollection()) {
-          checkNotNullOrValidNull(jsonNode, edmNavigationProperty);
-          Link link = new Link();
-          link.setType(Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
-          link.setTitle(navigationPropertyName);
-          Delta deltaValue = new Delta();
-          for (JsonNode arrayElement : jsonNode) {
-            String removed = Constants.AT + Constants.REMOVED;
-            if (arrayElement.get(removed) != null) {
-              //if @removed is present create a DeletedEntity Object
-              JsonNode reasonNode = arrayElement.get(removed);
-              DeletedEntity deletedEntity = new DeletedEntity();
-              Reason reason = null;
-              if (reasonNode.get(REASON) != null) {
-                if(reasonNode.get(REASON).asText().equals(Reason.changed.name())){
-                  reason = Reason.changed;
-                }else if(reasonNode.get(REASON).asText().equals(Reason.deleted.name())){
-                  reason = Reason.deleted;
-                }
-              }else{
-                throw new DeserializerException("DeletedEntity reason is null.",
-                    SerializerException.MessageKeys.MISSING_DELTA_PROPERTY, Constants.REASON);
-              }
-              deletedEntity.setReason(reason);
-              try {
-                deletedEntity.setId(new URI(arrayElement.get(constants.getId()).asText()));
-              } catch (URISyntaxException e) {
-                throw new DeserializerException("Could not set Id for deleted Entity", e,
-                    DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-              }
-              deltaValue.getDeletedEntities().add(deletedEntity);
-            } else {
-              //For @id and properties create normal entity
-              Entity inlineEntity = consumeEntityNode(edmEntityType, (ObjectNode) arrayElement, expandBuilder);
-              deltaValue.getEntities().add(inlineEntity);
-            }
-          }
-          link.setInlineEntitySet(deltaValue);
-          entity.getNavigationLinks().add(link);
+          checkNotNullOrValidNull(jsonNode.isNull(), edmNavigationProperty);
+          entity.getNavigationLinks().add(
+              consumeDeltaLink(edmEntityType, navigationPropertyName, jsonNode, expandBuilder));
           node.remove(navigationPropertyName);
         }
       }
@@ -291,6 +273,51 @@ public class ODataJsonDeserializer implements ODataDeserializer {
 
   }
 
+  /**
+   * Consumes the delta array of an expanded navigation property (v4.01).
+   * The entities in the array are read with the given entity type.
+   */
+  Link consumeDeltaLink(final EdmEntityType edmEntityType, final String navigationPropertyName,
+      final JsonNode jsonNode, final ExpandTreeBuilder expandBuilder) throws DeserializerException {
+    Link link = new Link();
+    link.setType(Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
+    link.setTitle(navigationPropertyName);
+    Delta deltaValue = new Delta();
+    for (JsonNode arrayElement : jsonNode) {
+      String removed = Constants.AT + Constants.REMOVED;
+      if (arrayElement.get(removed) != null) {
+        //if @removed is present create a DeletedEntity Object
+        JsonNode reasonNode = arrayElement.get(removed);
+        DeletedEntity deletedEntity = new DeletedEntity();
+        Reason reason = null;
+        if (reasonNode.get(REASON) != null) {
+          if(reasonNode.get(REASON).asText().equals(Reason.changed.name())){
+            reason = Reason.changed;
+          }else if(reasonNode.get(REASON).asText().equals(Reason.deleted.name())){
+            reason = Reason.deleted;
+          }
+        }else{
+          throw new DeserializerException("DeletedEntity reason is null.",
+              SerializerException.MessageKeys.MISSING_DELTA_PROPERTY, Constants.REASON);
+        }
+        deletedEntity.setReason(reason);
+        try {
+          deletedEntity.setId(new URI(arrayElement.get(constants.getId()).asText()));
+        } catch (URISyntaxException e) {
+          throw new DeserializerException("Could not set Id for deleted Entity", e,
+              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+        }
+        deltaValue.getDeletedEntities().add(deletedEntity);
+      } else {
+        //For @id and properties create normal entity
+        Entity inlineEntity = consumeEntityNode(edmEntityType, (ObjectNode) arrayElement, expandBuilder);
+        deltaValue.getEntities().add(inlineEntity);
+      }
+    }
+    link.setInlineEntitySet(deltaValue);
+    return link;
+  }
+
   private void consumeId(ObjectNode node, Entity entity) 
       throws DeserializerException {
     if (node.get(constants.getId()) != null && constants instanceof Constantsv01) {
@@ -488,7 +515,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       JsonNode jsonNode = node.get(navigationPropertyName);
       if (jsonNode != null) {
         EdmNavigationProperty edmNavigationProperty = edmEntityType.getNavigationProperty(navigationPropertyName);
-        checkNotNullOrValidNull(jsonNode, edmNavigationProperty);
+        checkNotNullOrValidNull(jsonNode.isNull(), edmNavigationProperty);
 
         Link link = createLink(expandBuilder, navigationPropertyName, jsonNode, edmNavigationProperty);
         entity.getNavigationLinks().add(link);
@@ -498,22 +525,22 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   /**
-   * Check if jsonNode is not null or if null but nullable or collection navigationProperty
+   * Check if json value is not null or if null but nullable or collection navigationProperty
    *
-   * @param jsonNode related json node
+   * @param isNull whether the related json value is null
    * @param edmNavigationProperty related navigation property
-   * @throws DeserializerException if jsonNode is not null or if null but nullable or collection navigationProperty
+   * @throws DeserializerException if json value is not null or if null but nullable or collection navigationProperty
    */
-  private void checkNotNullOrValidNull(final JsonNode jsonNode,
+  void checkNotNullOrValidNull(final boolean isNull,
       final EdmNavigationProperty edmNavigationProperty) throws DeserializerException {
     boolean isNullable = edmNavigationProperty.isNullable();
-    if ((jsonNode.isNull() && !isNullable) || (jsonNode.isNull() && edmNavigationProperty.isCollection())) {
+    if ((isNull && !isNullable) || (isNull && edmNavigationProperty.isCollection())) {
       throw new DeserializerException("Property: " + edmNavigationProperty.getName() + " must not be null.",
           MessageKeys.INVALID_NULL_PROPERTY, edmNavigationProperty.getName());
     }
   }
 
-  private Link createLink(final ExpandTreeBuilder expandBuilder, final String navigationPropertyName,
+  Link createLink(final ExpandTreeBuilder expandBuilder, final String navigationPropertyName,
       final JsonNode jsonNode,
       final EdmNavigationProperty edmNavigationProperty) throws DeserializerException {
     Link link = new Link();
@@ -543,7 +570,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     return link;
   }
   
-  private Link consumeBindingLink(final String key, final JsonNode jsonNode, final EdmEntityType edmEntityType)
+  Link consumeBindingLink(final String key, final JsonNode jsonNode, final EdmEntityType edmEntityType)
       throws DeserializerException {
     String[] splitKey = key.split(ODATA_ANNOTATION_MARKER);
     String navigationPropertyName = splitKey[0];
@@ -595,7 +622,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
-  private Property consumePropertyNode(final String name, final EdmType type, final boolean isCollection,
+  Property consumePropertyNode(final String name, final EdmType type, final boolean isCollection,
       final boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final boolean isUnicode, final EdmMapping mapping, final JsonNode jsonNode) throws DeserializerException {
     Property property = new Property();
@@ -693,7 +720,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
 
   private ComplexValue readComplexValue(final String name, final EdmType type,
       final boolean isNullable, final JsonNode jsonNode) throws DeserializerException {
-    if (isValidNull(name, isNullable, jsonNode)) {
+    if (isValidNull(name, isNullable, jsonNode.asToken())) {
       return null;
     }
     if (jsonNode.isArray() || !jsonNode.isContainerNode()) {
@@ -733,21 +760,55 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   private Object readPrimitiveValue(final String name, final EdmPrimitiveType type,
       final boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final boolean isUnicode, final EdmMapping mapping, final JsonNode jsonNode) throws DeserializerException {
-    if (isValidNull(name, isNullable, jsonNode)) {
+    if (isValidNull(name, isNullable, jsonNode.asToken())) {
       return null;
     }
-    final boolean isGeoType = type.getName().startsWith("Geo");
-    if (!isGeoType) {
-      checkForValueNode(name, jsonNode);
+    checkPrimitiveValueType(name, type, jsonNode.asToken());
+    return isGeoType(type) ?
+        readGeoValue(name, type, (ObjectNode) jsonNode) :
+        convertPrimitiveValue(name, type, isNullable, maxLength, precision, scale, isUnicode, mapping,
+            jsonNode.asText());
+  }
+
+  boolean isGeoType(final EdmPrimitiveType type) {
+    return type.getName().startsWith("Geo");
+  }
+
+  /**
+   * Checks that the JSON type of a primitive value which is not <code>null</code> fits to its EDM type.
+   * @param name property name
+   * @param type EDM type of the value
+   * @param token JSON token of the value
+   */
+  void checkPrimitiveValueType(final String name, final EdmPrimitiveType type, final JsonToken token)
+      throws DeserializerException {
+    if (!isGeoType(type)) {
+      checkForValueNode(name, token);
     }
-    checkJsonTypeBasedOnPrimitiveType(name, type, jsonNode);
+    checkJsonTypeBasedOnPrimitiveType(name, type, token);
+  }
+
+  /**
+   * Converts the text of a JSON value into the Java value for the EDM type.
+   */
+  Object convertPrimitiveValue(final String name, final EdmPrimitiveType type,
+      final boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
+      final boolean isUnicode, final EdmMapping mapping, final String text) throws DeserializerException {
     try {
-      if (isGeoType) {
-        return readPrimitiveGeoValue(name, type, (ObjectNode) jsonNode);
-      }
-      return type.valueOfString(jsonNode.asText(),
+      return type.valueOfString(text,
           isNullable, maxLength, precision, scale, isUnicode,
           getJavaClassForPrimitiveType(mapping, type));
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new DeserializerException(
+          "Invalid value: " + text + " for property: " + name, e,
+          DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, name);
+    }
+  }
+
+  Geospatial readGeoValue(final String name, final EdmPrimitiveType type, final ObjectNode jsonNode)
+      throws DeserializerException {
+    try {
+      return readPrimitiveGeoValue(name, type, jsonNode);
     } catch (final EdmPrimitiveTypeException e) {
       throw new DeserializerException(
           "Invalid value: " + jsonNode.asText() + " for property: " + name, e,
@@ -755,9 +816,9 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
-  private boolean isValidNull(final String name, final boolean isNullable, final JsonNode jsonNode)
+  boolean isValidNull(final String name, final boolean isNullable, final JsonToken token)
       throws DeserializerException {
-    if (jsonNode.isNull()) {
+    if (token == JsonToken.VALUE_NULL) {
       if (isNullable) {
         return true;
       } else {
@@ -913,14 +974,14 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   /**
-   * Check if JsonNode is a value node (<code>jsonNode.isValueNode()</code>) and if not throw
+   * Check if a JSON token starts a value (and not an object or array) and if not throw
    * an DeserializerException.
    * @param name name of property which is checked
-   * @param jsonNode node which is checked
-   * @throws DeserializerException is thrown if json node is not a value node
+   * @param token token which is checked
+   * @throws DeserializerException is thrown if the token does not start a value
    */
-  private void checkForValueNode(final String name, final JsonNode jsonNode) throws DeserializerException {
-    if (!jsonNode.isValueNode()) {
+  private void checkForValueNode(final String name, final JsonToken token) throws DeserializerException {
+    if (token.isStructStart()) {
       throw new DeserializerException("Invalid value for property: " + name + " must not be an object or array.",
           DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
     }
@@ -931,23 +992,35 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     Iterator<Entry<String, JsonNode>> fieldsIterator = tree.fields();
     while (fieldsIterator.hasNext()) {
       Map.Entry<String, JsonNode> field = fieldsIterator.next();
-
-      if (field.getKey().contains(ODATA_CONTROL_INFORMATION_PREFIX)) {
-        // Control Information is ignored for requests as per specification chapter "4.5 Control Information"
+      if (isIgnoredAnnotation(field.getKey())) {
         toRemove.add(field.getKey());
-      } else if (field.getKey().contains(ODATA_ANNOTATION_MARKER)) {
-        if(constants instanceof Constantsv01){
-          toRemove.add(field.getKey());
-        }else{
-          throw new DeserializerException("Custom annotation with field name: " + field.getKey() + " not supported",
-            DeserializerException.MessageKeys.NOT_IMPLEMENTED);
-        }
       }
     }
     // remove here to avoid iterator issues.
     tree.remove(toRemove);
   }
 
+  /**
+   * Checks whether a field is control information or an annotation which is ignored.
+   * @param fieldName name of the field
+   * @return <code>true</code> if the field is ignored, <code>false</code> if it is no annotation
+   * @throws DeserializerException if the field is a custom annotation which is not supported
+   */
+  boolean isIgnoredAnnotation(final String fieldName) throws DeserializerException {
+    if (fieldName.contains(ODATA_CONTROL_INFORMATION_PREFIX)) {
+      // Control Information is ignored for requests as per specification chapter "4.5 Control Information"
+      return true;
+    } else if (fieldName.contains(ODATA_ANNOTATION_MARKER)) {
+      if(constants instanceof Constantsv01){
+        return true;
+      }else{
+        throw new DeserializerException("Custom annotation with field name: " + fieldName + " not supported",
+          DeserializerException.MessageKeys.NOT_IMPLEMENTED);
+      }
+    }
+    return false;
+  }
+
   /**
    * Validates that node is empty (<code>node.size() == 0</code>).
    * @param node node to be checked
@@ -962,14 +1035,14 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   private void checkJsonTypeBasedOnPrimitiveType(final String propertyName, final EdmPrimitiveType edmPrimitiveType,
-      final JsonNode jsonNode) throws DeserializerException {
+      final JsonToken token) throws DeserializerException {
     boolean valid = true;
     if (edmPrimitiveType.getKind() == EdmTypeKind.DEFINITION) {
       checkJsonTypeBasedOnPrimitiveType(propertyName,
-          ((EdmTypeDefinition) edmPrimitiveType).getUnderlyingType(), jsonNode);
+          ((EdmTypeDefinition) edmPrimitiveType).getUnderlyingType(), token);
     } else if (edmPrimitiveType.getKind() == EdmTypeKind.ENUM) {
       // Enum values must be strings.
-      valid = jsonNode.isTextual();
+      valid = token == JsonToken.VALUE_STRING;
     } else {
       final String name = edmPrimitiveType.getName();
       EdmPrimitiveTypeKind primKind;
@@ -979,30 +1052,30 @@ public class ODataJsonDeserializer implements ODataDeserializer {
         throw new DeserializerException("Unknown Primitive Type: " + name, e,
             DeserializerException.MessageKeys.UNKNOWN_PRIMITIVE_TYPE, name, propertyName);
       }
-      valid = matchTextualCase(jsonNode, primKind)
-          || matchNumberCase(jsonNode, primKind)
-          || matchBooleanCase(jsonNode, primKind)
-          || matchIEEENumberCase(jsonNode, primKind)
-          || jsonNode.isObject() && name.startsWith("Geo");
+      valid = matchTextualCase(token, primKind)
+          || matchNumberCase(token, primKind)
+          || matchBooleanCase(token, primKind)
+          || matchIEEENumberCase(token, primKind)
+          || token == JsonToken.START_OBJECT && name.startsWith("Geo");
     }
     if (!valid) {
       throw new DeserializerException(
-          "Invalid json type: " + jsonNode.getNodeType() + " for " + edmPrimitiveType + " property: " + propertyName,
+          "Invalid json type: " + token + " for " + edmPrimitiveType + " property: " + propertyName,
           DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY, propertyName);
     }
   }
 
-  private boolean matchIEEENumberCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return (isIEEE754Compatible ? node.isTextual() : node.isNumber())
+  private boolean matchIEEENumberCase(final JsonToken token, final EdmPrimitiveTypeKind primKind) {
+    return (isIEEE754Compatible ? token == JsonToken.VALUE_STRING : token.isNumeric())
         && (primKind == EdmPrimitiveTypeKind.Int64 || primKind == EdmPrimitiveTypeKind.Decimal);
   }
 
-  private boolean matchBooleanCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return node.isBoolean() && primKind == EdmPrimitiveTypeKind.Boolean;
+  private boolean matchBooleanCase(final JsonToken token, final EdmPrimitiveTypeKind primKind) {
+    return token.isBoolean() && primKind == EdmPrimitiveTypeKind.Boolean;
   }
 
-  private boolean matchNumberCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return node.isNumber() &&
+  private boolean matchNumberCase(final JsonToken token, final EdmPrimitiveTypeKind primKind) {
+    return token.isNumeric() &&
         (primKind == EdmPrimitiveTypeKind.Int16
             || primKind == EdmPrimitiveTypeKind.Int32
             || primKind == EdmPrimitiveTypeKind.Byte
@@ -1011,8 +1084,8 @@ public class ODataJsonDeserializer implements ODataDeserializer {
             || primKind == EdmPrimitiveTypeKind.Double);
   }
 
-  private boolean matchTextualCase(final JsonNode node, final EdmPrimitiveTypeKind primKind) {
-    return node.isTextual() &&
+  private boolean matchTextualCase(final JsonToken token, final EdmPrimitiveTypeKind primKind) {
+    return token == JsonToken.VALUE_STRING &&
         (primKind == EdmPrimitiveTypeKind.String
             || primKind == EdmPrimitiveTypeKind.Binary
             || primKind == EdmPrimitiveTypeKind.Date
@@ -1087,7 +1160,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
-  private DeserializerException wrapParseException(final IOException e) {
+  DeserializerException wrapParseException(final IOException e) {
     if (e instanceof JsonParseException) {
       return new DeserializerException("A JsonParseException occurred.", e,
           DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
@@ -1103,31 +1176,39 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   private EdmType getDerivedType(final EdmStructuredType edmType, final JsonNode jsonNode)
       throws DeserializerException {
     JsonNode odataTypeNode = jsonNode.get(constants.getType());
-    if (odataTypeNode != null) {
-      String odataType = odataTypeNode.asText();
-      if (!odataType.isEmpty()) {
-        odataType = odataType.substring(1);
-
-        if (odataType.equalsIgnoreCase(edmType.getFullQualifiedName().getFullQualifiedNameAsString())) {
-          return edmType;
-        } else if (this.serviceMetadata == null) {
-          throw new DeserializerException(
-              "Failed to resolve Odata type " + odataType + " due to metadata is not available",
-              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-        }
+    return odataTypeNode == null ? edmType : getDerivedType(edmType, odataTypeNode.asText());
+  }
 
-        final EdmStructuredType currentEdmType = edmType.getKind() == EdmTypeKind.ENTITY ?
-            serviceMetadata.getEdm().getEntityType(new FullQualifiedName(odataType)) :
-            serviceMetadata.getEdm().getComplexType(new FullQualifiedName(odataType));
-        if (!isAssignable(edmType, currentEdmType)) {
-          throw new DeserializerException("Odata type " + odataType + " not allowed here",
-              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-        }
+  /**
+   * Gets the type given by the value of the type control information.
+   * @param edmType the declared type
+   * @param typeInformation the value of the type control information
+   * @return the declared type or a type derived from it
+   */
+  EdmStructuredType getDerivedType(final EdmStructuredType edmType, final String typeInformation)
+      throws DeserializerException {
+    if (typeInformation.isEmpty()) {
+      return edmType;
+    }
+    final String odataType = typeInformation.substring(1);
 
-        return currentEdmType;
-      }
+    if (odataType.equalsIgnoreCase(edmType.getFullQualifiedName().getFullQualifiedNameAsString())) {
+      return edmType;
+    } else if (this.serviceMetadata == null) {
+      throw new DeserializerException(
+          "Failed to resolve Odata type " + odataType + " due to metadata is not available",
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT);
     }
-    return edmType;
+
+    final EdmStructuredType currentEdmType = edmType.getKind() == EdmTypeKind.ENTITY ?
+        serviceMetadata.getEdm().getEntityType(new FullQualifiedName(odataType)) :
+        serviceMetadata.getEdm().getComplexType(new FullQualifiedName(odataType));
+    if (!isAssignable(edmType, currentEdmType)) {
+      throw new DeserializerException("Odata type " + odataType + " not allowed here",
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    }
+
+    return currentEdmType;
   }
 
   private boolean isAssignable(final EdmStructuredType edmStructuredType,
@@ -0,0 +1,577 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.IConstants;
+import org.apache.olingo.commons.api.constants.Constantsv00;
+import org.apache.olingo.commons.api.constants.Constantsv01;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmElement;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmMapping;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
+import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilder;
+import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilderImpl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * JSON deserializer which reads entities and entity collections token by token from a {@link JsonParser}
+ * instead of building a tree of the whole payload first.
+ * With {@link #entityIterator(InputStream, EdmEntityType)}, the entities of a collection are read
+ * only while iterating over them.
+ * <p>The validation is the same as in {@link ODataJsonDeserializer}; problems are reported in the order
+ * in which they occur in the payload. Small values with a more complex structure (geospatial values,
+ * entity-binding annotations, and v4.01 delta arrays) are read as trees, as are fields which appear
+ * before a type annotation and are unknown for the declared type.
+ * All other kinds of payload are read by {@link ODataJsonDeserializer}.</p>
+ */
+public class ODataJsonStreamDeserializer extends ODataJsonDeserializer {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true)
+      .configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+
+  private final IConstants constants;
+
+  public ODataJsonStreamDeserializer(final ContentType contentType) {
+    this(contentType, null, new Constantsv00());
+  }
+
+  public ODataJsonStreamDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata) {
+    this(contentType, serviceMetadata, new Constantsv00());
+  }
+
+  public ODataJsonStreamDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata,
+      final IConstants constants) {
+    super(contentType, serviceMetadata, constants);
+    this.constants = constants;
+  }
+
+  public ODataJsonStreamDeserializer(final ContentType contentType, final IConstants constants) {
+    super(contentType, constants);
+    this.constants = constants;
+  }
+
+  @Override
+  public DeserializerResult entityCollection(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    final JsonEntityIterator iterator = new JsonEntityIterator(stream, edmEntityType);
+    final EntityCollection entityCollection = new EntityCollection();
+    Entity entity;
+    while ((entity = iterator.readNext()) != null) {
+      entityCollection.getEntities().add(entity);
+    }
+    return DeserializerResultImpl.with().entityCollection(entityCollection).build();
+  }
+
+  @Override
+  public EntityIterator entityIterator(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    return new JsonEntityIterator(stream, edmEntityType);
+  }
+
+  @Override
+  public DeserializerResult entity(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    try {
+      final JsonParser parser = createParser(stream);
+      final ExpandTreeBuilder expandBuilder = ExpandTreeBuilderImpl.create();
+      final Entity entity = readEntity(parser, edmEntityType, expandBuilder);
+      return DeserializerResultImpl.with().entity(entity)
+          .expandOption(expandBuilder.build())
+          .build();
+    } catch (final IOException e) {
+      throw wrapParseException(e);
+    }
+  }
+
+  private JsonParser createParser(final InputStream stream) throws IOException, DeserializerException {
+    final JsonParser parser = MAPPER.getFactory().createParser(stream);
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new DeserializerException("Invalid JSON syntax.",
+          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    }
+    return parser;
+  }
+
+  /** Reads the entities of an array; the current token must be the start of the array. */
+  private void readEntities(final JsonParser parser, final EdmEntityType edmEntityType,
+      final ExpandTreeBuilder expandBuilder, final List<Entity> entities)
+      throws IOException, DeserializerException {
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+        throw new DeserializerException("Nested Arrays and primitive values are not allowed for an entity value.",
+            DeserializerException.MessageKeys.INVALID_ENTITY);
+      }
+      entities.add(readEntity(parser, edmEntityType, expandBuilder));
+    }
+  }
+
+  /** Reads an entity; the current token must be the start of the entity object. */
+  private Entity readEntity(final JsonParser parser, final EdmEntityType declaredType,
+      final ExpandTreeBuilder expandBuilder) throws IOException, DeserializerException {
+    final Entity entity = new Entity();
+    final StructuredFields fields = new StructuredFields(declaredType);
+    final Map<String, Link> navigationLinks = new HashMap<>();
+    final Map<String, JsonNode> deltas = new HashMap<>();
+    final Map<String, JsonNode> bindings = new LinkedHashMap<>();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      fields.checkDuplicate(name);
+      final JsonToken token = parser.nextToken();
+      final EdmEntityType edmEntityType = (EdmEntityType) fields.type;
+      final EdmNavigationProperty navigationProperty = edmEntityType.getNavigationProperty(name);
+      if (fields.readTypeOrProperty(parser, name)) {
+        continue;
+      } else if (navigationProperty != null) {
+        checkNotNullOrValidNull(token == JsonToken.VALUE_NULL, navigationProperty);
+        navigationLinks.put(name, readLink(parser, navigationProperty, expandBuilder));
+      } else if (constants instanceof Constantsv01 && name.equals(constants.getId())) {
+        entity.setId(readId(parser));
+      } else if (name.contains(constants.getBind())) {
+        bindings.put(name, (JsonNode) parser.readValueAsTree());
+      } else if (constants instanceof Constantsv01
+          && name.endsWith(Constants.AT + Constants.DELTAVALUE) && token == JsonToken.START_ARRAY) {
+        deltas.put(name, (JsonNode) parser.readValueAsTree());
+      } else {
+        fields.readOther(parser, name);
+      }
+    }
+
+    final EdmEntityType edmEntityType = (EdmEntityType) fields.type;
+    entity.setType(edmEntityType.getFullQualifiedName().getFullQualifiedNameAsString());
+    entity.getProperties().addAll(fields.getProperties());
+    for (final Map.Entry<String, JsonNode> deferredField : fields.deferredFields.entrySet()) {
+      final EdmNavigationProperty navigationProperty = edmEntityType.getNavigationProperty(deferredField.getKey());
+      if (navigationProperty != null) {
+        checkNotNullOrValidNull(deferredField.getValue().isNull(), navigationProperty);
+        navigationLinks.put(deferredField.getKey(),
+            createLink(expandBuilder, deferredField.getKey(), deferredField.getValue(), navigationProperty));
+      }
+    }
+    for (final String navigationPropertyName : edmEntityType.getNavigationPropertyNames()) {
+      if (navigationLinks.containsKey(navigationPropertyName)) {
+        entity.getNavigationLinks().add(navigationLinks.get(navigationPropertyName));
+      }
+    }
+    for (final String navigationPropertyName : edmEntityType.getNavigationPropertyNames()) {
+      final JsonNode delta = deltas.get(navigationPropertyName + Constants.AT + Constants.DELTAVALUE);
+      if (delta != null && edmEntityType.getNavigationProperty(navigationPropertyName).isCollection()) {
+        entity.getNavigationLinks().add(
+            consumeDeltaLink(edmEntityType, navigationPropertyName, delta, expandBuilder));
+      }
+    }
+    for (final Map.Entry<String, JsonNode> binding : bindings.entrySet()) {
+      entity.getNavigationBindings().add(consumeBindingLink(binding.getKey(), binding.getValue(), edmEntityType));
+    }
+    for (final String deferredField : fields.deferredFields.keySet()) {
+      if (edmEntityType.getNavigationProperty(deferredField) == null) {
+        checkUnknownField(deferredField);
+      }
+    }
+    checkUnknownField(fields.unknownField);
+    return entity;
+  }
+
+  private URI readId(final JsonParser parser) throws IOException, DeserializerException {
+    try {
+      return new URI(parser.getValueAsString());
+    } catch (final URISyntaxException e) {
+      throw new DeserializerException("Could not form Id", e,
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    }
+  }
+
+  private Link readLink(final JsonParser parser, final EdmNavigationProperty edmNavigationProperty,
+      final ExpandTreeBuilder expandBuilder) throws IOException, DeserializerException {
+    final String navigationPropertyName = edmNavigationProperty.getName();
+    Link link = new Link();
+    link.setTitle(navigationPropertyName);
+    final ExpandTreeBuilder childExpandBuilder = (expandBuilder != null) ? expandBuilder.expand(edmNavigationProperty)
+        : null;
+    final JsonToken token = parser.getCurrentToken();
+    if (token == JsonToken.START_ARRAY && edmNavigationProperty.isCollection()) {
+      link.setType(Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
+      EntityCollection inlineEntitySet = new EntityCollection();
+      readEntities(parser, edmNavigationProperty.getType(), childExpandBuilder, inlineEntitySet.getEntities());
+      link.setInlineEntitySet(inlineEntitySet);
+    } else if ((token == JsonToken.START_OBJECT || token == JsonToken.VALUE_NULL)
+        && !edmNavigationProperty.isCollection()) {
+      link.setType(Constants.ENTITY_NAVIGATION_LINK_TYPE);
+      if (token == JsonToken.START_OBJECT) {
+        link.setInlineEntity(readEntity(parser, edmNavigationProperty.getType(), childExpandBuilder));
+      }
+    } else {
+      throw new DeserializerException("Invalid value: " + token
+          + " for expanded navigation property: " + navigationPropertyName,
+          DeserializerException.MessageKeys.INVALID_VALUE_FOR_NAVIGATION_PROPERTY, navigationPropertyName);
+    }
+    return link;
+  }
+
+  private Property readProperty(final JsonParser parser, final EdmProperty edmProperty)
+      throws IOException, DeserializerException {
+    final String name = edmProperty.getName();
+    if (parser.getCurrentToken() == JsonToken.VALUE_NULL && !edmProperty.isNullable()) {
+      throw new DeserializerException("Property: " + name + " must not be null.",
+          DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, name);
+    }
+    final EdmType type = edmProperty.getType();
+    Property property = new Property();
+    property.setName(name);
+    property.setType(type.getFullQualifiedName().getFullQualifiedNameAsString());
+    if (edmProperty.isCollection()) {
+      if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+        throw new DeserializerException("Value for property: " + name + " must be an array but is not.",
+            DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+      }
+      List<Object> values = new ArrayList<>();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        values.add(readValue(parser, edmProperty));
+      }
+      property.setValue(type.getKind() == EdmTypeKind.COMPLEX ? ValueType.COLLECTION_COMPLEX :
+          type.getKind() == EdmTypeKind.ENUM ? ValueType.COLLECTION_ENUM : ValueType.COLLECTION_PRIMITIVE,
+          values);
+    } else {
+      final Object value = readValue(parser, edmProperty);
+      if (type.getKind() == EdmTypeKind.COMPLEX) {
+        if (value != null) {
+          property.setType(((ComplexValue) value).getTypeName());
+        }
+        property.setValue(ValueType.COMPLEX, value);
+      } else {
+        property.setValue(type.getKind() == EdmTypeKind.ENUM ? ValueType.ENUM : ValueType.PRIMITIVE, value);
+      }
+    }
+    return property;
+  }
+
+  private Object readValue(final JsonParser parser, final EdmProperty edmProperty)
+      throws IOException, DeserializerException {
+    final String name = edmProperty.getName();
+    final EdmType type = edmProperty.getType();
+    switch (type.getKind()) {
+    case PRIMITIVE:
+    case DEFINITION:
+    case ENUM:
+      return readPrimitiveValue(parser, name, (EdmPrimitiveType) type, edmProperty.isNullable(),
+          edmProperty.getMaxLength(), edmProperty.getPrecision(), edmProperty.getScale(),
+          edmProperty.isUnicode(), edmProperty.getMapping());
+    case COMPLEX:
+      return readComplexValue(parser, name, (EdmComplexType) type, edmProperty.isNullable());
+    default:
+      throw new DeserializerException("Invalid Type Kind for a property found: " + type.getKind(),
+          DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+    }
+  }
+
+  private Object readPrimitiveValue(final JsonParser parser, final String name, final EdmPrimitiveType type,
+      final boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
+      final boolean isUnicode, final EdmMapping mapping) throws IOException, DeserializerException {
+    final JsonToken token = parser.getCurrentToken();
+    if (isValidNull(name, isNullable, token)) {
+      return null;
+    }
+    checkPrimitiveValueType(name, type, token);
+    if (isGeoType(type)) {
+      return readGeoValue(name, type, (ObjectNode) parser.readValueAsTree());
+    }
+    // Floating-point numbers are normalized the same way as in the tree,
+    // where they are read as BigDecimal values.
+    return convertPrimitiveValue(name, type, isNullable, maxLength, precision, scale, isUnicode, mapping,
+        token == JsonToken.VALUE_NUMBER_FLOAT ? parser.getDecimalValue().toString() : parser.getText());
+  }
+
+  private ComplexValue readComplexValue(final JsonParser parser, final String name,
+      final EdmComplexType declaredType, final boolean isNullable) throws IOException, DeserializerException {
+    final JsonToken token = parser.getCurrentToken();
+    if (isValidNull(name, isNullable, token)) {
+      return null;
+    }
+    if (token != JsonToken.START_OBJECT) {
+      throw new DeserializerException(
+          "Invalid value for property: " + name + " must not be an array or primitive value.",
+          DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
+    }
+    final StructuredFields fields = new StructuredFields(declaredType);
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      fields.checkDuplicate(fieldName);
+      parser.nextToken();
+      if (!fields.readTypeOrProperty(parser, fieldName)) {
+        fields.readOther(parser, fieldName);
+      }
+    }
+    ComplexValue complexValue = new ComplexValue();
+    complexValue.getValue().addAll(fields.getProperties());
+    complexValue.setTypeName(fields.type.getFullQualifiedName().getFullQualifiedNameAsString());
+    for (final String deferredField : fields.deferredFields.keySet()) {
+      checkUnknownField(deferredField);
+    }
+    checkUnknownField(fields.unknownField);
+    return complexValue;
+  }
+
+  private void checkDuplicate(final Set<String> fieldNames, final String name) throws DeserializerException {
+    if (!fieldNames.add(name)) {
+      throw new DeserializerException("Duplicate json property detected: " + name,
+          DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    }
+  }
+
+  private void checkUnknownField(final String unknownField) throws DeserializerException {
+    if (unknownField != null) {
+      throw new DeserializerException("Tree should be empty but still has content left: " + unknownField,
+          DeserializerException.MessageKeys.UNKNOWN_CONTENT, unknownField);
+    }
+  }
+
+  /**
+   * Iterator reading the entities of a collection from the parser on demand.
+   * The count and next-link control information is taken over if it appears before the value array.
+   */
+  private final class JsonEntityIterator extends EntityIterator {
+    private final JsonParser parser;
+    private final EdmEntityType edmEntityType;
+    private final Set<String> fieldNames = new HashSet<>();
+    private String unknownField;
+    private boolean isInValue;
+    private Entity nextEntity;
+
+    private JsonEntityIterator(final InputStream stream, final EdmEntityType edmEntityType)
+        throws DeserializerException {
+      this.edmEntityType = edmEntityType;
+      try {
+        parser = createParser(stream);
+        isInValue = readFields();
+      } catch (final IOException e) {
+        throw wrapParseException(e);
+      }
+      if (!isInValue) {
+        throw new DeserializerException("Could not find value array.",
+            DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT);
+      }
+    }
+
+    /**
+     * Reads the fields of the collection object up to the start of the value array or the end of the object.
+     * @return whether the start of the value array has been reached
+     */
+    private boolean readFields() throws IOException, DeserializerException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        checkDuplicate(fieldNames, name);
+        final JsonToken token = parser.nextToken();
+        if (Constants.VALUE.equals(name)) {
+          if (token != JsonToken.START_ARRAY) {
+            throw new DeserializerException("The content of the value tag must be an Array but is not.",
+                DeserializerException.MessageKeys.VALUE_TAG_MUST_BE_AN_ARRAY);
+          }
+          return true;
+        } else if (name.equals(constants.getCount()) && token == JsonToken.VALUE_NUMBER_INT) {
+          setCount(parser.getIntValue());
+        } else if (name.equals(constants.getNextLink()) && token == JsonToken.VALUE_STRING) {
+          try {
+            setNext(new URI(parser.getText()));
+          } catch (final URISyntaxException e) {
+            throw new DeserializerException("Invalid next link.", e,
+                DeserializerException.MessageKeys.UNKNOWN_CONTENT, name);
+          }
+        } else {
+          if (!isIgnoredAnnotation(name) && unknownField == null) {
+            unknownField = name;
+          }
+          parser.skipChildren();
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Reads the next entity of the value array.
+     * @return the entity or <code>null</code> if the end of the collection has been reached
+     */
+    private Entity readNext() throws DeserializerException {
+      if (!isInValue) {
+        return null;
+      }
+      try {
+        final JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+          isInValue = false;
+          readFields();
+          checkUnknownField(unknownField);
+          return null;
+        } else if (token != JsonToken.START_OBJECT) {
+          throw new DeserializerException("Nested Arrays and primitive values are not allowed for an entity value.",
+              DeserializerException.MessageKeys.INVALID_ENTITY);
+        }
+        return readEntity(parser, edmEntityType, null);
+      } catch (final IOException e) {
+        throw wrapParseException(e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextEntity == null) {
+        try {
+          nextEntity = readNext();
+        } catch (final DeserializerException e) {
+          isInValue = false;
+          throw new ODataRuntimeException(e.getMessage(), e);
+        }
+      }
+      return nextEntity != null;
+    }
+
+    @Override
+    public Entity next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No entity found");
+      }
+      final Entity entity = nextEntity;
+      nextEntity = null;
+      return entity;
+    }
+  }
+
+  /**
+   * The fields of an entity or complex value read so far.
+   * The type can change with the type annotation; fields which appear before the type annotation
+   * and are not known in the declared type are kept as trees until the type is known.
+   * The properties are returned in the order of the type, like in {@link ODataJsonDeserializer}.
+   */
+  private final class StructuredFields {
+    private final EdmStructuredType declaredType;
+    private EdmStructuredType type;
+    private boolean isTypeKnown;
+    private final Set<String> fieldNames = new HashSet<>();
+    private final Map<String, Property> properties = new HashMap<>();
+    private final Map<String, JsonNode> deferredFields = new LinkedHashMap<>();
+    private String unknownField;
+
+    private StructuredFields(final EdmStructuredType declaredType) {
+      this.declaredType = declaredType;
+      type = declaredType;
+    }
+
+    private void checkDuplicate(final String name) throws DeserializerException {
+      ODataJsonStreamDeserializer.this.checkDuplicate(fieldNames, name);
+    }
+
+    /**
+     * Reads the value of the field if it is the type annotation or a structural property.
+     * @return whether the field has been read
+     */
+    private boolean readTypeOrProperty(final JsonParser parser, final String name)
+        throws IOException, DeserializerException {
+      if (name.equals(constants.getType())) {
+        type = getDerivedType(declaredType,
+            parser.getCurrentToken().isScalarValue() ? parser.getText() : "");
+        isTypeKnown = true;
+        return true;
+      }
+      final EdmElement edmProperty = type.getProperty(name);
+      if (!(edmProperty instanceof EdmProperty)) {
+        return false;
+      }
+      properties.put(name, readProperty(parser, (EdmProperty) edmProperty));
+      return true;
+    }
+
+    /** Reads a field which is neither the type annotation nor a known property or navigation property. */
+    private void readOther(final JsonParser parser, final String name) throws IOException, DeserializerException {
+      if (isIgnoredAnnotation(name)) {
+        parser.skipChildren();
+      } else if (isTypeKnown) {
+        if (unknownField == null) {
+          unknownField = name;
+        }
+        parser.skipChildren();
+      } else {
+        deferredFields.put(name, (JsonNode) parser.readValueAsTree());
+      }
+    }
+
+    /** Gets the properties in the order of the type, including deferred fields which turned out to be properties. */
+    private List<Property> getProperties() throws DeserializerException {
+      List<Property> result = new ArrayList<>();
+      for (final String propertyName : type.getPropertyNames()) {
+        Property property = properties.get(propertyName);
+        final JsonNode deferredValue = deferredFields.get(propertyName);
+        if (property == null && deferredValue != null) {
+          final EdmProperty edmProperty = (EdmProperty) type.getProperty(propertyName);
+          if (deferredValue.isNull() && !edmProperty.isNullable()) {
+            throw new DeserializerException("Property: " + propertyName + " must not be null.",
+                DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, propertyName);
+          }
+          property = consumePropertyNode(edmProperty.getName(), edmProperty.getType(),
+              edmProperty.isCollection(), edmProperty.isNullable(), edmProperty.getMaxLength(),
+              edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), edmProperty.getMapping(),
+              deferredValue);
+          deferredFields.remove(propertyName);
+        }
+        if (property != null) {
+          result.add(property);
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
@@ -38,6 +39,7 @@ import org.apache.olingo.commons.api.data.AbstractODataObject;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Parameter;
 import org.apache.olingo.commons.api.data.Property;
@@ -55,6 +57,7 @@ import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.EdmTypeInfo;
 import org.apache.olingo.commons.core.edm.primitivetype.AbstractGeospatialType;
@@ -639,8 +642,21 @@ public class ODataXmlDeserializer implements ODataDeserializer {
       entitySet.setBaseURI(URI.create(xmlBase.getValue()));
     }
 
-    boolean foundEndFeed = false;
-    while (reader.hasNext() && !foundEndFeed) {
+    Entity entity;
+    while ((entity = nextEntity(reader, start, edmEntityType, entitySet)) != null) {
+      entitySet.getEntities().add(entity);
+    }
+    return entitySet;
+  }
+
+  /**
+   * Reads the feed up to its next entry; the information about the feed itself is put into the given collection.
+   * @return the entry or <code>null</code> if the end of the feed has been reached
+   */
+  private Entity nextEntity(final XMLEventReader reader, final StartElement start, final EdmEntityType edmEntityType,
+      final EntityCollection entitySet) throws XMLStreamException, EdmPrimitiveTypeException,
+      DeserializerException {
+    while (reader.hasNext()) {
       final XMLEvent event = reader.nextEvent();
       if (event.isStartElement()) {
         if (countQName.equals(event.asStartElement().getName())) {
@@ -664,17 +680,17 @@ public class ODataXmlDeserializer implements ODataDeserializer {
             }
           }
         } else if (Constants.QNAME_ATOM_ELEM_ENTRY.equals(event.asStartElement().getName())) {
-          entitySet.getEntities().add(entity(reader, event.asStartElement(), edmEntityType));
+          return entity(reader, event.asStartElement(), edmEntityType);
         } else if (entryRefQName.equals(event.asStartElement().getName())) {
-          entitySet.getEntities().add(entityRef(event.asStartElement()));
+          return entityRef(event.asStartElement());
         }
       }
 
       if (event.isEndElement() && start.getName().equals(event.asEndElement().getName())) {
-        foundEndFeed = true;
+        return null;
       }
     }
-    return entitySet;
+    return null;
   }
 
   @Override
@@ -698,6 +714,86 @@ public class ODataXmlDeserializer implements ODataDeserializer {
     }
   }
 
+  @Override
+  public EntityIterator entityIterator(final InputStream input, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    try {
+      final XMLEventReader reader = getReader(input);
+      final StartElement start = skipBeforeFirstStartElement(reader);
+      if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
+        throw new DeserializerException("No feed found!",
+            DeserializerException.MessageKeys.UNKNOWN_CONTENT, start.getName().getLocalPart());
+      }
+      return new XmlEntityIterator(reader, start, edmEntityType);
+    } catch (final XMLStreamException e) {
+      throw new DeserializerException(e.getMessage(), e, DeserializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  /**
+   * Iterator reading the entries of a feed from the reader on demand.
+   * Count and next link are taken over as soon as they have been read.
+   */
+  private class XmlEntityIterator extends EntityIterator {
+    private final XMLEventReader reader;
+    private final StartElement start;
+    private final EdmEntityType edmEntityType;
+    private final EntityCollection feed = new EntityCollection();
+    private boolean isInFeed = true;
+    private Entity cached;
+
+    private XmlEntityIterator(final XMLEventReader reader, final StartElement start,
+        final EdmEntityType edmEntityType) {
+      this.reader = reader;
+      this.start = start;
+      this.edmEntityType = edmEntityType;
+      final Attribute xmlBase = start.getAttributeByName(Constants.QNAME_ATTR_XML_BASE);
+      if (xmlBase != null) {
+        setBaseURI(URI.create(xmlBase.getValue()));
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (cached == null && isInFeed) {
+        try {
+          cached = nextEntity(reader, start, edmEntityType, feed);
+        } catch (final XMLStreamException e) {
+          throw fail(new DeserializerException(e.getMessage(), e,
+              DeserializerException.MessageKeys.IO_EXCEPTION));
+        } catch (final EdmPrimitiveTypeException e) {
+          throw fail(new DeserializerException(e.getMessage(), e,
+              DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY));
+        } catch (final DeserializerException e) {
+          throw fail(e);
+        }
+        setCount(feed.getCount());
+        setNext(feed.getNext());
+        if (cached == null) {
+          isInFeed = false;
+        } else {
+          cached.setType(edmEntityType.getFullQualifiedName().getFullQualifiedNameAsString());
+        }
+      }
+      return cached != null;
+    }
+
+    @Override
+    public Entity next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No entity found");
+      }
+      final Entity entity = cached;
+      cached = null;
+      return entity;
+    }
+
+    private ODataRuntimeException fail(final DeserializerException e) {
+      isInFeed = false;
+      return new ODataRuntimeException(e.getMessage(), e);
+    }
+  }
+
   @Override
   public DeserializerResult entityReferences(final InputStream stream) throws DeserializerException {
     try {
@@ -18,13 +18,14 @@
  */
 package org.apache.olingo.server.core.serializer;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
+import java.io.OutputStream;
 import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -51,15 +52,44 @@ public class BatchResponseSerializer {
 
   public InputStream serialize(final List<ODataResponsePart> responses, final String boundary)
       throws BatchSerializerException {
-    BodyBuilder builder = createBody(responses, boundary);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+    createBody(responses, boundary, new BodyBuilder(output, false));
 
-    return new ByteArrayInputStream(builder.getContent());
+    return new ByteArrayInputStream(output.toByteArray());
   }
 
-  private BodyBuilder createBody(final List<ODataResponsePart> batchResponses, final String boundary)
-      throws BatchSerializerException {
-    final BodyBuilder builder = new BodyBuilder();
+  /**
+   * Serializes a batch response directly into the output when the content is written.
+   * <p>The response bodies are copied into the output without buffering them;
+   * so their parts have no Content-Length header unless the body is empty.
+   * The response parts are taken from the iterable only while the content is written,
+   * so they can be created lazily.</p>
+   * @param responses the response parts
+   * @param boundary the boundary between the parts
+   */
+  public ODataContent serializeStreamed(final Iterable<ODataResponsePart> responses, final String boundary) {
+    return new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+      }
 
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          final BodyBuilder builder = new BodyBuilder(
+              new NonClosingOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE)), true);
+          createBody(responses, boundary, builder);
+          builder.flush();
+        } catch (final BatchSerializerException e) {
+          throw new ODataRuntimeException(e);
+        }
+      }
+    };
+  }
+
+  private void createBody(final Iterable<ODataResponsePart> batchResponses, final String boundary,
+      final BodyBuilder builder) throws BatchSerializerException {
     for (final ODataResponsePart part : batchResponses) {
       builder.append(getDashBoundary(boundary));
 
@@ -68,10 +98,12 @@ public class BatchResponseSerializer {
       } else {
         appendBodyPart(part.getResponses().get(0), builder, false);
       }
+      // Each part goes out as soon as it is complete, so that the client need not wait for the whole batch.
+      if (builder.isStreamed()) {
+        builder.flush();
+      }
     }
     builder.append(getCloseDelimiter(boundary));
-
-    return builder;
   }
 
   private void appendChangeSet(final ODataResponsePart part, final BodyBuilder builder)
@@ -96,7 +128,7 @@ public class BatchResponseSerializer {
     builder.append(CRLF);
 
     appendStatusLine(response, builder);
-    Body body = new Body(response);
+    Body body = new Body(response, builder.isStreamed());
     appendResponseHeader(response, body.getLength(), builder);
     builder.append(CRLF);
 
@@ -145,7 +177,9 @@ public class BatchResponseSerializer {
       }
     }
 
-    appendHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(contentLength), builder);
+    if (contentLength >= 0) {
+      appendHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(contentLength), builder);
+    }
   }
 
   private void appendBodyPartHeader(final ODataResponse response, final BodyBuilder builder,
@@ -175,39 +209,29 @@ public class BatchResponseSerializer {
   }
 
   /**
-   * Builder class to create the body and the header.
+   * Builder class to write the body and the header.
    */
   private static class BodyBuilder {
     private static final Charset CHARSET_ISO_8859_1 = Charset.forName("iso-8859-1");
-    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
-    private boolean isClosed = false;
-
-    public byte[] getContent() {
-      isClosed = true;
-      byte[] tmp = new byte[buffer.position()];
-      buffer.flip();
-      buffer.get(tmp, 0, buffer.limit());
-      return tmp;
+    private final OutputStream output;
+    private final boolean isStreamed;
+
+    BodyBuilder(final OutputStream output, final boolean isStreamed) {
+      this.output = output;
+      this.isStreamed = isStreamed;
     }
 
-    public BodyBuilder append(final String string) {
-      byte[] b = string.getBytes(CHARSET_ISO_8859_1);
-      put(b);
-      return this;
+    public boolean isStreamed() {
+      return isStreamed;
     }
 
-    private void put(final byte[] b) {
-      if (isClosed) {
-        throw new ODataRuntimeException("BodyBuilder is closed.");
-      }
-      if (buffer.remaining() < b.length) {
-        buffer.flip();
-        int newSize = (buffer.limit() * 2) + b.length;
-        ByteBuffer tmp = ByteBuffer.allocate(newSize);
-        tmp.put(buffer);
-        buffer = tmp;
+    public BodyBuilder append(final String string) {
+      try {
+        output.write(string.getBytes(CHARSET_ISO_8859_1));
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Error on writing batch response", e);
       }
-      buffer.put(b);
+      return this;
     }
 
     public BodyBuilder append(final int statusCode) {
@@ -215,63 +239,95 @@ public class BatchResponseSerializer {
     }
 
     public BodyBuilder append(final Body body) {
-      put(body.getContent());
+      body.write(output);
       return this;
     }
 
-    @Override
-    public String toString() {
-      return new String(buffer.array(), 0, buffer.position(), CHARSET_ISO_8859_1);
+    public void flush() {
+      try {
+        output.flush();
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Error on writing batch response", e);
+      }
     }
   }
 
   /**
-   * Body part which is read and stored as bytes (no charset conversion).
+   * Body part which is read and written as bytes (no charset conversion).
+   * If the body is streamed, it is copied into the output only when it is written, and its length is unknown.
    */
   private static class Body {
+    private final ODataResponse response;
     private final byte[] content;
 
-    Body(final ODataResponse response) {
-      content = getBody(response);
+    Body(final ODataResponse response, final boolean isStreamed) {
+      if (response == null || response.getContent() == null && response.getODataContent() == null) {
+        this.response = null;
+        content = new byte[0];
+      } else if (isStreamed) {
+        this.response = response;
+        content = null;
+      } else {
+        this.response = null;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        copy(response, output);
+        content = output.toByteArray();
+      }
     }
 
     private int getLength() {
-      return content.length;
+      return content == null ? -1 : content.length;
     }
 
-    private byte[] getContent() {
-      return content; //NOSONAR
-    }
-
-    private byte[] getBody(final ODataResponse response) {
-      if (response == null || (response.getContent() == null && 
-          response.getODataContent() == null)) {
-        return new byte[0];
+    private void write(final OutputStream output) {
+      if (content == null) {
+        copy(response, output);
+      } else {
+        try {
+          output.write(content);
+        } catch (final IOException e) {
+          throw new ODataRuntimeException("Error on writing batch response", e);
+        }
       }
+    }
 
+    private static void copy(final ODataResponse response, final OutputStream output) {
       try {
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        ByteBuffer inBuffer = ByteBuffer.allocate(BUFFER_SIZE);
         if (response.getContent() == null) {
-          if (response.getODataContent() != null) {
-            ODataContent res = response.getODataContent();
-            res.write(Channels.newChannel(output));
-            }
+          response.getODataContent().write(output);
         } else {
-          try (WritableByteChannel oc = Channels.newChannel(output)) {
-            try (ReadableByteChannel ic = Channels.newChannel(response.getContent())) {
-              while (ic.read(inBuffer) > 0) {
-                inBuffer.flip();
-                oc.write(inBuffer);
-                inBuffer.rewind();
-              }
+          final byte[] buffer = new byte[BUFFER_SIZE];
+          try (InputStream input = response.getContent()) {
+            int count;
+            while ((count = input.read(buffer)) > 0) {
+              output.write(buffer, 0, count);
             }
           }
         }
-        return output.toByteArray();
       } catch (IOException e) {
         throw new ODataRuntimeException("Error on reading request content", e);
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Output stream which does not close the underlying stream,
+   * because the response bodies are written into the output of the whole batch response.
+   */
+  private static class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(final OutputStream output) {
+      super(output);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.core.ServiceMetadataImpl;
+
+/**
+ * Immutable byte snapshots of serialized documents which depend only on the service metadata,
+ * i.e., the metadata document and the service document.
+ * <br/>
+ * The snapshots are held by the {@link ServiceMetadataImpl} instance and are bound to the ETags of its
+ * {@link org.apache.olingo.server.api.etag.ServiceMetadataETagSupport}; they are discarded once an ETag changes.
+ * <br/>
+ * The service document depends on the service root, which is taken from the request,
+ * so the number of snapshots is limited; further documents are serialized at every call.
+ */
+public final class DocumentSnapshots {
+
+  /** Maximum number of snapshots held for one service-metadata instance. */
+  public static final int MAX_SNAPSHOTS = 32;
+
+  /** Serialization of a document. */
+  public interface Source {
+    SerializerResult serialize() throws SerializerException;
+  }
+
+  private final String version;
+
+  private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  public DocumentSnapshots(final String version) {
+    this.version = version;
+  }
+
+  /** Gets the version, composed of the ETags, the snapshots are valid for. */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets the content of a document from its snapshot; the document is serialized once
+   * if the service metadata are able to hold snapshots, otherwise at every call.
+   * @param metadata the service metadata
+   * @param key      key of the document, comprising everything besides the service metadata the document depends on
+   * @param source   serialization of the document
+   * @return the serialized document
+   */
+  public static SerializerResult get(final ServiceMetadata metadata, final String key, final Source source)
+      throws SerializerException {
+    if (!(metadata instanceof ServiceMetadataImpl)) {
+      return source.serialize();
+    }
+    final ConcurrentMap<String, Snapshot> snapshots = ((ServiceMetadataImpl) metadata).getDocumentSnapshots().snapshots;
+    Snapshot snapshot = snapshots.get(key);
+    if (snapshot == null) {
+      if (snapshots.size() >= MAX_SNAPSHOTS) {
+        return source.serialize();
+      }
+      // Concurrent first requests may serialize the document more than once; only one snapshot is kept.
+      final Snapshot created = new Snapshot(toByteArray(source.serialize().getContent()));
+      synchronized (snapshots) {
+        snapshot = snapshots.get(key);
+        if (snapshot == null && snapshots.size() < MAX_SNAPSHOTS) {
+          snapshots.put(key, created);
+        }
+      }
+      if (snapshot == null) {
+        snapshot = created;
+      }
+    }
+    return SerializerResultImpl.with().content(new SnapshotInputStream(snapshot)).build();
+  }
+
+  private static byte[] toByteArray(final InputStream content) throws SerializerException {
+    try (InputStream input = content) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int count;
+      while ((count = input.read(buffer)) > 0) {
+        output.write(buffer, 0, count);
+      }
+      return output.toByteArray();
+    } catch (final IOException e) {
+      throw new SerializerException(AbstractODataSerializer.IO_EXCEPTION_TEXT, e,
+          SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  /** A serialized document; its content must not be modified. */
+  public static final class Snapshot {
+
+    private final byte[] content;
+
+    private volatile byte[] gzipContent;
+
+    private Snapshot(final byte[] content) {
+      this.content = content;
+    }
+
+    /** Gets the length of the serialized document in bytes. */
+    public int getLength() {
+      return content.length;
+    }
+
+    /** Gets the serialized document compressed in GZIP format; it is compressed once when first requested. */
+    public byte[] getGzipContent() throws IOException {
+      byte[] compressed = gzipContent;
+      if (compressed == null) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+          gzip.write(content);
+        }
+        compressed = output.toByteArray();
+        gzipContent = compressed;
+      }
+      return compressed;
+    }
+  }
+
+  /** Stream over the content of a snapshot, reading directly from the shared byte array. */
+  public static final class SnapshotInputStream extends ByteArrayInputStream {
+
+    private final Snapshot snapshot;
+
+    private SnapshotInputStream(final Snapshot snapshot) {
+      super(snapshot.content);
+      this.snapshot = snapshot;
+    }
+
+    /** Gets the snapshot this stream reads. */
+    public Snapshot getSnapshot() {
+      return snapshot;
+    }
+  }
+}
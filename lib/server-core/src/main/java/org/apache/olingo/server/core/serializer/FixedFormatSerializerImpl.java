@@ -104,4 +104,12 @@ public class FixedFormatSerializerImpl implements FixedFormatSerializer {
 
     return serializer.serialize(batchResponses, boundary);
   }
+
+  @Override
+  public SerializerStreamResult batchResponseStreamed(final Iterable<ODataResponsePart> batchResponses,
+      final String boundary) throws BatchSerializerException {
+    return SerializerStreamResultImpl.with()
+        .content(new BatchResponseSerializer().serializeStreamed(batchResponses, boundary))
+        .build();
+  }
 }
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.BaseNCodecOutputStream;
+import org.apache.commons.io.output.WriterOutputStream;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.core.deserializer.batch.JsonBatchParser;
+import org.apache.olingo.server.core.deserializer.batch.JsonBatchRequestPart;
+import org.apache.olingo.server.core.serializer.json.JsonSerializerSupport;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Serializer for batch responses in JSON format as defined in OData JSON Format Version 4.01.
+ * <p>JSON bodies are copied as they are into the batch response, bodies of textual media types
+ * are written as strings, and all other bodies as base64url-encoded strings.
+ * The id of each response is taken from its Content-ID header.</p>
+ * <p>The batch response and the bodies are written directly into the output, without buffering.
+ * A failed atomicity group is answered with a response for each of its requests; these share the
+ * error response of the group, whose body is buffered to be written several times.</p>
+ */
+public class JsonBatchResponseSerializer {
+  private static final int BUFFER_SIZE = 4096;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String BODY = "body";
+
+  private final JsonSerializerSupport jsonSupport;
+
+  public JsonBatchResponseSerializer() {
+    this(JsonSerializerSupport.getDefault());
+  }
+
+  public JsonBatchResponseSerializer(final JsonSerializerSupport jsonSupport) {
+    this.jsonSupport = jsonSupport;
+  }
+
+  /**
+   * Serializes a batch response.
+   * @param requests  the request parts
+   * @param responses the response parts in the order of the request parts; there are fewer responses
+   *                  than requests if the processing has stopped at a failed part
+   * @return the batch response, written when the content is written
+   */
+  public ODataContent serialize(final List<BatchRequestPart> requests, final List<ODataResponsePart> responses) {
+    return new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          // The output belongs to the caller, and bodies written into it must not close it.
+          final OutputStream output = new NonClosingOutputStream(stream);
+          final JsonGenerator json = jsonSupport.createGenerator(output);
+          json.writeStartObject();
+          json.writeArrayFieldStart("responses");
+          for (int i = 0; i < responses.size(); i++) {
+            writePart(requests.get(i), responses.get(i), json, output);
+          }
+          json.writeEndArray();
+          json.writeEndObject();
+          json.close();
+        } catch (final IOException e) {
+          throw new ODataRuntimeException("Error on writing batch response", e);
+        }
+      }
+    };
+  }
+
+  private void writePart(final BatchRequestPart request, final ODataResponsePart response,
+      final JsonGenerator json, final OutputStream output) throws IOException {
+    final String atomicityGroup = request instanceof JsonBatchRequestPart ?
+        ((JsonBatchRequestPart) request).getAtomicityGroup() :
+        null;
+    final ODataResponse first = response.getResponses().get(0);
+    if (request.isChangeSet()
+        && (response.getResponses().size() < request.getRequests().size() || isFailed(first))) {
+      // A failed change set has a single response, which does not know the ids of the requests.
+      final byte[] body = request.getRequests().size() > 1 ? toByteArray(first) : null;
+      for (final ODataRequest groupRequest : request.getRequests()) {
+        writeResponse(first, groupRequest.getHeader(HttpHeader.CONTENT_ID), atomicityGroup, body, json, output);
+      }
+    } else {
+      for (final ODataResponse partResponse : response.getResponses()) {
+        writeResponse(partResponse, partResponse.getHeader(HttpHeader.CONTENT_ID), atomicityGroup, null,
+            json, output);
+      }
+    }
+  }
+
+  private void writeResponse(final ODataResponse response, final String id, final String atomicityGroup,
+      final byte[] bufferedBody, final JsonGenerator json, final OutputStream output) throws IOException {
+    json.writeStartObject();
+    if (id != null) {
+      json.writeStringField("id", id);
+    }
+    if (atomicityGroup != null) {
+      json.writeStringField("atomicityGroup", atomicityGroup);
+    }
+    json.writeNumberField("status", response.getStatusCode());
+
+    String contentType = null;
+    boolean hasHeaders = false;
+    for (final Map.Entry<String, List<String>> entry : response.getAllHeaders().entrySet()) {
+      if (!entry.getKey().equalsIgnoreCase(HttpHeader.CONTENT_ID)) {
+        if (!hasHeaders) {
+          json.writeObjectFieldStart("headers");
+          hasHeaders = true;
+        }
+        json.writeStringField(entry.getKey(), join(entry.getValue()));
+        if (entry.getKey().equalsIgnoreCase(HttpHeader.CONTENT_TYPE)) {
+          contentType = entry.getValue().get(0);
+        }
+      }
+    }
+    if (hasHeaders) {
+      json.writeEndObject();
+    }
+
+    final BodyOutputStream body =
+        new BodyOutputStream(json, output, contentType == null ? null : ContentType.parse(contentType));
+    if (bufferedBody != null) {
+      copy(new ByteArrayInputStream(bufferedBody), body);
+    } else if (response.getContent() != null) {
+      copy(response.getContent(), body);
+    } else if (response.getODataContent() != null) {
+      response.getODataContent().write(body);
+    }
+    body.finish();
+    json.writeEndObject();
+  }
+
+  private boolean isFailed(final ODataResponse response) {
+    return response.getStatusCode() >= HttpStatusCode.BAD_REQUEST.getStatusCode();
+  }
+
+  private byte[] toByteArray(final ODataResponse response) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+    if (response.getContent() != null) {
+      copy(response.getContent(), output);
+    } else if (response.getODataContent() != null) {
+      response.getODataContent().write(output);
+    }
+    return output.toByteArray();
+  }
+
+  private void copy(final InputStream content, final OutputStream output) throws IOException {
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = content.read(buffer)) > 0) {
+        output.write(buffer, 0, count);
+      }
+    } finally {
+      content.close();
+    }
+  }
+
+  private String join(final List<String> values) {
+    final StringBuilder result = new StringBuilder();
+    for (final String value : values) {
+      if (result.length() > 0) {
+        result.append(", ");
+      }
+      result.append(value);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes a body as value of the <code>body</code> member directly into the output.
+   * The member is started with the first byte, so that empty bodies are omitted;
+   * {@link #finish()} ends it.
+   */
+  private static class BodyOutputStream extends OutputStream {
+    private final JsonGenerator json;
+    private final OutputStream output;
+    private final ContentType type;
+    private OutputStream target;
+
+    BodyOutputStream(final JsonGenerator json, final OutputStream output, final ContentType type) {
+      this.json = json;
+      this.output = output;
+      this.type = type;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      getTarget().write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (len > 0) {
+        getTarget().write(b, off, len);
+      }
+    }
+
+    @Override
+    public void close() {
+      // The body is ended by finish(); streamed serializers close their output when they are done.
+    }
+
+    private OutputStream getTarget() throws IOException {
+      if (target == null) {
+        json.writeFieldName(BODY);
+        if (type != null && type.isCompatible(ContentType.APPLICATION_JSON)) {
+          json.writeRawValue("");
+          target = output;
+        } else {
+          json.writeRawValue("\"");
+          if (type != null && JsonBatchParser.isText(type)) {
+            final String charset = type.getParameter(ContentType.PARAMETER_CHARSET);
+            target = new WriterOutputStream(new JsonStringWriter(output),
+                charset == null ? UTF_8 : Charset.forName(charset));
+          } else {
+            target = new BaseNCodecOutputStream(output, new Base64(0, null, true), true);
+          }
+        }
+        // The generator must not hold back anything written before the body.
+        json.flush();
+      }
+      return target;
+    }
+
+    void finish() throws IOException {
+      if (target != null && target != output) {
+        target.close();
+        output.write('"');
+      }
+    }
+  }
+
+  /** Writes characters escaped as content of a JSON string. */
+  private static class JsonStringWriter extends Writer {
+    private final Writer writer;
+
+    JsonStringWriter(final OutputStream output) {
+      writer = new OutputStreamWriter(output, UTF_8);
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) throws IOException {
+      for (int i = offset; i < offset + length; i++) {
+        final char c = buffer[i];
+        switch (c) {
+        case '"':
+          writer.write("\\\"");
+          break;
+        case '\\':
+          writer.write("\\\\");
+          break;
+        case '\n':
+          writer.write("\\n");
+          break;
+        case '\r':
+          writer.write("\\r");
+          break;
+        case '\t':
+          writer.write("\\t");
+          break;
+        default:
+          if (c < ' ') {
+            writer.write(String.format("\\u%04x", (int) c));
+          } else {
+            writer.write(c);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      // The output belongs to the batch response.
+      writer.flush();
+    }
+  }
+
+  /** Output stream which does not close the underlying stream. */
+  private static class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(final OutputStream output) {
+      super(output);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
@@ -60,7 +60,6 @@ import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
@@ -71,19 +70,23 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
   protected final boolean isODataMetadataNone;
   protected final boolean isODataMetadataFull;
   private IConstants constants;
+  private final JsonSerializerSupport jsonSupport;
 
   public EdmAssistedJsonSerializer(final ContentType contentType) {
-    this.isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
-    this.isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
-    this.isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
-    this.constants = new Constantsv00();
+    this(contentType, new Constantsv00());
   }
   
   public EdmAssistedJsonSerializer(final ContentType contentType, final IConstants constants) {
+    this(contentType, constants, JsonSerializerSupport.getDefault());
+  }
+
+  public EdmAssistedJsonSerializer(final ContentType contentType, final IConstants constants,
+      final JsonSerializerSupport jsonSupport) {
     this.isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     this.isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     this.isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
     this.constants = constants;
+    this.jsonSupport = jsonSupport;
   }
 
   @Override
@@ -108,9 +111,9 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       if (obj instanceof AbstractEntityCollection) {
         doSerialize(entityType, (AbstractEntityCollection) obj, contextURLString, metadataETag, json);
       } else if (obj instanceof Entity) {
@@ -62,7 +62,6 @@ import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class JsonDeltaSerializer implements EdmDeltaSerializer {
@@ -78,11 +77,17 @@ public class JsonDeltaSerializer implements EdmDeltaSerializer {
   private final boolean isIEEE754Compatible;
   private final boolean isODataMetadataNone;
   private final boolean isODataMetadataFull;
+  private final JsonSerializerSupport jsonSupport;
 
   public JsonDeltaSerializer(final ContentType contentType) {
+    this(contentType, JsonSerializerSupport.getDefault());
+  }
+
+  public JsonDeltaSerializer(final ContentType contentType, final JsonSerializerSupport jsonSupport) {
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
+    this.jsonSupport = jsonSupport;
   }
 
   @Override
@@ -91,9 +96,9 @@ public class JsonDeltaSerializer implements EdmDeltaSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = jsonSupport.createBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonSupport.createGenerator(outputStream);
       boolean pagination = false;
       json.writeStartObject();
 
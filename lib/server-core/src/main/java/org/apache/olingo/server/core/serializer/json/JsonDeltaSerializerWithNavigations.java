@@ -68,7 +68,6 @@ import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
@@ -76,11 +75,17 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
   private final boolean isIEEE754Compatible;
   private final boolean isODataMetadataNone;
   private final boolean isODataMetadataFull;
+  private final JsonSerializerSupport jsonSupport;
 
   public JsonDeltaSerializerWithNavigations(final ContentType contentType) {
+    this(contentType, JsonSerializerSupport.getDefault());
+  }
+
+  public JsonDeltaSerializerWithNavigations(final ContentType contentType, final JsonSerializerSupport jsonSupport) {
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
+    this.jsonSupport = jsonSupport;
   }
 
   @Override
@@ -90,9 +95,9 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
     SerializerException cachedException = null;
     boolean pagination = false;
     
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = jsonSupport.createBuffer();
       outputStream = buffer.getOutputStream();
-      try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+      try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
         json.writeStartObject();
 
         final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
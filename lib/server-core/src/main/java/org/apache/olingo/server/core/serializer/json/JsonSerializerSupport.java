@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.olingo.server.core.serializer.utils.ByteBufferPool;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Resources shared by the JSON serializers: one {@link JsonFactory} (which is thread-safe
+ * and keeps its buffer recyclers across generators) and one pool for the output buffers.
+ */
+public class JsonSerializerSupport {
+
+  private static final JsonSerializerSupport DEFAULT =
+      new JsonSerializerSupport(new JsonFactory(), ByteBufferPool.getDefault());
+
+  private final JsonFactory jsonFactory;
+  private final ByteBufferPool bufferPool;
+
+  public JsonSerializerSupport(final JsonFactory jsonFactory, final ByteBufferPool bufferPool) {
+    if (jsonFactory == null || bufferPool == null) {
+      throw new IllegalArgumentException("JSON factory and buffer pool must not be null.");
+    }
+    this.jsonFactory = jsonFactory;
+    this.bufferPool = bufferPool;
+  }
+
+  /**
+   * Gets the support instance shared by all JSON serializers which are not configured otherwise.
+   * @return the default instance
+   */
+  public static JsonSerializerSupport getDefault() {
+    return DEFAULT;
+  }
+
+  public JsonFactory getJsonFactory() {
+    return jsonFactory;
+  }
+
+  public ByteBufferPool getBufferPool() {
+    return bufferPool;
+  }
+
+  /**
+   * Creates a new output buffer backed by the buffer pool.
+   * The pooled buffers are given back as soon as the input stream of the buffer is closed.
+   * @return the buffer
+   */
+  public CircleStreamBuffer createBuffer() {
+    return new CircleStreamBuffer(bufferPool);
+  }
+
+  /**
+   * Creates a new generator writing UTF-8 into the given stream.
+   * @param outputStream the target stream
+   * @return the generator
+   * @throws IOException if the generator cannot be created
+   */
+  public JsonGenerator createGenerator(final OutputStream outputStream) throws IOException {
+    return jsonFactory.createGenerator(outputStream);
+  }
+}
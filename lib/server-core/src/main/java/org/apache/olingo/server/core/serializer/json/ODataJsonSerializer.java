@@ -85,15 +85,17 @@ import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
+import org.apache.olingo.server.core.serializer.DocumentSnapshots;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.PrimitiveValueHelper;
+import org.apache.olingo.server.core.serializer.utils.ProjectionPlan;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class ODataJsonSerializer extends AbstractODataSerializer {
@@ -115,30 +117,46 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   private final boolean isODataMetadataNone;
   private final boolean isODataMetadataFull;
   private IConstants constants;
+  private final JsonSerializerSupport jsonSupport;
+  private final ProjectionPlan.Cache projectionPlans = new ProjectionPlan.Cache();
 
   public ODataJsonSerializer(final ContentType contentType, final IConstants constants) {
+    this(contentType, constants, JsonSerializerSupport.getDefault());
+  }
+
+  public ODataJsonSerializer(final ContentType contentType, final IConstants constants,
+      final JsonSerializerSupport jsonSupport) {
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
     this.constants = constants;
+    this.jsonSupport = jsonSupport;
   }
 
   public ODataJsonSerializer(final ContentType contentType) {
-    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
-    isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
-    isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
-    this.constants = new Constantsv00();
+    this(contentType, new Constantsv00());
   }
 
   @Override
   public SerializerResult serviceDocument(final ServiceMetadata metadata, final String serviceRoot)
       throws SerializerException {
+    return DocumentSnapshots.get(metadata, "json-service " + isODataMetadataNone + ' ' + serviceRoot,
+        new DocumentSnapshots.Source() {
+          @Override
+          public SerializerResult serialize() throws SerializerException {
+            return writeServiceDocument(metadata, serviceRoot);
+          }
+        });
+  }
+
+  private SerializerResult writeServiceDocument(final ServiceMetadata metadata, final String serviceRoot)
+      throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
 
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       new ServiceDocumentJsonSerializer(metadata, serviceRoot, isODataMetadataNone).writeServiceDocument(json);
 
       json.close();
@@ -154,13 +172,22 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
   @Override
   public SerializerResult metadataDocument(final ServiceMetadata serviceMetadata) throws SerializerException {
+    return DocumentSnapshots.get(serviceMetadata, "json-metadata", new DocumentSnapshots.Source() {
+      @Override
+      public SerializerResult serialize() throws SerializerException {
+        return writeMetadataDocument(serviceMetadata);
+      }
+    });
+  }
+
+  private SerializerResult writeMetadataDocument(final ServiceMetadata serviceMetadata) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
 
     
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       new MetadataDocumentJsonSerializer(serviceMetadata).writeMetadataDocument(json);
       json.close();
       return SerializerResultImpl.with().content(buffer.getInputStream()).build();
@@ -178,9 +205,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       new ODataErrorSerializer().writeErrorDocument(json, error);
 
       json.close();
@@ -202,9 +229,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     boolean pagination = false;
     
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -253,7 +280,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException;
     boolean pagination = false;
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonSupport.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -290,9 +317,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       String name =  contextURL == null ? null:contextURL.getEntitySetOrSingletonOrType();
       writeEntity(metadata, entityType, entity, contextURL,
           options == null ? null : options.getExpand(),
@@ -508,30 +535,15 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final List<Property> properties,
       final SelectOption select, final JsonGenerator json, Linked linked, ExpandOption expand)
       throws IOException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    addKeyPropertiesToSelected(selected, type);
-    Set<List<String>> expandedPaths = ExpandSelectHelper.getExpandedItemsPath(expand);
-    for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
-        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, json, expandedPaths, linked, expand);
-      }
-    }
-  }
-  
-  private void addKeyPropertiesToSelected(Set<String> selected, EdmStructuredType type) {
-    if (!selected.isEmpty() && type instanceof EdmEntityType) {
-      List<String> keyNames = ((EdmEntityType) type).getKeyPredicateNames();
-      for (String key : keyNames) {
-        if (!selected.contains(key)) {
-          selected.add(key);
-        }
-      }
+    final ProjectionPlan plan = projectionPlans.get(type, select, expand);
+    final Set<List<String>> expandedPaths = plan.getExpandedPaths();
+    int position = 0;
+    for (final ProjectionPlan.Slot slot : plan.getSlots()) {
+      final int index = ProjectionPlan.indexOfProperty(slot.getName(), properties, position);
+      final Property property = index < 0 ? null : properties.get(index);
+      position = index + 1;
+      writeProperty(metadata, slot.getEdmProperty(), property, slot.getSelectedPaths(), json,
+          expandedPaths, linked, expand);
     }
   }
 
@@ -915,23 +927,28 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   protected void writePrimitiveValue(final String name, final EdmPrimitiveType type, final Object primitiveValue,
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
+    final EdmPrimitiveTypeKind kind = PrimitiveValueHelper.getKind(type);
+    if (PrimitiveValueHelper.isDirectlyWritable(kind, primitiveValue, maxLength, isUnicode)) {
+      writeDirectPrimitiveValue(kind, primitiveValue, json);
+      return;
+    }
     final String value = type.valueToString(primitiveValue,
         isNullable, maxLength, precision, scale, isUnicode);
     if (value == null) {
       json.writeNull();
-    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean)) {
+    } else if (kind == EdmPrimitiveTypeKind.Boolean) {
       json.writeBoolean(Boolean.parseBoolean(value));
-    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Byte)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Double)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int16)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.SByte)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Single)
-        || (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64))
+    } else if (kind == EdmPrimitiveTypeKind.Byte
+        || kind == EdmPrimitiveTypeKind.Double
+        || kind == EdmPrimitiveTypeKind.Int16
+        || kind == EdmPrimitiveTypeKind.Int32
+        || kind == EdmPrimitiveTypeKind.SByte
+        || kind == EdmPrimitiveTypeKind.Single
+        || (kind == EdmPrimitiveTypeKind.Decimal
+        || kind == EdmPrimitiveTypeKind.Int64)
         && !isIEEE754Compatible) {
       json.writeNumber(value);
-    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Stream)) {
+    } else if (kind == EdmPrimitiveTypeKind.Stream) {
       if (primitiveValue instanceof Link) {
         Link stream = (Link)primitiveValue;
         if (!isODataMetadataNone) {
@@ -956,6 +973,43 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     }
   }
 
+  /**
+   * Writes a primitive value for which {@link PrimitiveValueHelper#isDirectlyWritable} holds
+   * directly with the matching generator method.
+   */
+  private void writeDirectPrimitiveValue(final EdmPrimitiveTypeKind kind, final Object value,
+      final JsonGenerator json) throws IOException {
+    switch (kind) {
+    case Boolean:
+      json.writeBoolean((Boolean) value);
+      break;
+    case String:
+      json.writeString((String) value);
+      break;
+    case Guid:
+      json.writeString(value.toString());
+      break;
+    case Int64:
+      if (isIEEE754Compatible) {
+        json.writeString(value.toString());
+      } else {
+        json.writeNumber(((Number) value).longValue());
+      }
+      break;
+    case Double:
+    case Single:
+      if (value instanceof Float) {
+        json.writeNumber((Float) value);
+      } else {
+        json.writeNumber((Double) value);
+      }
+      break;
+    default:
+      json.writeNumber(((Number) value).intValue());
+      break;
+    }
+  }
+
   /** Writes a geospatial value following the GeoJSON specification defined in RFC 7946. */
   protected void writeGeoValue(final String name, final EdmPrimitiveType type, final Geospatial geoValue,
       final Boolean isNullable, JsonGenerator json, SRID parentSrid)
@@ -1073,9 +1127,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       }
     }
     
+    int position = 0;
     for (final String propertyName : type.getPropertyNames()) {
-      final Property property = findProperty(propertyName, properties);
       if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
+        final int index = ProjectionPlan.indexOfProperty(propertyName, properties, position);
+        final Property property = index < 0 ? null : properties.get(index);
+        position = index + 1;
         writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), property,
             selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
             json, expandedPaths, linked, expand);
@@ -1089,15 +1146,6 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
     
 
-  private Property findProperty(final String propertyName, final List<Property> properties) {
-    for (final Property property : properties) {
-      if (propertyName.equals(property.getName())) {
-        return property;
-      }
-    }
-    return null;
-  }
-
   @Override
   public SerializerResult primitive(final ServiceMetadata metadata, final EdmPrimitiveType type,
       final Property property, final PrimitiveSerializerOptions options) throws SerializerException {
@@ -1105,9 +1153,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1150,9 +1198,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       final String name =  contextURL == null ? null:
         contextURL.getEntitySetOrSingletonOrType();
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = jsonSupport.createBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonSupport.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);      
@@ -1205,9 +1253,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1242,9 +1290,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1287,10 +1335,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     final UriHelper uriHelper = new UriHelperImpl();
     outputStream = buffer.getOutputStream();
-    try (final JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (final JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
 
       json.writeStartObject();
       writeContextURL(contextURL, json);
@@ -1317,10 +1365,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     boolean pagination = false ;
 
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    CircleStreamBuffer buffer = jsonSupport.createBuffer();
     final UriHelper uriHelper = new UriHelperImpl();
     outputStream = buffer.getOutputStream();
-    try (final JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (final JsonGenerator json = jsonSupport.createGenerator(outputStream)) {
       json.writeStartObject();
 
       writeContextURL(contextURL, json);
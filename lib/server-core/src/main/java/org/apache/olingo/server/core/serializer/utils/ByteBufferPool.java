@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, thread-safe pool of equally sized heap {@link ByteBuffer}s.
+ * Used by the {@link CircleStreamBuffer} so that serializing many small responses
+ * does not allocate a new chain of buffers for each of them.
+ */
+public class ByteBufferPool {
+
+  public static final int DEFAULT_BUFFER_SIZE = 16384;
+  public static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+  private static final ByteBufferPool DEFAULT_POOL =
+      new ByteBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+
+  private final int bufferSize;
+  private final int maxPooledBuffers;
+  private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+  /**
+   * Creates a pool.
+   * @param bufferSize capacity of each buffer handed out by this pool
+   * @param maxPooledBuffers maximum number of idle buffers kept for reuse;
+   * <code>0</code> disables pooling
+   */
+  public ByteBufferPool(final int bufferSize, final int maxPooledBuffers) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be positive.");
+    }
+    if (maxPooledBuffers < 0) {
+      throw new IllegalArgumentException("Maximum number of pooled buffers must not be negative.");
+    }
+    this.bufferSize = bufferSize;
+    this.maxPooledBuffers = maxPooledBuffers;
+  }
+
+  /**
+   * Gets the pool shared by all serializers which are not configured with an own pool.
+   * @return the default pool
+   */
+  public static ByteBufferPool getDefault() {
+    return DEFAULT_POOL;
+  }
+
+  /**
+   * Gets the capacity of the buffers handed out by this pool.
+   * @return the buffer capacity in bytes
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Takes an idle buffer out of the pool or allocates a new one if the pool is empty.
+   * @return a cleared buffer with capacity {@link #getBufferSize()}
+   */
+  public ByteBuffer acquire() {
+    final ByteBuffer buffer = pool.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocate(bufferSize);
+    }
+    pooledBuffers.decrementAndGet();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. Buffers which have not been handed out by this pool
+   * (i.e., with a different capacity) and buffers exceeding the pool limit are dropped.
+   * The caller must not use the buffer afterwards.
+   * @param buffer the buffer to be returned
+   */
+  public void release(final ByteBuffer buffer) {
+    if (buffer == null || buffer.isDirect() || buffer.capacity() != bufferSize) {
+      return;
+    }
+    if (pooledBuffers.incrementAndGet() > maxPooledBuffers) {
+      pooledBuffers.decrementAndGet();
+      return;
+    }
+    buffer.clear();
+    pool.offer(buffer);
+  }
+
+  /**
+   * Gets the number of idle buffers currently held by this pool.
+   * @return number of idle buffers
+   */
+  public int getPooledBufferCount() {
+    return pooledBuffers.get();
+  }
+}
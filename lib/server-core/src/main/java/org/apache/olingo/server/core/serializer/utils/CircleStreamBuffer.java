@@ -46,6 +46,7 @@ public class CircleStreamBuffer {
 
   private Queue<ByteBuffer> bufferQueue = new LinkedBlockingQueue<>();
   private ByteBuffer currentWriteBuffer;
+  private final ByteBufferPool bufferPool;
 
   private final InternalInputStream inStream;
   private final InternalOutputStream outStream;
@@ -64,6 +65,21 @@ public class CircleStreamBuffer {
    */
   public CircleStreamBuffer(final int initialCapacity) {
     currentAllocateCapacity = initialCapacity;
+    bufferPool = null;
+    createNewWriteBuffer();
+    inStream = new InternalInputStream(this);
+    outStream = new InternalOutputStream(this);
+  }
+
+  /**
+   * Create a {@link CircleStreamBuffer} which takes its internal buffers from the given pool
+   * and gives them back as soon as the read part is closed.
+   *
+   * @param bufferPool pool for internal buffers
+   */
+  public CircleStreamBuffer(final ByteBufferPool bufferPool) {
+    currentAllocateCapacity = bufferPool.getBufferSize();
+    this.bufferPool = bufferPool;
     createNewWriteBuffer();
     inStream = new InternalInputStream(this);
     outStream = new InternalOutputStream(this);
@@ -111,8 +127,13 @@ public class CircleStreamBuffer {
     ByteBuffer buffer = bufferQueue.poll();
     while (buffer != null) {
       buffer.clear();
+      if (bufferPool != null) {
+        bufferPool.release(buffer);
+      }
       buffer = bufferQueue.poll();
     }
+    // a buffer given back to the pool must not be written anymore
+    currentWriteBuffer = null;
   }
 
   /**
@@ -125,7 +146,7 @@ public class CircleStreamBuffer {
 
   private int remaining() throws IOException {
     if (writeMode) {
-      return currentWriteBuffer.remaining();
+      return currentWriteBuffer == null ? 0 : currentWriteBuffer.remaining();
     } else {
       ByteBuffer toRead = getReadBuffer();
       if (toRead == null) {
@@ -155,6 +176,9 @@ public class CircleStreamBuffer {
       tmp = bufferQueue.peek();
       if (tmp != null && !tmp.hasRemaining()) {
         tmp = bufferQueue.poll();
+        if (bufferPool != null) {
+          bufferPool.release(tmp);
+        }
         next = true;
       }
     }
@@ -229,7 +253,7 @@ public class CircleStreamBuffer {
     }
 
     if (writeMode) {
-      if (remaining() < size) {
+      if (currentWriteBuffer == null || remaining() < size) {
         createNewWriteBuffer(size);
       }
     } else {
@@ -269,6 +293,12 @@ public class CircleStreamBuffer {
    * @return the buffer
    */
   private ByteBuffer allocateBuffer(final int requestedCapacity) {
+    if (bufferPool != null) {
+      return requestedCapacity <= bufferPool.getBufferSize() ?
+          bufferPool.acquire() :
+          ByteBuffer.allocate(requestedCapacity);
+    }
+
     if (requestedCapacity > MAX_CAPACITY) {
       currentAllocateCapacity = MAX_CAPACITY;
       return ByteBuffer.allocate(requestedCapacity);
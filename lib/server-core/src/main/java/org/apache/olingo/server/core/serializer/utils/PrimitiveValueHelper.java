@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+
+/**
+ * Helper for serializing primitive values without the detour over
+ * {@link EdmPrimitiveType#valueToString(Object, Boolean, Integer, Integer, Integer, Boolean)}
+ * where the Java type of the value already guarantees a valid result.
+ */
+public final class PrimitiveValueHelper {
+
+  private static final Map<EdmPrimitiveType, EdmPrimitiveTypeKind> KINDS;
+  static {
+    Map<EdmPrimitiveType, EdmPrimitiveTypeKind> temp = new IdentityHashMap<>();
+    for (final EdmPrimitiveTypeKind kind : EdmPrimitiveTypeKind.values()) {
+      try {
+        temp.put(EdmPrimitiveTypeFactory.getInstance(kind), kind);
+      } catch (final IllegalArgumentException e) {
+        // kind without own type instance
+      }
+    }
+    KINDS = Collections.unmodifiableMap(temp);
+  }
+
+  private PrimitiveValueHelper() {
+    // static utility class
+  }
+
+  /**
+   * Gets the kind of a primitive type.
+   * @param type the type
+   * @return the kind or <code>null</code> if the type is not one of the built-in primitive
+   * type instances (e.g., an enumeration type or a type definition)
+   */
+  public static EdmPrimitiveTypeKind getKind(final EdmPrimitiveType type) {
+    return KINDS.get(type);
+  }
+
+  /**
+   * Checks whether the given value can be written as it is for the given kind
+   * without any validation or conversion.
+   * Values of other Java types, values outside the value range of the kind,
+   * non-finite floating-point numbers, and strings with facets fall back to
+   * {@link EdmPrimitiveType#valueToString(Object, Boolean, Integer, Integer, Integer, Boolean)}.
+   * Decimal and temporal values always need the facets for validation or formatting.
+   * @param kind the primitive type kind (can be <code>null</code>)
+   * @param value the value (can be <code>null</code>)
+   * @param maxLength the MaxLength facet
+   * @param isUnicode the Unicode facet
+   * @return whether the value is valid without further checks
+   */
+  public static boolean isDirectlyWritable(final EdmPrimitiveTypeKind kind, final Object value,
+      final Integer maxLength, final Boolean isUnicode) {
+    if (kind == null || value == null) {
+      return false;
+    }
+    switch (kind) {
+    case Boolean:
+      return value instanceof Boolean;
+    case String:
+      return value instanceof String && maxLength == null && (isUnicode == null || isUnicode);
+    case Int64:
+      return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    case Int32:
+      return value instanceof Integer || value instanceof Short || value instanceof Byte;
+    case Int16:
+      return value instanceof Short || value instanceof Byte;
+    case SByte:
+      return value instanceof Byte;
+    case Byte:
+      return (value instanceof Short || value instanceof Integer)
+          && ((Number) value).intValue() >= 0 && ((Number) value).intValue() < 1 << Byte.SIZE;
+    case Double:
+      return value instanceof Double && !((Double) value).isInfinite() && !((Double) value).isNaN()
+          || value instanceof Float && !((Float) value).isInfinite() && !((Float) value).isNaN();
+    case Single:
+      return value instanceof Float && !((Float) value).isInfinite() && !((Float) value).isNaN();
+    case Guid:
+      return value instanceof UUID;
+    default:
+      return false;
+    }
+  }
+}
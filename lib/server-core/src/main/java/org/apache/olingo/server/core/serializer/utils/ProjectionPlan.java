@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+/**
+ * Immutable result of evaluating $select and $expand against a structured type.
+ * <p>The plan holds the structural properties to be written (in the order of the type)
+ * together with their selected sub-paths and the complex paths of the $expand option,
+ * so that the evaluation has to be done only once per type and not once per entity.
+ * Plans are obtained through a {@link Cache} which is keyed by the identity
+ * of the type and the query options.</p>
+ */
+public final class ProjectionPlan {
+
+  /** A structural property selected for serialization. */
+  public static final class Slot {
+    private final EdmProperty edmProperty;
+    private final Set<List<String>> selectedPaths;
+
+    private Slot(final EdmProperty edmProperty, final Set<List<String>> selectedPaths) {
+      this.edmProperty = edmProperty;
+      this.selectedPaths = selectedPaths;
+    }
+
+    public String getName() {
+      return edmProperty.getName();
+    }
+
+    public EdmProperty getEdmProperty() {
+      return edmProperty;
+    }
+
+    /**
+     * Gets the selected paths below this property.
+     * @return the selected paths or <code>null</code> if the property is selected completely
+     */
+    public Set<List<String>> getSelectedPaths() {
+      return selectedPaths;
+    }
+  }
+
+  private final List<Slot> slots;
+  private final Set<List<String>> expandedPaths;
+
+  private ProjectionPlan(final List<Slot> slots, final Set<List<String>> expandedPaths) {
+    this.slots = Collections.unmodifiableList(slots);
+    this.expandedPaths = expandedPaths;
+  }
+
+  /**
+   * Creates a new plan.
+   * @param type the structured type
+   * @param select the $select option (can be <code>null</code>)
+   * @param expand the $expand option (can be <code>null</code>)
+   * @return the plan
+   */
+  public static ProjectionPlan create(final EdmStructuredType type, final SelectOption select,
+      final ExpandOption expand) {
+    final boolean all = ExpandSelectHelper.isAll(select);
+    final Set<String> selected = all ? new HashSet<String>() :
+        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+    if (!selected.isEmpty() && type instanceof EdmEntityType) {
+      selected.addAll(((EdmEntityType) type).getKeyPredicateNames());
+    }
+    List<Slot> slots = new ArrayList<>();
+    for (final String propertyName : type.getPropertyNames()) {
+      if (all || selected.contains(propertyName)) {
+        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
+        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
+            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
+        slots.add(new Slot(edmProperty,
+            selectedPaths == null ? null : Collections.unmodifiableSet(selectedPaths)));
+      }
+    }
+    return new ProjectionPlan(slots,
+        Collections.unmodifiableSet(ExpandSelectHelper.getExpandedItemsPath(expand)));
+  }
+
+  /**
+   * Gets the selected structural properties in the order of the type.
+   * @return unmodifiable list of slots
+   */
+  public List<Slot> getSlots() {
+    return slots;
+  }
+
+  /**
+   * Gets the paths of the $expand items starting with a complex property.
+   * @return unmodifiable set of paths
+   */
+  public Set<List<String>> getExpandedPaths() {
+    return expandedPaths;
+  }
+
+  /**
+   * Finds the property with the given name, looking first at the given position.
+   * Entities usually hold their properties in the order of the type, so writing all slots
+   * of a plan in sequence finds each property with a single comparison.
+   * @param propertyName the name of the property
+   * @param properties the properties of the entity or complex value
+   * @param hint the position to look at first
+   * @return the position of the property or <code>-1</code>
+   */
+  public static int indexOfProperty(final String propertyName, final List<Property> properties, final int hint) {
+    if (properties instanceof RandomAccess) {
+      if (hint >= 0 && hint < properties.size() && propertyName.equals(properties.get(hint).getName())) {
+        return hint;
+      }
+      for (int i = 0; i < properties.size(); i++) {
+        if (propertyName.equals(properties.get(i).getName())) {
+          return i;
+        }
+      }
+    } else {
+      int i = 0;
+      for (final Property property : properties) {
+        if (propertyName.equals(property.getName())) {
+          return i;
+        }
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Cache of plans keyed by the identity of type and query options.
+   * Serializers are usually created per request, so the cache holds the plans
+   * of the expanded entities as well and is limited in size only as safeguard.
+   */
+  public static final class Cache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private final Map<Key, ProjectionPlan> plans = new ConcurrentHashMap<>();
+
+    public ProjectionPlan get(final EdmStructuredType type, final SelectOption select, final ExpandOption expand) {
+      final Key key = new Key(type, select, expand);
+      ProjectionPlan plan = plans.get(key);
+      if (plan == null) {
+        plan = create(type, select, expand);
+        if (plans.size() >= MAX_ENTRIES) {
+          plans.clear();
+        }
+        plans.put(key, plan);
+      }
+      return plan;
+    }
+  }
+
+  private static final class Key {
+    private final EdmStructuredType type;
+    private final SelectOption select;
+    private final ExpandOption expand;
+
+    private Key(final EdmStructuredType type, final SelectOption select, final ExpandOption expand) {
+      this.type = type;
+      this.select = select;
+      this.expand = expand;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return type == other.type && select == other.select && expand == other.expand;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(type) + System.identityHashCode(select))
+          + System.identityHashCode(expand);
+    }
+  }
+}
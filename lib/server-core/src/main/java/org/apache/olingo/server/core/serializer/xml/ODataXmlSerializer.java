@@ -76,10 +76,12 @@ import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
+import org.apache.olingo.server.core.serializer.DocumentSnapshots;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.PrimitiveValueHelper;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
@@ -96,6 +98,16 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   @Override
   public SerializerResult serviceDocument(final ServiceMetadata metadata, final String serviceRoot)
       throws SerializerException {
+    return DocumentSnapshots.get(metadata, "xml-service " + serviceRoot, new DocumentSnapshots.Source() {
+      @Override
+      public SerializerResult serialize() throws SerializerException {
+        return writeServiceDocument(metadata, serviceRoot);
+      }
+    });
+  }
+
+  private SerializerResult writeServiceDocument(final ServiceMetadata metadata, final String serviceRoot)
+      throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
@@ -121,6 +133,15 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   @Override
   public SerializerResult metadataDocument(final ServiceMetadata serviceMetadata) throws SerializerException {
+    return DocumentSnapshots.get(serviceMetadata, "xml-metadata", new DocumentSnapshots.Source() {
+      @Override
+      public SerializerResult serialize() throws SerializerException {
+        return writeMetadataDocument(serviceMetadata);
+      }
+    });
+  }
+
+  private SerializerResult writeMetadataDocument(final ServiceMetadata serviceMetadata) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
@@ -989,8 +1010,10 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final String xml10InvalidCharReplacement,
       final XMLStreamWriter writer) throws EdmPrimitiveTypeException, XMLStreamException {
-    final String value = type.valueToString(primitiveValue,
-        isNullable, maxLength, precision, scale, isUnicode);
+    final String value = PrimitiveValueHelper.isDirectlyWritable(PrimitiveValueHelper.getKind(type),
+        primitiveValue, maxLength, isUnicode) ?
+        primitiveValue.toString() :
+        type.valueToString(primitiveValue, isNullable, maxLength, precision, scale, isUnicode);
     if (value == null) {
       writer.writeAttribute(METADATA, NS_METADATA, Constants.ATTR_NULL, "true");
     } else {
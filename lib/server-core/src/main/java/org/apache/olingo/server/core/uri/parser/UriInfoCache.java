@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.uri.UriInfo;
+
+/**
+ * Bounded cache of parsed request URIs, to be shared by all handlers of a service.
+ * <p>Entries are keyed by the Entity Data Model, the raw OData path, the raw query, and
+ * the raw base URI; they remember for which HTTP methods the URI has been validated successfully.
+ * URIs which cannot be parsed are not cached.</p>
+ * <p>Lookups do not lock; every entry just remembers when it has been used last.
+ * If the cache is full, the least recently used entries are evicted in one go,
+ * so that the cost of finding them is shared by many insertions.</p>
+ * <p>The cached {@link UriInfo} objects are shared between requests. They are handed out as views
+ * exposing only the read methods of the interface; the query-option objects reachable from them
+ * are shared as well and must not be modified by processors.</p>
+ * <p>The cache is enabled by registering it at the handler as {@link OlingoExtension}.</p>
+ */
+public class UriInfoCache implements OlingoExtension {
+
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private final int maxEntries;
+  private final int entriesAfterEviction;
+  private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+  private final Object evictionLock = new Object();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  public UriInfoCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Creates a cache.
+   * @param maxEntries maximum number of cached URIs
+   */
+  public UriInfoCache(final int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("The maximum number of entries must be positive.");
+    }
+    this.maxEntries = maxEntries;
+    entriesAfterEviction = maxEntries - maxEntries / 10;
+  }
+
+  /**
+   * Gets the cache entry for a request URI.
+   * @param edm the Entity Data Model
+   * @param path the raw OData path
+   * @param query the raw query (can be <code>null</code>)
+   * @param baseUri the raw base URI (can be <code>null</code>)
+   * @return the entry or <code>null</code>
+   */
+  public Entry get(final Edm edm, final String path, final String query, final String baseUri) {
+    final Key key = new Key(edm, path, query, baseUri);
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      missCount.incrementAndGet();
+    } else {
+      hitCount.incrementAndGet();
+      entry.lastUsed = clock.incrementAndGet();
+    }
+    return entry;
+  }
+
+  /**
+   * Puts the result of parsing a request URI into the cache.
+   * @param edm the Entity Data Model
+   * @param path the raw OData path
+   * @param query the raw query (can be <code>null</code>)
+   * @param baseUri the raw base URI (can be <code>null</code>)
+   * @param uriInfo the parsed URI
+   * @return the new entry
+   */
+  public Entry put(final Edm edm, final String path, final String query, final String baseUri,
+      final UriInfo uriInfo) {
+    final Key key = new Key(edm, path, query, baseUri);
+    final Entry entry = new Entry(new UnmodifiableUriInfo(uriInfo));
+    entry.lastUsed = clock.incrementAndGet();
+    entries.put(key, entry);
+    if (entries.size() > maxEntries) {
+      evict();
+    }
+    return entry;
+  }
+
+  /** Removes the least recently used entries until the cache is filled to about ninety percent. */
+  private void evict() {
+    synchronized (evictionLock) {
+      final int surplus = entries.size() - entriesAfterEviction;
+      if (entries.size() <= maxEntries || surplus <= 0) {
+        return;
+      }
+      // The times of use are copied because concurrent lookups may change them while sorting.
+      final List<Candidate> candidates = new ArrayList<Candidate>(entries.size());
+      for (final Map.Entry<Key, Entry> entry : entries.entrySet()) {
+        candidates.add(new Candidate(entry.getKey(), entry.getValue()));
+      }
+      Collections.sort(candidates, new Comparator<Candidate>() {
+        @Override
+        public int compare(final Candidate candidate1, final Candidate candidate2) {
+          return Long.compare(candidate1.lastUsed, candidate2.lastUsed);
+        }
+      });
+      for (final Candidate candidate : candidates.subList(0, Math.min(surplus, candidates.size()))) {
+        entries.remove(candidate.key, candidate.entry);
+      }
+    }
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /** Gets the number of cached URIs. */
+  public int size() {
+    return entries.size();
+  }
+
+  /** Gets the number of lookups which found a cached URI. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** Gets the number of lookups which did not find a cached URI. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /** Removes all entries and resets the counters. */
+  public void clear() {
+    entries.clear();
+    hitCount.set(0);
+    missCount.set(0);
+  }
+
+  /** A parsed request URI together with the HTTP methods it is valid for. */
+  public static final class Entry {
+    private final UriInfo uriInfo;
+    private final Set<HttpMethod> validatedMethods =
+        Collections.newSetFromMap(new ConcurrentHashMap<HttpMethod, Boolean>());
+    private volatile long lastUsed;
+
+    private Entry(final UriInfo uriInfo) {
+      this.uriInfo = uriInfo;
+    }
+
+    /** Gets the parsed URI as read-only view. */
+    public UriInfo getUriInfo() {
+      return uriInfo;
+    }
+
+    /**
+     * Returns whether the URI has been validated successfully for the given HTTP method.
+     * @param method the HTTP method
+     */
+    public boolean isValidated(final HttpMethod method) {
+      return validatedMethods.contains(method);
+    }
+
+    /**
+     * Records the successful validation of the URI for the given HTTP method.
+     * @param method the HTTP method
+     */
+    public void setValidated(final HttpMethod method) {
+      validatedMethods.add(method);
+    }
+  }
+
+  private static final class Candidate {
+    private final Key key;
+    private final Entry entry;
+    private final long lastUsed;
+
+    private Candidate(final Key key, final Entry entry) {
+      this.key = key;
+      this.entry = entry;
+      lastUsed = entry.lastUsed;
+    }
+  }
+
+  private static final class Key {
+    private final Edm edm;
+    private final String path;
+    private final String query;
+    private final String baseUri;
+    private final int hash;
+
+    private Key(final Edm edm, final String path, final String query, final String baseUri) {
+      this.edm = edm;
+      this.path = path;
+      this.query = query;
+      this.baseUri = baseUri;
+      hash = 31 * (31 * (31 * System.identityHashCode(edm) + hashCode(path)) + hashCode(query))
+          + hashCode(baseUri);
+    }
+
+    private static int hashCode(final String value) {
+      return value == null ? 0 : value.hashCode();
+    }
+
+    private static boolean equals(final String value1, final String value2) {
+      return value1 == null ? value2 == null : value1.equals(value2);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return edm == other.edm && hash == other.hash
+          && equals(path, other.path) && equals(query, other.query) && equals(baseUri, other.baseUri);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
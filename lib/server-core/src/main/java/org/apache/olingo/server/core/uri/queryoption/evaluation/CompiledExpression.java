@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * An expression compiled by the {@link ExpressionCompiler}.
+ * <br/>
+ * Types are resolved and literals are parsed at compile time, so evaluation does not need
+ * any type determination anymore. Compiled expressions can be shared between threads.
+ */
+public abstract class CompiledExpression {
+
+  private final ValueKind kind;
+
+  CompiledExpression(final ValueKind kind) {
+    this.kind = kind;
+  }
+
+  ValueKind getKind() {
+    return kind;
+  }
+
+  /**
+   * Evaluates the expression for an entity.
+   * Date and time values are returned as <code>java.time</code> objects ({@link java.time.LocalDate},
+   * {@link java.time.LocalTime}, or {@link java.time.Instant}), durations as
+   * {@link java.math.BigDecimal} seconds, and enumeration values as {@link Long} flags.
+   * @param entity the entity
+   * @return the value of the expression; may be <code>null</code>
+   * @throws ODataApplicationException if the expression cannot be evaluated, e.g., on division by zero
+   */
+  public abstract Object evaluate(Entity entity) throws ODataApplicationException;
+}
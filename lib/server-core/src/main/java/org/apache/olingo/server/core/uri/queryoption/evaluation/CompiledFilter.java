@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * A compiled $filter expression.
+ * An entity matches the filter only if the expression evaluates to <code>true</code>.
+ * @see ExpressionCompiler#compileFilter(org.apache.olingo.server.api.uri.queryoption.FilterOption)
+ */
+public final class CompiledFilter {
+
+  private final CompiledExpression expression;
+
+  CompiledFilter(final CompiledExpression expression) {
+    this.expression = expression;
+  }
+
+  public boolean matches(final Entity entity) throws ODataApplicationException {
+    return Boolean.TRUE.equals(expression.evaluate(entity));
+  }
+
+  /**
+   * Removes all entities from the list which do not match the filter.
+   * The order of the remaining entities is kept; the list is compacted in one pass.
+   * @param entities a modifiable list of entities
+   */
+  public void apply(final List<Entity> entities) throws ODataApplicationException {
+    int kept = 0;
+    for (int index = 0; index < entities.size(); index++) {
+      final Entity entity = entities.get(index);
+      if (matches(entity)) {
+        if (kept != index) {
+          entities.set(kept, entity);
+        }
+        kept++;
+      }
+    }
+    entities.subList(kept, entities.size()).clear();
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * A compiled $orderby option.
+ * <br/>
+ * Entities are compared by the first order item; if equal, by the next one, and so on.
+ * <code>null</code> values are ordered before all other values.
+ * @see ExpressionCompiler#compileOrderBy(org.apache.olingo.server.api.uri.queryoption.OrderByOption)
+ */
+public final class CompiledOrderBy implements Comparator<Entity> {
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final CompiledExpression[] expressions;
+  private final ValueComparator[] comparators;
+  private final boolean[] descending;
+
+  CompiledOrderBy(final CompiledExpression[] expressions, final boolean[] descending)
+      throws ODataApplicationException {
+    this.expressions = expressions;
+    this.descending = descending;
+    comparators = new ValueComparator[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      comparators[i] = ValueComparator.forKinds(expressions[i].getKind(), expressions[i].getKind());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br/>
+   * Evaluation errors are thrown as {@link ODataRuntimeException} with the
+   * {@link ODataApplicationException} as cause; {@link #sort(List)} throws them unwrapped.
+   */
+  @Override
+  public int compare(final Entity entity1, final Entity entity2) {
+    try {
+      for (int i = 0; i < expressions.length; i++) {
+        final Object value1 = expressions[i].evaluate(entity1);
+        final Object value2 = expressions[i].evaluate(entity2);
+        final int result = value1 == null ? value2 == null ? 0 : -1 :
+            value2 == null ? 1 : comparators[i].compare(value1, value2);
+        if (result != 0) {
+          return descending[i] ? (result < 0 ? 1 : -1) : result;
+        }
+      }
+      return 0;
+    } catch (final ODataApplicationException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  /**
+   * Sorts a list of entities; the sort is stable.
+   * <br/>
+   * The order expressions are evaluated only once per entity and sort.
+   * @param entities a modifiable list of entities
+   */
+  public void sort(final List<Entity> entities) throws ODataApplicationException {
+    sort(entities, entities.size());
+  }
+
+  /**
+   * Sorts the beginning of a list of entities, for results that will be cut after a number of entities anyway,
+   * e.g., because of $top or server-side paging.
+   * <br/>
+   * Afterwards the list starts with the first <code>limit</code> entities of the stably sorted list, in order;
+   * they are followed by the remaining entities in their original relative order.
+   * Selecting the first entities takes time proportional to <code>n log(limit)</code>
+   * instead of <code>n log(n)</code> for a full sort.
+   * @param entities a modifiable list of entities
+   * @param limit the number of entities needed in sorted order
+   */
+  public void sort(final List<Entity> entities, final int limit) throws ODataApplicationException {
+    final int size = entities.size();
+    if (size < 2 || limit <= 0) {
+      return;
+    }
+    final Entity[] rows = entities.toArray(new Entity[size]);
+    final SortKeys[] keys = decorate(rows);
+
+    final int[] order;
+    if (limit < size) {
+      order = selectFirst(keys, size, limit);
+    } else {
+      order = new int[size];
+      for (int row = 0; row < size; row++) {
+        order[row] = row;
+      }
+    }
+    mergeSort(keys, order, new int[order.length], 0, order.length);
+
+    final ListIterator<Entity> iterator = entities.listIterator();
+    for (final int row : order) {
+      iterator.next();
+      iterator.set(rows[row]);
+    }
+    if (order.length < size) {
+      final boolean[] taken = new boolean[size];
+      for (final int row : order) {
+        taken[row] = true;
+      }
+      for (int row = 0; row < size; row++) {
+        if (!taken[row]) {
+          iterator.next();
+          iterator.set(rows[row]);
+        }
+      }
+    }
+  }
+
+  /** Evaluates all order expressions once for each entity. */
+  private SortKeys[] decorate(final Entity[] rows) throws ODataApplicationException {
+    final SortKeys[] keys = new SortKeys[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      keys[i] = SortKeys.create(expressions[i].getKind(), comparators[i], rows.length);
+      for (int row = 0; row < rows.length; row++) {
+        keys[i].set(row, expressions[i].evaluate(rows[row]));
+      }
+    }
+    return keys;
+  }
+
+  /** Compares two rows by their keys; equal rows keep their original order, so every sort is stable. */
+  private int compareRows(final SortKeys[] keys, final int row1, final int row2) {
+    for (int i = 0; i < keys.length; i++) {
+      final int result = keys[i].compare(row1, row2);
+      if (result != 0) {
+        return descending[i] ? (result < 0 ? 1 : -1) : result;
+      }
+    }
+    return Integer.compare(row1, row2);
+  }
+
+  /** Selects the first <code>limit</code> rows, in no particular order, with a bounded max-heap. */
+  private int[] selectFirst(final SortKeys[] keys, final int size, final int limit) {
+    final int[] heap = new int[limit];
+    for (int row = 0; row < limit; row++) {
+      heap[row] = row;
+    }
+    for (int index = limit / 2 - 1; index >= 0; index--) {
+      siftDown(keys, heap, index);
+    }
+    for (int row = limit; row < size; row++) {
+      if (compareRows(keys, row, heap[0]) < 0) {
+        heap[0] = row;
+        siftDown(keys, heap, 0);
+      }
+    }
+    return heap;
+  }
+
+  private void siftDown(final SortKeys[] keys, final int[] heap, final int start) {
+    final int row = heap[start];
+    int index = start;
+    int child = 2 * index + 1;
+    while (child < heap.length) {
+      if (child + 1 < heap.length && compareRows(keys, heap[child + 1], heap[child]) > 0) {
+        child++;
+      }
+      if (compareRows(keys, heap[child], row) <= 0) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+      child = 2 * index + 1;
+    }
+    heap[index] = row;
+  }
+
+  private void mergeSort(final SortKeys[] keys, final int[] rows, final int[] buffer, final int from, final int to) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      for (int i = from + 1; i < to; i++) {
+        final int row = rows[i];
+        int j = i;
+        for (; j > from && compareRows(keys, rows[j - 1], row) > 0; j--) {
+          rows[j] = rows[j - 1];
+        }
+        rows[j] = row;
+      }
+      return;
+    }
+    final int middle = (from + to) >>> 1;
+    mergeSort(keys, rows, buffer, from, middle);
+    mergeSort(keys, rows, buffer, middle, to);
+    if (compareRows(keys, rows[middle - 1], rows[middle]) < 0) {
+      return;  // The two halves are already in order.
+    }
+    System.arraycopy(rows, from, buffer, from, to - from);
+    int left = from;
+    int right = middle;
+    for (int i = from; i < to; i++) {
+      rows[i] = right >= to || left < middle && compareRows(keys, buffer[left], buffer[right]) < 0 ?
+          buffer[left++] : buffer[right++];
+    }
+  }
+}
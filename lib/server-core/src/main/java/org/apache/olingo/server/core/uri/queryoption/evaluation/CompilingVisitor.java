@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Visitor building the tree of compiled expressions bottom-up.
+ */
+class CompilingVisitor implements ExpressionVisitor<CompiledExpression> {
+
+  private static final Integer MAX_DURATION_PRECISION = 12;
+
+  @Override
+  public CompiledExpression visitBinaryOperator(final BinaryOperatorKind operator, final CompiledExpression left,
+      final CompiledExpression right) throws ExpressionVisitException, ODataApplicationException {
+    switch (operator) {
+    case AND:
+      return Operators.and(left, right);
+    case OR:
+      return Operators.or(left, right);
+    case EQ:
+    case NE:
+    case LT:
+    case LE:
+    case GT:
+    case GE:
+      return Operators.compare(operator, left, right);
+    case ADD:
+    case SUB:
+    case MUL:
+    case DIV:
+    case MOD:
+      return Operators.arithmetic(operator, left, right);
+    case HAS:
+      return Operators.has(left, right);
+    default:
+      throw ExpressionCompiler.notImplemented("The operator " + operator);
+    }
+  }
+
+  @Override
+  public CompiledExpression visitBinaryOperator(final BinaryOperatorKind operator, final CompiledExpression left,
+      final List<CompiledExpression> right) throws ExpressionVisitException, ODataApplicationException {
+    if (operator == BinaryOperatorKind.IN) {
+      return Operators.in(left, right);
+    }
+    throw ExpressionCompiler.notImplemented("The operator " + operator);
+  }
+
+  @Override
+  public CompiledExpression visitUnaryOperator(final UnaryOperatorKind operator, final CompiledExpression operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    return operator == UnaryOperatorKind.NOT ? Operators.not(operand) : Operators.minus(operand);
+  }
+
+  @Override
+  public CompiledExpression visitMethodCall(final MethodKind methodCall, final List<CompiledExpression> parameters)
+      throws ExpressionVisitException, ODataApplicationException {
+    return Methods.call(methodCall, parameters);
+  }
+
+  @Override
+  public CompiledExpression visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+    throw ExpressionCompiler.notImplemented("Lambda expressions");
+  }
+
+  @Override
+  public CompiledExpression visitLiteral(final Literal literal)
+      throws ExpressionVisitException, ODataApplicationException {
+    final EdmType type = literal.getType();
+    final ValueKind kind = ValueKind.of(type);
+    if (kind == ValueKind.NULL) {
+      return Operators.constant(kind, null);
+    } else if (kind == ValueKind.OTHER) {
+      throw ExpressionCompiler.notImplemented("The literal " + literal.getText());
+    }
+    final EdmPrimitiveType primitiveType = (EdmPrimitiveType) type;
+    try {
+      // Facets must not restrict literals; durations are allowed to have up to twelve fractional digits.
+      final Object value = primitiveType.valueOfString(primitiveType.fromUriLiteral(literal.getText()),
+          null, null, kind == ValueKind.DURATION ? MAX_DURATION_PRECISION : null, Integer.MAX_VALUE, null,
+          primitiveType.getDefaultType());
+      return Operators.constant(kind, kind.normalize(value));
+    } catch (final EdmPrimitiveTypeException e) {
+      throw ExpressionCompiler.badRequest("Invalid literal " + literal.getText() + ".");
+    }
+  }
+
+  @Override
+  public CompiledExpression visitMember(final Member member)
+      throws ExpressionVisitException, ODataApplicationException {
+    if (member.getStartTypeFilter() != null || member.isCollection()) {
+      throw ExpressionCompiler.notImplemented("The member " + member);
+    }
+    return PropertyPath.create(member.getResourcePath().getUriResourceParts());
+  }
+
+  @Override
+  public CompiledExpression visitAlias(final String aliasName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw ExpressionCompiler.notImplemented("Aliases");
+  }
+
+  @Override
+  public CompiledExpression visitTypeLiteral(final EdmType type)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw ExpressionCompiler.notImplemented("Type literals");
+  }
+
+  @Override
+  public CompiledExpression visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw ExpressionCompiler.notImplemented("Lambda references");
+  }
+
+  @Override
+  public CompiledExpression visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    long flags = 0;
+    try {
+      for (final String enumValue : enumValues) {
+        flags |= type.valueOfString(enumValue, null, null, null, null, null, Long.class);
+      }
+    } catch (final EdmPrimitiveTypeException e) {
+      throw ExpressionCompiler.badRequest("Invalid enumeration value.");
+    }
+    return Operators.constant(ValueKind.ENUM, flags);
+  }
+}
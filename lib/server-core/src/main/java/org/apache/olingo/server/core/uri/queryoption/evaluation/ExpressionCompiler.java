@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+
+/**
+ * Compiles $filter and $orderby expressions once into trees of specialized evaluators,
+ * to be applied to many entities held in memory.
+ * <br/>
+ * Supported are logical, comparison, and arithmetic operators on numeric values,
+ * the <code>has</code> and <code>in</code> operators, the string methods, the date and time part methods,
+ * the rounding methods, and properties reached through single-valued complex properties
+ * and expanded single-valued navigation properties.
+ * Everything else, e.g., lambda expressions, aliases, function calls, or date and time arithmetic,
+ * is rejected with status code 501 (Not Implemented) at compile time, so that callers can fall back
+ * to their own expression evaluation.
+ */
+public final class ExpressionCompiler {
+
+  private ExpressionCompiler() {
+    // Utility class
+  }
+
+  /**
+   * Compiles an expression.
+   * @param expression the expression
+   * @return the compiled expression
+   * @throws ODataApplicationException with status code 400 for invalid expressions
+   * and with status code 501 for unsupported expressions
+   */
+  public static CompiledExpression compile(final Expression expression) throws ODataApplicationException {
+    try {
+      return expression.accept(new CompilingVisitor());
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in expression compilation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /**
+   * Compiles a $filter system query option.
+   * @param filterOption the $filter system query option
+   * @return the compiled filter
+   * @throws ODataApplicationException with status code 400 for invalid expressions, including expressions
+   * not of type Edm.Boolean, and with status code 501 for unsupported expressions
+   */
+  public static CompiledFilter compileFilter(final FilterOption filterOption) throws ODataApplicationException {
+    final CompiledExpression expression = compile(filterOption.getExpression());
+    if (expression.getKind() != ValueKind.BOOLEAN) {
+      throw badRequest("Invalid filter expression. Filter expressions must return a value of type Edm.Boolean");
+    }
+    return new CompiledFilter(expression);
+  }
+
+  /**
+   * Compiles an $orderby system query option.
+   * @param orderByOption the $orderby system query option
+   * @return the compiled order
+   * @throws ODataApplicationException with status code 400 for invalid expressions
+   * and with status code 501 for unsupported expressions
+   */
+  public static CompiledOrderBy compileOrderBy(final OrderByOption orderByOption)
+      throws ODataApplicationException {
+    final List<OrderByItem> items = orderByOption.getOrders();
+    final CompiledExpression[] expressions = new CompiledExpression[items.size()];
+    final boolean[] descending = new boolean[items.size()];
+    for (int i = 0; i < items.size(); i++) {
+      expressions[i] = compile(items.get(i).getExpression());
+      if (!expressions[i].getKind().isOrdered()) {
+        throw notImplemented("Ordering by values of this type");
+      }
+      descending[i] = items.get(i).isDescending();
+    }
+    return new CompiledOrderBy(expressions, descending);
+  }
+
+  static ODataApplicationException badRequest(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+  }
+
+  static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " is not supported in compiled expressions.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Factory for the compiled method calls.
+ * All methods return <code>null</code> if one of their parameters is <code>null</code>.
+ */
+final class Methods {
+
+  private Methods() {
+    // Factory class
+  }
+
+  static CompiledExpression call(final MethodKind method, final List<CompiledExpression> parameters)
+      throws ODataApplicationException {
+    final CompiledExpression[] params = parameters.toArray(new CompiledExpression[parameters.size()]);
+    switch (method) {
+    case CONTAINS:
+    case STARTSWITH:
+    case ENDSWITH:
+    case SUBSTRINGOF:
+    case INDEXOF:
+    case CONCAT:
+      requireKinds(method, params, ValueKind.STRING, ValueKind.STRING);
+      return stringFunction(method, params[0], params[1]);
+    case LENGTH:
+    case TOLOWER:
+    case TOUPPER:
+    case TRIM:
+      requireKinds(method, params, ValueKind.STRING);
+      return stringFunction(method, params[0], null);
+    case SUBSTRING:
+      if (params.length == 2) {
+        requireKinds(method, params, ValueKind.STRING, ValueKind.INTEGRAL);
+      } else {
+        requireKinds(method, params, ValueKind.STRING, ValueKind.INTEGRAL, ValueKind.INTEGRAL);
+      }
+      return substring(params);
+    case YEAR:
+    case MONTH:
+    case DAY:
+      requireCount(method, params, 1);
+      return datePart(method, params[0], ValueKind.DATE);
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      requireCount(method, params, 1);
+      return datePart(method, params[0], ValueKind.TIME_OF_DAY);
+    case ROUND:
+    case FLOOR:
+    case CEILING:
+      return rounding(method, params);
+    default:
+      throw ExpressionCompiler.notImplemented("The method " + method);
+    }
+  }
+
+  private static CompiledExpression stringFunction(final MethodKind method,
+      final CompiledExpression first, final CompiledExpression second) {
+    final ValueKind kind = method == MethodKind.LENGTH || method == MethodKind.INDEXOF ? ValueKind.INTEGRAL :
+        method == MethodKind.TOLOWER || method == MethodKind.TOUPPER || method == MethodKind.TRIM
+            || method == MethodKind.CONCAT ? ValueKind.STRING :
+            ValueKind.BOOLEAN;
+    return new CompiledExpression(kind) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final String value = (String) first.evaluate(entity);
+        final String other = second == null ? null : (String) second.evaluate(entity);
+        if (value == null || second != null && other == null) {
+          return null;
+        }
+        switch (method) {
+        case CONTAINS:
+          return value.contains(other);
+        case STARTSWITH:
+          return value.startsWith(other);
+        case ENDSWITH:
+          return value.endsWith(other);
+        case SUBSTRINGOF:
+          return other.contains(value);
+        case INDEXOF:
+          return value.indexOf(other);
+        case CONCAT:
+          return value + other;
+        case LENGTH:
+          return value.length();
+        case TOLOWER:
+          return value.toLowerCase();
+        case TOUPPER:
+          return value.toUpperCase();
+        default:
+          return value.trim();
+        }
+      }
+    };
+  }
+
+  private static CompiledExpression substring(final CompiledExpression[] params) {
+    return new CompiledExpression(ValueKind.STRING) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final String value = (String) params[0].evaluate(entity);
+        final Number start = (Number) params[1].evaluate(entity);
+        final Number length = params.length > 2 ? (Number) params[2].evaluate(entity) : null;
+        if (value == null || start == null || params.length > 2 && length == null) {
+          return null;
+        }
+        // Out-of-range positions are clamped to the string bounds.
+        final int from = (int) Math.max(0, Math.min(start.longValue(), value.length()));
+        final int to = length == null ? value.length() :
+            (int) Math.max(from, Math.min(from + length.longValue(), value.length()));
+        return value.substring(from, to);
+      }
+    };
+  }
+
+  private static CompiledExpression datePart(final MethodKind method, final CompiledExpression operand,
+      final ValueKind partOf) throws ODataApplicationException {
+    if (operand.getKind() != ValueKind.DATE_TIME_OFFSET && operand.getKind() != partOf
+        && operand.getKind() != ValueKind.NULL) {
+      throw ExpressionCompiler.badRequest("The method " + method + " is not defined for the parameter type.");
+    }
+    final ChronoField field = method == MethodKind.YEAR ? ChronoField.YEAR :
+        method == MethodKind.MONTH ? ChronoField.MONTH_OF_YEAR :
+            method == MethodKind.DAY ? ChronoField.DAY_OF_MONTH :
+                method == MethodKind.HOUR ? ChronoField.HOUR_OF_DAY :
+                    method == MethodKind.MINUTE ? ChronoField.MINUTE_OF_HOUR :
+                        ChronoField.SECOND_OF_MINUTE;
+    return new CompiledExpression(ValueKind.INTEGRAL) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object value = operand.evaluate(entity);
+        if (value == null) {
+          return null;
+        }
+        // Date/time values with offset are evaluated in UTC.
+        final TemporalAccessor temporal = value instanceof Instant ?
+            ((Instant) value).atOffset(ZoneOffset.UTC) :
+            (TemporalAccessor) value;
+        return temporal.get(field);
+      }
+    };
+  }
+
+  private static CompiledExpression rounding(final MethodKind method, final CompiledExpression[] params)
+      throws ODataApplicationException {
+    requireCount(method, params, 1);
+    if (!params[0].getKind().isNumeric() && params[0].getKind() != ValueKind.NULL) {
+      throw ExpressionCompiler.badRequest("The method " + method + " is only defined for numeric values.");
+    }
+    final CompiledExpression operand = params[0];
+    if (operand.getKind() == ValueKind.INTEGRAL || operand.getKind() == ValueKind.NULL) {
+      return operand;
+    }
+    final RoundingMode mode = method == MethodKind.FLOOR ? RoundingMode.FLOOR :
+        method == MethodKind.CEILING ? RoundingMode.CEILING :
+            RoundingMode.HALF_UP;
+    if (operand.getKind() == ValueKind.DECIMAL) {
+      return new CompiledExpression(ValueKind.DECIMAL) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object value = operand.evaluate(entity);
+          return value == null ? null : ValueComparator.toBigDecimal(value).setScale(0, mode);
+        }
+      };
+    }
+    return new CompiledExpression(ValueKind.FLOATING) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object value = operand.evaluate(entity);
+        if (value == null) {
+          return null;
+        }
+        final double number = ((Number) value).doubleValue();
+        return Double.isNaN(number) || Double.isInfinite(number) ? number :
+            new BigDecimal(number).setScale(0, mode).doubleValue();
+      }
+    };
+  }
+
+  /** Checks the number of parameters and their kinds; <code>null</code> literals are always accepted. */
+  private static void requireKinds(final MethodKind method, final CompiledExpression[] params,
+      final ValueKind... kinds) throws ODataApplicationException {
+    requireCount(method, params, kinds.length);
+    for (int i = 0; i < kinds.length; i++) {
+      if (params[i].getKind() != kinds[i] && params[i].getKind() != ValueKind.NULL) {
+        throw ExpressionCompiler.badRequest("Invalid type of parameter " + (i + 1) + " for the method " + method
+            + ".");
+      }
+    }
+  }
+
+  private static void requireCount(final MethodKind method, final CompiledExpression[] params, final int count)
+      throws ODataApplicationException {
+    if (params.length != count) {
+      throw ExpressionCompiler.badRequest("Wrong number of parameters for the method " + method + ".");
+    }
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+
+/**
+ * Factory for the compiled operator expressions.
+ * <br/>
+ * Operands of logical operators follow three-valued logic; arithmetic operators and negation
+ * return <code>null</code> if an operand is <code>null</code>. Comparison operators always return
+ * a Boolean: <code>eq</code> and <code>ne</code> treat <code>null</code> as an ordinary value,
+ * <code>lt</code> and <code>gt</code> are false if an operand is <code>null</code>,
+ * <code>le</code> and <code>ge</code> are true only if both operands are <code>null</code>.
+ */
+final class Operators {
+
+  private Operators() {
+    // Factory class
+  }
+
+  static CompiledExpression constant(final ValueKind kind, final Object value) {
+    return new CompiledExpression(kind) {
+      @Override
+      public Object evaluate(final Entity entity) {
+        return value;
+      }
+    };
+  }
+
+  static CompiledExpression and(final CompiledExpression left, final CompiledExpression right)
+      throws ODataApplicationException {
+    requireBoolean(left, "and");
+    requireBoolean(right, "and");
+    return new CompiledExpression(ValueKind.BOOLEAN) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object l = left.evaluate(entity);
+        if (Boolean.FALSE.equals(l)) {
+          return Boolean.FALSE;
+        }
+        final Object r = right.evaluate(entity);
+        return Boolean.FALSE.equals(r) ? Boolean.FALSE : l == null || r == null ? null : Boolean.TRUE;
+      }
+    };
+  }
+
+  static CompiledExpression or(final CompiledExpression left, final CompiledExpression right)
+      throws ODataApplicationException {
+    requireBoolean(left, "or");
+    requireBoolean(right, "or");
+    return new CompiledExpression(ValueKind.BOOLEAN) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object l = left.evaluate(entity);
+        if (Boolean.TRUE.equals(l)) {
+          return Boolean.TRUE;
+        }
+        final Object r = right.evaluate(entity);
+        return Boolean.TRUE.equals(r) ? Boolean.TRUE : l == null || r == null ? null : Boolean.FALSE;
+      }
+    };
+  }
+
+  static CompiledExpression not(final CompiledExpression operand) throws ODataApplicationException {
+    requireBoolean(operand, "not");
+    return new CompiledExpression(ValueKind.BOOLEAN) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object value = operand.evaluate(entity);
+        return value == null ? null : !((Boolean) value);
+      }
+    };
+  }
+
+  static CompiledExpression compare(final BinaryOperatorKind operator,
+      final CompiledExpression left, final CompiledExpression right) throws ODataApplicationException {
+    final ValueComparator comparator = ValueComparator.forKinds(left.getKind(), right.getKind());
+    final boolean equality = operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE;
+    if (!equality && !comparator.isOrdering()) {
+      throw ExpressionCompiler.badRequest("The operator " + operator + " is not defined for the operand types.");
+    }
+    final boolean lessAllowed = operator == BinaryOperatorKind.LT || operator == BinaryOperatorKind.LE
+        || operator == BinaryOperatorKind.NE;
+    final boolean equalAllowed = operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.LE
+        || operator == BinaryOperatorKind.GE;
+    final boolean greaterAllowed = operator == BinaryOperatorKind.GT || operator == BinaryOperatorKind.GE
+        || operator == BinaryOperatorKind.NE;
+    return new CompiledExpression(ValueKind.BOOLEAN) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object l = left.evaluate(entity);
+        final Object r = right.evaluate(entity);
+        if (l == null || r == null) {
+          // As defined by OData: null equals only null, and null is neither less nor greater than any value;
+          // so lt and gt are false if an operand is null, le and ge are true only if both are null.
+          return l == r ? equalAllowed : operator == BinaryOperatorKind.NE;
+        }
+        final int result = comparator.compare(l, r);
+        return result < 0 ? lessAllowed : result > 0 ? greaterAllowed : equalAllowed;
+      }
+    };
+  }
+
+  static CompiledExpression in(final CompiledExpression left, final List<CompiledExpression> right)
+      throws ODataApplicationException {
+    final CompiledExpression[] values = right.toArray(new CompiledExpression[right.size()]);
+    final ValueComparator[] comparators = new ValueComparator[values.length];
+    for (int i = 0; i < values.length; i++) {
+      comparators[i] = ValueComparator.forKinds(left.getKind(), values[i].getKind());
+    }
+    return new CompiledExpression(ValueKind.BOOLEAN) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object l = left.evaluate(entity);
+        for (int i = 0; i < values.length; i++) {
+          final Object r = values[i].evaluate(entity);
+          if (l == null ? r == null : r != null && comparators[i].compare(l, r) == 0) {
+            return Boolean.TRUE;
+          }
+        }
+        return Boolean.FALSE;
+      }
+    };
+  }
+
+  static CompiledExpression has(final CompiledExpression left, final CompiledExpression right)
+      throws ODataApplicationException {
+    if (left.getKind() != ValueKind.ENUM && left.getKind() != ValueKind.NULL
+        || right.getKind() != ValueKind.ENUM) {
+      throw ExpressionCompiler.badRequest("The operator has is only defined for enumerations.");
+    }
+    return new CompiledExpression(ValueKind.BOOLEAN) {
+      @Override
+      public Object evaluate(final Entity entity) throws ODataApplicationException {
+        final Object l = left.evaluate(entity);
+        final Object r = right.evaluate(entity);
+        if (l == null || r == null) {
+          return null;
+        }
+        final long flags = ((Number) r).longValue();
+        return (((Number) l).longValue() & flags) == flags;
+      }
+    };
+  }
+
+  static CompiledExpression minus(final CompiledExpression operand) throws ODataApplicationException {
+    switch (operand.getKind()) {
+    case NULL:
+      return operand;
+    case INTEGRAL:
+      return new CompiledExpression(ValueKind.INTEGRAL) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object value = operand.evaluate(entity);
+          try {
+            return value == null ? null : Math.negateExact(((Number) value).longValue());
+          } catch (final ArithmeticException e) {
+            throw ExpressionCompiler.badRequest("Arithmetic overflow.");
+          }
+        }
+      };
+    case DECIMAL:
+      return new CompiledExpression(ValueKind.DECIMAL) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object value = operand.evaluate(entity);
+          return value == null ? null : ValueComparator.toBigDecimal(value).negate();
+        }
+      };
+    case FLOATING:
+      return new CompiledExpression(ValueKind.FLOATING) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object value = operand.evaluate(entity);
+          return value == null ? null : -((Number) value).doubleValue();
+        }
+      };
+    case DURATION:
+      throw ExpressionCompiler.notImplemented("Negation of durations");
+    default:
+      throw ExpressionCompiler.badRequest("The operator - is only defined for numeric values.");
+    }
+  }
+
+  static CompiledExpression arithmetic(final BinaryOperatorKind operator,
+      final CompiledExpression left, final CompiledExpression right) throws ODataApplicationException {
+    final ValueKind l = left.getKind();
+    final ValueKind r = right.getKind();
+    if (!(l.isNumeric() || l == ValueKind.NULL) || !(r.isNumeric() || r == ValueKind.NULL)) {
+      if (l == ValueKind.STRING || r == ValueKind.STRING || l == ValueKind.BOOLEAN || r == ValueKind.BOOLEAN
+          || l == ValueKind.GUID || r == ValueKind.GUID || l == ValueKind.ENUM || r == ValueKind.ENUM) {
+        throw ExpressionCompiler.badRequest("The operator " + operator + " is only defined for numeric values.");
+      }
+      throw ExpressionCompiler.notImplemented("Date and time arithmetic");
+    }
+    final ValueKind kind = l == ValueKind.FLOATING || r == ValueKind.FLOATING ? ValueKind.FLOATING :
+        l == ValueKind.DECIMAL || r == ValueKind.DECIMAL ? ValueKind.DECIMAL :
+            l == ValueKind.NULL && r == ValueKind.NULL ? ValueKind.NULL :
+                ValueKind.INTEGRAL;
+    if (l == ValueKind.NULL || r == ValueKind.NULL) {
+      return constant(kind, null);
+    }
+    switch (kind) {
+    case FLOATING:
+      if (operator == BinaryOperatorKind.MOD) {
+        throw ExpressionCompiler.notImplemented("The operator mod for floating-point values");
+      }
+      return new CompiledExpression(kind) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object lv = left.evaluate(entity);
+          final Object rv = right.evaluate(entity);
+          return lv == null || rv == null ? null :
+              calculate(operator, ((Number) lv).doubleValue(), ((Number) rv).doubleValue());
+        }
+      };
+    case DECIMAL:
+      return new CompiledExpression(kind) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object lv = left.evaluate(entity);
+          final Object rv = right.evaluate(entity);
+          return lv == null || rv == null ? null :
+              calculate(operator, ValueComparator.toBigDecimal(lv), ValueComparator.toBigDecimal(rv));
+        }
+      };
+    default:
+      return new CompiledExpression(kind) {
+        @Override
+        public Object evaluate(final Entity entity) throws ODataApplicationException {
+          final Object lv = left.evaluate(entity);
+          final Object rv = right.evaluate(entity);
+          return lv == null || rv == null ? null :
+              calculate(operator, ((Number) lv).longValue(), ((Number) rv).longValue());
+        }
+      };
+    }
+  }
+
+  private static double calculate(final BinaryOperatorKind operator, final double left, final double right) {
+    switch (operator) {
+    case ADD:
+      return left + right;
+    case SUB:
+      return left - right;
+    case MUL:
+      return left * right;
+    default:
+      return left / right;
+    }
+  }
+
+  private static BigDecimal calculate(final BinaryOperatorKind operator, final BigDecimal left,
+      final BigDecimal right) throws ODataApplicationException {
+    if ((operator == BinaryOperatorKind.DIV || operator == BinaryOperatorKind.MOD) && right.signum() == 0) {
+      throw ExpressionCompiler.badRequest("Division by zero.");
+    }
+    switch (operator) {
+    case ADD:
+      return left.add(right);
+    case SUB:
+      return left.subtract(right);
+    case MUL:
+      return left.multiply(right);
+    case MOD:
+      return left.remainder(right);
+    default:
+      return left.divide(right, MathContext.DECIMAL128);
+    }
+  }
+
+  private static long calculate(final BinaryOperatorKind operator, final long left, final long right)
+      throws ODataApplicationException {
+    try {
+      switch (operator) {
+      case ADD:
+        return Math.addExact(left, right);
+      case SUB:
+        return Math.subtractExact(left, right);
+      case MUL:
+        return Math.multiplyExact(left, right);
+      case MOD:
+        return left % right;
+      default:
+        if (left == Long.MIN_VALUE && right == -1) {
+          throw new ArithmeticException();
+        }
+        return left / right;
+      }
+    } catch (final ArithmeticException e) {
+      throw ExpressionCompiler.badRequest(right == 0 ? "Division by zero." : "Arithmetic overflow.");
+    }
+  }
+
+  private static void requireBoolean(final CompiledExpression operand, final String operator)
+      throws ODataApplicationException {
+    if (operand.getKind() != ValueKind.BOOLEAN && operand.getKind() != ValueKind.NULL) {
+      throw ExpressionCompiler.badRequest("The operator " + operator + " is only defined for Boolean values.");
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Linked;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+
+/**
+ * Accessor for a property reached from the entity through single-valued complex properties
+ * and single-valued navigation properties with expanded content.
+ * <br/>
+ * The position of each property found is remembered as hint for the next entity, so that for
+ * uniformly built entities the properties are found without searching.
+ */
+final class PropertyPath extends CompiledExpression {
+
+  private final String[] names;
+  private final boolean[] navigation;
+  private final int[] hints;
+
+  private PropertyPath(final ValueKind kind, final String[] names, final boolean[] navigation) {
+    super(kind);
+    this.names = names;
+    this.navigation = navigation;
+    hints = new int[names.length];
+  }
+
+  /**
+   * Creates the accessor for the resource path of a member expression.
+   * @throws ODataApplicationException with status code 501 if the path contains unsupported parts
+   */
+  static PropertyPath create(final List<UriResource> parts) throws ODataApplicationException {
+    final String[] names = new String[parts.size()];
+    final boolean[] navigation = new boolean[parts.size()];
+    ValueKind kind = null;
+    for (int i = 0; i < parts.size(); i++) {
+      final UriResource part = parts.get(i);
+      if (part instanceof UriResourceNavigation && i < parts.size() - 1
+          && !((UriResourceNavigation) part).isCollection()
+          && ((UriResourceNavigation) part).getTypeFilterOnEntry() == null) {
+        names[i] = ((UriResourceNavigation) part).getProperty().getName();
+        navigation[i] = true;
+      } else if ((part instanceof UriResourcePrimitiveProperty
+          || part instanceof UriResourceComplexProperty && i < parts.size() - 1
+              && ((UriResourceComplexProperty) part).getComplexTypeFilter() == null)
+          && !((UriResourceProperty) part).isCollection()) {
+        names[i] = ((UriResourceProperty) part).getProperty().getName();
+        kind = ValueKind.of(((UriResourceProperty) part).getProperty().getType());
+      } else {
+        throw ExpressionCompiler.notImplemented("The path segment " + part.getSegmentValue());
+      }
+    }
+    return new PropertyPath(kind, names, navigation);
+  }
+
+  @Override
+  public Object evaluate(final Entity entity) {
+    Linked current = entity;
+    List<Property> properties = entity.getProperties();
+    Object value = null;
+    for (int i = 0; i < names.length; i++) {
+      if (navigation[i]) {
+        final Link link = current.getNavigationLink(names[i]);
+        final Entity target = link == null ? null : link.getInlineEntity();
+        if (target == null) {
+          return null;
+        }
+        current = target;
+        properties = target.getProperties();
+      } else {
+        final Property property = find(properties, i);
+        value = property == null ? null : property.getValue();
+        if (value instanceof ComplexValue) {
+          current = (ComplexValue) value;
+          properties = ((ComplexValue) value).getValue();
+        } else if (value == null || i < names.length - 1) {
+          return null;
+        }
+      }
+    }
+    return getKind().normalize(value);
+  }
+
+  private Property find(final List<Property> properties, final int step) {
+    final String name = names[step];
+    // Reading and writing an int is atomic, so a hint from a concurrent evaluation is never torn.
+    final int hint = hints[step];
+    if (hint < properties.size()) {
+      final Property property = properties.get(hint);
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    for (int index = 0; index < properties.size(); index++) {
+      final Property property = properties.get(index);
+      if (name.equals(property.getName())) {
+        hints[step] = index;
+        return property;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * The precomputed values of one order item for all rows of a sort, held in a column.
+ * <br/>
+ * Integral numbers, enumeration values, dates, and times of day are held as primitive <code>long</code>s,
+ * floating-point numbers as primitive <code>double</code>s, so that comparing them needs neither
+ * unboxing nor a virtual comparator call; all other values are held as objects.
+ * In all cases <code>null</code> values are ordered before all other values.
+ */
+abstract class SortKeys {
+
+  protected final boolean[] nulls;
+
+  private SortKeys(final int size) {
+    nulls = new boolean[size];
+  }
+
+  /** Creates the column for values of the given kind. */
+  static SortKeys create(final ValueKind kind, final ValueComparator comparator, final int size) {
+    switch (kind) {
+    case INTEGRAL:
+    case ENUM:
+    case DATE:
+    case TIME_OF_DAY:
+      return new LongKeys(size);
+    case FLOATING:
+      return new DoubleKeys(size);
+    default:
+      return new ObjectKeys(comparator, size);
+    }
+  }
+
+  /** Stores the (normalized) value of a row. */
+  void set(final int row, final Object value) {
+    if (value == null) {
+      nulls[row] = true;
+    } else {
+      setValue(row, value);
+    }
+  }
+
+  /**
+   * Compares the values of two rows.
+   * @return a negative number, zero, or a positive number if the value of the first row is less than,
+   * equal to, or greater than the value of the second row
+   */
+  int compare(final int row1, final int row2) {
+    return nulls[row1] ? nulls[row2] ? 0 : -1 :
+        nulls[row2] ? 1 : compareValues(row1, row2);
+  }
+
+  protected abstract void setValue(int row, Object value);
+
+  protected abstract int compareValues(int row1, int row2);
+
+  private static final class LongKeys extends SortKeys {
+    private final long[] values;
+
+    private LongKeys(final int size) {
+      super(size);
+      values = new long[size];
+    }
+
+    @Override
+    protected void setValue(final int row, final Object value) {
+      values[row] = value instanceof LocalDate ? ((LocalDate) value).toEpochDay() :
+          value instanceof LocalTime ? ((LocalTime) value).toNanoOfDay() :
+              ((Number) value).longValue();
+    }
+
+    @Override
+    protected int compareValues(final int row1, final int row2) {
+      return Long.compare(values[row1], values[row2]);
+    }
+  }
+
+  private static final class DoubleKeys extends SortKeys {
+    private final double[] values;
+
+    private DoubleKeys(final int size) {
+      super(size);
+      values = new double[size];
+    }
+
+    @Override
+    protected void setValue(final int row, final Object value) {
+      values[row] = ((Number) value).doubleValue();
+    }
+
+    @Override
+    protected int compareValues(final int row1, final int row2) {
+      final double l = values[row1];
+      final double r = values[row2];
+      // Like the comparator for floating-point values, this treats 0.0 and -0.0 as equal.
+      return l < r ? -1 : l > r ? 1 : l == r ? 0 : Double.compare(l, r);
+    }
+  }
+
+  private static final class ObjectKeys extends SortKeys {
+    private final ValueComparator comparator;
+    private final Object[] values;
+
+    private ObjectKeys(final ValueComparator comparator, final int size) {
+      super(size);
+      this.comparator = comparator;
+      values = new Object[size];
+    }
+
+    @Override
+    protected void setValue(final int row, final Object value) {
+      values[row] = value;
+    }
+
+    @Override
+    protected int compareValues(final int row1, final int row2) {
+      return comparator.compare(values[row1], values[row2]);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Comparison of two non-null values, chosen once for the kinds of both operands.
+ */
+abstract class ValueComparator {
+
+  private static final ValueComparator LONG = new ValueComparator() {
+    @Override
+    int compare(final Object left, final Object right) {
+      return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+    }
+  };
+
+  private static final ValueComparator DOUBLE = new ValueComparator() {
+    @Override
+    int compare(final Object left, final Object right) {
+      final double l = ((Number) left).doubleValue();
+      final double r = ((Number) right).doubleValue();
+      // Unlike Double.compare, this treats 0.0 and -0.0 as equal.
+      return l < r ? -1 : l > r ? 1 : l == r ? 0 : Double.compare(l, r);
+    }
+  };
+
+  private static final ValueComparator DECIMAL = new ValueComparator() {
+    @Override
+    int compare(final Object left, final Object right) {
+      return toBigDecimal(left).compareTo(toBigDecimal(right));
+    }
+  };
+
+  private static final ValueComparator NATURAL = new ValueComparator() {
+    @Override
+    @SuppressWarnings("unchecked")
+    int compare(final Object left, final Object right) {
+      return ((Comparable<Object>) left).compareTo(right);
+    }
+  };
+
+  private static final ValueComparator EQUALITY = new ValueComparator() {
+    @Override
+    int compare(final Object left, final Object right) {
+      return Objects.deepEquals(left, right) ? 0 : 1;
+    }
+
+    @Override
+    boolean isOrdering() {
+      return false;
+    }
+  };
+
+  /**
+   * Compares two values.
+   * @return a negative number, zero, or a positive number if the left value is less than,
+   * equal to, or greater than the right value
+   */
+  abstract int compare(Object left, Object right);
+
+  /** Whether the comparator defines an order or can only tell equality. */
+  boolean isOrdering() {
+    return true;
+  }
+
+  /**
+   * Chooses the comparator for values of the given kinds.
+   * @throws ODataApplicationException if values of these kinds cannot be compared
+   */
+  static ValueComparator forKinds(final ValueKind left, final ValueKind right) throws ODataApplicationException {
+    if (left == ValueKind.NULL || right == ValueKind.NULL) {
+      return forKind(left == ValueKind.NULL ? right : left);
+    } else if (left.isNumeric() && right.isNumeric()) {
+      return left == ValueKind.FLOATING || right == ValueKind.FLOATING ? DOUBLE :
+          left == ValueKind.DECIMAL || right == ValueKind.DECIMAL ? DECIMAL :
+              LONG;
+    } else if (left == right) {
+      return forKind(left);
+    } else {
+      throw ExpressionCompiler.badRequest("Incompatible types " + left + " and " + right + ".");
+    }
+  }
+
+  private static ValueComparator forKind(final ValueKind kind) {
+    switch (kind) {
+    case INTEGRAL:
+    case ENUM:
+      return LONG;
+    case DECIMAL:
+      return DECIMAL;
+    case FLOATING:
+      return DOUBLE;
+    case OTHER:
+      return EQUALITY;
+    default:
+      return NATURAL;
+    }
+  }
+
+  static BigDecimal toBigDecimal(final Object value) {
+    return value instanceof BigDecimal ? (BigDecimal) value :
+        value instanceof Double || value instanceof Float ? BigDecimal.valueOf(((Number) value).doubleValue()) :
+            BigDecimal.valueOf(((Number) value).longValue());
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+
+/**
+ * Classification of values used to choose specialized operations at compile time.
+ * Date and time values are normalized to <code>java.time</code> objects, durations to {@link BigDecimal} seconds,
+ * and enumeration values to {@link Long} flags, so that they can be compared directly.
+ * <br/>
+ * Also used outside of expression evaluation to compare values of in-memory data,
+ * e.g., by {@link org.apache.olingo.server.core.data.EntityKeyIndex}.
+ */
+public enum ValueKind {
+  NULL, BOOLEAN, STRING, INTEGRAL, DECIMAL, FLOATING,
+  DATE, TIME_OF_DAY, DATE_TIME_OFFSET, DURATION, GUID, ENUM, OTHER;
+
+  boolean isNumeric() {
+    return this == INTEGRAL || this == DECIMAL || this == FLOATING;
+  }
+
+  boolean isOrdered() {
+    return this != OTHER;
+  }
+
+  /**
+   * Converts a value as found in an entity into the representation used for this kind.
+   * @param value the value; may be <code>null</code>
+   */
+  public Object normalize(final Object value) {
+    if (value == null) {
+      return null;
+    }
+    switch (this) {
+    case DATE:
+      return toDate(value);
+    case TIME_OF_DAY:
+      return toTimeOfDay(value);
+    case DATE_TIME_OFFSET:
+      return toInstant(value);
+    case DURATION:
+      return toSeconds(value);
+    case ENUM:
+      return value instanceof Number && !(value instanceof Long) ? Long.valueOf(((Number) value).longValue()) : value;
+    default:
+      return value;
+    }
+  }
+
+  /**
+   * Gets the kind of the values of a type.
+   * @param type the type; may be <code>null</code> for the null literal
+   */
+  public static ValueKind of(final EdmType type) {
+    if (type == null) {
+      return NULL;
+    } else if (type.getKind() == EdmTypeKind.ENUM) {
+      return ENUM;
+    } else if (type.getKind() == EdmTypeKind.DEFINITION) {
+      return of(((EdmTypeDefinition) type).getUnderlyingType());
+    } else if (type.getKind() != EdmTypeKind.PRIMITIVE) {
+      return OTHER;
+    }
+    switch (EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName())) {
+    case Boolean:
+      return BOOLEAN;
+    case String:
+      return STRING;
+    case Byte:
+    case SByte:
+    case Int16:
+    case Int32:
+    case Int64:
+      return INTEGRAL;
+    case Decimal:
+      return DECIMAL;
+    case Single:
+    case Double:
+      return FLOATING;
+    case Date:
+      return DATE;
+    case TimeOfDay:
+      return TIME_OF_DAY;
+    case DateTimeOffset:
+      return DATE_TIME_OFFSET;
+    case Duration:
+      return DURATION;
+    case Guid:
+      return GUID;
+    default:
+      return OTHER;
+    }
+  }
+
+  private static LocalDate toDate(final Object value) {
+    if (value instanceof LocalDate) {
+      return (LocalDate) value;
+    } else if (value instanceof java.sql.Date) {
+      return ((java.sql.Date) value).toLocalDate();
+    } else if (value instanceof GregorianCalendar) {
+      return ((GregorianCalendar) value).toZonedDateTime().toLocalDate();
+    } else {
+      return toZoned(value).toLocalDate();
+    }
+  }
+
+  private static LocalTime toTimeOfDay(final Object value) {
+    if (value instanceof LocalTime) {
+      return (LocalTime) value;
+    } else if (value instanceof java.sql.Time) {
+      return ((java.sql.Time) value).toLocalTime();
+    } else if (value instanceof GregorianCalendar) {
+      return ((GregorianCalendar) value).toZonedDateTime().toLocalTime();
+    } else {
+      return toZoned(value).toLocalTime();
+    }
+  }
+
+  private static Instant toInstant(final Object value) {
+    if (value instanceof Instant) {
+      return (Instant) value;
+    } else if (value instanceof Timestamp) {
+      return ((Timestamp) value).toInstant();
+    } else if (value instanceof java.util.Date) {
+      return Instant.ofEpochMilli(((java.util.Date) value).getTime());
+    } else if (value instanceof Calendar) {
+      return ((Calendar) value).toInstant();
+    } else if (value instanceof TemporalAccessor) {
+      return Instant.from((TemporalAccessor) value);
+    } else if (value instanceof Long) {
+      return Instant.ofEpochMilli((Long) value);
+    } else {
+      throw unsupported(value);
+    }
+  }
+
+  private static ZonedDateTime toZoned(final Object value) {
+    if (value instanceof Calendar) {
+      return ((Calendar) value).toInstant().atZone(((Calendar) value).getTimeZone().toZoneId());
+    } else if (value instanceof ZonedDateTime) {
+      return (ZonedDateTime) value;
+    } else {
+      return toInstant(value).atZone(ZoneId.systemDefault());
+    }
+  }
+
+  private static BigDecimal toSeconds(final Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof Duration) {
+      final Duration duration = (Duration) value;
+      return BigDecimal.valueOf(duration.getSeconds()).add(BigDecimal.valueOf(duration.getNano(), 9));
+    } else if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(((Number) value).doubleValue());
+    } else if (value instanceof Number) {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    } else {
+      throw unsupported(value);
+    }
+  }
+
+  private static ODataRuntimeException unsupported(final Object value) {
+    return new ODataRuntimeException("The value type " + value.getClass() + " is not supported.");
+  }
+}
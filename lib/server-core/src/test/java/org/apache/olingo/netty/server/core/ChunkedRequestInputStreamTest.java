@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+
+public class ChunkedRequestInputStreamTest {
+
+  @Test
+  public void readChunks() throws Exception {
+    final EmbeddedChannel channel = new EmbeddedChannel();
+    final ChunkedRequestInputStream body = new ChunkedRequestInputStream(channel, 8);
+    final ByteBuf first = buffer("1234");
+    final ByteBuf second = buffer("56789");
+    body.offer(new DefaultHttpContent(first));
+    assertTrue(channel.config().isAutoRead());
+    body.offer(new DefaultHttpContent(second));
+    assertFalse(channel.config().isAutoRead());
+    body.offer(new DefaultLastHttpContent(buffer("0")));
+
+    final byte[] start = new byte[6];
+    assertEquals(4, body.read(start, 0, 6));
+    assertEquals(5, body.read(start, 0, 6));
+    assertTrue(channel.config().isAutoRead());
+    assertEquals('0', body.read());
+    assertEquals(-1, body.read());
+    body.close();
+    assertEquals(1, first.refCnt());
+    assertEquals(1, second.refCnt());
+  }
+
+  @Test
+  public void readAll() throws Exception {
+    final ChunkedRequestInputStream body = new ChunkedRequestInputStream(new EmbeddedChannel());
+    final Thread producer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 100; i++) {
+          body.offer(new DefaultHttpContent(buffer("chunk" + i)));
+        }
+        body.offer(new DefaultLastHttpContent());
+      }
+    };
+    producer.start();
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[7];
+    int count = body.read(buffer);
+    while (count >= 0) {
+      result.write(buffer, 0, count);
+      count = body.read(buffer);
+    }
+    producer.join();
+    final StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      expected.append("chunk").append(i);
+    }
+    assertArrayEquals(expected.toString().getBytes(StandardCharsets.US_ASCII), result.toByteArray());
+  }
+
+  @Test
+  public void closeReleasesChunks() throws Exception {
+    final EmbeddedChannel channel = new EmbeddedChannel();
+    final ChunkedRequestInputStream body = new ChunkedRequestInputStream(channel, 4);
+    final ByteBuf first = buffer("12345");
+    body.offer(new DefaultHttpContent(first));
+    assertFalse(channel.config().isAutoRead());
+    body.close();
+    assertTrue(channel.config().isAutoRead());
+    assertEquals(1, first.refCnt());
+
+    final ByteBuf late = buffer("6");
+    body.offer(new DefaultHttpContent(late));
+    assertEquals(1, late.refCnt());
+  }
+
+  @Test
+  public void failure() throws Exception {
+    final ChunkedRequestInputStream body = new ChunkedRequestInputStream(new EmbeddedChannel());
+    body.offer(new DefaultHttpContent(buffer("1")));
+    body.fail(new IOException("Connection reset"));
+    assertEquals('1', body.read());
+    try {
+      body.read();
+      fail("Expected an exception.");
+    } catch (final IOException e) {
+      assertEquals("Connection reset", e.getCause().getMessage());
+    }
+  }
+
+  private static ByteBuf buffer(final String content) {
+    return Unpooled.copiedBuffer(content, StandardCharsets.US_ASCII);
+  }
+}
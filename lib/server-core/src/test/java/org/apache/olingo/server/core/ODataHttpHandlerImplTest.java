@@ -18,16 +18,40 @@
  */
 package org.apache.olingo.server.core;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ContentEncodingOptions;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
 import org.junit.Test;
 
 public class ODataHttpHandlerImplTest {
@@ -224,4 +248,120 @@ public class ODataHttpHandlerImplTest {
     
     }
   }
+  @Test
+  public void convertToHttpWithContentEncoding() throws Exception {
+    final ContentEncoder encoder = new ContentEncoder(ContentEncodingOptions.with().minimumSize(100).build());
+    final byte[] content = new byte[1000];
+    Arrays.fill(content, (byte) 'a');
+    final ODataResponse odResponse = new ODataResponse();
+    odResponse.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    odResponse.setHeader(HttpHeader.CONTENT_LENGTH, "1000");
+    odResponse.setContent(new ByteArrayInputStream(content));
+
+    final String encoding = encoder.prepare(Arrays.asList("deflate;q=0.8, gzip"), odResponse);
+    assertEquals(ContentEncoder.GZIP, encoding);
+    assertNull(odResponse.getHeader(HttpHeader.CONTENT_LENGTH));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final HttpServletResponse response = mockResponse(output);
+    final long count = ODataHttpHandlerImpl.convertToHttp(response, odResponse, encoder, encoding);
+
+    verify(response).setHeader(HttpHeader.CONTENT_ENCODING, ContentEncoder.GZIP);
+    verify(response).addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+    verify(response, never()).addHeader(eq(HttpHeader.CONTENT_LENGTH), anyString());
+    assertEquals(output.size(), count);
+    assertTrue(count < content.length);
+    final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+      int b;
+      while ((b = stream.read()) != -1) {
+        decoded.write(b);
+      }
+    }
+    assertArrayEquals(content, decoded.toByteArray());
+  }
+
+  @Test
+  public void convertToHttpBelowMinimumSize() throws Exception {
+    final ContentEncoder encoder = new ContentEncoder(ContentEncodingOptions.with().build());
+    final ODataResponse odResponse = new ODataResponse();
+    odResponse.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    odResponse.setContent(new ByteArrayInputStream("small".getBytes(StandardCharsets.UTF_8)));
+
+    final String encoding = encoder.prepare(Arrays.asList("gzip"), odResponse);
+    assertEquals(ContentEncoder.GZIP, encoding);
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final HttpServletResponse response = mockResponse(output);
+    assertEquals(5, ODataHttpHandlerImpl.convertToHttp(response, odResponse, encoder, encoding));
+
+    verify(response, never()).setHeader(eq(HttpHeader.CONTENT_ENCODING), anyString());
+    assertEquals("small", new String(output.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void negotiateContentEncoding() {
+    assertEquals(ContentEncoder.GZIP, ContentEncoder.negotiate(Arrays.asList("gzip, deflate")));
+    assertEquals(ContentEncoder.DEFLATE, ContentEncoder.negotiate(Arrays.asList("gzip;q=0.5", "deflate")));
+    assertEquals(ContentEncoder.DEFLATE, ContentEncoder.negotiate(Arrays.asList("gzip;q=0, *")));
+    assertEquals(ContentEncoder.GZIP, ContentEncoder.negotiate(Arrays.asList("*")));
+    assertNull(ContentEncoder.negotiate(Arrays.asList("identity, br")));
+    assertNull(ContentEncoder.negotiate(Arrays.asList("*;q=0")));
+    assertNull(ContentEncoder.negotiate(null));
+  }
+
+  @Test
+  public void decodeRequestBody() throws Exception {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream stream = new DeflaterOutputStream(compressed)) {
+      stream.write("body".getBytes(StandardCharsets.UTF_8));
+    }
+    final ODataRequest request = new ODataRequest();
+    request.setHeader(HttpHeader.CONTENT_ENCODING, "Deflate");
+    request.setHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(compressed.size()));
+    request.setBody(new ByteArrayInputStream(compressed.toByteArray()));
+
+    new ContentEncoder(ContentEncodingOptions.with().build()).decode(request);
+
+    assertNull(request.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertNull(request.getHeader(HttpHeader.CONTENT_LENGTH));
+    final byte[] buffer = new byte[10];
+    assertEquals(4, request.getBody().read(buffer));
+    assertEquals("body", new String(buffer, 0, 4, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void decodeRequestBodyExceedingMaximumSize() throws Exception {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream stream = new GZIPOutputStream(compressed)) {
+      stream.write(new byte[100000]);
+    }
+    final ODataRequest request = new ODataRequest();
+    request.setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+    request.setBody(new ByteArrayInputStream(compressed.toByteArray()));
+
+    new ContentEncoder(ContentEncodingOptions.with().maximumDecodedSize(1000).build()).decode(request);
+
+    final InputStream body = request.getBody();
+    final byte[] buffer = new byte[100];
+    try {
+      while (body.read(buffer) != -1) {
+        // Just read the body.
+      }
+      fail("Expected IOException");
+    } catch (final IOException e) {
+      assertTrue(e.getMessage().contains("1000"));
+    }
+  }
+
+  private static HttpServletResponse mockResponse(final OutputStream output) throws IOException {
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        output.write(b);
+      }
+    });
+    return response;
+  }
 }
@@ -21,11 +21,15 @@ package org.apache.olingo.server.core.batchhandler;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -33,6 +37,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.olingo.commons.api.ex.ODataException;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -49,12 +57,15 @@ import org.apache.olingo.server.api.batch.BatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.api.serializer.BatchSerializerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
 import org.apache.olingo.server.core.deserializer.batch.BatchLineReader;
+import org.apache.olingo.server.core.deserializer.batch.BatchParser;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
+import org.apache.olingo.server.core.serializer.json.JsonSerializerSupport;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -78,6 +89,7 @@ public class MockedBatchHandlerTest {
 
     entityCounter = 1;
     oDataHandler = mock(ODataHandlerImpl.class);
+    when(oDataHandler.getJsonSerializerSupport()).thenReturn(JsonSerializerSupport.getDefault());
     batchHandler = new BatchHandler(oDataHandler, batchProcessor);
   }
 
@@ -519,9 +531,256 @@ public class MockedBatchHandlerTest {
     batchHandler.process(request, response, true);
   }
 
+  @Test
+  public void json() throws Exception {
+    final String content = "{\"requests\":["
+        + "{\"id\":\"0\",\"method\":\"get\",\"url\":\"ESAllPrim(0)\"},"
+        + "{\"id\":\"1\",\"atomicityGroup\":\"g1\",\"method\":\"post\",\"url\":\"ESAllPrim\",\"body\":{}},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"method\":\"post\","
+        + "\"url\":\"$1/NavPropertyETTwoPrimMany\",\"body\":{}},"
+        + "{\"id\":\"3\",\"dependsOn\":[\"g1\"],\"method\":\"get\",\"url\":\"ESAllPrim(1)\"}]}";
+    final ODataResponse response = processJson(content, null);
+
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals(ContentType.APPLICATION_JSON.toContentTypeString(), response.getHeader(HttpHeader.CONTENT_TYPE));
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"0\",\"status\":200},"
+        + "{\"id\":\"1\",\"atomicityGroup\":\"g1\",\"status\":201,"
+        + "\"headers\":{\"Location\":\"" + BASE_URI + "/ESAllPrim(1)\"}},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"status\":201,"
+        + "\"headers\":{\"Location\":\"" + BASE_URI + "/ESTwoPrim(2)\"}},"
+        + "{\"id\":\"3\",\"status\":200}]}",
+        toString(response));
+  }
+
+  @Test
+  public void jsonFailedDependency() throws Exception {
+    final String content = "{\"requests\":["
+        + "{\"id\":\"0\",\"method\":\"get\",\"url\":\"ESNotFound\"},"
+        + "{\"id\":\"1\",\"dependsOn\":[\"0\"],\"method\":\"get\",\"url\":\"ESAllPrim\"},"
+        + "{\"id\":\"2\",\"method\":\"get\",\"url\":\"ESAllPrim\"}]}";
+
+    ODataResponse response = processJson(content, null);
+    assertEquals("{\"responses\":[{\"id\":\"0\",\"status\":404}]}",
+        toString(response));
+
+    response = processJson(content, "odata.continue-on-error");
+    assertEquals("odata.continue-on-error", response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"0\",\"status\":404},"
+        + "{\"id\":\"1\",\"status\":424},"
+        + "{\"id\":\"2\",\"status\":200}]}",
+        toString(response));
+  }
+
+  @Test
+  public void jsonFailedAtomicityGroup() throws Exception {
+    final String content = "{\"requests\":["
+        + "{\"id\":\"1\",\"atomicityGroup\":\"g1\",\"method\":\"post\",\"url\":\"ESAllPrim\",\"body\":{}},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"method\":\"post\",\"url\":\"ESNotFound\",\"body\":{}},"
+        + "{\"id\":\"3\",\"atomicityGroup\":\"g1\",\"method\":\"post\",\"url\":\"ESTwoPrim\",\"body\":{}},"
+        + "{\"id\":\"4\",\"dependsOn\":[\"g1\"],\"method\":\"get\",\"url\":\"ESAllPrim\"}]}";
+
+    final ODataResponse response = processJson(content, "odata.continue-on-error");
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"1\",\"atomicityGroup\":\"g1\",\"status\":404},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"status\":404},"
+        + "{\"id\":\"3\",\"atomicityGroup\":\"g1\",\"status\":404},"
+        + "{\"id\":\"4\",\"status\":424}]}",
+        toString(response));
+  }
+
+  @Test
+  public void jsonParallel() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    when(oDataHandler.getParallelBatchProcessing()).thenReturn(new ParallelBatchProcessing(executor, 2));
+    when(oDataHandler.copy()).thenReturn(oDataHandler);
+    // The two reads can only succeed if they are executed at the same time.
+    final CountDownLatch latch = new CountDownLatch(2);
+    doAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataRequest request = (ODataRequest) invocation.getArguments()[0];
+        final ODataResponse response = buildResponse(request);
+        if (request.getMethod() == HttpMethod.GET && !request.getRawODataPath().startsWith("/ESTwoPrim")) {
+          latch.countDown();
+          if (!latch.await(10, TimeUnit.SECONDS)) {
+            response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+          }
+        }
+        return response;
+      }
+    }).when(oDataHandler).process(any(ODataRequest.class));
+
+    final String content = "{\"requests\":["
+        + "{\"id\":\"0\",\"method\":\"get\",\"url\":\"ESAllPrim(0)\"},"
+        + "{\"id\":\"1\",\"method\":\"get\",\"url\":\"ESAllPrim(1)\"},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"method\":\"post\",\"url\":\"ESAllPrim\",\"body\":{}},"
+        + "{\"id\":\"3\",\"atomicityGroup\":\"g1\",\"method\":\"post\","
+        + "\"url\":\"$2/NavPropertyETTwoPrimMany\",\"body\":{}},"
+        + "{\"id\":\"4\",\"dependsOn\":[\"g1\"],\"method\":\"get\",\"url\":\"ESTwoPrim(2)\"}]}";
+    final ODataRequest request = buildODataRequest(content, Collections.singletonMap(HttpHeader.CONTENT_TYPE,
+        Collections.singletonList(ContentType.APPLICATION_JSON.toContentTypeString())));
+    final ODataResponse response = new ODataResponse();
+    try {
+      batchHandler.process(request, response, true);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"0\",\"status\":200},"
+        + "{\"id\":\"1\",\"status\":200},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"status\":201,"
+        + "\"headers\":{\"Location\":\"" + BASE_URI + "/ESAllPrim(1)\"}},"
+        + "{\"id\":\"3\",\"atomicityGroup\":\"g1\",\"status\":201,"
+        + "\"headers\":{\"Location\":\"" + BASE_URI + "/ESTwoPrim(2)\"}},"
+        + "{\"id\":\"4\",\"status\":200}]}",
+        toString(response));
+  }
+
+  @Test
+  public void jsonParallelWriteAfterFailure() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    when(oDataHandler.getParallelBatchProcessing()).thenReturn(new ParallelBatchProcessing(executor, 2));
+    when(oDataHandler.copy()).thenReturn(oDataHandler);
+    // The failing read waits for the write; the write must not start before the failure is known.
+    final CountDownLatch writeStarted = new CountDownLatch(1);
+    final List<HttpMethod> processed = Collections.synchronizedList(new ArrayList<HttpMethod>());
+    doAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataRequest request = (ODataRequest) invocation.getArguments()[0];
+        processed.add(request.getMethod());
+        if (request.getMethod() == HttpMethod.GET) {
+          writeStarted.await(500, TimeUnit.MILLISECONDS);
+          final ODataResponse notFound = new ODataResponse();
+          notFound.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+          return notFound;
+        }
+        writeStarted.countDown();
+        return buildResponse(request);
+      }
+    }).when(oDataHandler).process(any(ODataRequest.class));
+
+    final String content = "{\"requests\":["
+        + "{\"id\":\"0\",\"method\":\"get\",\"url\":\"ESNotFound\"},"
+        + "{\"id\":\"1\",\"method\":\"post\",\"url\":\"ESAllPrim\",\"body\":{}}]}";
+    final ODataRequest request = buildODataRequest(content, Collections.singletonMap(HttpHeader.CONTENT_TYPE,
+        Collections.singletonList(ContentType.APPLICATION_JSON.toContentTypeString())));
+    final ODataResponse response = new ODataResponse();
+    try {
+      batchHandler.process(request, response, true);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals("{\"responses\":[{\"id\":\"0\",\"status\":404}]}",
+        toString(response));
+    assertEquals(Collections.singletonList(HttpMethod.GET), processed);
+  }
+
+  @Test
+  public void readerStopsAtFailure() throws Exception {
+    mockNotFound();
+    final CountingReader reader = readParts("ESNotFound", "ESAllPrim(0)");
+
+    final List<ODataResponsePart> responseParts =
+        new BatchFacadeImpl(oDataHandler, null, true).handleBatchRequests(reader, false);
+
+    assertEquals(1, responseParts.size());
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), responseParts.get(0).getResponses().get(0).getStatusCode());
+    // The part after the failed one has not been read.
+    assertEquals(1, reader.count);
+  }
+
+  @Test
+  public void readerParallel() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    when(oDataHandler.copy()).thenReturn(oDataHandler);
+    // The two reads can only succeed if the second part is read while the first one is executed.
+    final CountDownLatch latch = new CountDownLatch(2);
+    doAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataResponse response = buildResponse((ODataRequest) invocation.getArguments()[0]);
+        latch.countDown();
+        if (!latch.await(10, TimeUnit.SECONDS)) {
+          response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+        }
+        return response;
+      }
+    }).when(oDataHandler).process(any(ODataRequest.class));
+    final CountingReader reader = readParts("ESAllPrim(0)", "ESAllPrim(1)");
+
+    List<ODataResponsePart> responseParts;
+    try {
+      responseParts = new BatchFacadeImpl(oDataHandler, null, true, new ParallelBatchProcessing(executor, 2))
+          .handleBatchRequests(reader, false);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(2, responseParts.size());
+    assertEquals(HttpStatusCode.OK.getStatusCode(), responseParts.get(0).getResponses().get(0).getStatusCode());
+    assertEquals(HttpStatusCode.OK.getStatusCode(), responseParts.get(1).getResponses().get(0).getStatusCode());
+    assertEquals(3, reader.count);
+  }
+
   /*
    * Helper methods
    */
+  private String toString(final ODataResponse response) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    response.getODataContent().write(output);
+    return new String(output.toByteArray(), Charset.forName("UTF-8"));
+  }
+
+  private ODataResponse processJson(final String content, final String prefer) throws Exception {
+    mockNotFound();
+    final ODataRequest request = buildODataRequest(content, Collections.singletonMap(HttpHeader.CONTENT_TYPE,
+        Collections.singletonList(ContentType.APPLICATION_JSON.toContentTypeString())));
+    if (prefer != null) {
+      request.addHeader(HttpHeader.PREFER, prefer);
+    }
+    final ODataResponse response = new ODataResponse();
+    batchHandler.process(request, response, true);
+    return response;
+  }
+
+  private void mockNotFound() throws Exception {
+    doAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataRequest request = (ODataRequest) invocation.getArguments()[0];
+        if (request.getRawODataPath().equals("/ESNotFound")) {
+          final ODataResponse notFound = new ODataResponse();
+          notFound.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+          return notFound;
+        }
+        return buildResponse(request);
+      }
+    }).when(oDataHandler).process(any(ODataRequest.class));
+  }
+
+  /** Returns a reader for a multipart batch request with a GET request for each of the given resources. */
+  private CountingReader readParts(final String... resources) {
+    String content = "";
+    for (final String resource : resources) {
+      content += "--batch_12345" + CRLF
+          + "Content-Type: application/http" + CRLF
+          + "Content-Transfer-Encoding: binary" + CRLF
+          + CRLF
+          + "GET " + resource + " HTTP/1.1" + CRLF
+          + CRLF
+          + CRLF;
+    }
+    content += "--batch_12345--";
+    return new CountingReader(new BatchParser().readBatchRequest(
+        new ByteArrayInputStream(content.getBytes(Charset.forName("UTF-8"))), "batch_12345",
+        BatchOptions.with().isStrict(true).rawBaseUri(BASE_URI).build()));
+  }
+
   private String checkChangeSetPartHeader(final List<String> response, final int line) {
     int lineNumber = line;
     assertEquals(CRLF, response.get(lineNumber++));
@@ -562,6 +821,24 @@ public class MockedBatchHandlerTest {
     return request;
   }
 
+  /**
+   * Reader counting the calls of {@link #next()}
+   */
+  private static class CountingReader implements BatchRequestReader {
+    private final BatchRequestReader reader;
+    private int count = 0;
+
+    private CountingReader(final BatchRequestReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public BatchRequestPart next() throws BatchDeserializerException {
+      count++;
+      return reader.next();
+    }
+  }
+
   /**
    * Batch processor
    */
@@ -580,7 +857,12 @@ public class MockedBatchHandlerTest {
 
       for (ODataRequest request : requests) {
         try {
-          responses.add(facade.handleODataRequest(request));
+          final ODataResponse response = facade.handleODataRequest(request);
+          if (response.getStatusCode() >= HttpStatusCode.BAD_REQUEST.getStatusCode()) {
+            // Rollback: a failed change set is answered with the failed response only.
+            return new ODataResponsePart(response, false);
+          }
+          responses.add(response);
         } catch (final ODataException e) {
           fail();
         }
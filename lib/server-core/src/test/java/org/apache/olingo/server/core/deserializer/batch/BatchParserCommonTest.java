@@ -23,7 +23,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
-import java.util.ArrayList;
+import java.nio.charset.Charset;
 import java.util.List;
 
 import org.apache.olingo.commons.api.http.HttpHeader;
@@ -38,7 +38,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void multipleHeaders() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Content-Id: 1" + CRLF,
         "Content-Id: 2" + CRLF,
         "content-type: Application/http" + CRLF,
@@ -54,7 +54,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void multipleHeadersSameValue() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Content-Id: 1" + CRLF,
         "Content-Id: 1" + CRLF,
         "content-type: Application/http" + CRLF,
@@ -69,7 +69,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void headersSeparatedByComma() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Content-Id: 1" + CRLF,
         "Upgrade: HTTP/2.0, SHTTP/1.3, IRC/6.9, RTA/x11" + CRLF,
         "content-type: Application/http" + CRLF,
@@ -87,7 +87,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void multipleAcceptHeaders() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Accept: application/atomsvc+xml;q=0.8, application/json;odata=verbose;q=0.5, */*;q=0.1" + CRLF,
         "Accept: text/plain;q=0.3" + CRLF,
         "Accept-Language:en-US,en;q=0.7,en-UK;q=0.9" + CRLF,
@@ -102,7 +102,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void multipleAcceptHeadersSameValue() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Accept: application/atomsvc+xml;q=0.8, application/json;odata=verbose;q=0.5, */*;q=0.1" + CRLF,
         "Accept: application/atomsvc+xml;q=0.8" + CRLF,
         "Accept-Language:en-US,en;q=0.7,en-UK;q=0.9" + CRLF,
@@ -117,7 +117,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void multipleAcceptLanguageHeaders() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Accept-Language:en-US,en;q=0.7,en-UK;q=0.9" + CRLF,
         "Accept-Language: de-DE;q=0.3" + CRLF,
         "content-type: Application/http" + CRLF,
@@ -131,7 +131,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void multipleAcceptLanguageHeadersSameValue() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Accept-Language:en-US,en;q=0.7,en-UK;q=0.9" + CRLF,
         "Accept-Language:en-US,en;q=0.7" + CRLF,
         "content-type: Application/http" + CRLF,
@@ -145,7 +145,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void headersWithSpecialNames() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList(
+    final Header header = BatchParserCommon.consumeHeaders(toContent(
         "Test0123456789: 42" + CRLF,
         "a_b: c/d" + CRLF,
         "!#$%&'*+-.^_`|~: weird" + CRLF));
@@ -158,7 +158,7 @@ public class BatchParserCommonTest {
 
   @Test
   public void headerWithWrongName() throws Exception {
-    final Header header = BatchParserCommon.consumeHeaders(toLineList("a,b: c/d" + CRLF));
+    final Header header = BatchParserCommon.consumeHeaders(toContent("a,b: c/d" + CRLF));
     assertNotNull(header);
     assertFalse(header.iterator().hasNext());
   }
@@ -266,15 +266,13 @@ public class BatchParserCommonTest {
         BatchParserCommon.removeEndingCRLF(new Line(line, 1)).toString());
   }
 
-  private List<Line> toLineList(final String... messageRaw) {
-    final List<Line> lineList = new ArrayList<Line>();
-    int counter = 1;
-
+  private BatchPartContent toContent(final String... messageRaw) {
+    final StringBuilder message = new StringBuilder();
     for (final String currentLine : messageRaw) {
-      lineList.add(new Line(currentLine, counter++));
+      message.append(currentLine);
     }
-
-    return lineList;
+    final byte[] content = message.toString().getBytes(Charset.forName("ISO-8859-1"));
+    return new BatchPartContent(content, 0, content.length, 1);
   }
 
   private void invalidBoundary(final String contentType, final BatchDeserializerException.MessageKeys messageKey) {
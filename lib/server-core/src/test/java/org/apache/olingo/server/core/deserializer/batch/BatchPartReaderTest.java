@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
+import org.junit.Test;
+
+public class BatchPartReaderTest {
+
+  private static final Charset CHARSET = Charset.forName("ISO-8859-1");
+  private static final String CRLF = "\r\n";
+  private static final String BOUNDARY = "batch_123";
+
+  @Test
+  public void parts() throws Exception {
+    final String message = "preamble" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + "Header: 1" + CRLF
+        + CRLF
+        + "body" + CRLF
+        + CRLF
+        + "--" + BOUNDARY + "  " + CRLF
+        + "Header: 2" + CRLF
+        + "--" + BOUNDARY + "--" + CRLF
+        + "epilogue" + CRLF;
+    final BatchPartReader reader = reader(message);
+
+    BatchPartContent part = reader.next();
+    assertEquals(3, part.getLineNumber());
+    assertEquals("Header: 1" + CRLF, part.readLine().toString());
+    assertEquals(CRLF, part.readLine().toString());
+    assertEquals(5, part.getLineNumber());
+    assertEquals("body" + CRLF, IOUtils.toString(part.getRemainingContent(), CHARSET));
+    assertEquals("bo", IOUtils.toString(part.getRemainingContent(2), CHARSET));
+    assertEquals(6, part.getRemainingLength());
+
+    part = reader.next();
+    assertEquals(8, part.getLineNumber());
+    assertEquals("Header: 2", part.readLine().toString());
+    assertFalse(part.hasRemaining());
+    assertNull(part.readLine());
+
+    assertNull(reader.next());
+    assertNull(reader.next());
+  }
+
+  @Test
+  public void binaryContent() throws Exception {
+    final byte[] content = new byte[20000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    final byte[] start = ("--" + BOUNDARY + CRLF + CRLF).getBytes(CHARSET);
+    final byte[] end = (CRLF + "--" + BOUNDARY + "--").getBytes(CHARSET);
+    final byte[] message = new byte[start.length + content.length + end.length];
+    System.arraycopy(start, 0, message, 0, start.length);
+    System.arraycopy(content, 0, message, start.length, content.length);
+    System.arraycopy(end, 0, message, start.length + content.length, end.length);
+
+    final BatchPartContent part = new BatchPartReader(new ByteArrayInputStream(message), BOUNDARY).next();
+    part.readLine();
+    final byte[] result = IOUtils.toByteArray(part.getRemainingContent());
+    assertTrue(Arrays.equals(content, result));
+  }
+
+  @Test
+  public void blank() throws Exception {
+    assertTrue(content("").isBlank());
+    assertTrue(content("  " + CRLF).isBlank());
+    assertFalse(content(CRLF + CRLF).isBlank());
+    assertFalse(content("a").isBlank());
+  }
+
+  @Test
+  public void lineNumbersWithDifferentLineBreaks() throws Exception {
+    final BatchPartContent part = reader("--" + BOUNDARY + "\r"
+        + "a\n"
+        + "b\r"
+        + "--" + BOUNDARY + "--").next();
+    assertEquals(2, part.getLineNumber());
+    assertEquals("a\n", part.readLine().toString());
+    assertEquals("b\r", part.readLine().toString());
+    assertNull(part.peekLine());
+  }
+
+  @Test
+  public void missingCloseDelimiter() throws Exception {
+    final BatchPartReader reader = reader("--" + BOUNDARY + CRLF + "content" + CRLF);
+    try {
+      reader.next();
+      fail("Expected exception not thrown.");
+    } catch (final BatchDeserializerException e) {
+      assertEquals(MessageKeys.MISSING_CLOSE_DELIMITER, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void partsInMemory() throws Exception {
+    final BatchPartContent message = content("Content-Type: multipart/mixed" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + "Header: 1" + CRLF
+        + CRLF
+        + "body" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + "Header: 2" + CRLF
+        + "--" + BOUNDARY + "--");
+    message.readLine();
+    final BatchPartReader reader = message.getPartReader(BOUNDARY);
+
+    BatchPartContent part = reader.next();
+    assertEquals(3, part.getLineNumber());
+    assertEquals("Header: 1" + CRLF, part.readLine().toString());
+    assertEquals(CRLF, part.readLine().toString());
+    assertEquals("body", IOUtils.toString(part.getRemainingContent(), CHARSET));
+
+    part = reader.next();
+    assertEquals(7, part.getLineNumber());
+    assertEquals("Header: 2", part.readLine().toString());
+    assertNull(reader.next());
+
+    // The message itself has not been consumed.
+    assertEquals(2, message.getLineNumber());
+    assertTrue(message.hasRemaining());
+  }
+
+  @Test
+  public void missingCloseDelimiterInMemory() throws Exception {
+    final BatchPartReader reader = content("--" + BOUNDARY + CRLF + "content" + CRLF).getPartReader(BOUNDARY);
+    try {
+      reader.next();
+      fail("Expected exception not thrown.");
+    } catch (final BatchDeserializerException e) {
+      assertEquals(MessageKeys.MISSING_CLOSE_DELIMITER, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void onlyCloseDelimiter() throws Exception {
+    assertNull(reader("--" + BOUNDARY + "--").next());
+  }
+
+  private BatchPartReader reader(final String message) {
+    return new BatchPartReader(new ByteArrayInputStream(message.getBytes(CHARSET)), BOUNDARY);
+  }
+
+  private BatchPartContent content(final String content) {
+    final byte[] bytes = content.getBytes(CHARSET);
+    return new BatchPartContent(bytes, 0, bytes.length, 1);
+  }
+}
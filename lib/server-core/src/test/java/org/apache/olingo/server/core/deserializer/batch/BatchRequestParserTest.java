@@ -32,6 +32,7 @@ import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerExceptio
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -1096,6 +1097,31 @@ public class BatchRequestParserTest {
     parse(readFile("/batchLarge.batch"), true);
   }
 
+  @Test
+  public void reader() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.GET + " ESAllPrim?$format=json" + CRLF
+        + CRLF
+        + CRLF
+        + "--" + BOUNDARY + "--";
+    final BatchRequestReader reader = new BatchParser().readBatchRequest(IOUtils.toInputStream(batch), BOUNDARY,
+        BatchOptions.with().isStrict(true).rawBaseUri(SERVICE_ROOT).build());
+
+    final BatchRequestPart part = reader.next();
+    Assert.assertNotNull(part);
+    Assert.assertEquals("/" + PROPERTY_URI, part.getRequests().get(0).getRawODataPath());
+    try {
+      reader.next();
+      Assert.fail("No exception thrown. Expected: " + MessageKeys.INVALID_STATUS_LINE);
+    } catch (final BatchDeserializerException e) {
+      Assert.assertEquals(MessageKeys.INVALID_STATUS_LINE, e.getMessageKey());
+    }
+  }
+
   @Test
   public void forbiddenHeaderWWWAuthenticate() throws Exception {
     parseBatchWithForbiddenHeader(HttpHeader.WWW_AUTHENTICATE + ": Basic realm=\"simple\"");
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.junit.Test;
+
+public class JsonBatchParserTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/odata";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Test
+  public void requests() throws Exception {
+    final List<BatchRequestPart> parts = parse("{\"requests\":["
+        + "{\"id\":\"0\",\"method\":\"get\",\"url\":\"ESAllPrim?$top=1\","
+        + "\"headers\":{\"Accept\":\"application/json\"}},"
+        + "{\"id\":\"1\",\"atomicityGroup\":\"g1\",\"method\":\"post\",\"url\":\"/odata/ESAllPrim\","
+        + "\"body\":{\"PropertyInt16\":1,\"PropertyString\":\"ä\"}},"
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\",\"dependsOn\":[\"1\",\"0\"],\"method\":\"patch\","
+        + "\"url\":\"$1\",\"headers\":{\"content-type\":\"application/json\"},\"body\":{}},"
+        + "{\"id\":\"3\",\"dependsOn\":[\"g1\"],\"method\":\"GET\",\"url\":\"" + SERVICE_ROOT + "/ESTwoPrim\"}"
+        + "],\"unknown\":[1,{\"a\":2}]}");
+    assertEquals(3, parts.size());
+
+    JsonBatchRequestPart part = (JsonBatchRequestPart) parts.get(0);
+    assertFalse(part.isChangeSet());
+    assertNull(part.getAtomicityGroup());
+    ODataRequest request = part.getRequests().get(0);
+    assertEquals(HttpMethod.GET, request.getMethod());
+    assertEquals("/ESAllPrim", request.getRawODataPath());
+    assertEquals("$top=1", request.getRawQueryPath());
+    assertEquals(SERVICE_ROOT + "/ESAllPrim?$top=1", request.getRawRequestUri());
+    assertEquals("application/json", request.getHeader(HttpHeader.ACCEPT));
+    assertEquals("0", request.getHeader(HttpHeader.CONTENT_ID));
+
+    part = (JsonBatchRequestPart) parts.get(1);
+    assertTrue(part.isChangeSet());
+    assertEquals("g1", part.getAtomicityGroup());
+    assertEquals(new HashSet<String>(Arrays.asList("0")), part.getDependsOn());
+    assertEquals(2, part.getRequests().size());
+    request = part.getRequests().get(0);
+    assertEquals(HttpMethod.POST, request.getMethod());
+    assertEquals("/ESAllPrim", request.getRawODataPath());
+    assertEquals("application/json", request.getHeader(HttpHeader.CONTENT_TYPE));
+    assertEquals("{\"PropertyInt16\":1,\"PropertyString\":\"ä\"}", IOUtils.toString(request.getBody(), UTF_8));
+    request = part.getRequests().get(1);
+    assertEquals(HttpMethod.PATCH, request.getMethod());
+    assertEquals("/$1", request.getRawODataPath());
+    assertEquals("{}", IOUtils.toString(request.getBody(), UTF_8));
+
+    part = (JsonBatchRequestPart) parts.get(2);
+    assertEquals(new HashSet<String>(Arrays.asList("g1")), part.getDependsOn());
+    assertEquals("/ESTwoPrim", part.getRequests().get(0).getRawODataPath());
+  }
+
+  @Test
+  public void bodies() throws Exception {
+    final List<BatchRequestPart> parts = parse("{\"requests\":["
+        + "{\"id\":\"0\",\"method\":\"put\",\"url\":\"ESMedia(1)/$value\","
+        + "\"body\":\"AAEC_w\",\"headers\":{\"Content-Type\":\"image/png\"}},"
+        + "{\"id\":\"1\",\"method\":\"put\",\"url\":\"ESAllPrim(1)/PropertyString/$value\","
+        + "\"headers\":{\"Content-Type\":\"text/plain\"},\"body\":\"ä\"},"
+        + "{\"id\":\"2\",\"method\":\"put\",\"url\":\"ESAllPrim(1)/PropertyString\",\"body\":\"a\\\"b\"}]}");
+    assertArrayEquals(new byte[] { 0, 1, 2, (byte) 0xFF },
+        IOUtils.toByteArray(parts.get(0).getRequests().get(0).getBody()));
+    assertEquals("ä", IOUtils.toString(parts.get(1).getRequests().get(0).getBody(), UTF_8));
+    assertEquals("\"a\\\"b\"", IOUtils.toString(parts.get(2).getRequests().get(0).getBody(), UTF_8));
+  }
+
+  @Test
+  public void invalid() throws Exception {
+    parseInvalid("[]", MessageKeys.INVALID_JSON);
+    parseInvalid("{\"requests\":[", MessageKeys.INVALID_JSON);
+    parseInvalid("{}", MessageKeys.MISSING_JSON_PROPERTY);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"get\"}]}", MessageKeys.MISSING_JSON_PROPERTY);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"get\",\"url\":\"ES\"},"
+        + "{\"id\":\"0\",\"method\":\"get\",\"url\":\"ES\"}]}", MessageKeys.DUPLICATE_REQUEST_ID);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"post\",\"url\":\"ES\",\"atomicityGroup\":\"g\"},"
+        + "{\"id\":\"1\",\"method\":\"get\",\"url\":\"ES\"},"
+        + "{\"id\":\"2\",\"method\":\"post\",\"url\":\"ES\",\"atomicityGroup\":\"g\"}]}",
+        MessageKeys.INVALID_ATOMICITY_GROUP);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"get\",\"url\":\"ES\",\"dependsOn\":[\"1\"]},"
+        + "{\"id\":\"1\",\"method\":\"get\",\"url\":\"ES\"}]}", MessageKeys.INVALID_DEPENDENCY);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"get\",\"url\":\"ES\",\"atomicityGroup\":\"g\"}]}",
+        MessageKeys.INVALID_CHANGESET_METHOD);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"fetch\",\"url\":\"ES\"}]}", MessageKeys.INVALID_METHOD);
+    parseInvalid("{\"requests\":[{\"id\":\"0\",\"method\":\"get\",\"url\":\"http://other/ES\"}]}",
+        MessageKeys.INVALID_BASE_URI);
+  }
+
+  private List<BatchRequestPart> parse(final String content) throws BatchDeserializerException {
+    return new JsonBatchParser().parseBatchRequest(new ByteArrayInputStream(content.getBytes(UTF_8)),
+        BatchOptions.with().rawBaseUri(SERVICE_ROOT).build());
+  }
+
+  private void parseInvalid(final String content, final MessageKeys key) {
+    try {
+      parse(content);
+      fail("No exception thrown. Expected: " + key);
+    } catch (final BatchDeserializerException e) {
+      assertEquals(key, e.getMessageKey());
+    }
+  }
+}
@@ -678,4 +678,106 @@ public class BatchResponseSerializerTest {
     assertEquals("{\"@odata.context\":\"../../$metadata\",\"value\":[]}" + CRLF, body.get(line++));
     assertEquals("--" + BOUNDARY + "--" + CRLF, body.get(line++));
   }
+
+  @Test
+  public void streamed() throws Exception {
+    final List<ODataResponsePart> parts = new ArrayList<ODataResponsePart>();
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.TEXT_PLAIN.toContentTypeString());
+    response.setContent(IOUtils.toInputStream("Walter Winter" + CRLF));
+    parts.add(new ODataResponsePart(Collections.singletonList(response), false));
+
+    ODataResponse changeSetResponse = new ODataResponse();
+    changeSetResponse.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    changeSetResponse.setHeader(HttpHeader.CONTENT_ID, "1");
+    parts.add(new ODataResponsePart(Collections.singletonList(changeSetResponse), true));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new BatchResponseSerializer().serializeStreamed(parts, BOUNDARY).write(output);
+    final BatchLineReader reader = new BatchLineReader(new ByteArrayInputStream(output.toByteArray()));
+    final List<String> body = reader.toList();
+    reader.close();
+
+    int line = 0;
+    assertEquals(23, body.size());
+    assertEquals("--" + BOUNDARY + CRLF, body.get(line++));
+    assertEquals("Content-Type: application/http" + CRLF, body.get(line++));
+    assertEquals("Content-Transfer-Encoding: binary" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals("HTTP/1.1 200 OK" + CRLF, body.get(line++));
+    assertEquals("Content-Type: text/plain" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals("Walter Winter" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals("--" + BOUNDARY + CRLF, body.get(line++));
+    assertTrue(body.get(line++).startsWith("Content-Type: multipart/mixed; boundary=changeset_"));
+    line += 7;
+    assertEquals("Content-Length: 0" + CRLF, body.get(line++));
+    line += 3;
+    assertEquals("--" + BOUNDARY + "--" + CRLF, body.get(line++));
+  }
+
+  @Test
+  public void streamedFlushesEachPart() throws Exception {
+    final List<ODataResponsePart> parts = new ArrayList<ODataResponsePart>();
+    for (int i = 0; i < 2; i++) {
+      ODataResponse response = new ODataResponse();
+      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      response.setContent(IOUtils.toInputStream("Walter Winter"));
+      parts.add(new ODataResponsePart(Collections.singletonList(response), false));
+    }
+
+    final List<Integer> flushed = new ArrayList<Integer>();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream() {
+      @Override
+      public void flush() {
+        flushed.add(size());
+      }
+    };
+    new BatchResponseSerializer().serializeStreamed(parts, BOUNDARY).write(output);
+    final String body = new String(output.toByteArray(), CS_ISO_8859_1);
+    final int secondPart = body.indexOf("--" + BOUNDARY, 1);
+    final int closeDelimiter = body.indexOf("--" + BOUNDARY + "--");
+
+    // Each part has reached the underlying stream before the next one is written.
+    assertTrue(flushed.contains(secondPart));
+    assertTrue(flushed.contains(closeDelimiter));
+    assertEquals(body.length(), flushed.get(flushed.size() - 1).intValue());
+  }
+
+  @Test
+  public void streamedODataContent() throws Exception {
+    final EdmEntityType edmEntityType = mock(EdmEntityType.class);
+    final EntityIterator entityCollection = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return false;
+      }
+
+      @Override
+      public Entity next() {
+        return null;
+      }
+    };
+    final ServiceMetadata metadata = mock(ServiceMetadata.class);
+    final SerializerStreamResult serializerResult = OData.newInstance().createSerializer(ContentType.JSON)
+        .entityCollectionStreamed(metadata, edmEntityType, entityCollection,
+            EntityCollectionSerializerOptions.with()
+                .contextURL(ContextURL.with().oDataPath("http://host/svc").build()).build());
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.JSON.toContentTypeString());
+    response.setODataContent(serializerResult.getODataContent());
+    final List<ODataResponsePart> parts =
+        Collections.singletonList(new ODataResponsePart(Collections.singletonList(response), false));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    OData.newInstance().createFixedFormatSerializer().batchResponseStreamed(parts, BOUNDARY)
+        .getODataContent().write(output);
+    final String body = new String(output.toByteArray(), CS_ISO_8859_1);
+    // The close delimiter is written although the JSON serializer closes its output.
+    assertTrue(body.contains("\"value\":[]}" + CRLF));
+    assertTrue(body.endsWith("--" + BOUNDARY + "--" + CRLF));
+  }
 }
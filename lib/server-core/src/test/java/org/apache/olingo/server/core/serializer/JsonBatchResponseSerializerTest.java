@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.core.deserializer.batch.JsonBatchRequestPart;
+import org.junit.Test;
+
+public class JsonBatchResponseSerializerTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Test
+  public void responses() throws Exception {
+    final ODataResponse json = response("0", HttpStatusCode.OK);
+    json.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    json.setContent(IOUtils.toInputStream("{\"value\": [1, \"ä\"]}", UTF_8));
+    final ODataResponse text = response("1", HttpStatusCode.OK);
+    text.setHeader(HttpHeader.CONTENT_TYPE, ContentType.TEXT_PLAIN.toContentTypeString());
+    text.setContent(IOUtils.toInputStream("ä", UTF_8));
+    final ODataResponse binary = response("2", HttpStatusCode.OK);
+    binary.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_OCTET_STREAM.toContentTypeString());
+    binary.setContent(new ByteArrayInputStream(new byte[] { 0, 1, 2, (byte) 0xFF }));
+    final ODataResponse created = response("3", HttpStatusCode.CREATED);
+    created.setHeader(HttpHeader.LOCATION, "ESAllPrim(1)");
+    final ODataResponse noContent = response("4", HttpStatusCode.NO_CONTENT);
+
+    final String result = write(new JsonBatchResponseSerializer().serialize(
+        Arrays.<BatchRequestPart> asList(part(null, "0", "1", "2"), part("g1", "3", "4")),
+        Arrays.asList(
+            new ODataResponsePart(Arrays.asList(json, text, binary), false),
+            new ODataResponsePart(Arrays.asList(created, noContent), true))));
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"0\",\"status\":200,\"headers\":{\"Content-Type\":\"application/json\"},"
+        + "\"body\":{\"value\": [1, \"ä\"]}},"
+        + "{\"id\":\"1\",\"status\":200,\"headers\":{\"Content-Type\":\"text/plain\"},\"body\":\"ä\"},"
+        + "{\"id\":\"2\",\"status\":200,\"headers\":{\"Content-Type\":\"application/octet-stream\"},"
+        + "\"body\":\"AAEC_w\"},"
+        + "{\"id\":\"3\",\"atomicityGroup\":\"g1\",\"status\":201,\"headers\":{\"Location\":\"ESAllPrim(1)\"}},"
+        + "{\"id\":\"4\",\"atomicityGroup\":\"g1\",\"status\":204}]}",
+        result);
+  }
+
+  @Test
+  public void empty() throws Exception {
+    assertEquals("{\"responses\":[]}", write(new JsonBatchResponseSerializer().serialize(
+        Collections.<BatchRequestPart> emptyList(), Collections.<ODataResponsePart> emptyList())));
+  }
+
+  @Test
+  public void streamedBodies() throws Exception {
+    final ODataResponse json = response("0", HttpStatusCode.OK);
+    json.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    json.setODataContent(content("{\"value\":[]}".getBytes(UTF_8)));
+    final ODataResponse text = response("1", HttpStatusCode.OK);
+    text.setHeader(HttpHeader.CONTENT_TYPE, "text/plain;charset=iso-8859-1");
+    text.setODataContent(content("\"ä\"\r\n\\".getBytes("ISO-8859-1")));
+    final ODataResponse binary = response("2", HttpStatusCode.OK);
+    binary.setODataContent(content(new byte[] { 0, 1, 2, (byte) 0xFF }));
+    final ODataResponse empty = response("3", HttpStatusCode.OK);
+    empty.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    empty.setODataContent(content(new byte[0]));
+
+    final List<String> writes = new ArrayList<String>();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream() {
+      @Override
+      public synchronized void write(final byte[] b, final int off, final int len) {
+        writes.add(new String(b, off, len, UTF_8));
+        super.write(b, off, len);
+      }
+    };
+    new JsonBatchResponseSerializer().serialize(
+        Collections.<BatchRequestPart> singletonList(part(null, "0", "1", "2", "3")),
+        Collections.singletonList(new ODataResponsePart(Arrays.asList(json, text, binary, empty), false)))
+        .write(output);
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"0\",\"status\":200,\"headers\":{\"Content-Type\":\"application/json\"},"
+        + "\"body\":{\"value\":[]}},"
+        + "{\"id\":\"1\",\"status\":200,\"headers\":{\"Content-Type\":\"text/plain;charset=iso-8859-1\"},"
+        + "\"body\":\"\\\"ä\\\"\\r\\n\\\\\"},"
+        + "{\"id\":\"2\",\"status\":200,\"body\":\"AAEC_w\"},"
+        + "{\"id\":\"3\",\"status\":200,\"headers\":{\"Content-Type\":\"application/json\"}}]}",
+        new String(output.toByteArray(), UTF_8));
+    // The JSON body has been passed on as it has been written, without a copy in between.
+    assertTrue(writes.contains("{\"value\":[]}"));
+  }
+
+  @Test
+  public void failedAtomicityGroup() throws Exception {
+    final ODataResponse error = new ODataResponse();
+    error.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
+    error.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    error.setContent(IOUtils.toInputStream("{\"error\":{\"code\":null,\"message\":\"Bad\"}}", UTF_8));
+    final ODataResponse single = new ODataResponse();
+    single.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+
+    final String result = write(new JsonBatchResponseSerializer().serialize(
+        Arrays.<BatchRequestPart> asList(part("g1", "1", "2"), part("g2", "3")),
+        Arrays.asList(
+            new ODataResponsePart(Collections.singletonList(error), true),
+            new ODataResponsePart(Collections.singletonList(single), true))));
+    // Each request of a failed group gets a response.
+    final String errorResponse = "\"status\":400,\"headers\":{\"Content-Type\":\"application/json\"},"
+        + "\"body\":{\"error\":{\"code\":null,\"message\":\"Bad\"}}}";
+    assertEquals("{\"responses\":["
+        + "{\"id\":\"1\",\"atomicityGroup\":\"g1\"," + errorResponse + ","
+        + "{\"id\":\"2\",\"atomicityGroup\":\"g1\"," + errorResponse + ","
+        + "{\"id\":\"3\",\"atomicityGroup\":\"g2\",\"status\":500}]}",
+        result);
+  }
+
+  private String write(final ODataContent content) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    content.write(output);
+    return new String(output.toByteArray(), UTF_8);
+  }
+
+  private BatchRequestPart part(final String atomicityGroup, final String... ids) {
+    final List<ODataRequest> requests = new ArrayList<ODataRequest>();
+    for (final String id : ids) {
+      final ODataRequest request = new ODataRequest();
+      request.setHeader(HttpHeader.CONTENT_ID, id);
+      requests.add(request);
+    }
+    return new JsonBatchRequestPart(atomicityGroup, requests, Collections.<String> emptySet());
+  }
+
+  /** Creates content which closes its output, as the streamed serializers do. */
+  private ODataContent content(final byte[] data) {
+    return new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          stream.write(data);
+          stream.close();
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        }
+      }
+    };
+  }
+
+  private ODataResponse response(final String id, final HttpStatusCode status) {
+    final ODataResponse response = new ODataResponse();
+    response.setStatusCode(status.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_ID, id);
+    return response;
+  }
+}
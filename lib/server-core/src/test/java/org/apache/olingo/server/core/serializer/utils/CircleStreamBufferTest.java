@@ -19,10 +19,12 @@
 package org.apache.olingo.server.core.serializer.utils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import org.junit.Test;
@@ -175,6 +177,56 @@ public class CircleStreamBufferTest {
     assertEquals(testData, result);
   }
 
+  @Test
+  public void pooledBuffersAreReusedAfterRead() throws Exception {
+    final int bufferSize = 1024;
+    ByteBufferPool pool = new ByteBufferPool(bufferSize, 8);
+    CircleStreamBuffer csb = new CircleStreamBuffer(pool);
+
+    OutputStream outStream = csb.getOutputStream();
+    InputStream inStream = csb.getInputStream();
+    final int signs = bufferSize * 3;
+    String testData = createTestString(signs);
+    for (int i = 0; i < signs; i += 100) {
+      outStream.write(testData.substring(i, Math.min(i + 100, signs)).getBytes(DEFAULT_CHARSET));
+    }
+    outStream.close();
+    assertEquals(testData, readFrom(inStream));
+    final int pooled = pool.getPooledBufferCount();
+    assertTrue(pooled >= 3);
+    inStream.close();
+    assertEquals(pooled, pool.getPooledBufferCount());
+
+    csb = new CircleStreamBuffer(pool);
+    assertEquals(pooled - 1, pool.getPooledBufferCount());
+    csb.getOutputStream().write("Test".getBytes(DEFAULT_CHARSET));
+    assertEquals("Test", readFrom(csb.getInputStream()));
+  }
+
+  @Test
+  public void writeAfterReadCloseDoesNotTouchReleasedBuffer() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(128, 8);
+    CircleStreamBuffer csb = new CircleStreamBuffer(pool);
+    csb.getOutputStream().write("Test".getBytes(DEFAULT_CHARSET));
+    csb.closeRead();
+    assertEquals(1, pool.getPooledBufferCount());
+
+    csb.getOutputStream().write(createTestString(100).getBytes(DEFAULT_CHARSET));
+    final ByteBuffer released = pool.acquire();
+    assertEquals(0, released.position());
+    assertEquals(0, released.get(0));
+  }
+
+  @Test
+  public void poolIsBounded() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(16, 1);
+    pool.release(pool.acquire());
+    pool.release(pool.acquire());
+    pool.release(ByteBuffer.allocate(16));
+    pool.release(ByteBuffer.allocate(32));
+    assertEquals(1, pool.getPooledBufferCount());
+  }
+
   @Test
   public void testSimpleWriteMoreThenBufferSize() throws Exception {
     int bufferSize = 4096;
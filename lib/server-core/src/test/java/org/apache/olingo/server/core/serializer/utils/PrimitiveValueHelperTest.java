@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class PrimitiveValueHelperTest {
+
+  @Test
+  public void kind() {
+    assertEquals(EdmPrimitiveTypeKind.Int32,
+        PrimitiveValueHelper.getKind(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32)));
+    assertNull(PrimitiveValueHelper.getKind(Mockito.mock(EdmPrimitiveType.class)));
+  }
+
+  @Test
+  public void directlyWritable() {
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Int32, 42, null, null));
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Int64, 42L, null, null));
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Boolean, true, null, null));
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Double, 1.5, null, null));
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Guid, UUID.randomUUID(), null, null));
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.String, "a", null, true));
+    assertTrue(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Byte, (short) 255, null, null));
+  }
+
+  @Test
+  public void needsValidation() {
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(null, 42, null, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Int32, null, null, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Int32, 42L, null, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Byte, 256, null, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Double, Double.NaN, null, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Single, 1.5, null, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.String, "a", 10, null));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.String, "a", null, false));
+    assertFalse(PrimitiveValueHelper.isDirectlyWritable(EdmPrimitiveTypeKind.Decimal, BigDecimal.ONE, null, null));
+  }
+}
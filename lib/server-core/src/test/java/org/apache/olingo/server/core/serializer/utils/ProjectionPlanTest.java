@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.junit.Test;
+
+public class ProjectionPlanTest {
+
+  @Test
+  public void allPropertiesInTypeOrder() {
+    final EdmStructuredType type = createType("A", "B", "C");
+    final ProjectionPlan plan = ProjectionPlan.create(type, null, null);
+
+    assertEquals(3, plan.getSlots().size());
+    assertEquals("A", plan.getSlots().get(0).getName());
+    assertEquals("C", plan.getSlots().get(2).getName());
+    assertNull(plan.getSlots().get(1).getSelectedPaths());
+    assertEquals(0, plan.getExpandedPaths().size());
+  }
+
+  @Test
+  public void cacheUsesIdentityOfOptions() {
+    final EdmStructuredType type = createType("A");
+    final SelectOption select = mock(SelectOption.class);
+    final ProjectionPlan.Cache cache = new ProjectionPlan.Cache();
+
+    final ProjectionPlan plan = cache.get(type, select, null);
+    assertSame(plan, cache.get(type, select, null));
+    assertNotSame(plan, cache.get(type, mock(SelectOption.class), null));
+    assertNotSame(plan, cache.get(type, null, null));
+  }
+
+  @Test
+  public void indexOfProperty() {
+    final List<Property> properties = Arrays.asList(
+        new Property(null, "A", ValueType.PRIMITIVE, 1),
+        new Property(null, "B", ValueType.PRIMITIVE, 2),
+        new Property(null, "C", ValueType.PRIMITIVE, 3));
+
+    assertEquals(1, ProjectionPlan.indexOfProperty("B", properties, 1));
+    assertEquals(2, ProjectionPlan.indexOfProperty("C", properties, 1));
+    assertEquals(0, ProjectionPlan.indexOfProperty("A", properties, 3));
+    assertEquals(-1, ProjectionPlan.indexOfProperty("D", properties, 0));
+    assertEquals(2, ProjectionPlan.indexOfProperty("C", new LinkedList<>(properties), 0));
+  }
+
+  private EdmStructuredType createType(final String... propertyNames) {
+    EdmStructuredType type = mock(EdmStructuredType.class);
+    when(type.getPropertyNames()).thenReturn(Arrays.asList(propertyNames));
+    for (final String name : propertyNames) {
+      EdmProperty property = mock(EdmProperty.class);
+      when(property.getName()).thenReturn(name);
+      when(property.isPrimitive()).thenReturn(true);
+      when(type.getStructuralProperty(name)).thenReturn(property);
+    }
+    return type;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.core.uri.UriInfoImpl;
+import org.apache.olingo.server.core.uri.UriResourceEntitySetImpl;
+import org.apache.olingo.server.core.uri.queryoption.TopOptionImpl;
+import org.junit.Test;
+
+public class UriInfoCacheTest {
+
+  private final Edm edm = mock(Edm.class);
+
+  @Test
+  public void hitAndMiss() {
+    UriInfoCache cache = new UriInfoCache();
+    final UriInfo uriInfo = mock(UriInfo.class);
+
+    assertNull(cache.get(edm, "ES", "$top=1", null));
+    final UriInfoCache.Entry entry = cache.put(edm, "ES", "$top=1", null, uriInfo);
+    assertSame(entry, cache.get(edm, "ES", "$top=1", null));
+    assertNull(cache.get(edm, "ES", null, null));
+    assertNull(cache.get(mock(Edm.class), "ES", "$top=1", null));
+
+    assertEquals(1, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  public void validatedMethods() {
+    UriInfoCache cache = new UriInfoCache();
+    final UriInfoCache.Entry entry = cache.put(edm, "ES", null, null, mock(UriInfo.class));
+    assertFalse(entry.isValidated(HttpMethod.GET));
+    entry.setValidated(HttpMethod.GET);
+    assertTrue(entry.isValidated(HttpMethod.GET));
+    assertFalse(entry.isValidated(HttpMethod.DELETE));
+  }
+
+  @Test
+  public void bounded() {
+    UriInfoCache cache = new UriInfoCache(2);
+    for (int i = 0; i < 10; i++) {
+      cache.put(edm, "ES(" + i + ")", null, null, mock(UriInfo.class));
+    }
+    assertEquals(2, cache.size());
+    assertTrue(cache.get(edm, "ES(9)", null, null) != null);
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    UriInfoCache cache = new UriInfoCache(2);
+    cache.put(edm, "ES(1)", null, null, mock(UriInfo.class));
+    cache.put(edm, "ES(2)", null, null, mock(UriInfo.class));
+    assertNotNull(cache.get(edm, "ES(1)", null, null));
+    cache.put(edm, "ES(3)", null, null, mock(UriInfo.class));
+
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get(edm, "ES(1)", null, null));
+    assertNull(cache.get(edm, "ES(2)", null, null));
+    assertNotNull(cache.get(edm, "ES(3)", null, null));
+  }
+
+  @Test
+  public void evictionInOneGo() {
+    UriInfoCache cache = new UriInfoCache(20);
+    for (int i = 0; i < 20; i++) {
+      cache.put(edm, "ES(" + i + ")", null, null, mock(UriInfo.class));
+    }
+    assertNotNull(cache.get(edm, "ES(0)", null, null));
+    cache.put(edm, "ES(20)", null, null, mock(UriInfo.class));
+
+    assertEquals(18, cache.size());
+    assertNotNull(cache.get(edm, "ES(0)", null, null));
+    assertNull(cache.get(edm, "ES(1)", null, null));
+    assertNull(cache.get(edm, "ES(2)", null, null));
+    assertNull(cache.get(edm, "ES(3)", null, null));
+    assertNotNull(cache.get(edm, "ES(4)", null, null));
+    assertNotNull(cache.get(edm, "ES(20)", null, null));
+  }
+
+  @Test
+  public void readOnlyView() {
+    final UriInfoImpl uriInfo = new UriInfoImpl().setKind(UriInfoKind.resource)
+        .addResourcePart(new UriResourceEntitySetImpl(mock(EdmEntitySet.class)))
+        .setSystemQueryOption(new TopOptionImpl().setValue(1));
+    final UriInfo cached = new UriInfoCache().put(edm, "ES", "$top=1", null, uriInfo).getUriInfo();
+
+    assertFalse(cached instanceof UriInfoImpl);
+    assertSame(cached, cached.asUriInfoResource());
+    assertEquals(UriInfoKind.resource, cached.getKind());
+    assertEquals(1, cached.getTopOption().getValue());
+    assertEquals(1, cached.getUriResourceParts().size());
+    try {
+      cached.getUriResourceParts().clear();
+      fail("Expected an UnsupportedOperationException.");
+    } catch (final UnsupportedOperationException e) {
+      assertEquals(1, uriInfo.getUriResourceParts().size());
+    }
+    try {
+      cached.getSystemQueryOptions().clear();
+      fail("Expected an UnsupportedOperationException.");
+    } catch (final UnsupportedOperationException e) {
+      assertEquals(1, uriInfo.getSystemQueryOptions().size());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidSize() {
+    new UriInfoCache(0);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * The SQL syntax used by the {@link SqlTranslator}.
+ * <br/>
+ * This class produces standard SQL (SQL:2008) as understood by most databases;
+ * subclasses adapt it to databases deviating from the standard by overriding single methods.
+ */
+public class SqlDialect {
+
+  /** Quotes an identifier, e.g., a table or column name. */
+  public String quoteIdentifier(final String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  /**
+   * Gets the Java type used to bind literal values of the given primitive type;
+   * the type must be supported by the primitive type's <code>valueOfString</code> method.
+   * @return the Java type or <code>null</code> for the default type of the primitive type
+   */
+  public Class<?> getParameterType(final EdmPrimitiveTypeKind kind) {
+    switch (kind) {
+    case Date:
+      return java.sql.Date.class;
+    case TimeOfDay:
+      return java.sql.Time.class;
+    case DateTimeOffset:
+      return java.sql.Timestamp.class;
+    default:
+      return null;
+    }
+  }
+
+  /** Turns a Boolean value into a condition. */
+  public String isTrue(final String value) {
+    return "(" + value + " = TRUE)";
+  }
+
+  /** Gets a condition that is always true or always false. */
+  public String constant(final boolean value) {
+    return value ? "(1 = 1)" : "(1 = 0)";
+  }
+
+  /** Concatenates two strings. */
+  public String concat(final String left, final String right) {
+    return "(" + left + " || " + right + ")";
+  }
+
+  /** Computes the remainder of an integer division. */
+  public String modulo(final String left, final String right) {
+    return "MOD(" + left + ", " + right + ")";
+  }
+
+  /** Computes the bitwise AND of two integers, used for flags of enumeration types. */
+  public String bitAnd(final String left, final String right) {
+    return "BITAND(" + left + ", " + right + ")";
+  }
+
+  /** Gets the escape character for patterns of the LIKE operator. */
+  public char getLikeEscape() {
+    return '\\';
+  }
+
+  /** Escapes the wildcard characters of the LIKE operator in the value of a string expression. */
+  public String escapeLikePattern(final String value) {
+    final String escape = "'" + getLikeEscape() + "'";
+    final String doubleEscape = "'" + getLikeEscape() + getLikeEscape() + "'";
+    return "REPLACE(REPLACE(REPLACE(" + value + ", " + escape + ", " + doubleEscape + "), "
+        + "'%', '" + getLikeEscape() + "%'), '_', '" + getLikeEscape() + "_')";
+  }
+
+  /** Lower-cases a string, used for case-insensitive $search. */
+  public String lower(final String value) {
+    return "LOWER(" + value + ")";
+  }
+
+  /**
+   * Translates a call of a method that has no special treatment in the translator.
+   * @param method    the method
+   * @param arguments the SQL of the arguments
+   * @return the SQL or <code>null</code> if the method is not supported
+   */
+  public String function(final MethodKind method, final List<String> arguments) {
+    switch (method) {
+    case LENGTH:
+      return "CHAR_LENGTH(" + arguments.get(0) + ")";
+    case INDEXOF:
+      return "(POSITION(" + arguments.get(1) + " IN " + arguments.get(0) + ") - 1)";
+    case SUBSTRING:
+      return "SUBSTRING(" + arguments.get(0) + " FROM " + arguments.get(1) + " + 1"
+          + (arguments.size() > 2 ? " FOR " + arguments.get(2) : "") + ")";
+    case TOLOWER:
+      return lower(arguments.get(0));
+    case TOUPPER:
+      return "UPPER(" + arguments.get(0) + ")";
+    case TRIM:
+      return "TRIM(" + arguments.get(0) + ")";
+    case CONCAT:
+      return concat(arguments.get(0), arguments.get(1));
+    case YEAR:
+    case MONTH:
+    case DAY:
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      return "EXTRACT(" + method.name() + " FROM " + arguments.get(0) + ")";
+    case NOW:
+      return "CURRENT_TIMESTAMP";
+    case ROUND:
+      return "ROUND(" + arguments.get(0) + ")";
+    case FLOOR:
+      return "FLOOR(" + arguments.get(0) + ")";
+    case CEILING:
+      return "CEILING(" + arguments.get(0) + ")";
+    default:
+      return null;
+    }
+  }
+
+  /** Gets the SQL for an item of the ORDER BY clause; <code>null</code> values come first in ascending order. */
+  public String orderByItem(final String value, final boolean descending) {
+    return value + (descending ? " DESC NULLS LAST" : " ASC NULLS FIRST");
+  }
+
+  /**
+   * Appends the clauses restricting the result to a range of rows.
+   * @param sql        the SQL so far, ending with the ORDER BY clause
+   * @param parameters the values to bind so far
+   * @param skip       the number of rows to skip or <code>null</code>
+   * @param top        the maximum number of rows or <code>null</code>
+   */
+  public void appendPaging(final StringBuilder sql, final List<Object> parameters,
+      final Integer skip, final Integer top) {
+    if (skip != null) {
+      sql.append(" OFFSET ? ROWS");
+      parameters.add(skip);
+    }
+    if (top != null) {
+      sql.append(" FETCH FIRST ? ROWS ONLY");
+      parameters.add(top);
+    }
+  }
+}
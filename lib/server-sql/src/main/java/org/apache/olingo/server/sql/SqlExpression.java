@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+
+/**
+ * A translated expression: SQL text with the values bound to its placeholders
+ * and what is known about its type.
+ */
+final class SqlExpression {
+
+  /** The syntactic form of an expression. */
+  enum Form {
+    /** A value, e.g., a column or a function result. */
+    VALUE,
+    /** A condition, i.e., an expression that can be used directly in a WHERE clause. */
+    CONDITION,
+    /** A placeholder for a bound literal value. */
+    LITERAL,
+    /** The <code>null</code> literal. */
+    NULL
+  }
+
+  private static final char MARKER_START = '\u0001';
+  private static final char MARKER_END = '\u0002';
+
+  private final String sql;
+  private final List<Object> parameters;
+  private final EdmPrimitiveTypeKind kind;
+  private final Form form;
+
+  private SqlExpression(final String sql, final List<Object> parameters, final EdmPrimitiveTypeKind kind,
+      final Form form) {
+    this.sql = sql;
+    this.parameters = parameters;
+    this.kind = kind;
+    this.form = form;
+  }
+
+  /**
+   * Builds an expression from parts that are either SQL text or other expressions;
+   * the parameters of the expressions are collected in order.
+   * @param kind  the primitive type of the expression or <code>null</code> if unknown
+   * @param form  the form of the expression
+   * @param parts the parts
+   */
+  static SqlExpression of(final EdmPrimitiveTypeKind kind, final Form form, final Object... parts) {
+    final StringBuilder sql = new StringBuilder();
+    final List<Object> parameters = new ArrayList<Object>();
+    for (final Object part : parts) {
+      if (part instanceof SqlExpression) {
+        sql.append(((SqlExpression) part).sql);
+        parameters.addAll(((SqlExpression) part).parameters);
+      } else {
+        sql.append(part);
+      }
+    }
+    return new SqlExpression(sql.toString(), parameters, kind, form);
+  }
+
+  /**
+   * Builds an expression from a template with {@link #marker(int) markers} for arguments, e.g., one
+   * produced by the dialect; arguments may appear in any order and any number of times.
+   */
+  static SqlExpression expand(final EdmPrimitiveTypeKind kind, final Form form, final String template,
+      final SqlExpression... arguments) {
+    final List<Object> parts = new ArrayList<Object>();
+    int start = 0;
+    int markerStart = template.indexOf(MARKER_START);
+    while (markerStart >= 0) {
+      final int markerEnd = template.indexOf(MARKER_END, markerStart);
+      parts.add(template.substring(start, markerStart));
+      parts.add(arguments[Integer.parseInt(template.substring(markerStart + 1, markerEnd))]);
+      start = markerEnd + 1;
+      markerStart = template.indexOf(MARKER_START, start);
+    }
+    parts.add(template.substring(start));
+    return of(kind, form, parts.toArray());
+  }
+
+  /** Gets the marker standing for the argument with the given index in a template. */
+  static String marker(final int index) {
+    return MARKER_START + Integer.toString(index) + MARKER_END;
+  }
+
+  /** Builds a condition from parts. */
+  static SqlExpression condition(final Object... parts) {
+    return of(EdmPrimitiveTypeKind.Boolean, Form.CONDITION, parts);
+  }
+
+  /** Builds a placeholder with its bound value. */
+  static SqlExpression literal(final EdmPrimitiveTypeKind kind, final Object value) {
+    return value == null ?
+        new SqlExpression("NULL", Collections.emptyList(), kind, Form.NULL) :
+        new SqlExpression("?", Collections.singletonList(value), kind, Form.LITERAL);
+  }
+
+  String getSql() {
+    return sql;
+  }
+
+  List<Object> getParameters() {
+    return parameters;
+  }
+
+  EdmPrimitiveTypeKind getKind() {
+    return kind;
+  }
+
+  boolean is(final Form form) {
+    return this.form == form;
+  }
+
+  /** Gets the value of a bound literal. */
+  Object getValue() {
+    return parameters.get(0);
+  }
+}
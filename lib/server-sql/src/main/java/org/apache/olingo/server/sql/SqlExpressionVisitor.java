@@ -0,0 +1,527 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.UriResourceIt;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAll;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAny;
+import org.apache.olingo.server.api.uri.UriResourceLambdaVariable;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchBinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
+import org.apache.olingo.server.sql.SqlExpression.Form;
+
+/**
+ * Visitor translating an expression bottom-up into SQL.
+ * <br/>
+ * Single-valued navigation is translated into scalar subqueries (or EXISTS subqueries if it leads to
+ * a lambda operator), <code>any</code> and <code>all</code>
+ * into (NOT) EXISTS subqueries, and <code>$count</code> of collection-valued navigation into
+ * COUNT subqueries, all correlated with the table of the enclosing entity by the join columns of the mapping.
+ */
+class SqlExpressionVisitor implements ExpressionVisitor<SqlExpression> {
+
+  private static final Integer MAX_DURATION_PRECISION = 12;
+
+  private final SqlDialect dialect;
+  private final SqlMapping mapping;
+  private final Scope root;
+  private final Map<String, Scope> variables;
+  private final int[] aliasCount;
+
+  SqlExpressionVisitor(final SqlDialect dialect, final SqlMapping mapping, final EdmEntityType entityType,
+      final String alias) {
+    this.dialect = dialect;
+    this.mapping = mapping;
+    root = new Scope(entityType, alias);
+    variables = Collections.emptyMap();
+    aliasCount = new int[] { 0 };
+  }
+
+  /** Creates a visitor for the expression of a lambda operator, with an additional lambda variable. */
+  private SqlExpressionVisitor(final SqlExpressionVisitor outer, final String variable, final Scope scope) {
+    dialect = outer.dialect;
+    mapping = outer.mapping;
+    root = outer.root;
+    variables = new HashMap<String, Scope>(outer.variables);
+    variables.put(variable, scope);
+    aliasCount = outer.aliasCount;
+  }
+
+  @Override
+  public SqlExpression visitBinaryOperator(final BinaryOperatorKind operator, final SqlExpression left,
+      final SqlExpression right) throws ExpressionVisitException, ODataApplicationException {
+    switch (operator) {
+    case AND:
+    case OR:
+      return SqlExpression.condition("(", condition(left), " ", operator.name(), " ", condition(right), ")");
+    case EQ:
+    case NE:
+    case LT:
+    case LE:
+    case GT:
+    case GE:
+      return compare(operator, left, right);
+    case ADD:
+    case SUB:
+    case MUL:
+    case DIV:
+    case MOD:
+      return arithmetic(operator, left, right);
+    case HAS:
+      return SqlExpression.expand(EdmPrimitiveTypeKind.Boolean, Form.CONDITION,
+          dialect.bitAnd(SqlExpression.marker(0), SqlExpression.marker(1)) + " = " + SqlExpression.marker(1),
+          left, right);
+    default:
+      throw notImplemented("The operator " + operator);
+    }
+  }
+
+  @Override
+  public SqlExpression visitBinaryOperator(final BinaryOperatorKind operator, final SqlExpression left,
+      final List<SqlExpression> right) throws ExpressionVisitException, ODataApplicationException {
+    if (operator != BinaryOperatorKind.IN) {
+      throw notImplemented("The operator " + operator);
+    }
+    final List<Object> parts = new ArrayList<Object>();
+    parts.add(left);
+    parts.add(" IN (");
+    for (final SqlExpression item : right) {
+      parts.add(parts.size() > 2 ? ", " : "");
+      parts.add(item);
+    }
+    parts.add(")");
+    return SqlExpression.condition(parts.toArray());
+  }
+
+  @Override
+  public SqlExpression visitUnaryOperator(final UnaryOperatorKind operator, final SqlExpression operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    if (operator == UnaryOperatorKind.NOT) {
+      // Comparisons with null are false, not unknown, so the negation of an unknown condition is true.
+      return SqlExpression.condition("(CASE WHEN ", condition(operand), " THEN 0 ELSE 1 END = 1)");
+    }
+    return operand.is(Form.NULL) ? operand : SqlExpression.of(operand.getKind(), Form.VALUE, "(- ", operand, ")");
+  }
+
+  @Override
+  public SqlExpression visitMethodCall(final MethodKind methodCall, final List<SqlExpression> parameters)
+      throws ExpressionVisitException, ODataApplicationException {
+    switch (methodCall) {
+    case CONTAINS:
+    case STARTSWITH:
+    case ENDSWITH:
+      return like(methodCall, parameters.get(0), parameters.get(1));
+    case SUBSTRINGOF:
+      return like(MethodKind.CONTAINS, parameters.get(1), parameters.get(0));
+    default:
+      final List<String> markers = new ArrayList<String>();
+      for (int i = 0; i < parameters.size(); i++) {
+        markers.add(SqlExpression.marker(i));
+      }
+      final String template = dialect.function(methodCall, markers);
+      if (template == null) {
+        throw notImplemented("The method " + methodCall);
+      }
+      return SqlExpression.expand(getKind(methodCall, parameters), Form.VALUE, template,
+          parameters.toArray(new SqlExpression[parameters.size()]));
+    }
+  }
+
+  @Override
+  public SqlExpression visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda expressions outside of member expressions");
+  }
+
+  @Override
+  public SqlExpression visitLiteral(final Literal literal) throws ExpressionVisitException, ODataApplicationException {
+    final EdmType type = literal.getType();
+    if (type == null) {
+      return SqlExpression.literal(null, null);
+    }
+    final EdmPrimitiveTypeKind kind = getKind(type);
+    if (kind == null || kind.isGeospatial()) {
+      throw notImplemented("The literal " + literal.getText());
+    }
+    final EdmPrimitiveType primitiveType = (EdmPrimitiveType) type;
+    final Class<?> parameterType = dialect.getParameterType(kind) == null ? primitiveType.getDefaultType() :
+        dialect.getParameterType(kind);
+    try {
+      // Facets must not restrict literals; durations are allowed to have up to twelve fractional digits.
+      return SqlExpression.literal(kind,
+          primitiveType.valueOfString(primitiveType.fromUriLiteral(literal.getText()),
+              null, null, kind == EdmPrimitiveTypeKind.Duration ? MAX_DURATION_PRECISION : null,
+              Integer.MAX_VALUE, null, parameterType));
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid literal " + literal.getText() + ".",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  @Override
+  public SqlExpression visitMember(final Member member) throws ExpressionVisitException, ODataApplicationException {
+    if (member.getStartTypeFilter() != null) {
+      throw notImplemented("The type cast in " + member);
+    }
+    final List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+    final UriResource first = parts.get(0);
+    if (first instanceof UriResourceIt) {
+      if (((UriResourceIt) first).getTypeFilterOnCollection() != null
+          || ((UriResourceIt) first).getTypeFilterOnEntry() != null) {
+        throw notImplemented("The type cast in " + member);
+      }
+      return path(parts, 1, root);
+    } else if (first instanceof UriResourceLambdaVariable) {
+      final Scope scope = variables.get(((UriResourceLambdaVariable) first).getVariableName());
+      if (scope == null) {
+        throw notImplemented("The lambda variable " + first.getSegmentValue());
+      }
+      return path(parts, 1, scope);
+    } else {
+      return path(parts, 0, root);
+    }
+  }
+
+  @Override
+  public SqlExpression visitAlias(final String aliasName) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Aliases");
+  }
+
+  @Override
+  public SqlExpression visitTypeLiteral(final EdmType type)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Type literals");
+  }
+
+  @Override
+  public SqlExpression visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda references");
+  }
+
+  @Override
+  public SqlExpression visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    long flags = 0;
+    try {
+      for (final String enumValue : enumValues) {
+        flags |= type.valueOfString(enumValue, null, null, null, null, null, Long.class);
+      }
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid enumeration value.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+    return SqlExpression.literal(getKind(type), flags);
+  }
+
+  /** Translates a $search expression; a term matches if any of the search properties contains it. */
+  SqlExpression search(final SearchExpression expression) {
+    if (expression.isSearchBinary()) {
+      return SqlExpression.condition("(", search(expression.asSearchBinary().getLeftOperand()),
+          expression.asSearchBinary().getOperator() == SearchBinaryOperatorKind.AND ? " AND " : " OR ",
+          search(expression.asSearchBinary().getRightOperand()), ")");
+    } else if (expression.isSearchUnary()) {
+      return SqlExpression.condition("NOT ", search(expression.asSearchUnary().getOperand()));
+    }
+    final String pattern = "%" + escapeLike(expression.asSearchTerm().getSearchTerm().toLowerCase(Locale.ROOT)) + "%";
+    final List<Object> parts = new ArrayList<Object>();
+    for (final List<String> path : mapping.getSearchProperties(root.type)) {
+      parts.add(parts.isEmpty() ? "(" : " OR ");
+      parts.add(SqlExpression.expand(EdmPrimitiveTypeKind.String, Form.VALUE,
+          dialect.lower(SqlExpression.marker(0)), column(root, path, EdmPrimitiveTypeKind.String)));
+      parts.add(" LIKE ");
+      parts.add(SqlExpression.literal(EdmPrimitiveTypeKind.String, pattern));
+      parts.add(" ESCAPE '" + dialect.getLikeEscape() + "'");
+    }
+    if (parts.isEmpty()) {
+      return SqlExpression.condition(dialect.constant(false));
+    }
+    parts.add(")");
+    return SqlExpression.condition(parts.toArray());
+  }
+
+  /** Gets an expression as condition; Boolean values are compared with <code>true</code>. */
+  SqlExpression condition(final SqlExpression expression) {
+    return expression.is(Form.CONDITION) ? expression :
+        expression.is(Form.NULL) ? SqlExpression.condition(dialect.constant(false)) :
+            SqlExpression.expand(EdmPrimitiveTypeKind.Boolean, Form.CONDITION,
+                dialect.isTrue(SqlExpression.marker(0)), expression);
+  }
+
+  /** Gets the column holding a primitive property of the entity addressed by the request. */
+  SqlExpression column(final List<String> path, final EdmType type) {
+    return column(root, path, getKind(type));
+  }
+
+  private SqlExpression column(final Scope scope, final List<String> path, final EdmPrimitiveTypeKind kind) {
+    return SqlExpression.of(kind, Form.VALUE,
+        scope.alias, ".", dialect.quoteIdentifier(mapping.getColumnName(scope.type, path)));
+  }
+
+  private SqlExpression compare(final BinaryOperatorKind operator, final SqlExpression left,
+      final SqlExpression right) {
+    // Unlike SQL, OData treats null as a value that is equal to null and different from everything else.
+    if (left.is(Form.NULL) || right.is(Form.NULL)) {
+      final SqlExpression other = left.is(Form.NULL) ? right : left;
+      return other.is(Form.NULL) ? SqlExpression.condition(dialect.constant(operator == BinaryOperatorKind.EQ
+          || operator == BinaryOperatorKind.LE || operator == BinaryOperatorKind.GE)) :
+          operator == BinaryOperatorKind.EQ ? SqlExpression.condition(other, " IS NULL") :
+              operator == BinaryOperatorKind.NE ? SqlExpression.condition(other, " IS NOT NULL") :
+                  SqlExpression.condition(dialect.constant(false));
+    }
+    final boolean literal = left.is(Form.LITERAL) || right.is(Form.LITERAL);
+    switch (operator) {
+    case EQ:
+      return literal ? SqlExpression.condition(left, " = ", right) :
+          SqlExpression.condition("(", left, " = ", right, " OR ", left, " IS NULL AND ", right, " IS NULL)");
+    case NE:
+      return left.is(Form.LITERAL) && right.is(Form.LITERAL) ? SqlExpression.condition(left, " <> ", right) :
+          literal ? SqlExpression.condition("(", left, " <> ", right, " OR ",
+              left.is(Form.LITERAL) ? right : left, " IS NULL)") :
+              SqlExpression.condition("(", left, " <> ", right,
+                  " OR ", left, " IS NULL AND ", right, " IS NOT NULL",
+                  " OR ", left, " IS NOT NULL AND ", right, " IS NULL)");
+    case LT:
+      return SqlExpression.condition(left, " < ", right);
+    case LE:
+      return SqlExpression.condition(left, " <= ", right);
+    case GT:
+      return SqlExpression.condition(left, " > ", right);
+    default:
+      return SqlExpression.condition(left, " >= ", right);
+    }
+  }
+
+  private SqlExpression arithmetic(final BinaryOperatorKind operator, final SqlExpression left,
+      final SqlExpression right) throws ODataApplicationException {
+    if (isTemporal(left.getKind()) || isTemporal(right.getKind())) {
+      throw notImplemented("Date and time arithmetic");
+    }
+    final EdmPrimitiveTypeKind kind = left.getKind() == null || right.getKind() == null ? null :
+        left.getKind() == EdmPrimitiveTypeKind.Double || right.getKind() == EdmPrimitiveTypeKind.Double
+            || left.getKind() == EdmPrimitiveTypeKind.Single || right.getKind() == EdmPrimitiveTypeKind.Single ?
+            EdmPrimitiveTypeKind.Double :
+            left.getKind() == EdmPrimitiveTypeKind.Decimal || right.getKind() == EdmPrimitiveTypeKind.Decimal ?
+                EdmPrimitiveTypeKind.Decimal :
+                EdmPrimitiveTypeKind.Int64;
+    if (left.is(Form.NULL) || right.is(Form.NULL)) {
+      return SqlExpression.literal(kind, null);
+    } else if (operator == BinaryOperatorKind.MOD) {
+      return SqlExpression.expand(kind, Form.VALUE,
+          dialect.modulo(SqlExpression.marker(0), SqlExpression.marker(1)), left, right);
+    }
+    final String symbol = operator == BinaryOperatorKind.ADD ? " + " :
+        operator == BinaryOperatorKind.SUB ? " - " :
+            operator == BinaryOperatorKind.MUL ? " * " :
+                " / ";
+    return SqlExpression.of(kind, Form.VALUE, "(", left, symbol, right, ")");
+  }
+
+  /**
+   * Translates the string methods testing for parts of strings into LIKE conditions;
+   * wildcard characters in the pattern are escaped.
+   */
+  private SqlExpression like(final MethodKind method, final SqlExpression value, final SqlExpression part) {
+    if (value.is(Form.NULL) || part.is(Form.NULL)) {
+      return SqlExpression.condition(dialect.constant(false));
+    }
+    final String escape = " ESCAPE '" + dialect.getLikeEscape() + "'";
+    if (part.is(Form.LITERAL)) {
+      final String pattern = (method == MethodKind.STARTSWITH ? "" : "%")
+          + escapeLike((String) part.getValue())
+          + (method == MethodKind.ENDSWITH ? "" : "%");
+      return SqlExpression.condition(value, " LIKE ", SqlExpression.literal(EdmPrimitiveTypeKind.String, pattern),
+          escape);
+    }
+    final String escaped = dialect.escapeLikePattern(SqlExpression.marker(0));
+    final String pattern = method == MethodKind.STARTSWITH ? dialect.concat(escaped, "'%'") :
+        method == MethodKind.ENDSWITH ? dialect.concat("'%'", escaped) :
+            dialect.concat(dialect.concat("'%'", escaped), "'%'");
+    return SqlExpression.condition(value, " LIKE ",
+        SqlExpression.expand(EdmPrimitiveTypeKind.String, Form.VALUE, pattern, part), escape);
+  }
+
+  /** Translates a path of properties, starting at the given position with the given entity. */
+  private SqlExpression path(final List<UriResource> parts, final int start, final Scope scope)
+      throws ExpressionVisitException, ODataApplicationException {
+    final List<String> names = new ArrayList<String>();
+    for (int i = start; i < parts.size(); i++) {
+      final UriResource part = parts.get(i);
+      final boolean last = i == parts.size() - 1;
+      if (part instanceof UriResourcePrimitiveProperty && last
+          && !((UriResourceProperty) part).isCollection()) {
+        names.add(((UriResourceProperty) part).getProperty().getName());
+        return column(scope, names, getKind(((UriResourceProperty) part).getProperty().getType()));
+      } else if (part instanceof UriResourceComplexProperty && !last
+          && !((UriResourceProperty) part).isCollection()
+          && ((UriResourceComplexProperty) part).getComplexTypeFilter() == null) {
+        names.add(((UriResourceProperty) part).getProperty().getName());
+      } else if (part instanceof UriResourceNavigation && !last && names.isEmpty()
+          && ((UriResourceNavigation) part).getTypeFilterOnCollection() == null
+          && ((UriResourceNavigation) part).getTypeFilterOnEntry() == null) {
+        return navigate(parts, i, scope);
+      } else {
+        throw notImplemented("The path segment " + part.getSegmentValue());
+      }
+    }
+    throw notImplemented("The path without a primitive property");
+  }
+
+  /** Translates a navigation into a subquery correlated with the source entity. */
+  private SqlExpression navigate(final List<UriResource> parts, final int index, final Scope source)
+      throws ExpressionVisitException, ODataApplicationException {
+    final UriResourceNavigation navigation = (UriResourceNavigation) parts.get(index);
+    final EdmNavigationProperty property = navigation.getProperty();
+    final Scope target = new Scope(property.getType(), "t" + ++aliasCount[0]);
+
+    final List<Object> from = new ArrayList<Object>();
+    from.add(" FROM " + dialect.quoteIdentifier(mapping.getTableName(target.type)) + " " + target.alias + " WHERE ");
+    for (final Map.Entry<String, String> join : mapping.getJoinColumns(source.type, property).entrySet()) {
+      from.add(from.size() > 1 ? " AND " : "");
+      from.add(source.alias + "." + dialect.quoteIdentifier(join.getKey())
+          + " = " + target.alias + "." + dialect.quoteIdentifier(join.getValue()));
+    }
+    final SqlExpression fromWhere = SqlExpression.of(null, Form.VALUE, from.toArray());
+
+    final UriResource next = parts.get(index + 1);
+    final boolean last = index + 1 == parts.size() - 1;
+    if (!navigation.isCollection()) {
+      final SqlExpression value = path(parts, index + 1, target);
+      return value.is(Form.CONDITION) ?
+          SqlExpression.condition("EXISTS (SELECT 1", fromWhere, " AND ", value, ")") :
+          SqlExpression.of(value.getKind(), Form.VALUE, "(SELECT ", value, fromWhere, ")");
+    } else if (next instanceof UriResourceCount && last) {
+      return SqlExpression.of(EdmPrimitiveTypeKind.Int64, Form.VALUE, "(SELECT COUNT(*)", fromWhere, ")");
+    } else if (next instanceof UriResourceLambdaAny && last) {
+      final UriResourceLambdaAny any = (UriResourceLambdaAny) next;
+      return any.getExpression() == null ?
+          SqlExpression.condition("EXISTS (SELECT 1", fromWhere, ")") :
+          SqlExpression.condition("EXISTS (SELECT 1", fromWhere, " AND ",
+              lambda(any.getLambdaVariable(), target, any.getExpression()), ")");
+    } else if (next instanceof UriResourceLambdaAll && last) {
+      final UriResourceLambdaAll all = (UriResourceLambdaAll) next;
+      // All entities match if there is none for which the condition is false or unknown.
+      return SqlExpression.condition("NOT EXISTS (SELECT 1", fromWhere, " AND CASE WHEN ",
+          lambda(all.getLambdaVariable(), target, all.getExpression()), " THEN 0 ELSE 1 END = 1)");
+    } else {
+      throw notImplemented("The path segment " + next.getSegmentValue());
+    }
+  }
+
+  private SqlExpression lambda(final String variable, final Scope scope, final Expression expression)
+      throws ExpressionVisitException, ODataApplicationException {
+    final SqlExpressionVisitor visitor = new SqlExpressionVisitor(this, variable, scope);
+    return visitor.condition(expression.accept(visitor));
+  }
+
+  private String escapeLike(final String value) {
+    final String escape = String.valueOf(dialect.getLikeEscape());
+    return value.replace(escape, escape + escape).replace("%", escape + "%").replace("_", escape + "_");
+  }
+
+  private static EdmPrimitiveTypeKind getKind(final MethodKind method, final List<SqlExpression> parameters) {
+    switch (method) {
+    case LENGTH:
+    case INDEXOF:
+    case YEAR:
+    case MONTH:
+    case DAY:
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      return EdmPrimitiveTypeKind.Int32;
+    case SUBSTRING:
+    case TOLOWER:
+    case TOUPPER:
+    case TRIM:
+    case CONCAT:
+      return EdmPrimitiveTypeKind.String;
+    case NOW:
+      return EdmPrimitiveTypeKind.DateTimeOffset;
+    case ROUND:
+    case FLOOR:
+    case CEILING:
+      return parameters.get(0).getKind();
+    default:
+      return null;
+    }
+  }
+
+  /** Gets the kind of a primitive type or of the underlying type of an enumeration or type definition. */
+  static EdmPrimitiveTypeKind getKind(final EdmType type) {
+    final EdmType primitiveType = type instanceof EdmEnumType ? ((EdmEnumType) type).getUnderlyingType() :
+        type instanceof EdmTypeDefinition ? ((EdmTypeDefinition) type).getUnderlyingType() :
+            type;
+    return primitiveType instanceof EdmPrimitiveType ?
+        EdmPrimitiveTypeKind.valueOfFQN(primitiveType.getFullQualifiedName()) :
+        null;
+  }
+
+  private static boolean isTemporal(final EdmPrimitiveTypeKind kind) {
+    return kind == EdmPrimitiveTypeKind.Date || kind == EdmPrimitiveTypeKind.DateTimeOffset
+        || kind == EdmPrimitiveTypeKind.TimeOfDay || kind == EdmPrimitiveTypeKind.Duration;
+  }
+
+  static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " cannot be translated to SQL.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  /** An entity in the query: its type and the alias of its table. */
+  static final class Scope {
+    private final EdmEntityType type;
+    private final String alias;
+
+    Scope(final EdmEntityType type, final String alias) {
+      this.type = type;
+      this.alias = alias;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmElement;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmReferentialConstraint;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * The mapping of the entity data model to tables and columns used by the {@link SqlTranslator}.
+ * <br/>
+ * By default, each entity type is stored in a table named like the entity type,
+ * each primitive property in a column named like the property; properties of complex properties are stored
+ * in columns named like the path to them, with the segments separated by underscores.
+ * Navigation properties are joined on their referential constraints or those of their partners.
+ * Enumeration values are stored as their numeric values.
+ */
+public class SqlMapping {
+
+  /** Gets the name of the table holding the entities of an entity type. */
+  public String getTableName(final EdmEntityType entityType) {
+    return entityType.getName();
+  }
+
+  /**
+   * Gets the name of the column holding a primitive property.
+   * @param entityType   the entity type owning the property path
+   * @param propertyPath the names of the complex properties leading to the primitive property and its name
+   */
+  public String getColumnName(final EdmStructuredType entityType, final List<String> propertyPath) {
+    final StringBuilder name = new StringBuilder();
+    for (final String segment : propertyPath) {
+      name.append(name.length() == 0 ? "" : "_").append(segment);
+    }
+    return name.toString();
+  }
+
+  /**
+   * Gets the columns on which the table of the source entity type is joined with the table of the target
+   * of a navigation property.
+   * @return a map from source columns to target columns, in join order
+   * @throws ODataApplicationException with status code 501 if the join columns are not known
+   */
+  public Map<String, String> getJoinColumns(final EdmEntityType source, final EdmNavigationProperty navigation)
+      throws ODataApplicationException {
+    final EdmEntityType target = navigation.getType();
+    final Map<String, String> columns = new LinkedHashMap<String, String>();
+    for (final EdmReferentialConstraint constraint : navigation.getReferentialConstraints()) {
+      columns.put(getColumnName(source, split(constraint.getPropertyName())),
+          getColumnName(target, split(constraint.getReferencedPropertyName())));
+    }
+    final EdmNavigationProperty partner = navigation.getPartner();
+    if (columns.isEmpty() && partner != null) {
+      for (final EdmReferentialConstraint constraint : partner.getReferentialConstraints()) {
+        columns.put(getColumnName(source, split(constraint.getReferencedPropertyName())),
+            getColumnName(target, split(constraint.getPropertyName())));
+      }
+    }
+    if (columns.isEmpty()) {
+      throw new ODataApplicationException("No join columns known for the navigation property "
+          + navigation.getName() + ".", HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+    return columns;
+  }
+
+  /** Gets the paths of the string properties searched by $search; by default all single-valued ones. */
+  public List<List<String>> getSearchProperties(final EdmEntityType entityType) {
+    final List<List<String>> paths = new ArrayList<List<String>>();
+    for (final String name : entityType.getPropertyNames()) {
+      final EdmElement property = entityType.getProperty(name);
+      if (property instanceof EdmProperty && ((EdmProperty) property).isPrimitive() && !property.isCollection()
+          && property.getType().getFullQualifiedName()
+              .equals(EdmPrimitiveTypeKind.String.getFullQualifiedName())) {
+        paths.add(Arrays.asList(name));
+      }
+    }
+    return paths;
+  }
+
+  private static List<String> split(final String path) {
+    return Arrays.asList(path.split("/"));
+  }
+}
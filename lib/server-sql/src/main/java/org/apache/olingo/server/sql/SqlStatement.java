@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fragment of SQL with <code>?</code> placeholders and the values to bind to them, in order.
+ */
+public final class SqlStatement {
+
+  private final String sql;
+  private final List<Object> parameters;
+
+  public SqlStatement(final String sql, final List<Object> parameters) {
+    this.sql = sql;
+    this.parameters = Collections.unmodifiableList(new ArrayList<Object>(parameters));
+  }
+
+  /** Gets the SQL text. */
+  public String getSql() {
+    return sql;
+  }
+
+  /** Gets the values for the placeholders in the SQL text; <code>null</code> values are never bound. */
+  public List<Object> getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public String toString() {
+    return sql + " " + parameters;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
+import org.apache.olingo.server.sql.SqlExpression.Form;
+
+/**
+ * Translates system query options into parameterized SQL, so that they can be evaluated by a
+ * relational database instead of in memory.
+ * <br/>
+ * The table of the entity type addressed by the request has the alias {@link #ROOT_ALIAS};
+ * tables in subqueries have the aliases <code>t1</code>, <code>t2</code>, and so on.
+ * The syntax is defined by the {@link SqlDialect}, the names of tables and columns by the {@link SqlMapping}.
+ * <br/>
+ * Comparisons with <code>eq</code> and <code>ne</code> follow OData semantics for <code>null</code> values;
+ * all other operators and methods follow the three-valued logic of SQL, which gives the same results
+ * except for negated conditions on <code>null</code> values.
+ * Expressions that cannot be translated, e.g., date and time arithmetic, aliases, or type casts,
+ * are rejected with status code 501 (Not Implemented).
+ */
+public class SqlTranslator {
+
+  /** The alias of the table of the entity type addressed by the request. */
+  public static final String ROOT_ALIAS = "t0";
+
+  private final SqlDialect dialect;
+  private final SqlMapping mapping;
+
+  /** Creates a translator producing standard SQL with the default mapping. */
+  public SqlTranslator() {
+    this(new SqlDialect(), new SqlMapping());
+  }
+
+  public SqlTranslator(final SqlDialect dialect, final SqlMapping mapping) {
+    this.dialect = dialect;
+    this.mapping = mapping;
+  }
+
+  /**
+   * Translates a $filter expression into a condition.
+   * @param entityType the entity type the expression is evaluated for
+   * @param expression the expression
+   * @throws ODataApplicationException with status code 501 for expressions that cannot be translated
+   */
+  public SqlStatement translateFilter(final EdmEntityType entityType, final Expression expression)
+      throws ODataApplicationException {
+    final SqlExpressionVisitor visitor = createVisitor(entityType);
+    return toStatement(visitor.condition(accept(visitor, expression)));
+  }
+
+  /**
+   * Translates a $search expression into a condition.
+   * @param entityType the entity type the expression is evaluated for
+   * @param expression the search expression
+   */
+  public SqlStatement translateSearch(final EdmEntityType entityType, final SearchExpression expression) {
+    return toStatement(createVisitor(entityType).search(expression));
+  }
+
+  /**
+   * Translates an $orderby option into the items of an ORDER BY clause.
+   * @param entityType    the entity type the expressions are evaluated for
+   * @param orderByOption the $orderby option
+   * @throws ODataApplicationException with status code 501 for expressions that cannot be translated
+   */
+  public SqlStatement translateOrderBy(final EdmEntityType entityType, final OrderByOption orderByOption)
+      throws ODataApplicationException {
+    return toStatement(orderBy(createVisitor(entityType), orderByOption, null));
+  }
+
+  /**
+   * Translates the $filter, $search, $orderby, $skip, and $top options into a query
+   * for the entities of an entity type.
+   * If $skip or $top are given, the order is completed with the key properties, so that pages are stable.
+   * @param entityType the entity type
+   * @param uriInfo    the system query options
+   * @throws ODataApplicationException with status code 501 for expressions that cannot be translated
+   */
+  public SqlStatement translateQuery(final EdmEntityType entityType, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final SqlExpressionVisitor visitor = createVisitor(entityType);
+    final List<Object> parts = new ArrayList<Object>();
+    parts.add("SELECT " + ROOT_ALIAS + ".*");
+    appendFromWhere(parts, visitor, entityType, uriInfo);
+
+    final boolean paging = uriInfo.getSkipOption() != null || uriInfo.getTopOption() != null;
+    if (uriInfo.getOrderByOption() != null || paging) {
+      parts.add(" ORDER BY ");
+      parts.add(orderBy(visitor, uriInfo.getOrderByOption(), paging ? entityType : null));
+    }
+
+    final SqlStatement statement = toStatement(SqlExpression.of(null, Form.VALUE, parts.toArray()));
+    final StringBuilder sql = new StringBuilder(statement.getSql());
+    final List<Object> parameters = new ArrayList<Object>(statement.getParameters());
+    dialect.appendPaging(sql, parameters,
+        uriInfo.getSkipOption() == null ? null : uriInfo.getSkipOption().getValue(),
+        uriInfo.getTopOption() == null ? null : uriInfo.getTopOption().getValue());
+    return new SqlStatement(sql.toString(), parameters);
+  }
+
+  /**
+   * Translates the $filter and $search options into a query counting the matching entities of an entity type,
+   * as needed for $count.
+   * @param entityType the entity type
+   * @param uriInfo    the system query options
+   * @throws ODataApplicationException with status code 501 for expressions that cannot be translated
+   */
+  public SqlStatement translateCount(final EdmEntityType entityType, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final SqlExpressionVisitor visitor = createVisitor(entityType);
+    final List<Object> parts = new ArrayList<Object>();
+    parts.add("SELECT COUNT(*)");
+    appendFromWhere(parts, visitor, entityType, uriInfo);
+    return toStatement(SqlExpression.of(null, Form.VALUE, parts.toArray()));
+  }
+
+  private void appendFromWhere(final List<Object> parts, final SqlExpressionVisitor visitor,
+      final EdmEntityType entityType, final UriInfoResource uriInfo) throws ODataApplicationException {
+    parts.add(" FROM " + dialect.quoteIdentifier(mapping.getTableName(entityType)) + " " + ROOT_ALIAS);
+    final List<SqlExpression> conditions = new ArrayList<SqlExpression>();
+    if (uriInfo.getFilterOption() != null) {
+      conditions.add(visitor.condition(accept(visitor, uriInfo.getFilterOption().getExpression())));
+    }
+    if (uriInfo.getSearchOption() != null) {
+      conditions.add(visitor.search(uriInfo.getSearchOption().getSearchExpression()));
+    }
+    for (final SqlExpression condition : conditions) {
+      parts.add(parts.size() == 2 ? " WHERE " : " AND ");
+      parts.add(condition);
+    }
+  }
+
+  private SqlExpression orderBy(final SqlExpressionVisitor visitor, final OrderByOption orderByOption,
+      final EdmEntityType keyType) throws ODataApplicationException {
+    final List<Object> parts = new ArrayList<Object>();
+    if (orderByOption != null) {
+      for (final OrderByItem item : orderByOption.getOrders()) {
+        parts.add(parts.isEmpty() ? "" : ", ");
+        parts.add(SqlExpression.expand(null, Form.VALUE,
+            dialect.orderByItem(SqlExpression.marker(0), item.isDescending()),
+            accept(visitor, item.getExpression())));
+      }
+    }
+    if (keyType != null) {
+      for (final EdmKeyPropertyRef key : keyType.getKeyPropertyRefs()) {
+        parts.add(parts.isEmpty() ? "" : ", ");
+        parts.add(SqlExpression.expand(null, Form.VALUE, dialect.orderByItem(SqlExpression.marker(0), false),
+            visitor.column(Arrays.asList(key.getName().split("/")), key.getProperty().getType())));
+      }
+    }
+    return SqlExpression.of(null, Form.VALUE, parts.toArray());
+  }
+
+  private SqlExpressionVisitor createVisitor(final EdmEntityType entityType) {
+    return new SqlExpressionVisitor(dialect, mapping, entityType, ROOT_ALIAS);
+  }
+
+  private static SqlExpression accept(final SqlExpressionVisitor visitor, final Expression expression)
+      throws ODataApplicationException {
+    try {
+      return expression.accept(visitor);
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in expression translation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  private static SqlStatement toStatement(final SqlExpression expression) {
+    return new SqlStatement(expression.getSql(), expression.getParameters());
+  }
+}
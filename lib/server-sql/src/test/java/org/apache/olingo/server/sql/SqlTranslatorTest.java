@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlEnumMember;
+import org.apache.olingo.commons.api.edm.provider.CsdlEnumType;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationPropertyBinding;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlPropertyRef;
+import org.apache.olingo.commons.api.edm.provider.CsdlReferentialConstraint;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.junit.Test;
+
+public class SqlTranslatorTest {
+
+  private static final String NAMESPACE = "Namespace";
+  private static final FullQualifiedName PRODUCT = new FullQualifiedName(NAMESPACE, "Product");
+  private static final FullQualifiedName CATEGORY = new FullQualifiedName(NAMESPACE, "Category");
+  private static final FullQualifiedName ADDRESS = new FullQualifiedName(NAMESPACE, "Address");
+  private static final FullQualifiedName COLOR = new FullQualifiedName(NAMESPACE, "Color");
+  private static final FullQualifiedName CONTAINER = new FullQualifiedName(NAMESPACE, "Container");
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(new Provider(),
+      Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final SqlTranslator translator = new SqlTranslator();
+
+  @Test
+  public void comparison() throws Exception {
+    assertFilter("Products", "Name eq 'Milk' and Price gt 2.5",
+        "(t0.\"Name\" = ? AND t0.\"Price\" > ?)", "Milk", "2.5");
+    assertFilter("Products", "Name eq null or ID le 3", "(t0.\"Name\" IS NULL OR t0.\"ID\" <= ?)", "3");
+    assertFilter("Products", "Name ne 'Milk'", "(t0.\"Name\" <> ? OR t0.\"Name\" IS NULL)", "Milk");
+    assertFilter("Products", "Name eq Address/City",
+        "(t0.\"Name\" = t0.\"Address_City\" OR t0.\"Name\" IS NULL AND t0.\"Address_City\" IS NULL)");
+    assertFilter("Products", "Price lt null", "(1 = 0)");
+    assertFilter("Products", "Released ge 2020-01-31", "t0.\"Released\" >= ?", "2020-01-31");
+    assertFilter("Products", "ID in (1, 2, 3)", "t0.\"ID\" IN (?, ?, ?)", "1", "2", "3");
+    assertFilter("Products", "Color has Namespace.Color'Red,Blue'", "BITAND(t0.\"Color\", ?) = ?", "5", "5");
+  }
+
+  @Test
+  public void logical() throws Exception {
+    assertFilter("Products", "Discontinued", "(t0.\"Discontinued\" = TRUE)");
+    assertFilter("Products", "not Discontinued or ID eq 1",
+        "((CASE WHEN (t0.\"Discontinued\" = TRUE) THEN 0 ELSE 1 END = 1) OR t0.\"ID\" = ?)", "1");
+    assertFilter("Products", "not (Price mul 2 sub 1 gt -ID)",
+        "(CASE WHEN ((t0.\"Price\" * ?) - ?) > (- t0.\"ID\") THEN 0 ELSE 1 END = 1)", "2", "1");
+    assertFilter("Products", "not (not (Price gt 10))",
+        "(CASE WHEN (CASE WHEN t0.\"Price\" > ? THEN 0 ELSE 1 END = 1) THEN 0 ELSE 1 END = 1)", "10");
+    assertFilter("Products", "ID mod 2 eq 0", "MOD(t0.\"ID\", ?) = ?", "2", "0");
+  }
+
+  @Test
+  public void methods() throws Exception {
+    assertFilter("Products", "contains(Name,'50%25_off')", "t0.\"Name\" LIKE ? ESCAPE '\\'", "%50\\%\\_off%");
+    assertFilter("Products", "startswith(Name,'M') and endswith(Name,'k')",
+        "(t0.\"Name\" LIKE ? ESCAPE '\\' AND t0.\"Name\" LIKE ? ESCAPE '\\')", "M%", "%k");
+    assertFilter("Products", "startswith(Address/Street,Address/City)",
+        "t0.\"Address_Street\" LIKE (REPLACE(REPLACE(REPLACE(t0.\"Address_City\", '\\', '\\\\'), "
+            + "'%', '\\%'), '_', '\\_') || '%') ESCAPE '\\'");
+    // The dialect puts the arguments in a different order; the parameters must follow.
+    assertFilter("Products", "indexof(Name,'k') eq 3", "(POSITION(? IN t0.\"Name\") - 1) = ?", "k", "3");
+    assertFilter("Products", "substring(tolower(Name),1,2) eq 'il'",
+        "SUBSTRING(LOWER(t0.\"Name\") FROM ? + 1 FOR ?) = ?", "1", "2", "il");
+    assertFilter("Products", "year(Released) eq 2020 and round(Price) eq 3",
+        "(EXTRACT(YEAR FROM t0.\"Released\") = ? AND ROUND(t0.\"Price\") = ?)", "2020", "3");
+  }
+
+  @Test
+  public void navigation() throws Exception {
+    assertFilter("Products", "Category/Name eq 'Food'",
+        "(SELECT t1.\"Name\" FROM \"Category\" t1 WHERE t0.\"CategoryID\" = t1.\"ID\") = ?", "Food");
+    assertFilter("Categories", "Products/$count gt 2",
+        "(SELECT COUNT(*) FROM \"Product\" t1 WHERE t0.\"ID\" = t1.\"CategoryID\") > ?", "2");
+    assertFilter("Categories", "Products/any(p:p/Price gt 10)",
+        "EXISTS (SELECT 1 FROM \"Product\" t1 WHERE t0.\"ID\" = t1.\"CategoryID\" AND t1.\"Price\" > ?)", "10");
+    assertFilter("Categories", "Products/any()",
+        "EXISTS (SELECT 1 FROM \"Product\" t1 WHERE t0.\"ID\" = t1.\"CategoryID\")");
+    assertFilter("Categories", "Products/all(p:p/Discontinued)",
+        "NOT EXISTS (SELECT 1 FROM \"Product\" t1 WHERE t0.\"ID\" = t1.\"CategoryID\""
+            + " AND CASE WHEN (t1.\"Discontinued\" = TRUE) THEN 0 ELSE 1 END = 1)");
+    assertFilter("Categories", "Products/any(p:p/Category/Products/any(q:q/Price lt p/Price))",
+        "EXISTS (SELECT 1 FROM \"Product\" t1 WHERE t0.\"ID\" = t1.\"CategoryID\" AND "
+            + "EXISTS (SELECT 1 FROM \"Category\" t2 WHERE t1.\"CategoryID\" = t2.\"ID\" AND "
+            + "EXISTS (SELECT 1 FROM \"Product\" t3 WHERE t2.\"ID\" = t3.\"CategoryID\" AND "
+            + "t3.\"Price\" < t1.\"Price\")))");
+  }
+
+  @Test
+  public void unsupported() throws Exception {
+    assertNotImplemented("Products", "Released add duration'P1D' gt 2020-01-01");
+    assertNotImplemented("Products", "isof(Namespace.Product)");
+    assertNotImplemented("Products", "geo.distance(geography'SRID=0;Point(1 2)',geography'SRID=0;Point(3 4)') lt 1");
+  }
+
+  @Test
+  public void query() throws Exception {
+    final UriInfo uriInfo = parse("Products",
+        "$filter=Price gt 2&$search=milk OR \"half_fat\"&$orderby=Category/Name desc,Name&$skip=20&$top=10");
+    final SqlStatement statement = translator.translateQuery(getEntityType("Products"), uriInfo);
+    assertEquals("SELECT t0.* FROM \"Product\" t0 WHERE t0.\"Price\" > ?"
+        + " AND ((LOWER(t0.\"Name\") LIKE ? ESCAPE '\\') OR (LOWER(t0.\"Name\") LIKE ? ESCAPE '\\'))"
+        + " ORDER BY (SELECT t1.\"Name\" FROM \"Category\" t1 WHERE t0.\"CategoryID\" = t1.\"ID\") DESC NULLS LAST,"
+        + " t0.\"Name\" ASC NULLS FIRST, t0.\"ID\" ASC NULLS FIRST"
+        + " OFFSET ? ROWS FETCH FIRST ? ROWS ONLY",
+        statement.getSql());
+    assertEquals(Arrays.<Object> asList("2", "%milk%", "%half\\_fat%", "20", "10"),
+        toStrings(statement.getParameters()));
+
+    final SqlStatement count = translator.translateCount(getEntityType("Products"), uriInfo);
+    assertEquals("SELECT COUNT(*) FROM \"Product\" t0 WHERE t0.\"Price\" > ?"
+        + " AND ((LOWER(t0.\"Name\") LIKE ? ESCAPE '\\') OR (LOWER(t0.\"Name\") LIKE ? ESCAPE '\\'))",
+        count.getSql());
+    assertEquals(3, count.getParameters().size());
+
+    assertEquals("SELECT t0.* FROM \"Product\" t0",
+        translator.translateQuery(getEntityType("Products"), parse("Products", null)).getSql());
+    assertEquals("NOT (LOWER(t0.\"Name\") LIKE ? ESCAPE '\\')", translator.translateSearch(
+        getEntityType("Products"), parse("Products", "$search=NOT milk").getSearchOption().getSearchExpression())
+        .getSql());
+  }
+
+  @Test
+  public void dialectAndMapping() throws Exception {
+    final SqlTranslator custom = new SqlTranslator(
+        new SqlDialect() {
+          @Override
+          public String quoteIdentifier(final String identifier) {
+            return '`' + identifier + '`';
+          }
+
+          @Override
+          public String orderByItem(final String value, final boolean descending) {
+            return value + (descending ? " DESC" : "");
+          }
+
+          @Override
+          public void appendPaging(final StringBuilder sql, final List<Object> parameters,
+              final Integer skip, final Integer top) {
+            sql.append(" LIMIT ? OFFSET ?");
+            parameters.add(top == null ? Integer.MAX_VALUE : top);
+            parameters.add(skip == null ? 0 : skip);
+          }
+        },
+        new SqlMapping() {
+          @Override
+          public String getTableName(final EdmEntityType entityType) {
+            return entityType.getName().toUpperCase() + "S";
+          }
+        });
+    final SqlStatement statement = custom.translateQuery(getEntityType("Products"),
+        parse("Products", "$filter=contains(Name,'a')&$orderby=Price desc&$top=5"));
+    assertEquals("SELECT t0.* FROM `PRODUCTS` t0 WHERE t0.`Name` LIKE ? ESCAPE '\\'"
+        + " ORDER BY t0.`Price` DESC, t0.`ID` LIMIT ? OFFSET ?", statement.getSql());
+    assertEquals(Arrays.<Object> asList("%a%", "5", "0"), toStrings(statement.getParameters()));
+  }
+
+  @Test
+  public void databaseFilter() throws Exception {
+    final Connection connection = openDatabase();
+    try {
+      assertRows(connection, "Products", "$filter=Name eq null", 3);
+      assertRows(connection, "Products", "$filter=Name ne 'Milk'", 2, 3, 4, 5);
+      assertRows(connection, "Products", "$filter=Price eq null", 4);
+      assertRows(connection, "Products", "$filter=Price lt null");
+      assertRows(connection, "Products", "$filter=Name eq Address/City", 2, 3);
+      assertRows(connection, "Products", "$filter=not (Price gt 10)", 1, 2, 4, 5);
+      assertRows(connection, "Products", "$filter=not Discontinued", 2, 3, 4, 5);
+      assertRows(connection, "Products", "$filter=not (not (Price gt 10))", 3);
+      assertRows(connection, "Products", "$filter=not (Name eq 'Milk')", 2, 3, 4, 5);
+      assertRows(connection, "Categories", "$filter=Products/all(p:p/Price lt 20)", 2);
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void databaseQuery() throws Exception {
+    final Connection connection = openDatabase();
+    try {
+      assertRows(connection, "Products", "$orderby=Price desc&$top=3", 3, 2, 1);
+      assertRows(connection, "Products", "$orderby=Name&$top=2", 3, 2);
+      assertRows(connection, "Products", "$orderby=Name&$skip=1&$top=2", 2, 4);
+      assertRows(connection, "Products", "$orderby=Category/Name desc,Name&$top=3", 4, 1, 3);
+      assertRows(connection, "Products", "$top=2", 1, 2);
+      assertRows(connection, "Products", "$filter=not (Price gt 1)&$orderby=Price&$top=10", 4, 5);
+    } finally {
+      connection.close();
+    }
+  }
+
+  private void assertFilter(final String entitySet, final String filter, final String expectedSql,
+      final Object... expectedParameters) throws Exception {
+    final SqlStatement statement = translator.translateFilter(getEntityType(entitySet),
+        parse(entitySet, "$filter=" + filter).getFilterOption().getExpression());
+    assertEquals(filter, expectedSql, statement.getSql());
+    assertEquals(filter, Arrays.asList(expectedParameters), toStrings(statement.getParameters()));
+  }
+
+  private void assertNotImplemented(final String entitySet, final String filter) throws Exception {
+    try {
+      translator.translateFilter(getEntityType(entitySet),
+          parse(entitySet, "$filter=" + filter).getFilterOption().getExpression());
+      fail("Expected an ODataApplicationException for " + filter);
+    } catch (final ODataApplicationException e) {
+      assertEquals(filter, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  /** Opens an in-memory database with some products and categories; skips the test without the H2 driver. */
+  private static Connection openDatabase() throws SQLException {
+    try {
+      Class.forName("org.h2.Driver");
+    } catch (final ClassNotFoundException e) {
+      assumeNoException(e);
+    }
+    final Connection connection = DriverManager.getConnection("jdbc:h2:mem:");
+    final Statement statement = connection.createStatement();
+    try {
+      statement.execute("CREATE TABLE \"Category\" (\"ID\" INT PRIMARY KEY, \"Name\" VARCHAR(20))");
+      statement.execute("CREATE TABLE \"Product\" (\"ID\" INT PRIMARY KEY, \"Name\" VARCHAR(20),"
+          + " \"Price\" DECIMAL(10,2), \"Released\" DATE, \"Discontinued\" BOOLEAN, \"Color\" INT,"
+          + " \"Address_Street\" VARCHAR(20), \"Address_City\" VARCHAR(20), \"CategoryID\" INT)");
+      statement.execute("INSERT INTO \"Category\" VALUES (1, 'Dairy'), (2, 'Bakery')");
+      statement.execute("INSERT INTO \"Product\" VALUES"
+          + " (1, 'Milk', 1.5, DATE '2020-01-31', TRUE, 1, 'Main Street', 'Springfield', 1),"
+          + " (2, 'Bread', 2.5, NULL, FALSE, 4, NULL, 'Bread', 2),"
+          + " (3, NULL, 12, NULL, FALSE, NULL, NULL, NULL, 2),"
+          + " (4, 'Cheese', NULL, NULL, FALSE, 5, NULL, 'Springfield', 1),"
+          + " (5, 'Water', 0.5, NULL, FALSE, NULL, NULL, NULL, NULL)");
+    } finally {
+      statement.close();
+    }
+    return connection;
+  }
+
+  /** Runs the translated query and compares the keys of the result rows, in the order of the result. */
+  private void assertRows(final Connection connection, final String entitySet, final String query,
+      final Integer... expectedIds) throws Exception {
+    final SqlStatement sqlStatement = translator.translateQuery(getEntityType(entitySet), parse(entitySet, query));
+    final PreparedStatement statement = connection.prepareStatement(sqlStatement.getSql());
+    try {
+      int index = 1;
+      for (final Object parameter : sqlStatement.getParameters()) {
+        statement.setObject(index++, parameter);
+      }
+      final List<Integer> ids = new ArrayList<Integer>();
+      final ResultSet resultSet = statement.executeQuery();
+      while (resultSet.next()) {
+        ids.add(resultSet.getInt("ID"));
+      }
+      if (query.contains("$orderby") || query.contains("$top")) {
+        assertEquals(query, Arrays.asList(expectedIds), ids);
+      } else {
+        assertEquals(query, new TreeSet<Integer>(Arrays.asList(expectedIds)),
+            new TreeSet<Integer>(ids));
+        assertEquals(query, expectedIds.length, ids.size());
+      }
+    } finally {
+      statement.close();
+    }
+  }
+
+  private static List<Object> toStrings(final List<Object> values) {
+    final Object[] strings = new Object[values.size()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = values.get(i).toString();
+    }
+    return Arrays.asList(strings);
+  }
+
+  private EdmEntityType getEntityType(final String entitySet) {
+    return edm.getEntityContainer().getEntitySet(entitySet).getEntityType();
+  }
+
+  private UriInfo parse(final String entitySet, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySet, query, null, null);
+  }
+
+  /** A products and categories model, with a referential constraint on the product side. */
+  private static class Provider extends CsdlAbstractEdmProvider {
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName entityTypeName) {
+      if (PRODUCT.equals(entityTypeName)) {
+        return new CsdlEntityType().setName(PRODUCT.getName())
+            .setKey(Collections.singletonList(new CsdlPropertyRef().setName("ID")))
+            .setProperties(Arrays.asList(
+                property("ID", EdmPrimitiveTypeKind.Int32.getFullQualifiedName()),
+                property("Name", EdmPrimitiveTypeKind.String.getFullQualifiedName()),
+                property("Price", EdmPrimitiveTypeKind.Decimal.getFullQualifiedName()).setScale(2),
+                property("Released", EdmPrimitiveTypeKind.Date.getFullQualifiedName()),
+                property("Discontinued", EdmPrimitiveTypeKind.Boolean.getFullQualifiedName()),
+                property("Color", COLOR),
+                property("Address", ADDRESS),
+                property("CategoryID", EdmPrimitiveTypeKind.Int32.getFullQualifiedName())))
+            .setNavigationProperties(Collections.singletonList(
+                new CsdlNavigationProperty().setName("Category").setType(CATEGORY).setPartner("Products")
+                    .setReferentialConstraints(Collections.singletonList(
+                        new CsdlReferentialConstraint().setProperty("CategoryID").setReferencedProperty("ID")))));
+      } else if (CATEGORY.equals(entityTypeName)) {
+        return new CsdlEntityType().setName(CATEGORY.getName())
+            .setKey(Collections.singletonList(new CsdlPropertyRef().setName("ID")))
+            .setProperties(Arrays.asList(
+                property("ID", EdmPrimitiveTypeKind.Int32.getFullQualifiedName()),
+                property("Name", EdmPrimitiveTypeKind.String.getFullQualifiedName())))
+            .setNavigationProperties(Collections.singletonList(
+                new CsdlNavigationProperty().setName("Products").setType(PRODUCT).setCollection(true)
+                    .setPartner("Category")));
+      }
+      return null;
+    }
+
+    @Override
+    public CsdlComplexType getComplexType(final FullQualifiedName complexTypeName) {
+      return ADDRESS.equals(complexTypeName) ?
+          new CsdlComplexType().setName(ADDRESS.getName()).setProperties(Arrays.asList(
+              property("Street", EdmPrimitiveTypeKind.String.getFullQualifiedName()),
+              property("City", EdmPrimitiveTypeKind.String.getFullQualifiedName()))) :
+          null;
+    }
+
+    @Override
+    public CsdlEnumType getEnumType(final FullQualifiedName enumTypeName) {
+      return COLOR.equals(enumTypeName) ?
+          new CsdlEnumType().setName(COLOR.getName()).setFlags(true).setMembers(Arrays.asList(
+              new CsdlEnumMember().setName("Red").setValue("1"),
+              new CsdlEnumMember().setName("Green").setValue("2"),
+              new CsdlEnumMember().setName("Blue").setValue("4"))) :
+          null;
+    }
+
+    @Override
+    public CsdlEntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName) {
+      if ("Products".equals(entitySetName)) {
+        return new CsdlEntitySet().setName(entitySetName).setType(PRODUCT)
+            .setNavigationPropertyBindings(Collections.singletonList(
+                new CsdlNavigationPropertyBinding().setPath("Category").setTarget("Categories")));
+      } else if ("Categories".equals(entitySetName)) {
+        return new CsdlEntitySet().setName(entitySetName).setType(CATEGORY)
+            .setNavigationPropertyBindings(Collections.singletonList(
+                new CsdlNavigationPropertyBinding().setPath("Products").setTarget("Products")));
+      }
+      return null;
+    }
+
+    @Override
+    public CsdlEntityContainer getEntityContainer() {
+      return new CsdlEntityContainer().setName(CONTAINER.getName()).setEntitySets(Arrays.asList(
+          getEntitySet(CONTAINER, "Products"), getEntitySet(CONTAINER, "Categories")));
+    }
+
+    @Override
+    public CsdlEntityContainerInfo getEntityContainerInfo(final FullQualifiedName entityContainerName) {
+      return entityContainerName == null || CONTAINER.equals(entityContainerName) ?
+          new CsdlEntityContainerInfo().setContainerName(CONTAINER) :
+          null;
+    }
+
+    @Override
+    public List<CsdlSchema> getSchemas() {
+      return Collections.singletonList(new CsdlSchema().setNamespace(NAMESPACE)
+          .setEntityTypes(Arrays.asList(getEntityType(PRODUCT), getEntityType(CATEGORY)))
+          .setComplexTypes(Collections.singletonList(getComplexType(ADDRESS)))
+          .setEnumTypes(Collections.singletonList(getEnumType(COLOR)))
+          .setEntityContainer(getEntityContainer()));
+    }
+
+    private static CsdlProperty property(final String name, final FullQualifiedName type) {
+      return new CsdlProperty().setName(name).setType(type);
+    }
+  }
+}
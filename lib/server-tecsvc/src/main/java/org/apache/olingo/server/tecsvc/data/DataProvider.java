@@ -20,14 +20,15 @@ package org.apache.olingo.server.tecsvc.data;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -47,11 +48,8 @@ import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmEnumType;
 import org.apache.olingo.commons.api.edm.EdmFunction;
-import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
 import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
 import org.apache.olingo.commons.api.edm.EdmParameter;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmSingleton;
@@ -67,6 +65,7 @@ import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.core.data.EntityKeyIndex;
 import org.apache.olingo.server.api.uri.UriResourceEntitySet;
 import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
 
@@ -79,6 +78,10 @@ public class DataProvider {
   private AtomicLong KEY_STRING = new AtomicLong(0);
 
   private Map<String, EntityCollection> data;
+  private final Map<String, EntityKeyIndex> keyIndexes = new ConcurrentHashMap<String, EntityKeyIndex>();
+  /** Indexes of the entities related by collection-valued navigation properties; guarded by itself. */
+  private final Map<List<Entity>, EntityKeyIndex> navigationIndexes =
+      new IdentityHashMap<List<Entity>, EntityKeyIndex>();
   private final OData odata;
   private final Edm edm;
 
@@ -99,79 +102,76 @@ public class DataProvider {
 
   public Entity read(final EdmEntitySet edmEntitySet, final List<UriParameter> keys) throws DataProviderException {
     final EntityCollection entitySet = readAll(edmEntitySet);
-    return entitySet == null ? null : read(edmEntitySet.getEntityType(), entitySet, keys);
-  }
-  
-  private Object findPropertyRefValue(Entity entity, EdmKeyPropertyRef refType) {
-    final int INDEX_ERROR_CODE = -1;
-    final String propertyPath = refType.getName();
-    String tmpPropertyName;
-    int lastIndex;
-    int index = propertyPath.indexOf('/');
-    if (index == INDEX_ERROR_CODE) {
-        index  = propertyPath.length();
-    }
-    tmpPropertyName = propertyPath.substring(0, index);
-    //get first property
-    Property prop = entity.getProperty(tmpPropertyName);
-    //get following properties
-    while (index < propertyPath.length()) {
-        lastIndex = ++index;
-        index = propertyPath.indexOf('/', index+1);
-        if (index == INDEX_ERROR_CODE) {
-            index = propertyPath.length();
-        }
-        tmpPropertyName = propertyPath.substring(lastIndex, index);
-        prop = findProperty(tmpPropertyName, prop.asComplex().getValue());
-     }
-    return prop.getValue();
+    return entitySet == null ? null :
+        readIndexed(edmEntitySet.getName(), edmEntitySet.getEntityType(), entitySet, keys);
   }
   
   public Entity read(final EdmEntityType edmEntityType, final EntityCollection entitySet,
       final List<UriParameter> keys) throws DataProviderException {
     try {
-      for (final Entity entity : entitySet.getEntities()) {
-        boolean found = true;
-        for (final UriParameter key : keys) {
-          EdmKeyPropertyRef refType = edmEntityType.getKeyPropertyRef(key.getName());
-          Object value =  findPropertyRefValue(entity, refType);
-          
-          final EdmProperty property = refType.getProperty();
-          final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
-          
-          if (key.getExpression() != null && !(key.getExpression() instanceof Literal)) {
-            throw new DataProviderException("Expression in key value is not supported yet!",
-                HttpStatusCode.NOT_IMPLEMENTED);
-          }
-          Object keyValue = null;
-          final String text = key.getAlias() == null ? key.getText() : ((Literal) key.getExpression()).getText();
-          if (Calendar.class.isAssignableFrom(value.getClass())) {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), Calendar.class);
-          } else {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), value.getClass());
-          }
-          if (!value.equals(keyValue)) {
-            found = false;
-            break;
-          }
-        }
-        if (found) {
-          return entity;
+      return EntityKeyIndex.find(edmEntityType, entitySet.getEntities(), keys);
+    } catch (final ODataApplicationException e) {
+      throw new DataProviderException(e.getMessage(), HttpStatusCode.fromStatusCode(e.getStatusCode()), e);
+    }
+  }
+
+  /**
+   * Reads an entity by key from the entities related by a collection-valued navigation property,
+   * through a hash index of the related entities.
+   */
+  public Entity readNavigation(final EdmEntityType edmEntityType, final EntityCollection entitySet,
+      final List<UriParameter> keys) throws DataProviderException {
+    final List<Entity> entities = entitySet.getEntities();
+    EntityKeyIndex index;
+    synchronized (navigationIndexes) {
+      index = navigationIndexes.get(entities);
+      if (index == null) {
+        index = new EntityKeyIndex(edmEntityType, entities);
+        navigationIndexes.put(entities, index);
+      }
+    }
+    try {
+      Entity entity = index.read(keys);
+      if (entity == null) {
+        // Links are added at many places without announcing it to the index,
+        // so an entity not found could have been added without changing the number of related entities.
+        entity = EntityKeyIndex.find(edmEntityType, entities, keys);
+        if (entity != null) {
+          index.invalidate();
         }
       }
-      return null;
-    } catch (final EdmPrimitiveTypeException e) {
-      throw new DataProviderException("Wrong key!", HttpStatusCode.BAD_REQUEST, e);
+      return entity;
+    } catch (final ODataApplicationException e) {
+      throw new DataProviderException(e.getMessage(), HttpStatusCode.fromStatusCode(e.getStatusCode()), e);
+    }
+  }
+
+  /** Reads an entity by key through the hash index of the entity collection stored under the given name. */
+  private Entity readIndexed(final String name, final EdmEntityType edmEntityType,
+      final EntityCollection entityCollection, final List<UriParameter> keys) throws DataProviderException {
+    EntityKeyIndex index = keyIndexes.get(name);
+    if (index == null || !index.isIndexOf(entityCollection.getEntities())) {
+      index = new EntityKeyIndex(edmEntityType, entityCollection.getEntities());
+      keyIndexes.put(name, index);
+    }
+    try {
+      return index.read(keys);
+    } catch (final ODataApplicationException e) {
+      throw new DataProviderException(e.getMessage(), HttpStatusCode.fromStatusCode(e.getStatusCode()), e);
+    }
+  }
+
+  private void invalidateIndex(final String name) {
+    final EntityKeyIndex index = keyIndexes.get(name);
+    if (index != null) {
+      index.invalidate();
     }
   }
 
   public void delete(final EdmEntitySet edmEntitySet, final Entity entity) throws DataProviderException {
     deleteLinksTo(entity);
     readAll(edmEntitySet).getEntities().remove(entity);
+    invalidateIndex(edmEntitySet.getName());
   }
 
   public void deleteLinksTo(final Entity to) throws DataProviderException {
@@ -214,6 +214,7 @@ public class DataProvider {
       throw new DataProviderException("Unable to set entity ID!", HttpStatusCode.INTERNAL_SERVER_ERROR, e);
     }
     entities.add(newEntity);
+    invalidateIndex(edmEntitySet.getName());
 
     return newEntity;
   }
@@ -883,6 +884,7 @@ public class DataProvider {
     List<Entity> rootEntity = data.get(edmEntitySet.getName()).getEntities();
     EntityCollection entitySet = data.get(edmEntityType.getName());
     entitySet.getEntities().add(newEntity);
+    invalidateIndex(edmEntityType.getName());
     
     
     
@@ -947,45 +949,7 @@ public class DataProvider {
   
   public Entity readDataFromEntity(final EdmEntityType edmEntityType,
       final List<UriParameter> keys) throws DataProviderException {
-    EntityCollection coll = data.get(edmEntityType.getName());
-    List<Entity> entities = coll.getEntities();
-    try {
-      for (final Entity entity : entities) {
-        boolean found = true;
-        for (final UriParameter key : keys) {
-          EdmKeyPropertyRef refType = edmEntityType.getKeyPropertyRef(key.getName());
-          Object value =  findPropertyRefValue(entity, refType);
-          
-          final EdmProperty property = refType.getProperty();
-          final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
-          
-          if (key.getExpression() != null && !(key.getExpression() instanceof Literal)) {
-            throw new DataProviderException("Expression in key value is not supported yet!",
-                HttpStatusCode.NOT_IMPLEMENTED);
-          }
-          final String text = key.getAlias() == null ? key.getText() : ((Literal) key.getExpression()).getText();
-          Object keyValue = null;
-          if (Calendar.class.isAssignableFrom(value.getClass())) {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), Calendar.class);
-          } else {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), value.getClass());
-          }
-          if (!value.equals(keyValue)) {
-            found = false;
-            break;
-          }
-        }
-        if (found) {
-          return entity;
-        }
-      }
-      return null;
-    } catch (final EdmPrimitiveTypeException e) {
-      throw new DataProviderException("Wrong key!", HttpStatusCode.BAD_REQUEST, e);
-    }
+    return readIndexed(edmEntityType.getName(), edmEntityType, data.get(edmEntityType.getName()), keys);
   }
+
 }
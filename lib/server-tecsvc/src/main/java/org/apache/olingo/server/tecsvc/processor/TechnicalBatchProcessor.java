@@ -18,7 +18,6 @@
  */
 package org.apache.olingo.server.tecsvc.processor;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -32,7 +31,7 @@ import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.batch.BatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
-import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestReader;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.processor.BatchProcessor;
@@ -67,33 +66,21 @@ public class TechnicalBatchProcessor extends TechnicalProcessor implements Batch
     final boolean continueOnError =
         odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasContinueOnError();
 
-    final String boundary = facade.extractBoundaryFromContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
     final BatchOptions options = BatchOptions.with()
         .rawBaseUri(request.getRawBaseUri())
         .rawServiceResolutionUri(request.getRawServiceResolutionUri()).build();
-    final List<BatchRequestPart> parts = odata.createFixedFormatDeserializer().parseBatchRequest(request.getBody(),
-        boundary, options);
-    final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
-
-    for (BatchRequestPart part : parts) {
-      final ODataResponsePart responsePart = facade.handleBatchRequest(part);
-      responseParts.add(responsePart); // Also add failed responses.
-      final int statusCode = responsePart.getResponses().get(0).getStatusCode();
-
-      if ((statusCode >= 400 && statusCode <= 600) && !continueOnError) {
-
-        // Perform some additional actions.
-        // ...
-
-        break; // Stop processing, but serialize responses to all recent requests.
-      }
-    }
+    final String boundary = facade.extractBoundaryFromContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
+    final BatchRequestReader reader = odata.createFixedFormatDeserializer().readBatchRequest(
+        request.getBody(), boundary, options);
+    // The parts are handled while they are read. Unless the client prefers to continue on errors,
+    // the processing stops at the first failed part, but the responses to all recent requests
+    // (including the failed one) are serialized.
+    final List<ODataResponsePart> responseParts = facade.handleBatchRequests(reader, continueOnError);
 
     final String responseBoundary = "batch_" + UUID.randomUUID().toString();
-    final InputStream responseContent =
-        odata.createFixedFormatSerializer().batchResponse(responseParts, responseBoundary);
     response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED + ";boundary=" + responseBoundary);
-    response.setContent(responseContent);
+    response.setODataContent(odata.createFixedFormatSerializer()
+        .batchResponseStreamed(responseParts, responseBoundary).getODataContent());
     response.setStatusCode(HttpStatusCode.OK.getStatusCode());
     if (continueOnError) {
       response.setHeader(HttpHeader.PREFERENCE_APPLIED,
@@ -617,11 +617,14 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     SearchHandler.applySearchSystemQueryOption(uriInfo.getSearchOption(), entitySet);
     FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), entitySet, uriInfo, serviceMetadata.getEdm());
     CountHandler.applyCountSystemQueryOption(uriInfo.getCountOption(), entitySet);
-    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm());
+    final Integer pageSize = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getMaxPageSize();
+    // Only the entities on the requested page must be sorted.
+    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm(),
+        OrderByHandler.getSortLimit(uriInfo.getSkipOption(), uriInfo.getTopOption(),
+            ServerSidePagingHandler.getItemsNeeded(uriInfo.getSkipTokenOption(), edmEntitySet, pageSize)));
     SkipHandler.applySkipSystemQueryHandler(uriInfo.getSkipOption(), entitySet);
     TopHandler.applyTopSystemQueryOption(uriInfo.getTopOption(), entitySet);
 
-    final Integer pageSize = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getMaxPageSize();
     final Integer serverPageSize = ServerSidePagingHandler.applyServerSidePaging(uriInfo.getSkipTokenOption(),
         entitySet,
         edmEntitySet,
@@ -203,7 +203,7 @@ public abstract class TechnicalProcessor implements Processor {
       entity = link == null ? null :
           key.isEmpty() ?
               link.getInlineEntity() :
-              dataProvider.read(navigationProperty.getType(), link.getInlineEntitySet(), key);
+              dataProvider.readNavigation(navigationProperty.getType(), link.getInlineEntitySet(), key);
       EdmEntityType edmEntityType = getEntityTypeBasedOnNavPropertyTypeCast(uriNavigationResource);
       entity = edmEntityType != null ? dataProvider.readDataFromEntity(edmEntityType, key) : entity;
       if (entity == null) {
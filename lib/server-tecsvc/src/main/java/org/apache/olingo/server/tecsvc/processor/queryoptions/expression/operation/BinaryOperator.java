@@ -204,6 +204,8 @@ public class BinaryOperator {
       }
     } 
 
+    // compareTo only guarantees the sign of its result.
+    result = Integer.signum(result);
     for (int expectedValue : expect) {
       if (expectedValue == result) {
         return true;
@@ -32,6 +32,8 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.queryoption.FilterOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.uri.queryoption.evaluation.CompiledFilter;
+import org.apache.olingo.server.core.uri.queryoption.evaluation.ExpressionCompiler;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.VisitorOperand;
@@ -48,6 +50,27 @@ public class FilterHandler {
       return;
     }
 
+    // Expressions are compiled once for all entities;
+    // if the compiler fails for whatever reason, they are interpreted for each entity,
+    // so that the interpreter decides about unsupported and invalid expressions.
+    CompiledFilter compiledFilter = null;
+    try {
+      compiledFilter = ExpressionCompiler.compileFilter(filterOption);
+    } catch (final ODataApplicationException | RuntimeException e) {
+      // The interpreter takes over below.
+    }
+    if (compiledFilter != null) {
+      compiledFilter.apply(entitySet.getEntities());
+    } else {
+      interpretFilterSystemQuery(filterOption, entitySet, uriInfo, edm);
+    }
+  }
+
+  /**
+   * Applies the $filter system query option by interpreting its expression for each entity, without compiling it.
+   */
+  public static void interpretFilterSystemQuery(final FilterOption filterOption, final EntityCollection entitySet,
+      final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
     try {
       final Iterator<Entity> iter = entitySet.getEntities().iterator();
 
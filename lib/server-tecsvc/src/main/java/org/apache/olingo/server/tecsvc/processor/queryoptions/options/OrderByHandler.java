@@ -30,18 +30,50 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
 import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipOption;
+import org.apache.olingo.server.api.uri.queryoption.TopOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.uri.queryoption.evaluation.CompiledOrderBy;
+import org.apache.olingo.server.core.uri.queryoption.evaluation.ExpressionCompiler;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
 
 public class OrderByHandler {
   public static void applyOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
       final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
+    applyOrderByOption(orderByOption, entitySet, uriInfo, edm, null);
+  }
+
+  /**
+   * Applies the $orderby option, sorting only the entities still needed after later paging steps.
+   * @param limit the number of leading entities needed in sorted order, or <code>null</code> for all entities
+   */
+  public static void applyOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
+      final UriInfoResource uriInfo, final Edm edm, final Integer limit) throws ODataApplicationException {
 
     if (orderByOption == null) {
       return;
     }
 
+    // If the compiler fails for whatever reason, the expressions are interpreted for each comparison.
+    CompiledOrderBy compiledOrderBy = null;
+    try {
+      compiledOrderBy = ExpressionCompiler.compileOrderBy(orderByOption);
+    } catch (final ODataApplicationException | RuntimeException e) {
+      // The interpreter takes over below.
+    }
+    if (compiledOrderBy != null) {
+      compiledOrderBy.sort(entitySet.getEntities(), limit == null ? entitySet.getEntities().size() : limit);
+    } else {
+      interpretOrderByOption(orderByOption, entitySet, uriInfo, edm);
+    }
+  }
+
+  /**
+   * Applies the $orderby option by interpreting its expressions for each comparison, without compiling them.
+   */
+  public static void interpretOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
+      final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
     try {
       applyOrderByOptionInternal(orderByOption, entitySet, uriInfo, edm);
     } catch (SystemQueryOptionsRuntimeException e) {
@@ -55,6 +87,23 @@ public class OrderByHandler {
     }
   }
 
+  /**
+   * Computes how many leading entities of the ordered collection are needed
+   * for the $skip and $top options and an additional bound, e.g., from server-side paging.
+   * @param bound the maximum number of entities needed after $skip and $top, or <code>null</code>
+   * @return the number of entities, or <code>null</code> if all entities are needed
+   */
+  public static Integer getSortLimit(final SkipOption skipOption, final TopOption topOption, final Integer bound) {
+    if (topOption == null && bound == null) {
+      return null;
+    }
+    final long needed = topOption == null ? bound :
+        bound == null ? topOption.getValue() :
+            Math.min(topOption.getValue(), bound);
+    final long limit = (skipOption == null ? 0 : skipOption.getValue()) + Math.max(needed, 0);
+    return (int) Math.min(limit, Integer.MAX_VALUE);
+  }
+
   private static void applyOrderByOptionInternal(final OrderByOption orderByOption, final EntityCollection entitySet,
       final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
     Collections.sort(entitySet.getEntities(), new Comparator<Entity>() {
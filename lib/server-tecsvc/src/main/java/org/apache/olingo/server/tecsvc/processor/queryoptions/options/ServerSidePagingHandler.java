@@ -74,6 +74,23 @@ public class ServerSidePagingHandler {
     return null;
   }
 
+  /**
+   * Computes the number of entities needed to fill all pages up to and including the requested page.
+   * @param skipTokenOption   the current skiptoken option (from a previous response's next link)
+   * @param edmEntitySet      the EDM entity set to decide whether paging must be done
+   * @param preferredPageSize the client's preference for page size
+   * @return the number of entities (or <code>null</code> if no paging will be done)
+   * @throws ODataApplicationException
+   */
+  public static Integer getItemsNeeded(final SkipTokenOption skipTokenOption, final EdmEntitySet edmEntitySet,
+      final Integer preferredPageSize) throws ODataApplicationException {
+    if (edmEntitySet != null && shouldApplyServerSidePaging(edmEntitySet)) {
+      final long pageSize = getPageSize(getPageSize(skipTokenOption), preferredPageSize);
+      return (int) Math.min((Math.max(getPage(skipTokenOption), 0) + 1) * pageSize, Integer.MAX_VALUE);
+    }
+    return null;
+  }
+
   private static URI createNextLink(final String rawRequestUri, final int page, final int pageSize)
       throws ODataApplicationException {
     // Remove a maybe existing skiptoken, making sure that the query part is not empty.
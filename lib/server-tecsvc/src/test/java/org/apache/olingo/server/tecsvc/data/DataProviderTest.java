@@ -29,6 +29,7 @@ import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmEntityContainer;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.uri.UriParameter;
@@ -105,6 +106,23 @@ public class DataProviderTest {
     Assert.assertEquals(16, outSet.getEntities().get(2).getProperties().size());
   }
 
+  @Test
+  public void readNavigation() throws Exception {
+    final DataProvider data = new DataProvider(oData, edm);
+    final EntityCollection target = data.readAll(esAllPrim).getEntities().get(0)
+        .getNavigationLink("NavPropertyETTwoPrimMany").getInlineEntitySet();
+    final EdmEntitySet esTwoPrim = entityContainer.getEntitySet("ESTwoPrim");
+    final List<Entity> twoPrim = data.readAll(esTwoPrim).getEntities();
+    final EdmEntityType type = esTwoPrim.getEntityType();
+    Assert.assertSame(twoPrim.get(1), data.readNavigation(type, target, keyOf(twoPrim.get(1))));
+    Assert.assertNull(data.readNavigation(type, target, keyOf(twoPrim.get(0))));
+
+    // A related entity replaced without announcing it is found nevertheless.
+    target.getEntities().set(0, twoPrim.get(0));
+    Assert.assertSame(twoPrim.get(0), data.readNavigation(type, target, keyOf(twoPrim.get(0))));
+    Assert.assertNull(data.readNavigation(type, target, keyOf(twoPrim.get(1))));
+  }
+
   @Test
   public void esCollAllPrim() throws Exception {
     final DataProvider dataProvider = new DataProvider(oData, edm);
@@ -174,6 +192,11 @@ public class DataProviderTest {
     Assert.assertEquals("x/y", entity.getMediaContentType());
   }
 
+  private static List<UriParameter> keyOf(final Entity entity) {
+    return Arrays.asList(mockParameter("PropertyInt16",
+        entity.getProperty("PropertyInt16").getValue().toString()));
+  }
+
   private static UriParameter mockParameter(final String name, final String text) {
     UriParameter parameter = Mockito.mock(UriParameter.class);
     Mockito.when(parameter.getName()).thenReturn(name);
@@ -19,9 +19,22 @@
 package org.apache.olingo.netty.server.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,25 +42,46 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.netty.server.api.ODataNetty;
 import org.apache.olingo.netty.server.api.ODataNettyHandler;
+import org.apache.olingo.server.api.ContentEncodingOptions;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
 import org.apache.olingo.server.api.processor.EntityProcessor;
 import org.apache.olingo.server.api.processor.MetadataProcessor;
+import org.apache.olingo.server.api.processor.Processor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.processor.TechnicalBatchProcessor;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.junit.Test;
 
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 
 public class ODataNettyHandlerImplTest {
 
@@ -153,4 +187,308 @@ public class ODataNettyHandlerImplTest {
     nettyResponse.status();
     assertEquals(HttpStatusCode.CREATED.getStatusCode(), HttpResponseStatus.CREATED.code());
   }
+
+  @Test
+  public void chunkedResponse() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ODataNettyHandler handler = odata.createNettyHandler(odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList()));
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    handler.processNettyRequest(
+        new DefaultHttpRequest(HttpVersion.HTTP_1_1, io.netty.handler.codec.http.HttpMethod.GET,
+            "/odata.svc/$metadata"),
+        new ByteArrayInputStream(new byte[0]), channel.pipeline().firstContext(), getRequestParameters());
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertTrue(HttpUtil.isTransferEncodingChunked(response));
+    final String content = readContent(channel);
+    assertTrue(content.startsWith("<?xml"));
+    assertTrue(content.endsWith("</edmx:Edmx>"));
+    assertTrue(channel.isOpen());
+  }
+
+  @Test
+  public void streamedResponseForHttp10() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ODataNettyHandler handler = odata.createNettyHandler(odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList()));
+    handler.register(new EntityCollectionProcessor() {
+      @Override
+      public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+        // not needed
+      }
+
+      @Override
+      public void readEntityCollection(final ODataRequest request, final ODataResponse response,
+          final UriInfo uriInfo, final ContentType responseFormat) {
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setODataContent(new ODataContent() {
+          @Override
+          public void write(final WritableByteChannel channel) {
+            try {
+              for (int i = 0; i < 3; i++) {
+                channel.write(ByteBuffer.wrap(new byte[5000]));
+              }
+            } catch (final IOException e) {
+              fail(e.getMessage());
+            }
+          }
+
+          @Override
+          public void write(final OutputStream stream) {
+            write(Channels.newChannel(stream));
+          }
+        });
+      }
+    });
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    handler.processNettyRequest(
+        new DefaultHttpRequest(HttpVersion.HTTP_1_0, io.netty.handler.codec.http.HttpMethod.GET,
+            "/odata.svc/ESAllPrim"),
+        new ByteArrayInputStream(new byte[0]), channel.pipeline().firstContext(), getRequestParameters());
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertFalse(HttpUtil.isTransferEncodingChunked(response));
+    int chunks = 0;
+    int length = 0;
+    for (HttpContent chunk = channel.readOutbound(); chunk != null; chunk = channel.readOutbound()) {
+      chunks++;
+      length += chunk.content().readableBytes();
+      chunk.release();
+    }
+    assertEquals(3, chunks);
+    assertEquals(15000, length);
+    assertFalse(channel.isOpen());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void defaultStreamingImplementation() throws Exception {
+    final ODataNettyHandler handler = new ODataNettyHandler() {
+      @Override
+      public void processNettyRequest(final HttpRequest request, final HttpResponse response,
+          final Map<String, String> requestParameters) {
+        response.setStatus(HttpResponseStatus.CREATED);
+      }
+
+      @Override
+      public void register(final Processor processor) {
+        // not needed
+      }
+    };
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    handler.processNettyRequest(
+        new DefaultHttpRequest(HttpVersion.HTTP_1_0, io.netty.handler.codec.http.HttpMethod.POST,
+            "/odata.svc/ESAllPrim"),
+        new ByteArrayInputStream("echo".getBytes(StandardCharsets.UTF_8)), channel.pipeline().firstContext(),
+        getRequestParameters());
+  }
+
+  @Test
+  public void compressedResponse() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ODataNettyHandler handler = odata.createNettyHandler(odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList()));
+    handler.setContentEncoding(ContentEncodingOptions.with().build());
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    final HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/$metadata");
+    request.headers().set(HttpHeader.ACCEPT_ENCODING, "deflate;q=0.5, gzip");
+    handler.processNettyRequest(request, new ByteArrayInputStream(new byte[0]), channel.pipeline().firstContext(),
+        getRequestParameters());
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals("gzip", response.headers().get(HttpHeader.CONTENT_ENCODING));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.headers().get(HttpHeader.VARY));
+    assertTrue(HttpUtil.isTransferEncodingChunked(response));
+    final String content = new String(readAll(new GZIPInputStream(
+        new ByteArrayInputStream(readBytes(channel)))), StandardCharsets.UTF_8);
+    assertTrue(content.startsWith("<?xml"));
+    assertTrue(content.endsWith("</edmx:Edmx>"));
+  }
+
+  @Test
+  public void deflatedResponse() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ODataNettyHandler handler = odata.createNettyHandler(odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList()));
+    handler.setContentEncoding(ContentEncodingOptions.with().level(9).build());
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    final HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/");
+    request.headers().set(HttpHeader.ACCEPT_ENCODING, "gzip;q=0, deflate");
+    handler.processNettyRequest(request, new ByteArrayInputStream(new byte[0]), channel.pipeline().firstContext(),
+        getRequestParameters());
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals("deflate", response.headers().get(HttpHeader.CONTENT_ENCODING));
+    final String content = new String(readAll(new InflaterInputStream(
+        new ByteArrayInputStream(readBytes(channel)))), StandardCharsets.UTF_8);
+    assertTrue(content.contains("\"ESAllPrim\""));
+  }
+
+  @Test
+  public void smallResponseNotCompressed() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ODataNettyHandler handler = odata.createNettyHandler(odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList()));
+    handler.setContentEncoding(ContentEncodingOptions.with().minimumSize(1 << 24).build());
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    final HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/$metadata");
+    request.headers().set(HttpHeader.ACCEPT_ENCODING, "gzip, deflate");
+    handler.processNettyRequest(request, new ByteArrayInputStream(new byte[0]), channel.pipeline().firstContext(),
+        getRequestParameters());
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertNull(response.headers().get(HttpHeader.CONTENT_ENCODING));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.headers().get(HttpHeader.VARY));
+    assertTrue(readContent(channel).startsWith("<?xml"));
+  }
+
+  @Test
+  public void compressedBatchRequest() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final ODataNettyHandler handler = odata.createNettyHandler(metadata);
+    handler.setContentEncoding(ContentEncodingOptions.with().build());
+    handler.register(new TechnicalBatchProcessor(new DataProvider(odata, metadata.getEdm())));
+    handler.register(new EchoProcessor());
+    final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    final String entity = "{\"PropertyInt16\":42}";
+    final byte[] compressedEntity = gzip(entity.getBytes(StandardCharsets.UTF_8));
+    final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    batch.write(("--batch_1\r\n"
+        + "Content-Type: multipart/mixed; boundary=changeset_1\r\n"
+        + "\r\n"
+        + "--changeset_1\r\n"
+        + "Content-Type: application/http\r\n"
+        + "Content-Transfer-Encoding: binary\r\n"
+        + "Content-ID: 1\r\n"
+        + "\r\n"
+        + "POST ESAllPrim HTTP/1.1\r\n"
+        + "Content-Type: application/json\r\n"
+        + "Content-Encoding: gzip\r\n"
+        + "Content-Length: " + compressedEntity.length + "\r\n"
+        + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+    batch.write(compressedEntity);
+    batch.write(("\r\n"
+        + "--changeset_1--\r\n"
+        + "\r\n"
+        + "--batch_1--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+    final HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.POST, "/odata.svc/$batch");
+    request.headers().set(HttpHeader.CONTENT_TYPE, "multipart/mixed;boundary=batch_1");
+    request.headers().set(HttpHeader.CONTENT_ENCODING, "gzip");
+    handler.processNettyRequest(request, new ByteArrayInputStream(gzip(batch.toByteArray())),
+        channel.pipeline().firstContext(), getRequestParameters());
+
+    final HttpResponse response = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, response.status());
+    final String content = new String(readBytes(channel), StandardCharsets.UTF_8);
+    assertTrue(content.contains("HTTP/1.1 201 Created"));
+    assertTrue(content.contains(entity));
+  }
+
+  /** Processor creating entities by echoing the request body. */
+  private static class EchoProcessor implements EntityProcessor {
+
+    @Override
+    public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+      // not needed
+    }
+
+    @Override
+    public void readEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+        final ContentType responseFormat) {
+      response.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
+    }
+
+    @Override
+    public void createEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+        final ContentType requestFormat, final ContentType responseFormat) {
+      try {
+        response.setContent(new ByteArrayInputStream(readAll(request.getBody())));
+      } catch (final IOException e) {
+        fail(e.getMessage());
+      }
+      response.setStatusCode(HttpStatusCode.CREATED.getStatusCode());
+      response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    }
+
+    @Override
+    public void updateEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+        final ContentType requestFormat, final ContentType responseFormat) {
+      response.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
+    }
+
+    @Override
+    public void deleteEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo) {
+      response.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
+    }
+  }
+
+  private static byte[] gzip(final byte[] content) throws IOException {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (GZIPOutputStream stream = new GZIPOutputStream(result)) {
+      stream.write(content);
+    }
+    return result.toByteArray();
+  }
+
+  private static byte[] readAll(final InputStream stream) throws IOException {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int count;
+    while ((count = stream.read(buffer)) != -1) {
+      result.write(buffer, 0, count);
+    }
+    return result.toByteArray();
+  }
+
+  private static byte[] readBytes(final EmbeddedChannel channel) {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    HttpContent chunk = channel.readOutbound();
+    while (chunk != null) {
+      final byte[] bytes = new byte[chunk.content().readableBytes()];
+      chunk.content().readBytes(bytes);
+      content.write(bytes, 0, bytes.length);
+      chunk.release();
+      chunk = chunk instanceof LastHttpContent ? null : (HttpContent) channel.readOutbound();
+    }
+    return content.toByteArray();
+  }
+
+  private static Map<String, String> getRequestParameters() {
+    Map<String, String> requestParams = new HashMap<String, String>();
+    requestParams.put("contextPath", "/odata.svc");
+    return requestParams;
+  }
+
+  private static String readContent(final EmbeddedChannel channel) {
+    final StringBuilder content = new StringBuilder();
+    int chunks = 0;
+    HttpContent chunk = channel.readOutbound();
+    while (!(chunk instanceof LastHttpContent)) {
+      chunks++;
+      content.append(chunk.content().toString(StandardCharsets.UTF_8));
+      chunk.release();
+      chunk = channel.readOutbound();
+    }
+    assertTrue(chunks > 1);
+    return content.toString();
+  }
 }
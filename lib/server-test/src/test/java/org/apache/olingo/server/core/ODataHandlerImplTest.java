@@ -22,6 +22,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -58,6 +59,8 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.metrics.DefaultMetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.ActionComplexCollectionProcessor;
 import org.apache.olingo.server.api.processor.ActionComplexProcessor;
 import org.apache.olingo.server.api.processor.ActionEntityCollectionProcessor;
@@ -84,8 +87,12 @@ import org.apache.olingo.server.api.processor.ReferenceCollectionProcessor;
 import org.apache.olingo.server.api.processor.ReferenceProcessor;
 import org.apache.olingo.server.api.processor.ServiceDocumentProcessor;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
 import org.apache.olingo.server.tecsvc.processor.TechnicalActionProcessor;
+import org.apache.olingo.server.tecsvc.processor.TechnicalEntityProcessor;
 import org.apache.olingo.server.tecsvc.provider.ContainerProvider;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.junit.Test;
@@ -1150,6 +1157,118 @@ public class ODataHandlerImplTest {
     return response;
   }
 
+  @Test
+  public void uriInfoCache() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final UriInfoCache cache = new UriInfoCache();
+    final EntityCollectionProcessor processor = mock(EntityCollectionProcessor.class);
+    UriInfo firstUriInfo = null;
+
+    for (int i = 0; i < 2; i++) {
+      ODataRequest request = new ODataRequest();
+      request.setMethod(HttpMethod.GET);
+      request.setRawBaseUri(BASE_URI);
+      request.setRawODataPath("ESAllPrim");
+      request.setRawQueryPath("$top=1");
+      ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+      handler.register(processor);
+      handler.register(cache);
+      handler.process(request);
+      if (firstUriInfo == null) {
+        firstUriInfo = handler.getUriInfo();
+      } else {
+        assertSame(firstUriInfo, handler.getUriInfo());
+      }
+    }
+
+    verify(processor, times(2)).readEntityCollection(
+        any(ODataRequest.class), any(ODataResponse.class), any(UriInfo.class), any(ContentType.class));
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void metrics() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final DefaultMetricsSupport metricsSupport = new DefaultMetricsSupport();
+    final EntityCollectionProcessor processor = mock(EntityCollectionProcessor.class);
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(processor);
+    handler.setMetricsSupport(metricsSupport);
+
+    final Map<String, String> contentTypes = new HashMap<String, String>();
+    for (final String path : new String[] { "ESAllPrim", "ESAllPrim", "$metadata", "ESNotExisting" }) {
+      ODataRequest request = new ODataRequest();
+      request.setMethod(HttpMethod.GET);
+      request.setRawBaseUri(BASE_URI);
+      request.setRawODataPath(path);
+      contentTypes.put(path, handler.process(request).getHeader(HttpHeader.CONTENT_TYPE));
+    }
+
+    assertEquals(3, metricsSupport.getSeries().size());
+    final DefaultMetricsSupport.Series entitySet = metricsSupport.getSeries(UriInfoKind.resource, "ESAllPrim", null);
+    assertEquals(2, entitySet.getTotal().getCount());
+    assertEquals(2, entitySet.getPhase(RequestPhase.URI_PARSING).getCount());
+    assertEquals(2, entitySet.getPhase(RequestPhase.PROCESSING).getCount());
+    assertEquals(1, metricsSupport.getSeries(UriInfoKind.metadata, null, contentTypes.get("$metadata"))
+        .getTotal().getCount());
+    assertEquals(1, metricsSupport.getSeries(null, null, contentTypes.get("ESNotExisting")).getErrors());
+  }
+
+  @Test
+  public void metricsOfCopy() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final DefaultMetricsSupport metricsSupport = new DefaultMetricsSupport();
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(mock(EntityCollectionProcessor.class));
+    handler.setMetricsSupport(metricsSupport);
+
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("ESAllPrim");
+    handler.copy().process(request);
+
+    assertEquals(1, metricsSupport.getSeries().size());
+    assertEquals(1, metricsSupport.getSeries().get(0).getTotal().getCount());
+  }
+
+  @Test
+  public void metricsOfSerializationAndDeserialization() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final DefaultMetricsSupport metricsSupport = new DefaultMetricsSupport();
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(new TechnicalEntityProcessor(new DataProvider(odata, metadata.getEdm()), metadata));
+    handler.setMetricsSupport(metricsSupport);
+
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.POST);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("ESTwoPrim");
+    request.addHeader(HttpHeader.CONTENT_TYPE, ContentType.JSON.toContentTypeString());
+    request.setBody(IOUtils.toInputStream("{\"PropertyInt16\":42,\"PropertyString\":\"value\"}"));
+    final ODataResponse response = handler.process(request);
+    assertEquals(HttpStatusCode.CREATED.getStatusCode(), response.getStatusCode());
+
+    final DefaultMetricsSupport.Series series = metricsSupport.getSeries(UriInfoKind.resource, "ESTwoPrim",
+        response.getHeader(HttpHeader.CONTENT_TYPE));
+    assertEquals(1, series.getPhase(RequestPhase.DESERIALIZATION).getCount());
+    assertEquals(1, series.getPhase(RequestPhase.SERIALIZATION).getCount());
+    assertEquals(1, series.getPhase(RequestPhase.PROCESSING).getCount());
+    assertTrue(series.getPhase(RequestPhase.PROCESSING).getSum()
+        + series.getPhase(RequestPhase.DESERIALIZATION).getSum()
+        + series.getPhase(RequestPhase.SERIALIZATION).getSum() <= series.getTotal().getSum());
+  }
+
   @Test
   public void dispatchEmptyContentWithoutContentType() {
     final String path = "ESAllPrim";
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.core.uri.UriParameterImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.queryoption.expression.AliasImpl;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class EntityKeyIndexTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void singleKey() throws Exception {
+    final List<Entity> entities = getEntities("ESAllPrim");
+    final EntityKeyIndex index = createIndex("ESAllPrim", entities);
+    assertSame(entities.get(0), index.read(keys("ESAllPrim(32767)")));
+    assertSame(entities.get(2), index.read(keys("ESAllPrim(0)")));
+    assertNull(index.read(keys("ESAllPrim(42)")));
+  }
+
+  @Test
+  public void compositeKeys() throws Exception {
+    final List<Entity> entities = getEntities("ESTwoKeyNav");
+    final EntityKeyIndex index = createIndex("ESTwoKeyNav", entities);
+    assertSame(entities.get(1), index.read(keys("ESTwoKeyNav(PropertyInt16=1,PropertyString='2')")));
+    assertSame(entities.get(1), index.read(keys("ESTwoKeyNav(PropertyString='2',PropertyInt16=1)")));
+    assertNull(index.read(keys("ESTwoKeyNav(PropertyInt16=2,PropertyString='2')")));
+
+    final List<Entity> allKeys = getEntities("ESAllKey");
+    assertSame(allKeys.get(0), createIndex("ESAllKey", allKeys).read(keys("ESAllKey(PropertyString='First',"
+        + "PropertyBoolean=true,PropertyByte=255,PropertySByte=127,PropertyInt16=32767,PropertyInt32=2147483647,"
+        + "PropertyInt64=9223372036854775807,PropertyDecimal=34,PropertyDate=2012-12-03,"
+        + "PropertyDateTimeOffset=2012-12-03T08:16:23+01:00,PropertyDuration=duration'PT6S',"
+        + "PropertyGuid=01234567-89ab-cdef-0123-456789abcdef,PropertyTimeOfDay=02:48:21)")));
+  }
+
+  @Test
+  public void complexPathKeys() throws Exception {
+    final List<Entity> entities = getEntities("ESFourKeyAlias");
+    final EntityKeyIndex index = createIndex("ESFourKeyAlias", entities);
+    assertSame(entities.get(0),
+        index.read(keys("ESFourKeyAlias(PropertyInt16=1,KeyAlias1=11,KeyAlias2='Num11',KeyAlias3='Num111')")));
+    assertNull(index.read(keys("ESFourKeyAlias(PropertyInt16=1,KeyAlias1=11,KeyAlias2='Num11',KeyAlias3='x')")));
+  }
+
+  @Test
+  public void changes() throws Exception {
+    final List<Entity> entities = new ArrayList<Entity>(getEntities("ESAllPrim"));
+    final EntityKeyIndex index = createIndex("ESAllPrim", entities);
+    final Entity first = entities.get(0);
+    assertSame(first, index.read(keys("ESAllPrim(32767)")));
+
+    // Removing an entity changes the size, so the index is rebuilt.
+    entities.remove(0);
+    assertNull(index.read(keys("ESAllPrim(32767)")));
+
+    // Replacing an entity is detected when the replaced entity is read.
+    final Entity second = entities.get(0);
+    entities.set(0, first);
+    assertNull(index.read(keys("ESAllPrim(-32768)")));
+    assertSame(first, index.read(keys("ESAllPrim(32767)")));
+
+    // Adding an entity without changing the size must be announced.
+    entities.set(0, second);
+    index.invalidate();
+    assertSame(second, index.read(keys("ESAllPrim(-32768)")));
+    assertNull(index.read(keys("ESAllPrim(32767)")));
+
+    // A changed key is detected when the entity is found with its old key.
+    second.getProperty("PropertyInt16").setValue(second.getProperty("PropertyInt16").getValueType(), (short) 42);
+    assertNull(index.read(keys("ESAllPrim(-32768)")));
+    assertSame(second, index.read(keys("ESAllPrim(42)")));
+  }
+
+  @Test
+  public void find() throws Exception {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESTwoKeyNav");
+    final List<Entity> entities = getEntities("ESTwoKeyNav");
+    assertSame(entities.get(2), EntityKeyIndex.find(entitySet.getEntityType(), entities,
+        keys("ESTwoKeyNav(PropertyInt16=2,PropertyString='1')")));
+    assertNull(EntityKeyIndex.find(entitySet.getEntityType(), entities,
+        keys("ESTwoKeyNav(PropertyInt16=4,PropertyString='1')")));
+  }
+
+  @Test
+  public void invalidKey() throws Exception {
+    final EntityKeyIndex index = createIndex("ESAllPrim", getEntities("ESAllPrim"));
+    assertReadError(index, new UriParameterImpl().setName("PropertyInt16").setText("abc"),
+        HttpStatusCode.BAD_REQUEST);
+    assertReadError(index, new UriParameterImpl().setName("PropertyInt16").setExpression(new AliasImpl("@k", null)),
+        HttpStatusCode.NOT_IMPLEMENTED);
+  }
+
+  private void assertReadError(final EntityKeyIndex index, final UriParameter key,
+      final HttpStatusCode statusCode) {
+    try {
+      index.read(Collections.singletonList(key));
+      fail("Expected an exception.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(statusCode.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private List<Entity> getEntities(final String entitySetName) throws ODataApplicationException {
+    return data.readAll(edm.getEntityContainer().getEntitySet(entitySetName)).getEntities();
+  }
+
+  private EntityKeyIndex createIndex(final String entitySetName, final List<Entity> entities) {
+    return new EntityKeyIndex(edm.getEntityContainer().getEntitySet(entitySetName).getEntityType(), entities);
+  }
+
+  private List<UriParameter> keys(final String resourcePath) throws Exception {
+    return ((UriResourceEntitySet) new Parser(edm, odata).parseUri(resourcePath, null, null, null)
+        .getUriResourceParts().get(0)).getKeyPredicates();
+  }
+}
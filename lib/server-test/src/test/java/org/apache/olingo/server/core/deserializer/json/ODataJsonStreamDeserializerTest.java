@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.core.deserializer.AbstractODataDeserializerTest;
+import org.junit.Test;
+
+public class ODataJsonStreamDeserializerTest extends AbstractODataDeserializerTest {
+
+  private final OData odata = OData.newInstance();
+  private final ODataDeserializer treeDeserializer = new ODataJsonDeserializer(ContentType.JSON, metadata);
+  private final ODataDeserializer streamDeserializer = new ODataJsonStreamDeserializer(ContentType.JSON, metadata);
+
+  @Test
+  public void factory() throws Exception {
+    assertTrue(odata.createStreamingDeserializer(ContentType.JSON, metadata, null)
+        instanceof ODataJsonStreamDeserializer);
+    assertTrue(odata.createStreamingDeserializer(ContentType.APPLICATION_XML, metadata, null)
+        instanceof ODataDeserializer);
+  }
+
+  @Test
+  public void sameEntityCollections() throws Exception {
+    for (final String[] file : new String[][] {
+        { "ESAllPrim.json", "ETAllPrim" },
+        { "ESAllPrimWithODataAnnotations.json", "ETAllPrim" },
+        { "ESCompCollComp.json", "ETCompCollComp" } }) {
+      final EdmEntityType entityType = getEntityType(file[1]);
+      final EntityCollection expected =
+          treeDeserializer.entityCollection(getFileAsStream(file[0]), entityType).getEntityCollection();
+      final EntityCollection actual =
+          streamDeserializer.entityCollection(getFileAsStream(file[0]), entityType).getEntityCollection();
+      assertEquals(expected.getEntities().size(), actual.getEntities().size());
+      for (int i = 0; i < expected.getEntities().size(); i++) {
+        assertSameEntity(expected.getEntities().get(i), actual.getEntities().get(i));
+      }
+    }
+  }
+
+  @Test
+  public void sameEntities() throws Exception {
+    for (final String[] file : new String[][] {
+        { "EntityESAllPrimExpandedNavPropertyETTwoPrimMany.json", "ETAllPrim" },
+        { "EntityESAllPrimExpandedNavPropertyETTwoPrimOneWithODataAnnotations.json", "ETAllPrim" },
+        { "EntityETMixEnumDefCollComp.json", "ETMixEnumDefCollComp" } }) {
+      final EdmEntityType entityType = getEntityType(file[1]);
+      final DeserializerResult expected = treeDeserializer.entity(getFileAsStream(file[0]), entityType);
+      final DeserializerResult actual = streamDeserializer.entity(getFileAsStream(file[0]), entityType);
+      assertSameEntity(expected.getEntity(), actual.getEntity());
+      if (expected.getExpandTree() != null) {
+        assertEquals(expected.getExpandTree().getExpandItems().size(),
+            actual.getExpandTree().getExpandItems().size());
+      }
+    }
+  }
+
+  @Test
+  public void derivedTypeAfterProperties() throws Exception {
+    final String input = "{\"AdditionalPropertyString_5\":\"Test\",\"PropertyInt16\":1,"
+        + "\"@odata.type\":\"#Namespace1_Alias.ETBase\",\"PropertyString\":\"Test String\"}";
+    final Entity entity = streamDeserializer.entity(toStream(input), getEntityType("ETTwoPrim")).getEntity();
+    assertEquals("olingo.odata.test1.ETBase", entity.getType());
+    assertEquals(3, entity.getProperties().size());
+    assertEquals("PropertyInt16", entity.getProperties().get(0).getName());
+    assertEquals("Test", entity.getProperty("AdditionalPropertyString_5").getValue());
+    assertSameEntity(treeDeserializer.entity(toStream(input), getEntityType("ETTwoPrim")).getEntity(), entity);
+  }
+
+  @Test
+  public void bindingAndExpand() throws Exception {
+    final String input = "{\"PropertyInt16\":1,\"PropertyString\":\"Test\","
+        + "\"NavPropertyETTwoPrimOne@odata.bind\":\"ESTwoPrim(2)\","
+        + "\"NavPropertyETTwoPrimMany\":[{\"PropertyInt16\":3},{\"PropertyInt16\":4}]}";
+    final Entity entity = streamDeserializer.entity(toStream(input), getEntityType("ETAllPrim")).getEntity();
+    assertEquals("ESTwoPrim(2)", entity.getNavigationBinding("NavPropertyETTwoPrimOne").getBindingLink());
+    assertNotNull(entity.getNavigationLink("NavPropertyETTwoPrimMany"));
+    assertEquals(2, entity.getNavigationLink("NavPropertyETTwoPrimMany").getInlineEntitySet().getEntities().size());
+    assertSameEntity(treeDeserializer.entity(toStream(input), getEntityType("ETAllPrim")).getEntity(), entity);
+  }
+
+  @Test
+  public void errors() throws Exception {
+    expectException("", DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    expectException("[]", DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    expectException("{\"PropertyInt16\":1", DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    expectException("{\"PropertyInt16\":1,\"PropertyInt16\":2}", DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    expectException("{\"@odata.type\":\"#Namespace1_Alias.ETAllPrim\",\"Unknown\":1}",
+        DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    expectException("{\"Unknown\":1}", DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    expectException("{\"PropertyInt16\":null}", DeserializerException.MessageKeys.INVALID_NULL_PROPERTY);
+    expectException("{\"PropertyInt16\":\"1\"}", DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY);
+    expectException("{\"PropertyInt16\":{}}", DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY);
+    expectException("{\"NavPropertyETTwoPrimMany\":{}}",
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_NAVIGATION_PROPERTY);
+    expectException("{\"@custom.annotation\":null}", DeserializerException.MessageKeys.NOT_IMPLEMENTED);
+  }
+
+  @Test
+  public void collectionErrors() throws Exception {
+    final EdmEntityType entityType = getEntityType("ETAllPrim");
+    for (final Object[] testCase : new Object[][] {
+        { "{}", DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT },
+        { "{\"value\":{}}", DeserializerException.MessageKeys.VALUE_TAG_MUST_BE_AN_ARRAY },
+        { "{\"value\":[[]]}", DeserializerException.MessageKeys.INVALID_ENTITY },
+        { "{\"value\":[],\"unknown\":null}", DeserializerException.MessageKeys.UNKNOWN_CONTENT } }) {
+      try {
+        streamDeserializer.entityCollection(toStream((String) testCase[0]), entityType);
+        fail("Expected exception not thrown.");
+      } catch (final DeserializerException e) {
+        assertEquals(testCase[1], e.getMessageKey());
+      }
+    }
+  }
+
+  @Test
+  public void entityIterator() throws Exception {
+    final EdmEntityType entityType = getEntityType("ETAllPrim");
+    final EntityCollection expected =
+        treeDeserializer.entityCollection(getFileAsStream("ESAllPrim.json"), entityType).getEntityCollection();
+    for (final ODataDeserializer deserializer : new ODataDeserializer[] { treeDeserializer, streamDeserializer }) {
+      final EntityIterator iterator = deserializer.entityIterator(getFileAsStream("ESAllPrim.json"), entityType);
+      for (final Entity entity : expected.getEntities()) {
+        assertTrue(iterator.hasNext());
+        assertSameEntity(entity, iterator.next());
+      }
+      assertFalse(iterator.hasNext());
+    }
+  }
+
+  @Test
+  public void entityIteratorIsLazy() throws Exception {
+    final EntityIterator iterator = streamDeserializer.entityIterator(
+        toStream("{\"@odata.count\":2,\"value\":[{\"PropertyInt16\":1},{\"PropertyInt16\":\"x\"}]"),
+        getEntityType("ETAllPrim"));
+    assertEquals(Integer.valueOf(2), iterator.getCount());
+    assertEquals((short) 1, iterator.next().getProperty("PropertyInt16").getValue());
+    try {
+      iterator.hasNext();
+      fail("Expected exception not thrown.");
+    } catch (final ODataRuntimeException e) {
+      assertEquals(DeserializerException.MessageKeys.INVALID_VALUE_FOR_PROPERTY,
+          ((DeserializerException) e.getCause()).getMessageKey());
+    }
+  }
+
+  @Test
+  public void entityIteratorErrors() throws Exception {
+    try {
+      streamDeserializer.entityIterator(toStream("{\"unknown\":1}"), getEntityType("ETAllPrim"));
+      fail("Expected exception not thrown.");
+    } catch (final DeserializerException e) {
+      assertEquals(DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT, e.getMessageKey());
+    }
+    final EntityIterator iterator = streamDeserializer.entityIterator(
+        toStream("{\"value\":[],\"unknown\":1}"), getEntityType("ETAllPrim"));
+    try {
+      iterator.hasNext();
+      fail("Expected exception not thrown.");
+    } catch (final ODataRuntimeException e) {
+      assertEquals(DeserializerException.MessageKeys.UNKNOWN_CONTENT,
+          ((DeserializerException) e.getCause()).getMessageKey());
+    }
+  }
+
+  /** Compares entities; binary values are compared by content. */
+  private void assertSameEntity(final Entity expected, final Entity actual) {
+    assertEquals(expected.getType(), actual.getType());
+    assertEquals(expected.getProperties().size(), actual.getProperties().size());
+    for (int i = 0; i < expected.getProperties().size(); i++) {
+      final Property expectedProperty = expected.getProperties().get(i);
+      final Property actualProperty = actual.getProperties().get(i);
+      assertEquals(expectedProperty.getName(), actualProperty.getName());
+      assertEquals(expectedProperty.getType(), actualProperty.getType());
+      assertEquals(expectedProperty.getValueType(), actualProperty.getValueType());
+      assertTrue(expectedProperty.getName(), Arrays.deepEquals(
+          new Object[] { expectedProperty.getValue() }, new Object[] { actualProperty.getValue() }));
+    }
+    assertEquals(expected.getNavigationBindings(), actual.getNavigationBindings());
+    assertEquals(expected.getNavigationLinks().size(), actual.getNavigationLinks().size());
+    for (int i = 0; i < expected.getNavigationLinks().size(); i++) {
+      final Link expectedLink = expected.getNavigationLinks().get(i);
+      final Link actualLink = actual.getNavigationLinks().get(i);
+      assertEquals(expectedLink.getTitle(), actualLink.getTitle());
+      assertEquals(expectedLink.getType(), actualLink.getType());
+      if (expectedLink.getInlineEntity() != null) {
+        assertSameEntity(expectedLink.getInlineEntity(), actualLink.getInlineEntity());
+      }
+      if (expectedLink.getInlineEntitySet() != null) {
+        final List<Entity> expectedEntities = expectedLink.getInlineEntitySet().getEntities();
+        assertEquals(expectedEntities.size(), actualLink.getInlineEntitySet().getEntities().size());
+        for (int j = 0; j < expectedEntities.size(); j++) {
+          assertSameEntity(expectedEntities.get(j), actualLink.getInlineEntitySet().getEntities().get(j));
+        }
+      }
+    }
+  }
+
+  private EdmEntityType getEntityType(final String entityTypeName) {
+    return edm.getEntityType(new FullQualifiedName(NAMESPACE, entityTypeName));
+  }
+
+  private InputStream toStream(final String input) {
+    return new ByteArrayInputStream(input.getBytes());
+  }
+
+  private void expectException(final String input, final DeserializerException.MessageKeys messageKey) {
+    try {
+      streamDeserializer.entity(toStream(input), getEntityType("ETAllPrim"));
+      fail("Expected exception not thrown.");
+    } catch (final DeserializerException e) {
+      assertEquals(messageKey, e.getMessageKey());
+    }
+  }
+}
@@ -33,6 +33,7 @@ import java.util.UUID;
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmEntityContainer;
@@ -42,7 +43,9 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.core.deserializer.AbstractODataDeserializerTest;
 import org.custommonkey.xmlunit.XMLUnit;
@@ -971,6 +974,39 @@ public class ODataXmlDeserializerTest extends AbstractODataDeserializerTest {
         getCVProperty((ComplexValue) complexCollection.get(2), "PropertyString").asPrimitive());
   }
 
+  @Test
+  public void entityIterator() throws Exception {
+    final String entry = "<entry>\n"
+        + "  <content type=\"application/xml\">\n"
+        + "    <metadata:properties>\n"
+        + "      <data:PropertyInt16>%s</data:PropertyInt16>\n"
+        + "      <data:PropertyString>Test</data:PropertyString>\n"
+        + "    </metadata:properties>\n"
+        + "  </content>\n"
+        + "</entry>\n";
+    final String payload = "<feed xmlns=\"http://www.w3.org/2005/Atom\"\n"
+        + "  xmlns:metadata=\"http://docs.oasis-open.org/odata/ns/metadata\"\n"
+        + "  xmlns:data=\"http://docs.oasis-open.org/odata/ns/data\">\n"
+        + "  <metadata:count>3</metadata:count>\n"
+        + String.format(entry, "1") + String.format(entry, "2") + String.format(entry, "x")
+        + "</feed>";
+    final EntityIterator iterator = deserializer.entityIterator(new ByteArrayInputStream(payload.getBytes()),
+        entityContainer.getEntitySet("ESTwoPrim").getEntityType());
+
+    Assert.assertTrue(iterator.hasNext());
+    Assert.assertEquals(Integer.valueOf(3), iterator.getCount());
+    Assert.assertEquals((short) 1, iterator.next().getProperty("PropertyInt16").asPrimitive());
+    final Entity second = iterator.next();
+    Assert.assertEquals("olingo.odata.test1.ETTwoPrim", second.getType());
+    Assert.assertEquals((short) 2, second.getProperty("PropertyInt16").asPrimitive());
+    try {
+      iterator.hasNext();
+      Assert.fail("Expected exception not thrown.");
+    } catch (final ODataRuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof DeserializerException);
+    }
+  }
+
   @Test
   public void entityReference() throws Exception {
     String payload = "<metadata:ref xmlns:metadata=\"http://docs.oasis-open.org/odata/ns/metadata\"\n" + 
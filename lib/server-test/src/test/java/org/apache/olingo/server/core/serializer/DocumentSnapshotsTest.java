@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.core.serializer.DocumentSnapshots.Snapshot;
+import org.apache.olingo.server.core.serializer.DocumentSnapshots.SnapshotInputStream;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class DocumentSnapshotsTest {
+
+  private static final String SERVICE_ROOT = "http://localhost:8080/odata.svc/";
+
+  private final OData odata = OData.newInstance();
+
+  private String metadataETag = "W/\"1\"";
+
+  private final ServiceMetadata metadata = odata.createServiceMetadata(new EdmTechProvider(),
+      Collections.<EdmxReference> emptyList(),
+      new ServiceMetadataETagSupport() {
+        @Override
+        public String getMetadataETag() {
+          return metadataETag;
+        }
+
+        @Override
+        public String getServiceDocumentETag() {
+          return null;
+        }
+      });
+
+  @Test
+  public void metadataDocument() throws Exception {
+    final ODataSerializer serializer = odata.createSerializer(ContentType.APPLICATION_XML);
+    final Snapshot snapshot = snapshot(serializer.metadataDocument(metadata).getContent());
+    assertSame(snapshot, snapshot(odata.createSerializer(ContentType.APPLICATION_XML)
+        .metadataDocument(metadata).getContent()));
+    assertNotSame(snapshot, snapshot(odata.createSerializer(ContentType.JSON).metadataDocument(metadata).getContent()));
+
+    final byte[] content = IOUtils.toByteArray(serializer.metadataDocument(metadata).getContent());
+    assertEquals(snapshot.getLength(), content.length);
+    assertArrayEquals(content,
+        IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzipContent()))));
+    assertTrue(new String(content, "UTF-8").contains("ESAllPrim"));
+
+    metadataETag = "W/\"2\"";
+    assertNotSame(snapshot, snapshot(serializer.metadataDocument(metadata).getContent()));
+  }
+
+  @Test
+  public void serviceDocument() throws Exception {
+    final Snapshot snapshot =
+        snapshot(odata.createSerializer(ContentType.JSON).serviceDocument(metadata, SERVICE_ROOT).getContent());
+    assertSame(snapshot,
+        snapshot(odata.createSerializer(ContentType.JSON).serviceDocument(metadata, SERVICE_ROOT).getContent()));
+    assertNotSame(snapshot,
+        snapshot(odata.createSerializer(ContentType.JSON).serviceDocument(metadata, null).getContent()));
+    assertNotSame(snapshot, snapshot(odata.createSerializer(ContentType.JSON_NO_METADATA)
+        .serviceDocument(metadata, SERVICE_ROOT).getContent()));
+  }
+
+  @Test
+  public void bounded() throws Exception {
+    final ODataSerializer serializer = odata.createSerializer(ContentType.JSON);
+    for (int i = 0; i < DocumentSnapshots.MAX_SNAPSHOTS; i++) {
+      snapshot(serializer.serviceDocument(metadata, SERVICE_ROOT + i + '/').getContent());
+    }
+    final InputStream content = serializer.serviceDocument(metadata, SERVICE_ROOT).getContent();
+    assertFalse(content instanceof SnapshotInputStream);
+    assertTrue(IOUtils.toString(content, "UTF-8").contains(SERVICE_ROOT));
+    snapshot(serializer.serviceDocument(metadata, SERVICE_ROOT + "0/").getContent());
+  }
+
+  @Test
+  public void otherServiceMetadata() throws Exception {
+    final ServiceMetadata other = Mockito.mock(ServiceMetadata.class);
+    Mockito.when(other.getEdm()).thenReturn(metadata.getEdm());
+    Mockito.when(other.getReferences()).thenReturn(Collections.<EdmxReference> emptyList());
+    final InputStream content = odata.createSerializer(ContentType.APPLICATION_XML).metadataDocument(other)
+        .getContent();
+    assertFalse(content instanceof SnapshotInputStream);
+    assertTrue(IOUtils.toString(content, "UTF-8").contains("ESAllPrim"));
+  }
+
+  private static Snapshot snapshot(final InputStream content) {
+    assertTrue(content instanceof SnapshotInputStream);
+    return ((SnapshotInputStream) content).getSnapshot();
+  }
+}
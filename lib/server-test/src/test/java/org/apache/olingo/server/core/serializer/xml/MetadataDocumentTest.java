@@ -19,11 +19,13 @@
 package org.apache.olingo.server.core.serializer.xml;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 
 import java.net.URI;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
@@ -150,4 +152,20 @@ public class MetadataDocumentTest {
         containsString("<Property Name=\"CollPropertyDefString\" Type=\"Collection(Namespace1_Alias.TDString)\">"
         		+ "</Property>"));
   }
+
+  @Test
+  public void frozenMetadataIsIdentical() throws Exception {
+    final OData odata = OData.newInstance();
+    final List<EdmxReference> references = Collections.singletonList(
+        new EdmxReference(URI.create(CORE_VOCABULARY))
+            .addInclude(new EdmxReferenceInclude("Org.OData.Core.V1", "Core")));
+    final ServiceMetadata lazy = odata.createServiceMetadata(new EdmTechProvider(), references);
+    final ServiceMetadata frozen = odata.createServiceMetadata(new EdmTechProvider(), references, null, true);
+
+    for (final ContentType contentType : new ContentType[] { ContentType.APPLICATION_XML, ContentType.JSON }) {
+      assertEquals(
+          IOUtils.toString(odata.createSerializer(contentType).metadataDocument(lazy).getContent()),
+          IOUtils.toString(odata.createSerializer(contentType).metadataDocument(frozen).getContent()));
+    }
+  }
 }
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.options.FilterHandler;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.options.OrderByHandler;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ExpressionCompilerTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  /** The compiled filters must select the same entities as the interpreting expression visitor. */
+  @Test
+  public void filterLikeVisitor() throws Exception {
+    assertFilter("ESAllPrim", "PropertyInt16 eq 32767", 1);
+    assertFilter("ESAllPrim", "PropertyInt16 ge 0 and PropertyInt64 lt 100", 2);
+    assertFilter("ESAllPrim", "PropertyInt16 eq 1 or PropertyString eq 'First Resource - positive values'", 1);
+    assertFilter("ESAllPrim", "not (PropertyInt16 eq 0)", 3);
+    assertFilter("ESAllPrim", "PropertyBoolean eq false", 3);
+    assertFilter("ESAllPrim", "PropertyByte eq 255 and PropertySByte eq 127", 1);
+    assertFilter("ESAllPrim", "PropertyDecimal eq 34", 1);
+    assertFilter("ESAllPrim", "PropertyDecimal gt -1.5", 3);
+    assertFilter("ESAllPrim", "PropertySingle lt 0", 1);
+    assertFilter("ESAllPrim", "PropertyDouble le -179000", 2);
+    assertFilter("ESAllPrim", "PropertyDouble eq 0 sub (358000 div 2)", 1);
+    assertFilter("ESAllPrim", "PropertyInt64 gt 9223372036854775806", 1);
+    assertFilter("ESAllPrim", "PropertyInt32 eq 2147483646 add 1", 1);
+    assertFilter("ESAllPrim", "PropertyDate eq 2012-12-03", 1);
+    assertFilter("ESAllPrim", "PropertyDate gt 2012-12-03", 1);
+    assertFilter("ESAllPrim", "PropertyDateTimeOffset eq 2012-12-03T07:16:23Z", 1);
+    assertFilter("ESAllPrim", "PropertyTimeOfDay eq 03:26:05", 1);
+    assertFilter("ESAllPrim", "PropertyDuration eq duration'PT6S'", 1);
+    assertFilter("ESAllPrim", "PropertyString eq null", 0);
+    assertFilter("ESAllPrim", "PropertyInt16 add null eq null", 4);
+    assertFilter("ESAllPrim", "endswith(PropertyString,'values')", 2);
+    assertFilter("ESAllPrim", "startswith(PropertyString,'First')", 1);
+    assertFilter("ESAllPrim", "contains(PropertyString,tolower('POSITIVE'))", 1);
+    assertFilter("ESAllPrim", "contains(PropertyString,concat(toupper('f'),'irst'))", 1);
+    assertFilter("ESAllPrim", "substringof('Second',PropertyString)", 1);
+    assertFilter("ESAllPrim", "indexof(PropertyString,'positive') eq 17", 1);
+    assertFilter("ESAllPrim", "length(PropertyString) gt 10", 3);
+    assertFilter("ESAllPrim", "trim(substring(PropertyString,0,6)) eq 'First'", 1);
+    assertFilter("ESAllPrim", "substring(PropertyString,length('First') add 1,8) eq ('Resource')", 1);
+    assertFilter("ESAllPrim", "substring(PropertyString,-1,1) eq 'F'", 1);
+    assertFilter("ESAllPrim", "substring(PropertyString,0,-1) eq ''", 4);
+    assertFilter("ESAllPrim", "year(PropertyDate) eq 2015", 1);
+    assertFilter("ESAllPrim", "month(PropertyDate) eq 11", 1);
+    assertFilter("ESAllPrim", "day(PropertyDate) eq 5", 1);
+    assertFilter("ESAllPrim", "year(PropertyDateTimeOffset) eq 2012", 1);
+    assertFilter("ESAllPrim", "hour(PropertyDateTimeOffset) eq 7", 2);
+    assertFilter("ESAllPrim", "second(PropertyDateTimeOffset) eq 8", 1);
+    assertFilter("ESAllPrim", "hour(PropertyTimeOfDay) eq 3", 1);
+    assertFilter("ESAllPrim", "minute(PropertyTimeOfDay) eq 49", 1);
+    assertFilter("ESAllPrim", "hour(null) eq null", 4);
+    assertFilter("ESAllPrim", "'Tes' lt 'Test' and 'Test1' gt 'Test'", 4);
+
+    assertFilter("ESTwoKeyNav", "PropertyInt16 add 1 eq (1 sub 3) div 2 mul 3 add 7", 1);
+    assertFilter("ESTwoKeyNav", "PropertyInt16 gt -2 add --3", 2);
+    assertFilter("ESTwoKeyNav", "PropertyInt16 gt -2.0 add --3.0", 2);
+    assertFilter("ESTwoKeyNav", "PropertyInt16 mod 2 eq 1", 3);
+    assertFilter("ESTwoKeyNav", "PropertyInt16 eq floor(3.8) or PropertyInt16 eq ceiling(1.1)", 2);
+    assertFilter("ESTwoKeyNav", "PropertyInt16 eq round(2.5)", 1);
+    assertFilter("ESTwoKeyNav", "PropertyInt16 eq 0 add -(5 add null)", 0);
+    assertFilter("ESTwoKeyNav", "PropertyComp/PropertyComp/PropertyBoolean eq not null", 0);
+    assertFilter("ESTwoKeyNav", "substring(PropertyComp/PropertyComp/PropertyString,6) eq 'Value'", 4);
+    assertFilter("ESTwoKeyNav", "null eq null", 4);
+    assertFilter("ESTwoKeyNav", "null ne null", 0);
+
+    assertFilter("ESCompAllPrim", "PropertyComp/PropertyInt16 gt 0", 2);
+    assertFilter("ESMixEnumDefCollComp",
+        "PropertyEnumString eq olingo.odata.test1.ENString'String3'", 1);
+    assertFilter("ESMixEnumDefCollComp", "PropertyDefString eq 'key1'", 3);
+    assertFilter("ESKeyNav", "NavPropertyETTwoKeyNavOne/PropertyString eq '1'", 2);
+
+    // Comparisons with null operands
+    assertFilter("ESAllPrim", "PropertyInt16 gt null", 0);
+    assertFilter("ESAllPrim", "PropertyInt16 ne null", 4);
+    assertFilter("ESAllNullable", "PropertyInt16 lt 1", 0);
+    assertFilter("ESAllNullable", "PropertyInt16 le null", 1);
+    assertFilter("ESAllNullable", "PropertyString gt 'a' or PropertyString lt 'a'", 0);
+    assertFilter("ESAllNullable", "PropertyString ge null", 1);
+    assertFilter("ESAllNullable", "not (PropertyDouble lt 1)", 1);
+    assertFilter("ESKeyNav", "NavPropertyETTwoKeyNavOne/PropertyString lt 'z'", 3);
+    assertFilter("ESAllPrim", "PropertyString gt 'A' and PropertyString lt 'Z'", 3);
+  }
+
+  @Test
+  public void filterApply() throws Exception {
+    final List<Entity> expected = new ArrayList<Entity>();
+    for (final Entity entity : data.readAll(edm.getEntityContainer().getEntitySet("ESAllPrim")).getEntities()) {
+      if (!Short.valueOf((short) 0).equals(entity.getProperty("PropertyInt16").getValue())) {
+        expected.add(entity);
+      }
+    }
+    assertEquals(3, expected.size());
+    assertEquals(expected, filter("ESAllPrim", "PropertyInt16 ne 0"));
+  }
+
+  @Test
+  public void evaluate() throws Exception {
+    final Entity entity = data.readAll(edm.getEntityContainer().getEntitySet("ESAllPrim")).getEntities().get(0);
+    assertEquals(LocalDate.of(2012, 12, 3), compile("ESAllPrim", "PropertyDate").evaluate(entity));
+    assertEquals(Instant.parse("2012-12-03T07:16:23Z"),
+        compile("ESAllPrim", "PropertyDateTimeOffset").evaluate(entity));
+    assertEquals(BigDecimal.valueOf(6), compile("ESAllPrim", "PropertyDuration").evaluate(entity));
+    assertEquals(32768L, compile("ESAllPrim", "PropertyInt16 add 1").evaluate(entity));
+    assertEquals(0, new BigDecimal("1.5").compareTo(
+        (BigDecimal) compile("ESAllPrim", "PropertyByte div 170.0").evaluate(entity)));
+    assertNull(compile("ESAllPrim", "PropertyInt16 mul null").evaluate(entity));
+    assertFalse((Boolean) compile("ESAllPrim", "null gt null").evaluate(entity));
+    assertTrue((Boolean) compile("ESAllPrim", "null ge null").evaluate(entity));
+    assertNull(compile("ESAllPrim", "null and true").evaluate(entity));
+    assertFalse((Boolean) compile("ESAllPrim", "null and false").evaluate(entity));
+    assertTrue((Boolean) compile("ESAllPrim", "true or null").evaluate(entity));
+  }
+
+  @Test
+  public void evaluationError() throws Exception {
+    final Entity entity = data.readAll(edm.getEntityContainer().getEntitySet("ESAllPrim")).getEntities().get(0);
+    try {
+      compile("ESAllPrim", "PropertyInt16 div 0").evaluate(entity);
+      fail("Expected an ODataApplicationException");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+    }
+    try {
+      compile("ESAllPrim", "PropertyInt64 add 1").evaluate(entity);
+      fail("Expected an ODataApplicationException");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void operators() throws Exception {
+    assertEquals(2, filter("ESAllPrim", "PropertyInt16 in (0, -32768)").size());
+    assertEquals(1, filter("ESAllPrim", "PropertyGuid eq 01234567-89ab-cdef-0123-456789abcdef").size());
+    assertEquals(2, filter("ESMixEnumDefCollComp", "PropertyEnumString has olingo.odata.test1.ENString'String1'")
+        .size());
+    assertEquals(1, filter("ESMixEnumDefCollComp",
+        "PropertyEnumString has olingo.odata.test1.ENString'String1,String2'").size());
+  }
+
+  @Test
+  public void unsupportedFilter() throws Exception {
+    assertCompileError("ESAllPrim", "PropertyDateTimeOffset eq 2012-12-03T07:16:19Z add duration'PT4S'",
+        HttpStatusCode.NOT_IMPLEMENTED);
+    assertCompileError("ESAllPrim", "PropertyDouble mod 5 eq 0", HttpStatusCode.NOT_IMPLEMENTED);
+    assertCompileError("ESAllPrim", "fractionalseconds(PropertyTimeOfDay) eq 0", HttpStatusCode.NOT_IMPLEMENTED);
+    assertCompileError("ESAllPrim", "PropertyInt16 eq @p&@p=1", HttpStatusCode.NOT_IMPLEMENTED);
+    assertCompileError("ESTwoKeyNav", "CollPropertyComp/any(c:c/PropertyInt16 eq 1)",
+        HttpStatusCode.NOT_IMPLEMENTED);
+    assertCompileError("ESKeyNav", "NavPropertyETTwoKeyNavMany/$count eq 2", HttpStatusCode.NOT_IMPLEMENTED);
+  }
+
+  /** The compiled order must be the same as the one obtained with the interpreting expression visitor. */
+  @Test
+  public void orderByLikeVisitor() throws Exception {
+    assertOrderBy("ESAllPrim", "PropertyString");
+    assertOrderBy("ESAllPrim", "PropertyInt16 desc");
+    assertOrderBy("ESAllPrim", "PropertyDateTimeOffset,PropertyDouble desc");
+    assertOrderBy("ESTwoKeyNav", "PropertyInt16 desc,PropertyString");
+    assertOrderBy("ESTwoKeyNav", "PropertyComp/PropertyComp/PropertyString desc,PropertyString desc");
+    assertOrderBy("ESKeyNav", "NavPropertyETTwoKeyNavOne/PropertyString desc,PropertyInt16");
+    assertOrderBy("ESAllPrim", "length(PropertyString) desc");
+    assertOrderBy("ESAllPrim", "PropertyDate desc,PropertyTimeOfDay,PropertyDecimal");
+  }
+
+  /** The handler with a limit from $top must give the beginning of the interpreted order. */
+  @Test
+  public void orderByHandlerWithTop() throws Exception {
+    for (final String[] query : new String[][] {
+        { "ESAllPrim", "$orderby=PropertyString desc&$top=2" },
+        { "ESTwoKeyNav", "$orderby=PropertyComp/PropertyComp/PropertyString,PropertyInt16 desc&$top=3" },
+        { "ESKeyNav", "$orderby=NavPropertyETTwoKeyNavOne/PropertyString desc&$top=1" } }) {
+      final UriInfo uriInfo = parse(query[0], query[1]);
+      final EntityCollection actual = data.readAll(edm.getEntityContainer().getEntitySet(query[0]));
+      final EntityCollection expected = new EntityCollection();
+      expected.getEntities().addAll(actual.getEntities());
+
+      final int top = uriInfo.getTopOption().getValue();
+      OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), actual, uriInfo, edm,
+          OrderByHandler.getSortLimit(null, uriInfo.getTopOption(), null));
+      OrderByHandler.interpretOrderByOption(uriInfo.getOrderByOption(), expected, uriInfo, edm);
+      assertEquals(query[1], expected.getEntities().subList(0, top), actual.getEntities().subList(0, top));
+    }
+  }
+
+  /** Sorting with a limit must give the beginning of the full sort, followed by the rest in original order. */
+  @Test
+  public void orderByLimit() throws Exception {
+    assertOrderByLimit("ESAllPrim", "PropertyInt16 desc");
+    assertOrderByLimit("ESAllPrim", "PropertyDate,PropertyDouble desc");
+    assertOrderByLimit("ESTwoKeyNav", "PropertyComp/PropertyComp/PropertyString desc,PropertyString");
+    assertOrderByLimit("ESKeyNav", "NavPropertyETTwoKeyNavOne/PropertyString,PropertyInt16 desc");
+    assertOrderByLimit("ESMixEnumDefCollComp", "PropertyEnumString desc");
+
+    // Many entities with duplicate and null values; the result must equal that of the stable comparator sort.
+    final CompiledOrderBy compiled = ExpressionCompiler.compileOrderBy(
+        parse("ESAllPrim", "$orderby=PropertyInt16 desc,PropertyDouble").getOrderByOption());
+    final Random random = new Random(42);
+    final List<Entity> original = new ArrayList<Entity>();
+    for (int i = 0; i < 500; i++) {
+      original.add(new Entity()
+          .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE,
+              random.nextInt(10) == 0 ? null : (short) random.nextInt(20)))
+          .addProperty(new Property(null, "PropertyDouble", ValueType.PRIMITIVE, random.nextInt(5) * 0.5)));
+    }
+    final List<Entity> expected = new ArrayList<Entity>(original);
+    Collections.sort(expected, compiled);
+    for (final int limit : new int[] { 1, 7, 50, 499, 500 }) {
+      final List<Entity> actual = new ArrayList<Entity>(original);
+      compiled.sort(actual, limit);
+      assertEquals(expected.subList(0, limit), actual.subList(0, limit));
+    }
+  }
+
+  private void assertFilter(final String entitySet, final String filter, final int expectedCount)
+      throws Exception {
+    final UriInfo uriInfo = parse(entitySet, "$filter=" + filter);
+    final List<Entity> entities = data.readAll(edm.getEntityContainer().getEntitySet(entitySet)).getEntities();
+
+    final CompiledFilter compiled = ExpressionCompiler.compileFilter(uriInfo.getFilterOption());
+    final List<Entity> actual = new ArrayList<Entity>();
+    for (final Entity entity : entities) {
+      if (compiled.matches(entity)) {
+        actual.add(entity);
+      }
+    }
+    final EntityCollection expected = new EntityCollection();
+    expected.getEntities().addAll(entities);
+    FilterHandler.interpretFilterSystemQuery(uriInfo.getFilterOption(), expected, uriInfo, edm);
+    assertEquals(filter, expected.getEntities(), actual);
+    assertEquals(filter, expectedCount, actual.size());
+  }
+
+  private List<Entity> filter(final String entitySet, final String filter) throws Exception {
+    final List<Entity> entities = new ArrayList<Entity>(
+        data.readAll(edm.getEntityContainer().getEntitySet(entitySet)).getEntities());
+    ExpressionCompiler.compileFilter(parse(entitySet, "$filter=" + filter).getFilterOption()).apply(entities);
+    return entities;
+  }
+
+  private void assertOrderBy(final String entitySet, final String orderBy) throws Exception {
+    final UriInfo uriInfo = parse(entitySet, "$orderby=" + orderBy);
+    final List<Entity> actual = new ArrayList<Entity>(
+        data.readAll(edm.getEntityContainer().getEntitySet(entitySet)).getEntities());
+    final EntityCollection expected = new EntityCollection();
+    expected.getEntities().addAll(actual);
+
+    ExpressionCompiler.compileOrderBy(uriInfo.getOrderByOption()).sort(actual);
+    OrderByHandler.interpretOrderByOption(uriInfo.getOrderByOption(), expected, uriInfo, edm);
+    assertEquals(orderBy, expected.getEntities(), actual);
+  }
+
+  private void assertOrderByLimit(final String entitySet, final String orderBy) throws Exception {
+    final CompiledOrderBy compiled = ExpressionCompiler.compileOrderBy(
+        parse(entitySet, "$orderby=" + orderBy).getOrderByOption());
+    final List<Entity> original = data.readAll(edm.getEntityContainer().getEntitySet(entitySet)).getEntities();
+    final List<Entity> sorted = new ArrayList<Entity>(original);
+    compiled.sort(sorted);
+
+    for (int limit = 0; limit <= original.size() + 1; limit++) {
+      final List<Entity> actual = new ArrayList<Entity>(original);
+      compiled.sort(actual, limit);
+      final int sortedCount = Math.min(limit, original.size());
+      final List<Entity> expected = new ArrayList<Entity>(sorted.subList(0, sortedCount));
+      for (final Entity entity : original) {
+        if (!expected.subList(0, sortedCount).contains(entity)) {
+          expected.add(entity);
+        }
+      }
+      assertEquals(orderBy + " limit " + limit, expected, actual);
+    }
+  }
+
+  private void assertCompileError(final String entitySet, final String filter, final HttpStatusCode expected)
+      throws Exception {
+    try {
+      ExpressionCompiler.compileFilter(parse(entitySet, "$filter=" + filter).getFilterOption());
+      fail("Expected an ODataApplicationException for " + filter);
+    } catch (final ODataApplicationException e) {
+      assertEquals(filter, expected.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private CompiledExpression compile(final String entitySet, final String expression) throws Exception {
+    return ExpressionCompiler.compile(parse(entitySet, "$orderby=" + expression)
+        .getOrderByOption().getOrders().get(0).getExpression());
+  }
+
+  private UriInfo parse(final String entitySet, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySet, query, null, null);
+  }
+}